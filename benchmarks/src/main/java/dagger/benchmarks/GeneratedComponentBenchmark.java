@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures components generated for a {@link SyntheticGraph} of a given size: constructing the
+ * component, provisioning every binding from a new component, and provisioning the root binding
+ * from a component that has already been used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GeneratedComponentBenchmark {
+  /** The number of bindings in the component. */
+  @Param({"10", "100", "1000"})
+  public int bindings;
+
+  /** The number of bindings that each binding depends on. */
+  @Param({"2"})
+  public int fanIn;
+
+  /** Whether the bindings are scoped. */
+  @Param({"false", "true"})
+  public boolean scoped;
+
+  /**
+   * Space-separated {@code -A} options for the Dagger processor, for example {@code
+   * -Adagger.switchingProviders=ENABLED}, or {@code none}.
+   */
+  @Param({"none"})
+  public String processorOptions;
+
+  private Path directory;
+  private SyntheticGraph.EntryPoint entryPoint;
+  private Object component;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("synthetic-graph");
+    List<String> options =
+        processorOptions.equals("none")
+            ? ImmutableList.<String>of()
+            : Splitter.on(' ').omitEmptyStrings().splitToList(processorOptions);
+    entryPoint = new SyntheticGraph(bindings, fanIn, scoped).compile(directory, options);
+    component = entryPoint.createComponent();
+    entryPoint.provideRoot(component);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    InProcessCompiler.delete(directory);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object createComponent() {
+    return entryPoint.createComponent();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object createComponentAndProvideRoot() {
+    return entryPoint.provideRoot(entryPoint.createComponent());
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object provideRoot() {
+    return entryPoint.provideRoot(component);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object provideRoot_contended() {
+    return entryPoint.provideRoot(component);
+  }
+}
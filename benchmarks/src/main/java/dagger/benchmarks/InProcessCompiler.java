@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import dagger.internal.codegen.ComponentProcessor;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Compiles generated sources with the Dagger processor on the benchmark's own class path, and loads
+ * the resulting classes.
+ */
+final class InProcessCompiler {
+  private final ClassLoader classLoader;
+  private final ImmutableList<String> notes;
+
+  private InProcessCompiler(ClassLoader classLoader, ImmutableList<String> notes) {
+    this.classLoader = classLoader;
+    this.notes = notes;
+  }
+
+  /**
+   * Writes {@code sources}, keyed by path, to {@code directory} and compiles them with a new
+   * {@link ComponentProcessor} and the given {@code -A} options. The classes are loaded by a new
+   * class loader whose parent loaded this class.
+   */
+  static InProcessCompiler compile(
+      Map<String, String> sources, Path directory, List<String> processorOptions)
+      throws IOException {
+    Path sourceDirectory = Files.createDirectories(directory.resolve("src"));
+    Path classDirectory = Files.createDirectories(directory.resolve("classes"));
+    List<File> sourceFiles = new ArrayList<>();
+    for (Map.Entry<String, String> source : sources.entrySet()) {
+      Path sourceFile = sourceDirectory.resolve(source.getKey());
+      Files.createDirectories(sourceFile.getParent());
+      Files.write(sourceFile, source.getValue().getBytes(StandardCharsets.UTF_8));
+      sourceFiles.add(sourceFile.toFile());
+    }
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    checkState(compiler != null, "benchmarks that compile sources must run on a JDK");
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(diagnostics, Locale.getDefault(), StandardCharsets.UTF_8)) {
+      List<String> options =
+          ImmutableList.<String>builder()
+              .add("-classpath", System.getProperty("java.class.path"))
+              .add("-d", classDirectory.toString())
+              .add("-s", classDirectory.toString())
+              .addAll(processorOptions)
+              .build();
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              diagnostics,
+              options,
+              null,
+              fileManager.getJavaFileObjectsFromFiles(sourceFiles));
+      task.setProcessors(ImmutableList.of(new ComponentProcessor()));
+      if (!task.call()) {
+        throw new IllegalStateException("Compilation failed: " + diagnostics.getDiagnostics());
+      }
+    }
+    ImmutableList.Builder<String> notes = ImmutableList.builder();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind().equals(Diagnostic.Kind.NOTE)) {
+        notes.add(diagnostic.getMessage(Locale.getDefault()));
+      }
+    }
+    return new InProcessCompiler(
+        new URLClassLoader(
+            new URL[] {classDirectory.toUri().toURL()},
+            InProcessCompiler.class.getClassLoader()),
+        notes.build());
+  }
+
+  /** Returns the messages of the notes that were reported while compiling. */
+  ImmutableList<String> notes() {
+    return notes;
+  }
+
+  /** Returns a new instance of the compiled class {@code className}. */
+  <T> T instantiate(String className, Class<T> type) {
+    try {
+      return classLoader.loadClass(className).asSubclass(type).newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Deletes a directory that sources were compiled in. */
+  static void delete(Path directory) throws IOException {
+    Files.walkFileTree(
+        directory,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+              throws IOException {
+            Files.delete(file);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+            if (e != null) {
+              throw e;
+            }
+            Files.delete(dir);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import dagger.internal.Factory;
+import dagger.internal.MapFactory;
+import dagger.internal.MapProviderFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures requesting a {@code Map<K, Provider<V>>} from a {@link MapProviderFactory} and a
+ * {@code Map<K, V>} from a {@link MapFactory}, from one thread and from several threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MapFactoryBenchmark {
+  /** The number of {@code @IntoMap} contributions. */
+  @Param({"1", "10", "100"})
+  public int size;
+
+  private Provider<Map<Integer, Provider<Integer>>> mapProviderFactory;
+  private Provider<Map<Integer, Integer>> mapFactory;
+
+  @Setup
+  public void setUp() {
+    MapProviderFactory.Builder<Integer, Integer> builder = MapProviderFactory.builder(size);
+    for (int i = 0; i < size; i++) {
+      builder.put(i, constant(i));
+    }
+    mapProviderFactory = builder.build();
+    mapFactory = MapFactory.create(mapProviderFactory);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Map<Integer, Provider<Integer>> mapOfProviders() {
+    return mapProviderFactory.get();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Map<Integer, Provider<Integer>> mapOfProviders_contended() {
+    return mapProviderFactory.get();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Map<Integer, Integer> mapOfValues() {
+    return mapFactory.get();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Map<Integer, Integer> mapOfValues_contended() {
+    return mapFactory.get();
+  }
+
+  private static Factory<Integer> constant(final Integer value) {
+    return new Factory<Integer>() {
+      @Override
+      public Integer get() {
+        return value;
+      }
+    };
+  }
+}
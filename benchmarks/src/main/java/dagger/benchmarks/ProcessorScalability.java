@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Measures how the time and memory that the Dagger processor needs grow with the size of a
+ * component, by compiling {@link SyntheticComponentTree}s of increasing size in this JVM.
+ *
+ * <p>For each size, prints the total compilation time, the time of each step of processing the
+ * component as reported by {@code -Adagger.reportProcessingTimes}, and the peak heap usage during
+ * compilation. Compilation of large trees takes a long time, so this is a plain program rather than
+ * a JMH benchmark:
+ *
+ * <pre>
+ * java -Xmx4g -cp benchmarks/target/benchmarks.jar dagger.benchmarks.ProcessorScalability \
+ *     [bindings...] [-depth=3] [-branching=3] [-A&lt;processor option&gt;...]
+ * </pre>
+ */
+public final class ProcessorScalability {
+  private static final ImmutableList<Integer> DEFAULT_BINDINGS =
+      ImmutableList.of(1_000, 10_000, 50_000);
+
+  public static void main(String[] args) throws IOException {
+    List<Integer> sizes = new ArrayList<>();
+    List<String> processorOptions = new ArrayList<>();
+    processorOptions.add("-Adagger.reportProcessingTimes=ENABLED");
+    int depth = 3;
+    int branching = 3;
+    for (String arg : args) {
+      if (arg.startsWith("-depth=")) {
+        depth = Integer.parseInt(arg.substring("-depth=".length()));
+      } else if (arg.startsWith("-branching=")) {
+        branching = Integer.parseInt(arg.substring("-branching=".length()));
+      } else if (arg.startsWith("-A")) {
+        processorOptions.add(arg);
+      } else {
+        sizes.add(Integer.parseInt(arg));
+      }
+    }
+    if (sizes.isEmpty()) {
+      sizes.addAll(DEFAULT_BINDINGS);
+    }
+
+    // Warms up the compiler and the processor so that the first size is not measured cold.
+    compile(new SyntheticComponentTree(sizes.get(0), depth, branching, 2), processorOptions);
+
+    System.out.printf(
+        "%10s %10s %12s %16s%n", "bindings", "components", "total (ms)", "peak heap (MB)");
+    for (int size : sizes) {
+      SyntheticComponentTree tree = new SyntheticComponentTree(size, depth, branching, 2);
+      Result result = compile(tree, processorOptions);
+      System.out.printf(
+          "%10d %10d %12d %16d%n", size, tree.components(), result.totalMillis, result.peakHeapMb);
+      for (String note : result.notes) {
+        System.out.println("    " + note);
+      }
+    }
+  }
+
+  private static Result compile(SyntheticComponentTree tree, List<String> processorOptions)
+      throws IOException {
+    Path directory = Files.createTempDirectory("synthetic-component-tree");
+    try {
+      List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType().equals(MemoryType.HEAP)) {
+          heapPools.add(pool);
+        }
+      }
+      System.gc();
+      for (MemoryPoolMXBean pool : heapPools) {
+        pool.resetPeakUsage();
+      }
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      InProcessCompiler compiler =
+          InProcessCompiler.compile(tree.sources(), directory, processorOptions);
+      long totalMillis = stopwatch.elapsed(MILLISECONDS);
+      // The sum of the pools' peaks is an upper bound, since each pool may peak at another time.
+      long peakHeapBytes = 0;
+      for (MemoryPoolMXBean pool : heapPools) {
+        peakHeapBytes += pool.getPeakUsage().getUsed();
+      }
+      return new Result(totalMillis, peakHeapBytes >> 20, compiler.notes());
+    } finally {
+      InProcessCompiler.delete(directory);
+    }
+  }
+
+  private static final class Result {
+    final long totalMillis;
+    final long peakHeapMb;
+    final ImmutableList<String> notes;
+
+    Result(long totalMillis, long peakHeapMb, ImmutableList<String> notes) {
+      this.totalMillis = totalMillis;
+      this.peakHeapMb = peakHeapMb;
+      this.notes = notes;
+    }
+  }
+
+  private ProcessorScalability() {}
+}
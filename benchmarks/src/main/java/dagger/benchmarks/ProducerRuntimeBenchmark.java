@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import dagger.producers.Produced;
+import dagger.producers.Producer;
+import dagger.producers.internal.AbstractProducer;
+import dagger.producers.internal.FutureCombiner;
+import dagger.producers.internal.MapOfProducerProducer;
+import dagger.producers.internal.MapProducer;
+import dagger.producers.internal.Producers;
+import dagger.producers.internal.SetProducer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the building blocks of generated production components: memoizing a future in {@link
+ * AbstractProducer#get()}, combining contributions in {@link SetProducer} and {@link MapProducer},
+ * wrapping a future in {@link Producers#createFutureProduced}, and combining the inputs of a
+ * producer with several of them by {@link FutureCombiner} or, for comparison, by transforming
+ * {@link Futures#allAsList}.
+ *
+ * <p>Since producers memoize their futures, each invocation creates the producer that it measures.
+ * Run with {@code -prof gc} to also report the bytes allocated per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ProducerRuntimeBenchmark {
+  /** The number of contributions to the set and map producers, and of combined inputs. */
+  @Param({"1", "10", "100"})
+  public int size;
+
+  private final ListenableFuture<Object> succeededFuture = Futures.immediateFuture(new Object());
+  private final ListenableFuture<Object> failedFuture =
+      Futures.immediateFailedFuture(new RuntimeException());
+  private List<Producer<Integer>> contributions;
+  private MapOfProducerProducer<Integer, Integer> mapOfProducers;
+  private List<ListenableFuture<Integer>> inputs;
+  private ListenableFuture<?>[] inputArray;
+
+  @Setup
+  public void setUp() {
+    contributions = new ArrayList<>(size);
+    MapOfProducerProducer.Builder<Integer, Integer> mapBuilder =
+        MapOfProducerProducer.builder(size);
+    for (int i = 0; i < size; i++) {
+      Producer<Integer> contribution = Producers.immediateProducer(i);
+      contributions.add(contribution);
+      mapBuilder.put(i, contribution);
+    }
+    mapOfProducers = mapBuilder.build();
+    inputs = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      inputs.add(Futures.immediateFuture(i));
+    }
+    inputArray = inputs.toArray(new ListenableFuture<?>[size]);
+  }
+
+  @Benchmark
+  public ListenableFuture<Object> abstractProducerGet() {
+    return new AbstractProducer<Object>() {
+      @Override
+      protected ListenableFuture<Object> compute() {
+        return succeededFuture;
+      }
+    }.get();
+  }
+
+  @Benchmark
+  public ListenableFuture<Set<Integer>> setProducer() {
+    SetProducer.Builder<Integer> builder = SetProducer.builder(size, 0);
+    for (Producer<Integer> contribution : contributions) {
+      builder.addProducer(contribution);
+    }
+    return builder.build().get();
+  }
+
+  @Benchmark
+  public ListenableFuture<Map<Integer, Integer>> mapProducer() {
+    return MapProducer.create(mapOfProducers).get();
+  }
+
+  @Benchmark
+  public ListenableFuture<Produced<Object>> createFutureProduced_succeeded() {
+    return Producers.createFutureProduced(succeededFuture);
+  }
+
+  @Benchmark
+  public ListenableFuture<Produced<Object>> createFutureProduced_failed() {
+    return Producers.createFutureProduced(failedFuture);
+  }
+
+  @Benchmark
+  public ListenableFuture<Integer> futureCombiner() {
+    return FutureCombiner.combine(
+        new FutureCombiner.AsyncCombiningFunction<Integer>() {
+          @Override
+          public ListenableFuture<Integer> apply(FutureCombiner<Integer> inputs) {
+            return Futures.immediateFuture(inputs.<Integer>value(size - 1));
+          }
+        },
+        MoreExecutors.directExecutor(),
+        inputArray);
+  }
+
+  @Benchmark
+  public ListenableFuture<Integer> allAsListTransform() {
+    return Futures.transformAsync(
+        Futures.<Object>allAsList(inputs),
+        new AsyncFunction<List<Object>, Integer>() {
+          @Override
+          public ListenableFuture<Integer> apply(List<Object> args) {
+            return Futures.immediateFuture((Integer) args.get(size - 1));
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+}
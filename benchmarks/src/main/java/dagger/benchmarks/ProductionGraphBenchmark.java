@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures evaluations of production components generated for a {@link SyntheticProductionGraph}
+ * of a given shape. Each evaluation creates a component and waits for its root node, which runs the
+ * generated {@code compute()} and {@code apply()} methods of every node.
+ *
+ * <p>Reports both throughput and the distribution of latencies. Run with {@code -prof gc} to also
+ * report the bytes allocated per evaluation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ProductionGraphBenchmark {
+  /** Runs producers on the thread that completes their inputs, or on a pool of threads. */
+  public enum ExecutorKind {
+    DIRECT {
+      @Override
+      ExecutorService create() {
+        return MoreExecutors.newDirectExecutorService();
+      }
+    },
+    POOLED {
+      @Override
+      ExecutorService create() {
+        return Executors.newFixedThreadPool(4);
+      }
+    },
+    ;
+
+    abstract ExecutorService create();
+  }
+
+  /** The number of nodes in each layer. */
+  @Param({"1", "10", "100"})
+  public int width;
+
+  /** The number of layers. */
+  @Param({"1", "5"})
+  public int depth;
+
+  /** The number of nodes of the next layer that each node depends on. */
+  @Param({"1", "3"})
+  public int fanIn;
+
+  @Param
+  public ExecutorKind executor;
+
+  /** Whether the producer methods are {@code @NonBlocking}. */
+  @Param({"false", "true"})
+  public boolean nonBlocking;
+
+  /**
+   * Space-separated {@code -A} options for the Dagger processor, for example {@code
+   * -Adagger.switchingProviders=ENABLED}, or {@code none}.
+   */
+  @Param({"none"})
+  public String processorOptions;
+
+  private Path directory;
+  private SyntheticProductionGraph.EntryPoint entryPoint;
+  private ExecutorService executorService;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("synthetic-production-graph");
+    List<String> options =
+        processorOptions.equals("none")
+            ? ImmutableList.<String>of()
+            : Splitter.on(' ').omitEmptyStrings().splitToList(processorOptions);
+    entryPoint =
+        new SyntheticProductionGraph(width, depth, fanIn, nonBlocking)
+            .compile(directory, options);
+    executorService = executor.create();
+    evaluate();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    executorService.shutdown();
+    InProcessCompiler.delete(directory);
+  }
+
+  @Benchmark
+  public Object evaluate() {
+    return Futures.getUnchecked(entryPoint.produceRoot(executorService));
+  }
+}
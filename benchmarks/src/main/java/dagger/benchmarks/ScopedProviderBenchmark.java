@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import dagger.internal.DoubleCheck;
+import dagger.internal.Factory;
+import dagger.internal.ReentrantLockDoubleCheck;
+import dagger.internal.SingleCheck;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the providers that memoize scoped bindings: creating one and requesting its instance
+ * the first time, and requesting the memoized instance from one thread and from several threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ScopedProviderBenchmark {
+  /** The kinds of scoped provider that generated components use. */
+  public enum ScopedProviderKind {
+    DOUBLE_CHECK {
+      @Override
+      Provider<Object> scope(Factory<Object> factory) {
+        return DoubleCheck.provider(factory);
+      }
+    },
+    SINGLE_CHECK {
+      @Override
+      Provider<Object> scope(Factory<Object> factory) {
+        return SingleCheck.provider(factory);
+      }
+    },
+    REENTRANT_LOCK_DOUBLE_CHECK {
+      @Override
+      Provider<Object> scope(Factory<Object> factory) {
+        return ReentrantLockDoubleCheck.provider(factory);
+      }
+    },
+    ;
+
+    abstract Provider<Object> scope(Factory<Object> factory);
+  }
+
+  private static final Factory<Object> NEW_OBJECT =
+      new Factory<Object>() {
+        @Override
+        public Object get() {
+          return new Object();
+        }
+      };
+
+  @Param({"DOUBLE_CHECK", "SINGLE_CHECK", "REENTRANT_LOCK_DOUBLE_CHECK"})
+  public ScopedProviderKind kind;
+
+  private Provider<Object> scoped;
+
+  @Setup
+  public void setUp() {
+    scoped = kind.scope(NEW_OBJECT);
+    scoped.get();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object createAndGet() {
+    return kind.scope(NEW_OBJECT).get();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object get() {
+    return scoped.get();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object get_contended() {
+    return scoped.get();
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import dagger.internal.Factory;
+import dagger.internal.SetFactory;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link SetFactory#get()} for sets with individual and collection contributions, from one
+ * thread and from several threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SetFactoryBenchmark {
+  /** The number of {@code @IntoSet} contributions. */
+  @Param({"1", "10", "100"})
+  public int individualProviders;
+
+  /** The number of {@code @ElementsIntoSet} contributions, each of ten elements. */
+  @Param({"0", "1", "10"})
+  public int collectionProviders;
+
+  private Provider<Set<Integer>> setFactory;
+
+  @Setup
+  public void setUp() {
+    SetFactory.Builder<Integer> builder =
+        SetFactory.builder(individualProviders, collectionProviders);
+    int element = 0;
+    for (int i = 0; i < individualProviders; i++) {
+      builder.addProvider(constant(element++));
+    }
+    for (int i = 0; i < collectionProviders; i++) {
+      Set<Integer> elements = new HashSet<>();
+      for (int j = 0; j < 10; j++) {
+        elements.add(element++);
+      }
+      builder.addCollectionProvider(SetFactoryBenchmark.<Collection<Integer>>constant(elements));
+    }
+    setFactory = builder.build();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Set<Integer> get() {
+    return setFactory.get();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Set<Integer> get_contended() {
+    return setFactory.get();
+  }
+
+  private static <T> Factory<T> constant(final T value) {
+    return new Factory<T>() {
+      @Override
+      public T get() {
+        return value;
+      }
+    };
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generates the source of a component with a tree of subcomponents and a given total number of
+ * bindings, so that the cost of processing large components can be measured without checking them
+ * in.
+ *
+ * <p>The root component {@code Component0} has {@code branching} subcomponents, each of which has
+ * {@code branching} subcomponents of its own, down to {@code depth} levels below the root. The
+ * bindings are divided evenly among the components. Within a component, the bindings form a tree
+ * like those of a {@link SyntheticGraph}, and the root binding of each subcomponent also depends on
+ * the root binding of its parent.
+ */
+public final class SyntheticComponentTree {
+  /** The package of the generated sources. */
+  static final String PACKAGE = "synthetic.tree";
+
+  private static final int BINDINGS_PER_MODULE = 500;
+
+  private final int bindings;
+  private final int depth;
+  private final int branching;
+  private final int fanIn;
+
+  /**
+   * @param bindings the total number of bindings, which must be at least one per component
+   * @param depth the number of levels of subcomponents below the root component
+   * @param branching the number of subcomponents of each component that is not a leaf
+   * @param fanIn the number of bindings that each binding depends on within its component, where
+   *     there are enough
+   */
+  public SyntheticComponentTree(int bindings, int depth, int branching, int fanIn) {
+    checkArgument(depth >= 0, "depth must not be negative: %s", depth);
+    checkArgument(branching > 0, "branching must be positive: %s", branching);
+    checkArgument(fanIn > 0, "fanIn must be positive: %s", fanIn);
+    this.depth = depth;
+    this.branching = branching;
+    this.fanIn = fanIn;
+    checkArgument(
+        bindings >= components(),
+        "bindings must be at least the number of components (%s): %s",
+        components(),
+        bindings);
+    this.bindings = bindings;
+  }
+
+  /** Returns the number of components, including the root component. */
+  public int components() {
+    int components = 0;
+    int level = 1;
+    for (int i = 0; i <= depth; i++) {
+      components += level;
+      level *= branching;
+    }
+    return components;
+  }
+
+  /** Returns the contents of each generated source file, by the file's path. */
+  public ImmutableMap<String, String> sources() {
+    ImmutableMap.Builder<String, String> sources = ImmutableMap.builder();
+    int components = components();
+    // Components are numbered breadth-first, so the children of component c are the components
+    // branching * c + 1 through branching * c + branching.
+    for (int component = 0; component < components; component++) {
+      int start = (int) ((long) bindings * component / components);
+      int end = (int) ((long) bindings * (component + 1) / components);
+      List<String> modules = new ArrayList<>();
+      for (int moduleStart = start; moduleStart < end; moduleStart += BINDINGS_PER_MODULE) {
+        String module = "Component" + component + "Module" + modules.size();
+        modules.add(module + ".class");
+        int moduleEnd = Math.min(moduleStart + BINDINGS_PER_MODULE, end);
+        sources.put(
+            sourcePath(module),
+            moduleSource(module, component, moduleStart - start, moduleEnd - start, end - start));
+      }
+      StringBuilder source =
+          new StringBuilder()
+              .append("package ").append(PACKAGE).append(";\n\n")
+              .append("import javax.inject.Named;\n\n")
+              .append(component == 0 ? "@dagger.Component" : "@dagger.Subcomponent")
+              .append("(modules = {").append(Joiner.on(", ").join(modules)).append("})\n")
+              .append("public interface Component").append(component).append(" {\n")
+              .append("  @Named(\"").append(binding(component, 0)).append("\") String root();\n");
+      for (int child = branching * component + 1;
+          child <= branching * component + branching && child < components;
+          child++) {
+        source.append("  Component").append(child)
+            .append(" component").append(child).append("();\n");
+      }
+      sources.put(sourcePath("Component" + component), source.append("}\n").toString());
+    }
+    return sources.build();
+  }
+
+  private String moduleSource(String module, int component, int start, int end, int size) {
+    StringBuilder source =
+        new StringBuilder()
+            .append("package ").append(PACKAGE).append(";\n\n")
+            .append("import javax.inject.Named;\n\n")
+            .append("@dagger.Module\n")
+            .append("final class ").append(module).append(" {\n");
+    for (int i = start; i < end; i++) {
+      List<String> parameters = new ArrayList<>();
+      if (i == 0 && component > 0) {
+        parameters.add(parameter(binding((component - 1) / branching, 0)));
+      }
+      for (int dependency = fanIn * i + 1;
+          dependency <= fanIn * i + fanIn && dependency < size;
+          dependency++) {
+        parameters.add(parameter(binding(component, dependency)));
+      }
+      String binding = binding(component, i);
+      source
+          .append("  @dagger.Provides @Named(\"").append(binding).append("\")")
+          .append(" static String ").append(binding)
+          .append("(").append(Joiner.on(", ").join(parameters)).append(") {\n")
+          .append("    return \"").append(binding).append("\";\n")
+          .append("  }\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private static String binding(int component, int index) {
+    return "c" + component + "_b" + index;
+  }
+
+  private static String parameter(String binding) {
+    return "@Named(\"" + binding + "\") String " + binding;
+  }
+
+  private static String sourcePath(String simpleName) {
+    return PACKAGE.replace('.', '/') + "/" + simpleName + ".java";
+  }
+}
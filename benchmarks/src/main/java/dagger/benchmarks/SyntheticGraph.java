@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generates the source of a component with a given number of bindings, so that benchmarks can
+ * measure components of any size without checking them in.
+ *
+ * <p>Each binding is a static {@code @Provides} method for a {@code @Named} string. The bindings
+ * form a tree: binding {@code i} depends on bindings {@code fanIn * i + 1} through {@code fanIn * i
+ * + fanIn}, so requesting the root binding {@code b0} provisions every binding exactly once.
+ */
+public final class SyntheticGraph {
+  /** The package of the generated sources. */
+  static final String PACKAGE = "synthetic";
+
+  private static final int BINDINGS_PER_MODULE = 500;
+
+  /** Creates and queries an instance of the generated component. */
+  public interface EntryPoint {
+    /** Returns a new instance of the generated component. */
+    Object createComponent();
+
+    /** Returns the root binding of {@code component}. */
+    Object provideRoot(Object component);
+  }
+
+  private final int bindings;
+  private final int fanIn;
+  private final boolean scoped;
+
+  /**
+   * @param bindings the number of bindings in the component
+   * @param fanIn the number of bindings that each binding depends on, where there are enough
+   * @param scoped whether the bindings are {@code @Singleton}
+   */
+  public SyntheticGraph(int bindings, int fanIn, boolean scoped) {
+    checkArgument(bindings > 0, "bindings must be positive: %s", bindings);
+    checkArgument(fanIn > 0, "fanIn must be positive: %s", fanIn);
+    this.bindings = bindings;
+    this.fanIn = fanIn;
+    this.scoped = scoped;
+  }
+
+  /** Returns the contents of each generated source file, by the file's path. */
+  public ImmutableMap<String, String> sources() {
+    ImmutableMap.Builder<String, String> sources = ImmutableMap.builder();
+    List<String> modules = new ArrayList<>();
+    for (int start = 0; start < bindings; start += BINDINGS_PER_MODULE) {
+      String module = "Module" + modules.size();
+      modules.add(module + ".class");
+      int end = Math.min(start + BINDINGS_PER_MODULE, bindings);
+      sources.put(sourcePath(module), moduleSource(module, start, end));
+    }
+    sources.put(
+        sourcePath("SyntheticComponent"),
+        lines(
+            "package " + PACKAGE + ";",
+            "",
+            "import javax.inject.Named;",
+            "",
+            scoped ? "@javax.inject.Singleton" : "",
+            "@dagger.Component(modules = {" + Joiner.on(", ").join(modules) + "})",
+            "public interface SyntheticComponent {",
+            "  @Named(\"b0\") String root();",
+            "}"));
+    sources.put(
+        sourcePath("SyntheticEntryPoint"),
+        lines(
+            "package " + PACKAGE + ";",
+            "",
+            "public final class SyntheticEntryPoint implements "
+                + EntryPoint.class.getCanonicalName() + " {",
+            "  @Override public Object createComponent() {",
+            "    return DaggerSyntheticComponent.create();",
+            "  }",
+            "",
+            "  @Override public Object provideRoot(Object component) {",
+            "    return ((SyntheticComponent) component).root();",
+            "  }",
+            "}"));
+    return sources.build();
+  }
+
+  private String moduleSource(String module, int start, int end) {
+    StringBuilder source =
+        new StringBuilder()
+            .append("package ").append(PACKAGE).append(";\n\n")
+            .append("import javax.inject.Named;\n\n")
+            .append("@dagger.Module\n")
+            .append("final class ").append(module).append(" {\n");
+    for (int i = start; i < end; i++) {
+      List<String> parameters = new ArrayList<>();
+      for (int dependency = fanIn * i + 1;
+          dependency <= fanIn * i + fanIn && dependency < bindings;
+          dependency++) {
+        parameters.add("@Named(\"b" + dependency + "\") String b" + dependency);
+      }
+      source
+          .append("  @dagger.Provides")
+          .append(scoped ? " @javax.inject.Singleton" : "")
+          .append(" @Named(\"b").append(i).append("\")")
+          .append(" static String b").append(i)
+          .append("(").append(Joiner.on(", ").join(parameters)).append(") {\n")
+          .append("    return \"b").append(i).append("\";\n")
+          .append("  }\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  /**
+   * Compiles the {@linkplain #sources() sources} in {@code directory} with the Dagger processor and
+   * the given {@code -A} options, and returns the entry point of the generated component.
+   */
+  public EntryPoint compile(Path directory, List<String> processorOptions) throws IOException {
+    return InProcessCompiler.compile(sources(), directory, processorOptions)
+        .instantiate(PACKAGE + ".SyntheticEntryPoint", EntryPoint.class);
+  }
+
+  private static String sourcePath(String simpleName) {
+    return PACKAGE + "/" + simpleName + ".java";
+  }
+
+  private static String lines(String... lines) {
+    return Joiner.on('\n').join(lines) + "\n";
+  }
+}
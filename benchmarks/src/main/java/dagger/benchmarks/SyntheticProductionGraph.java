@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.benchmarks;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generates the source of a production component with a given shape, so that benchmarks can
+ * measure production graphs of any size without checking them in.
+ *
+ * <p>The graph has {@code depth} layers of {@code width} nodes each. Every node is a static {@code
+ * @Produces} method for a {@code @Named} string. Node {@code j} of a layer depends on nodes {@code
+ * j} through {@code j + fanIn - 1} (modulo {@code width}) of the next layer, and the nodes of the
+ * last layer have no dependencies. A root node depends on every node of the first layer, so
+ * requesting it produces every node exactly once.
+ *
+ * <p>The producer methods of the nodes may be {@link dagger.producers.NonBlocking @NonBlocking}, so
+ * that they run without being scheduled on the executor.
+ */
+public final class SyntheticProductionGraph {
+  /** The package of the generated sources. */
+  static final String PACKAGE = "synthetic.production";
+
+  /** Creates a component and requests its root node. */
+  public interface EntryPoint {
+    /** Returns the root node of a new component that runs its producers on {@code executor}. */
+    ListenableFuture<?> produceRoot(Executor executor);
+  }
+
+  private final int width;
+  private final int depth;
+  private final int fanIn;
+  private final boolean nonBlocking;
+
+  /**
+   * @param width the number of nodes in each layer
+   * @param depth the number of layers
+   * @param fanIn the number of nodes of the next layer that each node depends on, where there are
+   *     enough
+   * @param nonBlocking whether the producer methods are {@code @NonBlocking}
+   */
+  public SyntheticProductionGraph(int width, int depth, int fanIn, boolean nonBlocking) {
+    checkArgument(width > 0, "width must be positive: %s", width);
+    checkArgument(depth > 0, "depth must be positive: %s", depth);
+    checkArgument(fanIn > 0, "fanIn must be positive: %s", fanIn);
+    this.width = width;
+    this.depth = depth;
+    this.fanIn = Math.min(fanIn, width);
+    this.nonBlocking = nonBlocking;
+  }
+
+  /** Returns the contents of each generated source file, by the file's path. */
+  public ImmutableMap<String, String> sources() {
+    ImmutableMap.Builder<String, String> sources = ImmutableMap.builder();
+    List<String> modules = new ArrayList<>();
+    modules.add("ExecutorModule.class");
+    for (int layer = 0; layer < depth; layer++) {
+      String module = "Layer" + layer + "Module";
+      modules.add(module + ".class");
+      sources.put(sourcePath(module), layerModuleSource(module, layer));
+    }
+    sources.put(
+        sourcePath("ExecutorModule"),
+        lines(
+            "package " + PACKAGE + ";",
+            "",
+            "import java.util.concurrent.Executor;",
+            "",
+            "@dagger.Module",
+            "final class ExecutorModule {",
+            "  private final Executor executor;",
+            "",
+            "  ExecutorModule(Executor executor) {",
+            "    this.executor = executor;",
+            "  }",
+            "",
+            "  @dagger.Provides @dagger.producers.Production Executor executor() {",
+            "    return executor;",
+            "  }",
+            "}"));
+    sources.put(
+        sourcePath("SyntheticProductionComponent"),
+        lines(
+            "package " + PACKAGE + ";",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import javax.inject.Named;",
+            "",
+            "@dagger.producers.ProductionComponent(modules = {"
+                + Joiner.on(", ").join(modules) + "})",
+            "public interface SyntheticProductionComponent {",
+            "  @Named(\"root\") ListenableFuture<String> root();",
+            "}"));
+    sources.put(
+        sourcePath("SyntheticProductionEntryPoint"),
+        lines(
+            "package " + PACKAGE + ";",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import java.util.concurrent.Executor;",
+            "",
+            "public final class SyntheticProductionEntryPoint implements "
+                + EntryPoint.class.getCanonicalName() + " {",
+            "  @Override public ListenableFuture<?> produceRoot(Executor executor) {",
+            "    return DaggerSyntheticProductionComponent.builder()",
+            "        .executorModule(new ExecutorModule(executor))",
+            "        .build()",
+            "        .root();",
+            "  }",
+            "}"));
+    return sources.build();
+  }
+
+  private String layerModuleSource(String module, int layer) {
+    StringBuilder source =
+        new StringBuilder()
+            .append("package ").append(PACKAGE).append(";\n\n")
+            .append("import javax.inject.Named;\n\n")
+            .append("@dagger.producers.ProducerModule\n")
+            .append("final class ").append(module).append(" {\n");
+    if (layer == 0) {
+      List<String> parameters = new ArrayList<>();
+      for (int j = 0; j < width; j++) {
+        parameters.add(parameter(0, j));
+      }
+      appendNode(source, "root", parameters);
+    }
+    for (int j = 0; j < width; j++) {
+      List<String> parameters = new ArrayList<>();
+      if (layer + 1 < depth) {
+        for (int k = 0; k < fanIn; k++) {
+          parameters.add(parameter(layer + 1, (j + k) % width));
+        }
+      }
+      appendNode(source, node(layer, j), parameters);
+    }
+    return source.append("}\n").toString();
+  }
+
+  private void appendNode(StringBuilder source, String name, List<String> parameters) {
+    source
+        .append("  @dagger.producers.Produces")
+        .append(nonBlocking ? " @dagger.producers.NonBlocking" : "")
+        .append(" @Named(\"").append(name).append("\")")
+        .append(" static String ").append(name)
+        .append("(").append(Joiner.on(", ").join(parameters)).append(") {\n")
+        .append("    return \"").append(name).append("\";\n")
+        .append("  }\n");
+  }
+
+  private static String node(int layer, int index) {
+    return "n" + layer + "_" + index;
+  }
+
+  private static String parameter(int layer, int index) {
+    String node = node(layer, index);
+    return "@Named(\"" + node + "\") String " + node;
+  }
+
+  /**
+   * Compiles the {@linkplain #sources() sources} in {@code directory} with the Dagger processor and
+   * the given {@code -A} options, and returns the entry point of the generated component.
+   */
+  public EntryPoint compile(Path directory, List<String> processorOptions) throws IOException {
+    return InProcessCompiler.compile(sources(), directory, processorOptions)
+        .instantiate(PACKAGE + ".SyntheticProductionEntryPoint", EntryPoint.class);
+  }
+
+  private static String sourcePath(String simpleName) {
+    return PACKAGE.replace('.', '/') + "/" + simpleName + ".java";
+  }
+
+  private static String lines(String... lines) {
+    return Joiner.on('\n').join(lines) + "\n";
+  }
+}
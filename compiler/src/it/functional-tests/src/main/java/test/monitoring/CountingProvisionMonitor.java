@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.monitoring;
+
+import dagger.monitoring.ProvisionComponentMonitor;
+import dagger.monitoring.ProvisionMonitor;
+import dagger.monitoring.ProvisionToken;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Counts the provisions of each binding and the total time spent in them. */
+final class CountingProvisionMonitor extends ProvisionComponentMonitor {
+  final Object component;
+  final Map<String, AtomicLong> provisionCounts = new ConcurrentHashMap<>();
+  final Map<String, AtomicLong> provisionNanos = new ConcurrentHashMap<>();
+
+  CountingProvisionMonitor(Object component) {
+    this.component = component;
+  }
+
+  @Override
+  public ProvisionMonitor provisionMonitorFor(ProvisionToken token) {
+    final AtomicLong count = counter(provisionCounts, token);
+    final AtomicLong nanos = counter(provisionNanos, token);
+    return new ProvisionMonitor() {
+      private final ThreadLocal<Long> start = new ThreadLocal<>();
+
+      @Override
+      public void provisionStarting() {
+        start.set(System.nanoTime());
+      }
+
+      @Override
+      public void succeeded(Object instance) {
+        count.incrementAndGet();
+        nanos.addAndGet(System.nanoTime() - start.get());
+      }
+    };
+  }
+
+  long count(Class<?> factoryClass) {
+    AtomicLong count = provisionCounts.get(factoryClass.getName());
+    return count == null ? 0 : count.get();
+  }
+
+  private static AtomicLong counter(Map<String, AtomicLong> counters, ProvisionToken token) {
+    AtomicLong counter = counters.get(token.toString());
+    if (counter == null) {
+      counter = new AtomicLong();
+      counters.put(token.toString(), counter);
+    }
+    return counter;
+  }
+
+  static final class Factory extends ProvisionComponentMonitor.Factory {
+    final Map<Object, CountingProvisionMonitor> monitors = new ConcurrentHashMap<>();
+
+    @Override
+    public ProvisionComponentMonitor create(Object component) {
+      CountingProvisionMonitor monitor = new CountingProvisionMonitor(component);
+      monitors.put(component, monitor);
+      return monitor;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.monitoring;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import dagger.monitoring.ProvisionComponentMonitor;
+import dagger.multibindings.IntoSet;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+@Singleton
+@Component(modules = {MonitoredComponent.MonitorModule.class, MonitoredComponent.TestModule.class})
+interface MonitoredComponent {
+  Unscoped unscoped();
+
+  Provider<Scoped> scoped();
+
+  String string();
+
+  Child child();
+
+  @Subcomponent(modules = ChildModule.class)
+  interface Child {
+    Unscoped unscoped();
+
+    Long childLong();
+  }
+
+  final class Unscoped {
+    @Inject
+    Unscoped(Scoped scoped) {}
+  }
+
+  @Singleton
+  final class Scoped {
+    @Inject
+    Scoped() {}
+  }
+
+  @Module
+  final class MonitorModule {
+    private final ProvisionComponentMonitor.Factory monitorFactory;
+
+    MonitorModule(ProvisionComponentMonitor.Factory monitorFactory) {
+      this.monitorFactory = monitorFactory;
+    }
+
+    @Provides
+    @IntoSet
+    ProvisionComponentMonitor.Factory monitorFactory() {
+      return monitorFactory;
+    }
+  }
+
+  @Module
+  final class ChildModule {
+    @Provides
+    static Long childLong(Unscoped unscoped) {
+      return 1L;
+    }
+  }
+
+  @Module
+  final class TestModule {
+    @Provides
+    static String string(Unscoped unscoped) {
+      return "string";
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.monitoring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class ProvisionMonitoringTest {
+  private final CountingProvisionMonitor.Factory monitorFactory =
+      new CountingProvisionMonitor.Factory();
+  private MonitoredComponent component;
+
+  @Before
+  public void setUp() {
+    component =
+        DaggerMonitoredComponent.builder()
+            .monitorModule(new MonitoredComponent.MonitorModule(monitorFactory))
+            .build();
+  }
+
+  @Test
+  public void monitorIsCreatedOnFirstProvision() {
+    assertThat(monitorFactory.monitors).isEmpty();
+    component.unscoped();
+    assertThat(monitorFactory.monitors.keySet()).containsExactly(component);
+  }
+
+  @Test
+  public void countsEachProvision() {
+    component.unscoped();
+    component.unscoped();
+    component.string();
+    component.scoped().get();
+
+    CountingProvisionMonitor monitor = monitorFactory.monitors.get(component);
+    assertThat(monitor.count(MonitoredComponent_Unscoped_Factory.class)).isEqualTo(3);
+    assertThat(monitor.count(MonitoredComponent_TestModule_StringFactory.class)).isEqualTo(1);
+    assertThat(monitor.count(MonitoredComponent_Scoped_Factory.class)).isEqualTo(1);
+    assertThat(monitor.provisionNanos.keySet()).isEqualTo(monitor.provisionCounts.keySet());
+  }
+
+  @Test
+  public void subcomponentsHaveTheirOwnMonitor() {
+    MonitoredComponent.Child child = component.child();
+    child.childLong();
+
+    CountingProvisionMonitor childMonitor = monitorFactory.monitors.get(child);
+    assertThat(childMonitor.count(MonitoredComponent_ChildModule_ChildLongFactory.class))
+        .isEqualTo(1);
+    // The parent's bindings are provisioned by the parent, so the parent's monitor sees them.
+    CountingProvisionMonitor parentMonitor = monitorFactory.monitors.get(component);
+    assertThat(parentMonitor.count(MonitoredComponent_Unscoped_Factory.class)).isEqualTo(1);
+    assertThat(parentMonitor.count(MonitoredComponent_Scoped_Factory.class)).isEqualTo(1);
+  }
+}
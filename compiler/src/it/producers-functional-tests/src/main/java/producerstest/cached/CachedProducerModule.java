@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.cached;
+
+import dagger.producers.CachedProduction;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ProducerModule
+final class CachedProducerModule {
+  private final int id;
+  private final AtomicInteger lookups;
+
+  CachedProducerModule(int id, AtomicInteger lookups) {
+    this.id = id;
+    this.lookups = lookups;
+  }
+
+  @Produces
+  Integer id() {
+    return id;
+  }
+
+  @Produces
+  AtomicInteger lookups() {
+    return lookups;
+  }
+
+  @Produces
+  @CachedProduction(expireAfterWriteMillis = 60000)
+  static String name(Integer id, AtomicInteger lookups) {
+    lookups.incrementAndGet();
+    return "name" + id;
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.deadline;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ProducerModule
+final class DeadlineProducerModule {
+  private final ListenableFuture<String> lookup;
+  private final AtomicInteger greetings;
+
+  DeadlineProducerModule(ListenableFuture<String> lookup, AtomicInteger greetings) {
+    this.lookup = lookup;
+    this.greetings = greetings;
+  }
+
+  @Produces
+  ListenableFuture<String> name() {
+    return lookup;
+  }
+
+  @Produces
+  String greeting(String name) {
+    greetings.incrementAndGet();
+    return "Hello, " + name;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.hedged;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Hedged;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+
+@ProducerModule
+final class HedgedProducerModule {
+  private final Backend backend;
+
+  HedgedProducerModule(Backend backend) {
+    this.backend = backend;
+  }
+
+  @Produces
+  @Hedged(delayMillis = 10)
+  ListenableFuture<String> name() {
+    return backend.lookup();
+  }
+}
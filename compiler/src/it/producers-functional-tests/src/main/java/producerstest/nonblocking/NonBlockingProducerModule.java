@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.nonblocking;
+
+import dagger.producers.NonBlocking;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import javax.inject.Named;
+
+/** Non-blocking producer methods that return the thread that they run on. */
+@ProducerModule
+final class NonBlockingProducerModule {
+  @Produces
+  @NonBlocking
+  @Named("noArgs")
+  static Thread noArgs() {
+    return Thread.currentThread();
+  }
+
+  @Produces
+  @NonBlocking
+  @Named("afterInput")
+  static Thread afterInput(Integer input) {
+    return Thread.currentThread();
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.release;
+
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Produced;
+import dagger.producers.Producer;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import dagger.producers.ProductionSubcomponent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.inject.Qualifier;
+import producerstest.ExecutorModule;
+
+/**
+ * Producers whose results are intermediate or not, for a component compiled with
+ * {@code -Adagger.releaseIntermediateProducerResults=enabled}.
+ */
+final class ReleasedProducers {
+  /** Requested twice by one producer, once as {@code String} and once as {@code Produced}. */
+  @Qualifier
+  @interface Twice {}
+
+  /** Requested by a producer and by an entry point. */
+  @Qualifier
+  @interface Exposed {}
+
+  /** Requested by a producer and by a producer of a subcomponent. */
+  @Qualifier
+  @interface Shared {}
+
+  /** Requested as a {@code Producer}. */
+  @Qualifier
+  @interface Requested {}
+
+  @Qualifier
+  @interface Joined {}
+
+  @Qualifier
+  @interface FromProducer {}
+
+  @Qualifier
+  @interface FromChild {}
+
+  @ProducerModule
+  static final class ParentProducerModule {
+    final Multiset<String> produced = ConcurrentHashMultiset.create();
+
+    @Produces
+    @Twice
+    String twice() {
+      produced.add("twice");
+      return "twice";
+    }
+
+    @Produces
+    @Exposed
+    String exposed() {
+      produced.add("exposed");
+      return "exposed";
+    }
+
+    @Produces
+    @Shared
+    String shared() {
+      produced.add("shared");
+      return "shared";
+    }
+
+    @Produces
+    @Requested
+    String requested() {
+      produced.add("requested");
+      return "requested";
+    }
+
+    @Produces
+    @Joined
+    String joined(
+        @Twice String twice,
+        @Twice Produced<String> producedTwice,
+        @Exposed String exposed,
+        @Shared String shared)
+        throws ExecutionException {
+      produced.add("joined");
+      return Joiner.on(':').join(twice, producedTwice.get(), exposed, shared);
+    }
+
+    @Produces
+    @FromProducer
+    ListenableFuture<String> fromProducer(@Requested Producer<String> requested) {
+      produced.add("fromProducer");
+      return Futures.transform(
+          Futures.allAsList(requested.get(), requested.get()),
+          new Function<List<String>, String>() {
+            @Override
+            public String apply(List<String> results) {
+              return Joiner.on(':').join(results);
+            }
+          });
+    }
+  }
+
+  @ProductionComponent(modules = {ParentProducerModule.class, ExecutorModule.class})
+  interface ParentComponent {
+    @Joined
+    ListenableFuture<String> joined();
+
+    @Exposed
+    ListenableFuture<String> exposed();
+
+    @FromProducer
+    ListenableFuture<String> fromProducer();
+
+    ChildComponent child();
+  }
+
+  @ProducerModule
+  static final class ChildProducerModule {
+    @Produces
+    @FromChild
+    static String fromChild(@Shared String shared) {
+      return "child:" + shared;
+    }
+  }
+
+  @ProductionSubcomponent(modules = ChildProducerModule.class)
+  interface ChildComponent {
+    @FromChild
+    ListenableFuture<String> fromChild();
+  }
+
+  private ReleasedProducers() {}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.singleflight;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.List;
+
+/** A backend whose lookups are completed by the test. */
+final class Backend {
+  final List<SettableFuture<String>> lookups = new ArrayList<SettableFuture<String>>();
+
+  synchronized ListenableFuture<String> lookup(int id) {
+    SettableFuture<String> lookup = SettableFuture.create();
+    lookups.add(lookup);
+    return lookup;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.singleflight;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.SingleFlight;
+
+@ProducerModule
+final class SingleFlightProducerModule {
+  private final int id;
+  private final Backend backend;
+
+  SingleFlightProducerModule(int id, Backend backend) {
+    this.id = id;
+    this.backend = backend;
+  }
+
+  @Produces
+  Integer id() {
+    return id;
+  }
+
+  @Produces
+  Backend backend() {
+    return backend;
+  }
+
+  @Produces
+  @SingleFlight
+  static ListenableFuture<String> name(Integer id, Backend backend) {
+    return backend.lookup(id);
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.completionstage;
+
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+@ProducerModule
+final class CompletionStageProducerModule {
+  private final CompletableFuture<String> name;
+
+  CompletionStageProducerModule(CompletableFuture<String> name) {
+    this.name = name;
+  }
+
+  @Produces
+  CompletionStage<String> name() {
+    return name;
+  }
+
+  @Produces
+  static CompletableFuture<Integer> length(String name) {
+    return CompletableFuture.completedFuture(name.length());
+  }
+}
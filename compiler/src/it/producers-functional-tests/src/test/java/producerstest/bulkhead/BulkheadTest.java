@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.bulkhead;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public final class BulkheadTest {
+  private final Backend backend = new Backend();
+
+  private BulkheadComponent component(int id) {
+    return DaggerBulkheadComponent.builder()
+        .bulkheadProducerModule(new BulkheadProducerModule(id, backend))
+        .build();
+  }
+
+  @Test
+  public void lookupsBeyondLimit_queuedThenRejected() throws Exception {
+    ListenableFuture<String> first = component(1).name();
+    ListenableFuture<String> second = component(2).name();
+    ListenableFuture<String> third = component(3).name();
+    assertThat(backend.lookups).hasSize(1);
+    try {
+      third.get();
+      throw new AssertionError("expected the lookup to be rejected");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    backend.lookups.get(0).set("monkey");
+    assertThat(first.get()).isEqualTo("monkey");
+    assertThat(backend.lookups).hasSize(2);
+    assertThat(second.isDone()).isFalse();
+
+    backend.lookups.get(1).set("gorilla");
+    assertThat(second.get()).isEqualTo("gorilla");
+  }
+}
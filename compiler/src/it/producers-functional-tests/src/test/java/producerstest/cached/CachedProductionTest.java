@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.cached;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public final class CachedProductionTest {
+  // the cache is shared by all components, but its keys include each test's own counter
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  private CachedComponent component(int id) {
+    return DaggerCachedComponent.builder()
+        .cachedProducerModule(new CachedProducerModule(id, lookups))
+        .build();
+  }
+
+  @Test
+  public void laterComponents_reuseCachedResult() throws Exception {
+    assertThat(component(1).name().get()).isEqualTo("name1");
+    assertThat(component(1).name().get()).isEqualTo("name1");
+    assertThat(lookups.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void differentInputs_cachedSeparately() throws Exception {
+    assertThat(component(2).name().get()).isEqualTo("name2");
+    assertThat(component(3).name().get()).isEqualTo("name3");
+    assertThat(lookups.get()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.deadline;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Deadline;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public final class DeadlineTest {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final SettableFuture<String> lookup = SettableFuture.create();
+  private final AtomicInteger greetings = new AtomicInteger();
+
+  @After
+  public void shutDownScheduler() {
+    scheduler.shutdownNow();
+  }
+
+  private DeadlineComponent component(Deadline deadline) {
+    return DaggerDeadlineComponent.builder()
+        .deadlineModule(new DeadlineModule(deadline))
+        .deadlineProducerModule(new DeadlineProducerModule(lookup, greetings))
+        .build();
+  }
+
+  @Test
+  public void expiredDeadline_cancelsPendingProducers() throws Exception {
+    ListenableFuture<String> greeting =
+        component(Deadline.after(10, TimeUnit.MILLISECONDS, scheduler)).greeting();
+
+    try {
+      greeting.get(10, TimeUnit.SECONDS);
+      throw new AssertionError("expected the future to be cancelled");
+    } catch (CancellationException expected) {
+    }
+    assertThat(lookup.isCancelled()).isTrue();
+    assertThat(greetings.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void pendingDeadline_doesNotInterfere() throws Exception {
+    ListenableFuture<String> greeting =
+        component(Deadline.after(1, TimeUnit.HOURS, scheduler)).greeting();
+
+    lookup.set("monkey");
+    assertThat(greeting.get()).isEqualTo("Hello, monkey");
+    assertThat(greetings.get()).isEqualTo(1);
+  }
+}
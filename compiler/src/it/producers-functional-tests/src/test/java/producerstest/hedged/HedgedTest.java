@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.hedged;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.monitoring.ProducerTimingRecorder;
+import dagger.producers.monitoring.ProducerToken;
+import dagger.producers.monitoring.ProductionComponentTimingRecorder;
+import dagger.producers.monitoring.TimingProductionComponentMonitor;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public final class HedgedTest {
+  private final Backend backend = new Backend();
+  private final AtomicInteger hedges = new AtomicInteger();
+  private final ProductionComponentTimingRecorder.Factory recorderFactory =
+      new ProductionComponentTimingRecorder.Factory() {
+        @Override
+        public ProductionComponentTimingRecorder create(Object component) {
+          return new ProductionComponentTimingRecorder() {
+            @Override
+            public ProducerTimingRecorder producerTimingRecorderFor(ProducerToken token) {
+              return new ProducerTimingRecorder() {
+                @Override
+                public void recordHedge(long delayNanos) {
+                  hedges.incrementAndGet();
+                }
+              };
+            }
+          };
+        }
+      };
+
+  private HedgedComponent component() {
+    return DaggerHedgedComponent.builder()
+        .hedgedProducerModule(new HedgedProducerModule(backend))
+        .monitoringModule(
+            new MonitoringModule(new TimingProductionComponentMonitor.Factory(recorderFactory)))
+        .build();
+  }
+
+  @Test
+  public void slowLookup_hedged() throws Exception {
+    ListenableFuture<String> name = component().name();
+    SettableFuture<String> first = backend.lookups.poll(10, TimeUnit.SECONDS);
+    SettableFuture<String> second = backend.lookups.poll(10, TimeUnit.SECONDS);
+
+    second.set("monkey");
+    assertThat(name.get()).isEqualTo("monkey");
+    assertThat(hedges.get()).isEqualTo(1);
+    try {
+      first.get(10, TimeUnit.SECONDS);
+      throw new AssertionError("expected the slow lookup to be cancelled");
+    } catch (CancellationException expected) {
+    }
+  }
+}
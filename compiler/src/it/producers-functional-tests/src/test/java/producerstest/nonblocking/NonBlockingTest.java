@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.nonblocking;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import producerstest.ExecutorModule;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests that non-blocking producer methods run on the thread that completes their inputs, by
+ * verifying that they never use the component's executor, which rejects all tasks.
+ */
+@RunWith(JUnit4.class)
+public final class NonBlockingTest {
+  private final SettableFuture<Integer> input = SettableFuture.create();
+  private NonBlockingComponent component;
+
+  @Before
+  public void setUpComponent() {
+    ListeningExecutorService executorService = MoreExecutors.newDirectExecutorService();
+    executorService.shutdown();
+    component =
+        DaggerNonBlockingComponent.builder()
+            .executorModule(new ExecutorModule(executorService))
+            .input(
+                new Input() {
+                  @Override
+                  public ListenableFuture<Integer> input() {
+                    return input;
+                  }
+                })
+            .build();
+  }
+
+  @Test
+  public void noArgs_runsOnRequestingThread() throws Exception {
+    assertThat(component.noArgs().get()).isSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void completedInput_runsOnRequestingThread() throws Exception {
+    input.set(42);
+    assertThat(component.afterInput().get()).isSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void pendingInput_runsOnCompletingThread() throws Exception {
+    ListenableFuture<Thread> afterInput = component.afterInput();
+    assertThat(afterInput.isDone()).isFalse();
+    Thread completingThread =
+        new Thread() {
+          @Override
+          public void run() {
+            input.set(42);
+          }
+        };
+    completingThread.start();
+    completingThread.join();
+    assertThat(afterInput.get()).isSameAs(completingThread);
+  }
+}
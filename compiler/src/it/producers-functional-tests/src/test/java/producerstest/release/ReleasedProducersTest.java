@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.release;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import producerstest.release.ReleasedProducers.ParentComponent;
+import producerstest.release.ReleasedProducers.ParentProducerModule;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public final class ReleasedProducersTest {
+  private ParentProducerModule module;
+  private ParentComponent component;
+
+  @Before
+  public void setUp() {
+    module = new ParentProducerModule();
+    component =
+        DaggerReleasedProducers_ParentComponent.builder().parentProducerModule(module).build();
+  }
+
+  @Test
+  public void sameKeyRequestedTwice_isProducedOnce() throws Exception {
+    assertThat(component.joined().get()).isEqualTo("twice:twice:exposed:shared");
+    assertThat(module.produced.count("twice")).isEqualTo(1);
+    assertThat(module.produced.count("joined")).isEqualTo(1);
+  }
+
+  @Test
+  public void joinedRequestedAgain_isNotProducedAgain() throws Exception {
+    component.joined().get();
+    assertThat(component.joined().get()).isEqualTo("twice:twice:exposed:shared");
+    assertThat(module.produced.count("twice")).isEqualTo(1);
+    assertThat(module.produced.count("joined")).isEqualTo(1);
+  }
+
+  @Test
+  public void entryPoint_afterConsumer_isNotProducedAgain() throws Exception {
+    component.joined().get();
+    assertThat(component.exposed().get()).isEqualTo("exposed");
+    assertThat(module.produced.count("exposed")).isEqualTo(1);
+  }
+
+  @Test
+  public void subcomponentRequest_afterConsumer_isNotProducedAgain() throws Exception {
+    component.joined().get();
+    assertThat(component.child().fromChild().get()).isEqualTo("child:shared");
+    assertThat(module.produced.count("shared")).isEqualTo(1);
+  }
+
+  @Test
+  public void producerRequest_mayGetTheResultMoreThanOnce() throws Exception {
+    assertThat(component.fromProducer().get()).isEqualTo("requested:requested");
+    assertThat(module.produced.count("requested")).isEqualTo(1);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.singleflight;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public final class SingleFlightTest {
+  private final Backend backend = new Backend();
+
+  private SingleFlightComponent component(int id) {
+    return DaggerSingleFlightComponent.builder()
+        .singleFlightProducerModule(new SingleFlightProducerModule(id, backend))
+        .build();
+  }
+
+  @Test
+  public void concurrentComponents_shareInFlightLookup() throws Exception {
+    ListenableFuture<String> first = component(1).name();
+    ListenableFuture<String> second = component(1).name();
+    assertThat(backend.lookups).hasSize(1);
+
+    backend.lookups.get(0).set("monkey");
+    assertThat(first.get()).isEqualTo("monkey");
+    assertThat(second.get()).isEqualTo("monkey");
+  }
+
+  @Test
+  public void differentInputs_lookUpSeparately() throws Exception {
+    component(1).name();
+    component(2).name();
+    assertThat(backend.lookups).hasSize(2);
+  }
+
+  @Test
+  public void completedLookup_isNotShared() throws Exception {
+    ListenableFuture<String> first = component(1).name();
+    backend.lookups.get(0).set("monkey");
+    assertThat(first.get()).isEqualTo("monkey");
+
+    component(1).name();
+    assertThat(backend.lookups).hasSize(2);
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package producerstest.completionstage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public final class CompletionStageTest {
+  private final CompletableFuture<String> name = new CompletableFuture<String>();
+  private CompletionStageComponent component;
+
+  @Before
+  public void setUpComponent() {
+    component =
+        DaggerCompletionStageComponent.builder()
+            .completionStageProducerModule(new CompletionStageProducerModule(name))
+            .build();
+  }
+
+  @Test
+  public void entryPointsCompleteWithStages() throws Exception {
+    CompletableFuture<Integer> length = component.length();
+    assertThat(length.isDone()).isFalse();
+
+    name.complete("monkey");
+    assertThat(component.name().get()).isEqualTo("monkey");
+    assertThat(length.get()).isEqualTo(6);
+  }
+
+  @Test
+  public void failedStage_failsEntryPoints() throws Exception {
+    CompletableFuture<Integer> length = component.length();
+    RuntimeException cause = new RuntimeException("monkey");
+    name.completeExceptionally(cause);
+
+    try {
+      length.get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isSameAs(cause);
+    }
+  }
+}
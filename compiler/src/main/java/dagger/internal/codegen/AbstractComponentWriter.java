@@ -31,6 +31,7 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
@@ -47,10 +48,17 @@ import dagger.producers.internal.MapOfProducerProducer;
 import dagger.producers.internal.MapProducer;
 import dagger.producers.internal.SetOfProducedProducer;
 import dagger.producers.internal.SetProducer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import javax.inject.Provider;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
@@ -70,19 +78,24 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.squareup.javapoet.MethodSpec.constructorBuilder;
 import static com.squareup.javapoet.MethodSpec.methodBuilder;
+import static com.squareup.javapoet.TypeSpec.classBuilder;
 import static dagger.internal.codegen.AbstractComponentWriter.InitializationState.DELEGATED;
 import static dagger.internal.codegen.AbstractComponentWriter.InitializationState.INITIALIZED;
 import static dagger.internal.codegen.AbstractComponentWriter.InitializationState.UNINITIALIZED;
+import static dagger.internal.codegen.Accessibility.isElementAccessibleFrom;
+import static dagger.internal.codegen.Accessibility.isTypeAccessibleFrom;
 import static dagger.internal.codegen.AnnotationSpecs.SUPPRESS_WARNINGS_UNCHECKED;
 import static dagger.internal.codegen.CodeBlocks.makeParametersCodeBlock;
 import static dagger.internal.codegen.ContributionBinding.FactoryCreationStrategy.ENUM_INSTANCE;
 import static dagger.internal.codegen.ContributionBinding.Kind.PROVISION;
 import static dagger.internal.codegen.ErrorMessages.CANNOT_RETURN_NULL_FROM_NON_NULLABLE_COMPONENT_METHOD;
+import static dagger.internal.codegen.ErrorMessages.CANNOT_RETURN_NULL_FROM_NON_NULLABLE_PROVIDES_METHOD;
 import static dagger.internal.codegen.FrameworkDependency.frameworkDependenciesForBinding;
 import static dagger.internal.codegen.MapKeys.getMapKeyExpression;
 import static dagger.internal.codegen.MemberSelect.emptyFrameworkMapFactory;
 import static dagger.internal.codegen.MemberSelect.emptySetProvider;
 import static dagger.internal.codegen.MemberSelect.localField;
+import static dagger.internal.codegen.MemberSelect.localMethod;
 import static dagger.internal.codegen.MemberSelect.noOpMembersInjector;
 import static dagger.internal.codegen.MemberSelect.staticMethod;
 import static dagger.internal.codegen.MembersInjectionBinding.Strategy.NO_OP;
@@ -90,6 +103,7 @@ import static dagger.internal.codegen.Scope.reusableScope;
 import static dagger.internal.codegen.SourceFiles.frameworkTypeUsageStatement;
 import static dagger.internal.codegen.SourceFiles.generatedClassNameForBinding;
 import static dagger.internal.codegen.SourceFiles.membersInjectorNameForType;
+import static dagger.internal.codegen.TypeNames.COMPLETION_STAGES;
 import static dagger.internal.codegen.TypeNames.DELEGATE_FACTORY;
 import static dagger.internal.codegen.TypeNames.DOUBLE_CHECK;
 import static dagger.internal.codegen.TypeNames.FACTORY;
@@ -102,13 +116,21 @@ import static dagger.internal.codegen.TypeNames.MAP_OF_PRODUCER_PRODUCER;
 import static dagger.internal.codegen.TypeNames.MAP_PRODUCER;
 import static dagger.internal.codegen.TypeNames.MAP_PROVIDER_FACTORY;
 import static dagger.internal.codegen.TypeNames.MEMBERS_INJECTORS;
+import static dagger.internal.codegen.TypeNames.PARALLEL_WARM_UP;
 import static dagger.internal.codegen.TypeNames.PRODUCER;
 import static dagger.internal.codegen.TypeNames.PRODUCERS;
+import static dagger.internal.codegen.TypeNames.PROVIDER;
+import static dagger.internal.codegen.TypeNames.PROVISION_COMPONENT_MONITOR;
+import static dagger.internal.codegen.TypeNames.PROVISION_MONITORS;
+import static dagger.internal.codegen.TypeNames.PROVISION_TOKEN;
+import static dagger.internal.codegen.TypeNames.REENTRANT_LOCK_DOUBLE_CHECK;
+import static dagger.internal.codegen.TypeNames.SCOPED_INSTANCE_TABLE;
 import static dagger.internal.codegen.TypeNames.SET_FACTORY;
 import static dagger.internal.codegen.TypeNames.SET_OF_PRODUCED_PRODUCER;
 import static dagger.internal.codegen.TypeNames.SET_PRODUCER;
 import static dagger.internal.codegen.TypeNames.SINGLE_CHECK;
 import static dagger.internal.codegen.TypeNames.STRING;
+import static dagger.internal.codegen.TypeNames.THREAD_CONFINED_CHECK;
 import static dagger.internal.codegen.TypeNames.UNSUPPORTED_OPERATION_EXCEPTION;
 import static dagger.internal.codegen.TypeSpecs.addSupertype;
 import static dagger.internal.codegen.Util.componentCanMakeNewInstances;
@@ -118,8 +140,11 @@ import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.SYNCHRONIZED;
+import static javax.lang.model.element.Modifier.VOLATILE;
 import static javax.lang.model.type.TypeKind.DECLARED;
 import static javax.lang.model.type.TypeKind.VOID;
+import static javax.lang.model.util.ElementFilter.methodsIn;
 
 /**
  * Creates the implementation class for a component or subcomponent.
@@ -142,6 +167,84 @@ abstract class AbstractComponentWriter {
   private final UniqueNameSet componentFieldNames = new UniqueNameSet();
   private final Map<BindingKey, MemberSelect> memberSelects = new HashMap<>();
   private final Map<BindingKey, MemberSelect> producerFromProviderMemberSelects = new HashMap<>();
+  private final UniqueNameSet componentMethodNames = new UniqueNameSet();
+
+  /**
+   * For each binding key that has a framework field in this component, the field. Only populated if
+   * {@linkplain CompilerOptions#lazyFrameworkFieldInitialization() framework fields are initialized
+   * lazily}.
+   */
+  private final Map<BindingKey, FieldSpec> lazyFrameworkFields = new HashMap<>();
+
+  /** For each framework field that is initialized on first use, the name of its getter method. */
+  private final Map<String, String> lazyFrameworkFieldGetterNames = new HashMap<>();
+
+  /**
+   * The binding keys for framework fields in this component that depend, directly or transitively,
+   * on themselves.
+   */
+  private ImmutableSet<BindingKey> cyclicBindingKeys = ImmutableSet.of();
+
+  /**
+   * For each id of this component's {@code SwitchingProvider}, the expression that provides an
+   * instance from within it. Only populated if {@linkplain CompilerOptions#switchingProviders()
+   * switching providers} are enabled.
+   */
+  private final List<CodeBlock> switchingProviderCases = new ArrayList<>();
+
+  /**
+   * The number of slots of this component's {@link dagger.internal.ScopedInstanceTable}, one for
+   * each scoped binding that is memoized by it.
+   */
+  private int scopedInstanceTableSize;
+
+  /**
+   * For each {@linkplain #isEager eager} binding key of this component, the final field that holds
+   * its instance.
+   */
+  private final Map<BindingKey, FieldSpec> eagerInstanceFields = new HashMap<>();
+
+  /** Memoizes {@link #isEager} and {@link #canConstructEagerly}. */
+  private final Map<BindingKey, Boolean> eagerBindingKeys = new HashMap<>();
+  private final Map<BindingKey, Boolean> eagerlyConstructibleBindingKeys = new HashMap<>();
+
+  /**
+   * The key for the set of {@link dagger.monitoring.ProvisionComponentMonitor.Factory} instances
+   * if this component {@linkplain #isMonitored monitors its provisions}, which it does only if that
+   * set has contributions and the component owns a binding to monitor.
+   */
+  private Optional<BindingKey> provisionMonitorFactoriesKey = Optional.absent();
+
+  /**
+   * The binding keys that the monitor factories depend on, directly or transitively. They are not
+   * monitored, since the monitor is created from them.
+   */
+  private ImmutableSet<BindingKey> unmonitoredBindingKeys = ImmutableSet.of();
+
+  /** The field that holds the provider of the component's provision monitor, if it has one. */
+  private FieldSpec provisionComponentMonitorField;
+
+  /**
+   * The {@linkplain CriticalPaths critical path lengths} by which this component's producers are
+   * prioritized, if it uses {@linkplain CompilerOptions#CRITICAL_PATH_SCHEDULING_KEY critical path
+   * scheduling}.
+   */
+  private ImmutableMap<BindingKey, Integer> criticalPathLengths = ImmutableMap.of();
+
+  /**
+   * The binding keys of this component's producers that are on {@linkplain ProducerChains fused
+   * chains}, if it {@linkplain CompilerOptions#FUSE_PRODUCER_CHAINS_KEY fuses them}.
+   */
+  private ImmutableSet<BindingKey> fusedProducerKeys = ImmutableSet.of();
+
+  /**
+   * The number of consumers of each of this component's {@linkplain IntermediateProducers
+   * intermediate producers}, if it {@linkplain
+   * CompilerOptions#RELEASE_INTERMEDIATE_PRODUCER_RESULTS_KEY releases their results}.
+   */
+  private ImmutableMap<BindingKey, Integer> intermediateProducerConsumerCounts =
+      ImmutableMap.of();
+
   protected final MethodSpec.Builder constructor = constructorBuilder().addModifiers(PRIVATE);
   protected Optional<ClassName> builderName = Optional.absent();
 
@@ -174,6 +277,35 @@ abstract class AbstractComponentWriter {
     this.name = name;
     this.graph = graph;
     this.subcomponentNames = subcomponentNames;
+    BindingKey monitorFactoriesKey =
+        BindingKey.create(
+            BindingKey.Kind.CONTRIBUTION, keyFactory.forProvisionComponentMonitorFactories());
+    if (graph.resolvedBindings().containsKey(monitorFactoriesKey)) {
+      this.provisionMonitorFactoriesKey = Optional.of(monitorFactoriesKey);
+      this.unmonitoredBindingKeys = transitiveDependencyKeys(monitorFactoriesKey);
+      if (!ownsMonitoredBinding()) {
+        this.provisionMonitorFactoriesKey = Optional.absent();
+      }
+    }
+    if (compilerOptions.criticalPathScheduling()
+        && graph.componentDescriptor().kind().isProducer()) {
+      this.criticalPathLengths = CriticalPaths.lengths(graph);
+    }
+    if (compilerOptions.fuseProducerChains() && graph.componentDescriptor().kind().isProducer()) {
+      this.fusedProducerKeys = ProducerChains.fusedBindingKeys(graph);
+    }
+    if (compilerOptions.releaseIntermediateProducerResults()
+        && graph.componentDescriptor().kind().isProducer()) {
+      this.intermediateProducerConsumerCounts = IntermediateProducers.consumerCounts(graph);
+    }
+    if (compilerOptions.lazyFrameworkFieldInitialization() || compilerOptions.warmUpMethod()) {
+      // Framework field getters and the warm-up method must not collide with methods that the
+      // component implements.
+      for (ExecutableElement method :
+          methodsIn(elements.getAllMembers(componentDefinitionType()))) {
+        componentMethodNames.getUniqueName(method.getSimpleName());
+      }
+    }
   }
 
   protected final TypeElement componentDefinitionType() {
@@ -189,21 +321,49 @@ abstract class AbstractComponentWriter {
    * builder field or a component field.
    */
   private CodeBlock getComponentContributionExpression(TypeElement contributionType) {
-    if (builderFields.containsKey(contributionType)) {
+    // Lazily initialized framework fields are created outside of the constructor, where the builder
+    // is no longer available.
+    if (builderFields.containsKey(contributionType)
+        && !compilerOptions.lazyFrameworkFieldInitialization()) {
       return CodeBlock.of("builder.$N", builderFields.get(contributionType));
     } else {
-      Optional<CodeBlock> codeBlock =
-          getOrCreateComponentContributionFieldExpression(contributionType);
-      checkState(codeBlock.isPresent(), "no builder or component field for %s", contributionType);
-      return codeBlock.get();
+      MemberSelect fieldSelect = getComponentContributionFieldSelect(contributionType);
+      // Fields of this component and of its enclosing components are referenced by simple name.
+      return fieldSelect.getExpressionFor(fieldSelect.owningClass());
     }
   }
 
   /**
-   * Returns an expression for a component contribution field. Adds a field the first time one is
-   * requested for a contribution type if this component's builder has a field for it.
+   * Returns the member select for the component field that holds the contribution, adding the field
+   * if necessary.
+   */
+  private MemberSelect getComponentContributionFieldSelect(TypeElement contributionType) {
+    Optional<MemberSelect> fieldSelect =
+        getOrCreateComponentContributionFieldSelect(contributionType);
+    checkState(fieldSelect.isPresent(), "no builder or component field for %s", contributionType);
+    return fieldSelect.get();
+  }
+
+  /**
+   * Returns an expression that evaluates to an instance of the contribution from within an
+   * anonymous class that declares a field with the same name as the component's field for it.
    */
-  protected Optional<CodeBlock> getOrCreateComponentContributionFieldExpression(
+  private CodeBlock getComponentContributionExpressionForAnonymousClass(
+      TypeElement contributionType) {
+    CodeBlock expression = getComponentContributionExpression(contributionType);
+    MemberSelect fieldSelect = componentContributionFields.get(contributionType);
+    return compilerOptions.lazyFrameworkFieldInitialization()
+            && fieldSelect != null
+            && fieldSelect.owningClass().equals(name)
+        ? CodeBlock.of("$T.this.$L", name, expression)
+        : expression;
+  }
+
+  /**
+   * Returns the member select for a component contribution field. Adds a field the first time one
+   * is requested for a contribution type if this component's builder has a field for it.
+   */
+  protected Optional<MemberSelect> getOrCreateComponentContributionFieldSelect(
       TypeElement contributionType) {
     MemberSelect fieldSelect = componentContributionFields.get(contributionType);
     if (fieldSelect == null) {
@@ -220,7 +380,7 @@ abstract class AbstractComponentWriter {
       fieldSelect = localField(name, componentField.name);
       componentContributionFields.put(contributionType, fieldSelect);
     }
-    return Optional.of(fieldSelect.getExpressionFor(name));
+    return Optional.of(fieldSelect);
   }
 
   /**
@@ -262,8 +422,13 @@ abstract class AbstractComponentWriter {
     addBuilder();
     addFactoryMethods();
     addFields();
+    addProvisionComponentMonitorField();
+    addEagerInstanceFields();
     initializeFrameworkTypes();
+    initializeProvisionComponentMonitor();
     implementInterfaceMethods();
+    addWarmUpMethod();
+    addSwitchingProvider();
     addSubcomponents();
     component.addMethod(constructor.build());
     return component;
@@ -486,7 +651,25 @@ abstract class AbstractComponentWriter {
     // TODO(gak): get rid of the field for unscoped delegated bindings
 
     FieldSpec frameworkField = addFrameworkField(resolvedBindings, Optional.<ClassName>absent());
-    memberSelects.put(bindingKey, localField(name, frameworkField.name));
+    if (compilerOptions.lazyFrameworkFieldInitialization()) {
+      lazyFrameworkFields.put(bindingKey, frameworkField);
+    }
+    memberSelects.put(bindingKey, frameworkFieldSelect(frameworkField));
+  }
+
+  /**
+   * Returns the member select that reads {@code frameworkField}. If framework fields are
+   * initialized lazily, that is the getter that initializes the field on first use.
+   */
+  private MemberSelect frameworkFieldSelect(FieldSpec frameworkField) {
+    if (!compilerOptions.lazyFrameworkFieldInitialization()) {
+      return localField(name, frameworkField.name);
+    }
+    String getterName =
+        componentMethodNames.getUniqueName(
+            "get" + LOWER_CAMEL.to(UPPER_CAMEL, frameworkField.name));
+    lazyFrameworkFieldGetterNames.put(frameworkField.name, getterName);
+    return localMethod(name, getterName);
   }
 
   /**
@@ -506,6 +689,10 @@ abstract class AbstractComponentWriter {
                 : contributionBindingField.type(),
             contributionBindingField.name());
     contributionField.addModifiers(PRIVATE);
+    if (compilerOptions.lazyFrameworkFieldInitialization()
+        && !compilerOptions.threadConfinedComponents()) {
+      contributionField.addModifiers(VOLATILE);
+    }
     if (useRawType) {
       contributionField.addAnnotation(AnnotationSpecs.SUPPRESS_WARNINGS_RAWTYPES);
     }
@@ -557,6 +744,14 @@ abstract class AbstractComponentWriter {
 
             case INJECTION:
             case PROVISION:
+              if (useSwitchingProvider(contributionBinding)) {
+                // The switching provider is held in a field.
+                break;
+              }
+              if (isMonitored(contributionBinding)) {
+                // The monitored provider is held in a field.
+                break;
+              }
               if (bindingKey.key().type().getKind().equals(DECLARED)) {
                 ImmutableList<TypeVariableName> typeVariables =
                     SourceFiles.bindingTypeElementTypeVariableNames(contributionBinding);
@@ -696,16 +891,37 @@ abstract class AbstractComponentWriter {
               }
               break;
             case INSTANCE:
+              if (isEager(bindingKey)) {
+                interfaceMethod.addStatement("return $N", eagerInstanceFields.get(bindingKey));
+                break;
+              }
+              Optional<ContributionBinding> directInstanceBinding =
+                  directInstanceBinding(bindingKey);
+              if (directInstanceBinding.isPresent()) {
+                interfaceMethod.addStatement(
+                    "return $L", directInstanceExpression(directInstanceBinding.get()));
+                break;
+              }
+              // fall through
             case LAZY:
             case PRODUCED:
             case PRODUCER:
             case PROVIDER:
             case PROVIDER_OF_LAZY:
-            case FUTURE:
               interfaceMethod.addStatement(
                   "return $L",
                   frameworkTypeUsageStatement(memberSelectCodeBlock, interfaceRequest.kind()));
               break;
+            case FUTURE:
+              CodeBlock future =
+                  frameworkTypeUsageStatement(memberSelectCodeBlock, interfaceRequest.kind());
+              if (FutureTypes.isCompletableFutureType(requestType.getReturnType())) {
+                interfaceMethod.addStatement(
+                    "return $T.toCompletableFuture($L)", COMPLETION_STAGES, future);
+              } else {
+                interfaceMethod.addStatement("return $L", future);
+              }
+              break;
             default:
               throw new AssertionError();
           }
@@ -715,6 +931,99 @@ abstract class AbstractComponentWriter {
     }
   }
 
+  /**
+   * Adds a {@code warmUp(Executor)} method to top-level provision components if {@linkplain
+   * CompilerOptions#warmUpMethod() enabled}. It initializes each scoped binding that is not
+   * {@linkplain #isEager eager} with a {@link dagger.internal.ParallelWarmUp} after the {@linkplain
+   * #warmUpDependencies warm-up dependencies} of the binding.
+   */
+  private void addWarmUpMethod() {
+    if (!compilerOptions.warmUpMethod()
+        || !graph.componentDescriptor().kind().isTopLevel()
+        || graph.componentDescriptor().kind().isProducer()) {
+      return;
+    }
+    Map<BindingKey, Integer> warmUpIndices = new LinkedHashMap<>();
+    for (BindingKey bindingKey : graph.resolvedBindings().keySet()) {
+      if (isWarmUpKey(bindingKey)) {
+        addWarmUpKey(bindingKey, warmUpIndices);
+      }
+    }
+    CodeBlock.Builder warmUp = CodeBlock.builder().add("new $T()$>$>", PARALLEL_WARM_UP);
+    for (BindingKey bindingKey : warmUpIndices.keySet()) {
+      warmUp.add("\n.add($L", getMemberSelectExpression(bindingKey));
+      for (BindingKey dependency : warmUpDependencies(bindingKey)) {
+        warmUp.add(", $L", warmUpIndices.get(dependency));
+      }
+      warmUp.add(")");
+    }
+    component.addMethod(
+        methodBuilder(componentMethodNames.getUniqueName("warmUp"))
+            .addModifiers(PUBLIC)
+            .addParameter(Executor.class, "executor")
+            .addStatement("$L", warmUp.add("\n.run(executor)$<$<").build())
+            .build());
+  }
+
+  /** Assigns indices to {@code bindingKey} and its warm-up dependencies in dependency order. */
+  private void addWarmUpKey(BindingKey bindingKey, Map<BindingKey, Integer> warmUpIndices) {
+    if (warmUpIndices.containsKey(bindingKey)) {
+      return;
+    }
+    for (BindingKey dependency : warmUpDependencies(bindingKey)) {
+      addWarmUpKey(dependency, warmUpIndices);
+    }
+    warmUpIndices.put(bindingKey, warmUpIndices.size());
+  }
+
+  /** Returns true if {@code bindingKey} is a scoped provision binding owned by this component. */
+  private boolean isWarmUpKey(BindingKey bindingKey) {
+    if (!bindingKey.kind().equals(BindingKey.Kind.CONTRIBUTION) || isEager(bindingKey)) {
+      return false;
+    }
+    ResolvedBindings resolvedBindings = graph.resolvedBindings().get(bindingKey);
+    return resolvedBindings != null
+        && resolvedBindings.ownedContributionBindings().size() == 1
+        && resolvedBindings.bindingType().equals(BindingType.PROVISION)
+        && resolvedBindings.contributionBinding().scope().isPresent();
+  }
+
+  /**
+   * Returns the {@linkplain #isWarmUpKey warm-up keys} that are created when {@code bindingKey} is
+   * created: those that it requests instances of, or injects members with, either directly or
+   * through bindings that are not warm-up keys.
+   */
+  private ImmutableSet<BindingKey> warmUpDependencies(BindingKey bindingKey) {
+    ImmutableSet.Builder<BindingKey> warmUpDependencies = ImmutableSet.builder();
+    Set<BindingKey> visited = new HashSet<>();
+    Deque<BindingKey> queue = new ArrayDeque<>();
+    queue.add(bindingKey);
+    while (!queue.isEmpty()) {
+      ResolvedBindings resolvedBindings = graph.resolvedBindings().get(queue.remove());
+      if (resolvedBindings == null) {
+        continue;
+      }
+      for (Binding binding : resolvedBindings.bindings()) {
+        for (DependencyRequest dependency : binding.implicitDependencies()) {
+          if (!dependency.kind().equals(DependencyRequest.Kind.INSTANCE)
+              && !dependency.kind().equals(DependencyRequest.Kind.MEMBERS_INJECTOR)) {
+            continue;
+          }
+          BindingKey dependencyKey = dependency.bindingKey();
+          if (dependencyKey.equals(bindingKey) || !visited.add(dependencyKey)) {
+            continue;
+          }
+          if (isWarmUpKey(dependencyKey)) {
+            warmUpDependencies.add(dependencyKey);
+          } else {
+            queue.add(dependencyKey);
+          }
+        }
+      }
+    }
+    return warmUpDependencies.build();
+  }
+
   private void addSubcomponents() {
     for (Map.Entry<ExecutableElement, BindingGraph> subgraphEntry : graph.subgraphs().entrySet()) {
       SubcomponentWriter subcomponent =
@@ -726,6 +1035,14 @@ abstract class AbstractComponentWriter {
   private static final int INITIALIZATIONS_PER_INITIALIZE_METHOD = 100;
 
   private void initializeFrameworkTypes() {
+    if (compilerOptions.lazyFrameworkFieldInitialization()) {
+      cyclicBindingKeys = new CyclicBindingKeyFinder().find();
+      for (BindingKey bindingKey : graph.resolvedBindings().keySet()) {
+        // Adds a getter that initializes the field instead of returning code for the constructor.
+        initializeFrameworkType(bindingKey);
+      }
+      return;
+    }
     ImmutableList.Builder<CodeBlock> codeBlocks = ImmutableList.builder();
     for (BindingKey bindingKey : graph.resolvedBindings().keySet()) {
       codeBlocks.addAll(initializeFrameworkType(bindingKey).asSet());
@@ -804,17 +1121,25 @@ abstract class AbstractComponentWriter {
                             ? decorateForScope(delegatingCodeBlock, binding.scope().get())
                             : delegatingCodeBlock))));
       case ENUM_INSTANCE:
-        if (!binding.scope().isPresent()) {
+        if (!binding.scope().isPresent() && !useSwitchingProvider(binding)) {
           return Optional.absent();
         }
         // fall through
       case CLASS_CONSTRUCTOR:
+        CodeBlock factoryCreate = initializeFactoryForContributionBinding(binding);
+        if (intermediateProducerConsumerCounts.containsKey(bindingKey)) {
+          factoryCreate =
+              CodeBlock.of(
+                  "$T.releasingProducer($L, $L)",
+                  PRODUCERS,
+                  factoryCreate,
+                  intermediateProducerConsumerCounts.get(bindingKey));
+        }
         return Optional.of(
             CodeBlocks.concat(
                 ImmutableList.of(
                     initializeDeferredDependencies(binding),
-                    initializeMember(
-                        bindingKey, initializeFactoryForContributionBinding(binding)))));
+                    initializeMember(bindingKey, factoryCreate))));
       default:
         throw new AssertionError();
     }
@@ -852,6 +1177,10 @@ abstract class AbstractComponentWriter {
    */
   private CodeBlock initializeDelegateFactoriesForUninitializedDependencies(Binding binding) {
     ImmutableList.Builder<CodeBlock> initializations = ImmutableList.builder();
+    if (compilerOptions.lazyFrameworkFieldInitialization()) {
+      // Cycles are broken by the getters of the cyclic fields; see lazyFrameworkFieldGetter().
+      return CodeBlocks.concat(initializations.build());
+    }
 
     for (BindingKey dependencyKey :
         FluentIterable.from(binding.implicitDependencies())
@@ -883,14 +1212,21 @@ abstract class AbstractComponentWriter {
         }
         FieldSpec frameworkField =
             addFrameworkField(resolvedBindings, Optional.of(PRODUCER));
-        memberSelect = localField(name, frameworkField.name);
+        memberSelect = frameworkFieldSelect(frameworkField);
         producerFromProviderMemberSelects.put(frameworkDependency.bindingKey(), memberSelect);
-        initializations.add(
+        CodeBlock producerFromProvider =
             CodeBlock.of(
-                "this.$L = $T.producerFromProvider($L);",
-                memberSelect.getExpressionFor(name),
+                "$T.producerFromProvider($L)",
                 PRODUCERS,
-                getMemberSelectExpression(frameworkDependency.bindingKey())));
+                getMemberSelectExpression(frameworkDependency.bindingKey()));
+        if (compilerOptions.lazyFrameworkFieldInitialization()) {
+          component.addMethod(
+              lazyFrameworkFieldGetter(frameworkField, producerFromProvider, false));
+        } else {
+          initializations.add(
+              CodeBlock.of(
+                  "this.$L = $L;", memberSelect.getExpressionFor(name), producerFromProvider));
+        }
       }
     }
     return CodeBlocks.concat(initializations.build());
@@ -898,6 +1234,15 @@ abstract class AbstractComponentWriter {
 
   private CodeBlock initializeMember(BindingKey bindingKey, CodeBlock initializationCodeBlock) {
     ImmutableList.Builder<CodeBlock> initializations = ImmutableList.builder();
+    if (compilerOptions.lazyFrameworkFieldInitialization()) {
+      component.addMethod(
+          lazyFrameworkFieldGetter(
+              lazyFrameworkFields.get(bindingKey),
+              initializationCodeBlock,
+              cyclicBindingKeys.contains(bindingKey)));
+      setInitializationState(bindingKey, INITIALIZED);
+      return CodeBlocks.concat(initializations.build());
+    }
 
     CodeBlock memberSelect = getMemberSelectExpression(bindingKey);
     CodeBlock delegateFactoryVariable = delegateFactoryVariableExpression(bindingKey);
@@ -917,11 +1262,168 @@ abstract class AbstractComponentWriter {
     return CodeBlocks.concat(initializations.build());
   }
 
+  /**
+   * Returns the method that initializes {@code frameworkField} to {@code initializationCodeBlock}
+   * the first time it is called and returns the field thereafter.
+   *
+   * <p>Initialization holds the component's monitor so that a scoped binding is never wrapped
+   * twice. Once initialized, an acyclic field is read without locking. The getter for a field that
+   * is part of a dependency cycle is entirely {@code synchronized}: while the cycle is being
+   * initialized, the field holds a {@link DelegateFactory} that is returned to reentrant calls and
+   * must not escape to other threads. {@linkplain CompilerOptions#threadConfinedComponents()
+   * Thread-confined components} don't lock at all.
+   */
+  private MethodSpec lazyFrameworkFieldGetter(
+      FieldSpec frameworkField, CodeBlock initializationCodeBlock, boolean cyclic) {
+    MethodSpec.Builder getter =
+        methodBuilder(lazyFrameworkFieldGetterNames.get(frameworkField.name))
+            .addModifiers(PRIVATE)
+            .addAnnotation(SUPPRESS_WARNINGS_UNCHECKED)
+            .returns(frameworkField.type);
+    boolean threadConfined = compilerOptions.threadConfinedComponents();
+    if (cyclic) {
+      if (!threadConfined) {
+        getter.addModifiers(SYNCHRONIZED);
+      }
+      getter.beginControlFlow("if ($N == null)", frameworkField);
+      TypeName rawFieldType =
+          frameworkField.type instanceof ParameterizedTypeName
+              ? ((ParameterizedTypeName) frameworkField.type).rawType
+              : frameworkField.type;
+      if (rawFieldType.equals(PROVIDER)) {
+        String delegateFactoryVariable = frameworkField.name + "Delegate";
+        getter
+            .addStatement("this.$N = new $T()", frameworkField, DELEGATE_FACTORY)
+            .addStatement(
+                "$1T $2L = ($1T) $3N", DELEGATE_FACTORY, delegateFactoryVariable, frameworkField)
+            .addStatement("this.$N = $L", frameworkField, initializationCodeBlock)
+            .addStatement("$L.setDelegatedProvider($N)", delegateFactoryVariable, frameworkField);
+      } else {
+        // Only providers can be delegated. Reentrant calls for other framework types create a
+        // redundant, equivalent instance that is then overwritten.
+        getter.addStatement("this.$N = $L", frameworkField, initializationCodeBlock);
+      }
+      return getter.endControlFlow().addStatement("return $N", frameworkField).build();
+    }
+    if (threadConfined) {
+      return getter
+          .beginControlFlow("if ($N == null)", frameworkField)
+          .addStatement("this.$N = $L", frameworkField, initializationCodeBlock)
+          .endControlFlow()
+          .addStatement("return $N", frameworkField)
+          .build();
+    }
+    return getter
+        .addStatement("$T local = $N", frameworkField.type, frameworkField)
+        .beginControlFlow("if (local == null)")
+        .beginControlFlow("synchronized (this)")
+        .addStatement("local = $N", frameworkField)
+        .beginControlFlow("if (local == null)")
+        .addStatement("local = $L", initializationCodeBlock)
+        .addStatement("this.$N = local", frameworkField)
+        .endControlFlow()
+        .endControlFlow()
+        .endControlFlow()
+        .addStatement("return local")
+        .build();
+  }
+
+  /**
+   * Finds the {@linkplain #cyclicBindingKeys cyclic binding keys} of this component using Tarjan's
+   * strongly connected components algorithm. Only dependencies on framework fields owned by this
+   * component are considered, since fields inherited from an enclosing component never depend on
+   * this component's fields.
+   */
+  private final class CyclicBindingKeyFinder {
+    private final Map<BindingKey, Integer> indices = new HashMap<>();
+    private final Map<BindingKey, Integer> lowLinks = new HashMap<>();
+    private final Deque<BindingKey> stack = new ArrayDeque<>();
+    private final Set<BindingKey> onStack = new HashSet<>();
+    private final ImmutableSet.Builder<BindingKey> cyclicKeys = ImmutableSet.builder();
+
+    ImmutableSet<BindingKey> find() {
+      for (BindingKey bindingKey : graph.resolvedBindings().keySet()) {
+        if (ownsFrameworkField(bindingKey) && !indices.containsKey(bindingKey)) {
+          visit(bindingKey);
+        }
+      }
+      return cyclicKeys.build();
+    }
+
+    private void visit(BindingKey bindingKey) {
+      int index = indices.size();
+      indices.put(bindingKey, index);
+      lowLinks.put(bindingKey, index);
+      stack.push(bindingKey);
+      onStack.add(bindingKey);
+
+      boolean selfDependent = false;
+      for (BindingKey dependencyKey : dependencyKeys(bindingKey)) {
+        selfDependent |= dependencyKey.equals(bindingKey);
+        if (!indices.containsKey(dependencyKey)) {
+          visit(dependencyKey);
+          lowLinks.put(
+              bindingKey, Math.min(lowLinks.get(bindingKey), lowLinks.get(dependencyKey)));
+        } else if (onStack.contains(dependencyKey)) {
+          lowLinks.put(bindingKey, Math.min(lowLinks.get(bindingKey), indices.get(dependencyKey)));
+        }
+      }
+
+      if (lowLinks.get(bindingKey).equals(index)) {
+        List<BindingKey> component = Lists.newArrayList();
+        BindingKey member;
+        do {
+          member = stack.pop();
+          onStack.remove(member);
+          component.add(member);
+        } while (!member.equals(bindingKey));
+        if (component.size() > 1 || selfDependent) {
+          cyclicKeys.addAll(component);
+        }
+      }
+    }
+
+    private boolean ownsFrameworkField(BindingKey bindingKey) {
+      MemberSelect memberSelect = memberSelects.get(bindingKey);
+      return memberSelect != null && !memberSelect.staticMember();
+    }
+
+    private ImmutableSet<BindingKey> dependencyKeys(BindingKey bindingKey) {
+      ResolvedBindings resolvedBindings = graph.resolvedBindings().get(bindingKey);
+      Binding binding =
+          bindingKey.kind().equals(BindingKey.Kind.CONTRIBUTION)
+              ? resolvedBindings.contributionBinding()
+              : resolvedBindings.membersInjectionBinding().get();
+      ImmutableSet.Builder<BindingKey> dependencyKeys = ImmutableSet.builder();
+      for (DependencyRequest dependency : binding.implicitDependencies()) {
+        if (ownsFrameworkField(dependency.bindingKey())) {
+          dependencyKeys.add(dependency.bindingKey());
+        }
+      }
+      return dependencyKeys.build();
+    }
+  }
+
   private CodeBlock delegateFactoryVariableExpression(BindingKey key) {
     return CodeBlock.of("$LDelegate", getMemberSelectExpression(key).toString().replace('.', '_'));
   }
 
   private CodeBlock initializeFactoryForContributionBinding(ContributionBinding binding) {
+    FieldSpec eagerInstanceField =
+        eagerInstanceFields.get(BindingKey.create(BindingKey.Kind.CONTRIBUTION, binding.key()));
+    if (eagerInstanceField != null) {
+      return CodeBlock.of("$T.create($N)", INSTANCE_FACTORY, eagerInstanceField);
+    }
+    if (useSwitchingProvider(binding)) {
+      if (!binding.scope().isPresent()) {
+        return monitored(binding, newSwitchingProvider(binding, -1));
+      }
+      if (useScopedInstanceTable() && !isMonitored(binding)) {
+        return newSwitchingProvider(binding, scopedInstanceTableSize++);
+      }
+      return decorateForScope(
+          monitored(binding, newSwitchingProvider(binding, -1)), binding.scope().get());
+    }
     TypeName bindingKeyTypeName = TypeName.get(binding.key().type());
     switch (binding.bindingKind()) {
       case COMPONENT:
@@ -969,7 +1471,7 @@ abstract class AbstractComponentWriter {
                       "}"),
               /* 1 */ FACTORY,
               /* 2 */ bindingKeyTypeName,
-              /* 3 */ getComponentContributionExpression(bindingTypeElement),
+              /* 3 */ getComponentContributionExpressionForAnonymousClass(bindingTypeElement),
               /* 4 */ nullableAnnotation(binding.nullableType()),
               /* 5 */ TypeName.get(bindingTypeElement.asType()),
               /* 6 */ localFactoryVariable,
@@ -1001,10 +1503,12 @@ abstract class AbstractComponentWriter {
           arguments.addAll(getDependencyArguments(binding));
 
           CodeBlock factoryCreate =
-              CodeBlock.of(
-                  "$T.create($L)",
-                  generatedClassNameForBinding(binding),
-                  makeParametersCodeBlock(arguments));
+              monitored(
+                  binding,
+                  CodeBlock.of(
+                      "$T.create($L)",
+                      generatedClassNameForBinding(binding),
+                      makeParametersCodeBlock(arguments)));
           return binding.scope().isPresent()
               ? decorateForScope(factoryCreate, binding.scope().get())
               : factoryCreate;
@@ -1026,7 +1530,7 @@ abstract class AbstractComponentWriter {
               /* 1 */ PRODUCER,
               /* 2 */ TypeName.get(binding.key().type()),
               /* 3 */ LISTENABLE_FUTURE,
-              /* 4 */ getComponentContributionExpression(bindingTypeElement),
+              /* 4 */ getComponentContributionExpressionForAnonymousClass(bindingTypeElement),
               /* 5 */ binding.bindingElement().getSimpleName().toString(),
               /* 6 */ TypeName.get(bindingTypeElement.asType()),
               /* 7 */ simpleVariableName(bindingTypeElement));
@@ -1040,7 +1544,7 @@ abstract class AbstractComponentWriter {
           if (!binding.bindingElement().getModifiers().contains(STATIC)) {
             arguments.add(getComponentContributionExpression(binding.bindingTypeElement()));
           }
-          arguments.addAll(getDependencyArguments(binding));
+          arguments.addAll(getProducerDependencyArguments((ProductionBinding) binding));
 
           return CodeBlock.of(
               "new $T($L)",
@@ -1049,10 +1553,19 @@ abstract class AbstractComponentWriter {
         }
 
       case SYNTHETIC_MAP:
-        return CodeBlock.of(
-            "$T.create($L)",
-            mapFactoryClassName(binding),
-            getMemberSelectExpression(getOnlyElement(binding.dependencies()).bindingKey()));
+        {
+          CodeBlock mapOfFrameworkInstances =
+              getMemberSelectExpression(getOnlyElement(binding.dependencies()).bindingKey());
+          if (hasProducerFanOutLimit(binding)) {
+            return CodeBlock.of(
+                "$T.create($L, $L)",
+                mapFactoryClassName(binding),
+                mapOfFrameworkInstances,
+                compilerOptions.producerMultibindingFanOutLimit());
+          }
+          return CodeBlock.of(
+              "$T.create($L)", mapFactoryClassName(binding), mapOfFrameworkInstances);
+        }
 
       case SYNTHETIC_MULTIBOUND_SET:
         return initializeFactoryForSetMultibinding(binding);
@@ -1065,11 +1578,595 @@ abstract class AbstractComponentWriter {
     }
   }
 
-  private CodeBlock decorateForScope(CodeBlock factoryCreate, Scope scope) {
+  /**
+   * Adds the field that holds the provider of this component's {@link
+   * dagger.monitoring.ProvisionComponentMonitor} if it {@linkplain #isMonitored monitors its
+   * provisions}. The field delegates to the real provider only once the monitor factories can be
+   * provided, so that monitored providers can be created before them.
+   */
+  private void addProvisionComponentMonitorField() {
+    if (!provisionMonitorFactoriesKey.isPresent()) {
+      return;
+    }
+    ParameterizedTypeName fieldType =
+        ParameterizedTypeName.get(DELEGATE_FACTORY, PROVISION_COMPONENT_MONITOR);
+    provisionComponentMonitorField =
+        componentField(fieldType, "provisionComponentMonitorProvider")
+            .addModifiers(PRIVATE, FINAL)
+            .initializer("new $T()", fieldType)
+            .build();
+    component.addField(provisionComponentMonitorField);
+  }
+
+  private void initializeProvisionComponentMonitor() {
+    if (!provisionMonitorFactoriesKey.isPresent()) {
+      return;
+    }
+    constructor.addStatement(
+        "$N.setDelegatedProvider($T.componentMonitorProvider(this, $L))",
+        provisionComponentMonitorField,
+        PROVISION_MONITORS,
+        getMemberSelectExpression(provisionMonitorFactoriesKey.get()));
+  }
+
+  /**
+   * Returns true if this component calls a {@link dagger.monitoring.ProvisionMonitor} around each
+   * provision of {@code binding}. Only {@code @Inject} constructors and {@code @Provides} methods
+   * are monitored, and only in components that have contributions to the set of monitor factories.
+   */
+  private boolean isMonitored(ContributionBinding binding) {
+    switch (binding.bindingKind()) {
+      case INJECTION:
+      case PROVISION:
+        return provisionMonitorFactoriesKey.isPresent()
+            && !unmonitoredBindingKeys.contains(
+                BindingKey.create(BindingKey.Kind.CONTRIBUTION, binding.key()));
+
+      default:
+        return false;
+    }
+  }
+
+  private boolean ownsMonitoredBinding() {
+    for (ResolvedBindings resolvedBindings : graph.resolvedBindings().values()) {
+      for (ContributionBinding binding : resolvedBindings.ownedContributionBindings()) {
+        if (isMonitored(binding)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Wraps {@code frameworkCreate} so that it is monitored if {@code binding} is monitored. */
+  private CodeBlock monitored(ContributionBinding binding, CodeBlock frameworkCreate) {
+    if (!isMonitored(binding)) {
+      return frameworkCreate;
+    }
     return CodeBlock.of(
-        "$T.provider($L)",
-        scope.equals(reusableScope(elements)) ? SINGLE_CHECK : DOUBLE_CHECK,
-        factoryCreate);
+        "$T.monitoredProvider($L, $N, $T.create($S))",
+        PROVISION_MONITORS,
+        frameworkCreate,
+        provisionComponentMonitorField,
+        PROVISION_TOKEN,
+        generatedClassNameForBinding(binding).toString());
+  }
+
+  /** Returns {@code bindingKey} and the keys that it depends on, directly or transitively. */
+  private ImmutableSet<BindingKey> transitiveDependencyKeys(BindingKey bindingKey) {
+    Set<BindingKey> visited = new LinkedHashSet<>();
+    Deque<BindingKey> queue = new ArrayDeque<>();
+    queue.add(bindingKey);
+    while (!queue.isEmpty()) {
+      BindingKey key = queue.remove();
+      if (!visited.add(key)) {
+        continue;
+      }
+      ResolvedBindings resolvedBindings = graph.resolvedBindings().get(key);
+      if (resolvedBindings == null) {
+        continue;
+      }
+      for (Binding binding : resolvedBindings.bindings()) {
+        for (DependencyRequest dependency : binding.implicitDependencies()) {
+          queue.add(dependency.bindingKey());
+        }
+      }
+    }
+    return ImmutableSet.copyOf(visited);
+  }
+
+  private CodeBlock decorateForScope(CodeBlock factoryCreate, Scope scope) {
+    ClassName scopedProvider;
+    if (compilerOptions.threadConfinedComponents()) {
+      scopedProvider = THREAD_CONFINED_CHECK;
+    } else if (scope.equals(reusableScope(elements))) {
+      scopedProvider = SINGLE_CHECK;
+    } else if (compilerOptions.reentrantLockScopedProviders()) {
+      scopedProvider = REENTRANT_LOCK_DOUBLE_CHECK;
+    } else {
+      scopedProvider = DOUBLE_CHECK;
+    }
+    return CodeBlock.of("$T.provider($L)", scopedProvider, factoryCreate);
+  }
+
+  private static final int SWITCHING_PROVIDER_CASES_PER_METHOD = 100;
+
+  private ClassName switchingProviderName() {
+    return name.nestedClass("SwitchingProvider");
+  }
+
+  /**
+   * Returns true if {@code binding} is provided by this component's {@code SwitchingProvider}
+   * instead of by its own factory class.
+   */
+  private boolean useSwitchingProvider(ContributionBinding binding) {
+    if (!compilerOptions.switchingProviders()) {
+      return false;
+    }
+    switch (binding.bindingKind()) {
+      case COMPONENT_PROVISION:
+      case SUBCOMPONENT_BUILDER:
+        return true;
+
+      default:
+        return canInvokeDirectly(binding);
+    }
+  }
+
+  /**
+   * Returns true if {@code binding} is an {@code @Inject} constructor or {@code @Provides} method
+   * that the component can invoke itself. That requires the constructor or method, and the types of
+   * all of its dependencies, to be accessible from the component.
+   */
+  private boolean canInvokeDirectly(ContributionBinding binding) {
+    switch (binding.bindingKind()) {
+      case INJECTION:
+      case PROVISION:
+        String packageName = name.packageName();
+        if (!isElementAccessibleFrom(binding.bindingElement(), packageName)
+            || !isTypeAccessibleFrom(binding.factoryType(), packageName)) {
+          return false;
+        }
+        for (DependencyRequest dependency : binding.implicitDependencies()) {
+          if (!isTypeAccessibleFrom(dependency.key().type(), packageName)) {
+            return false;
+          }
+        }
+        return true;
+
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns true if scoped bindings that are provided by this component's {@code SwitchingProvider}
+   * are memoized in its {@link dagger.internal.ScopedInstanceTable}. Each such provider then holds
+   * the slot of its binding's instance, or {@code -1} if the binding is unscoped.
+   */
+  private boolean useScopedInstanceTable() {
+    return compilerOptions.switchingProviders()
+        && compilerOptions.scopedInstanceTable()
+        && !compilerOptions.threadConfinedComponents();
+  }
+
+  /**
+   * Assigns the next id of this component's {@code SwitchingProvider} to {@code binding} and
+   * returns an expression that creates a provider for it. {@code slot} is the binding's slot in the
+   * {@linkplain #useScopedInstanceTable() scoped instance table}, if any.
+   */
+  private CodeBlock newSwitchingProvider(ContributionBinding binding, int slot) {
+    int id = switchingProviderCases.size();
+    switchingProviderCases.add(switchingProviderCase(binding));
+    return useScopedInstanceTable()
+        ? CodeBlock.of(
+            "new $T<$T>($L, $L)", switchingProviderName(), binding.factoryType(), id, slot)
+        : CodeBlock.of("new $T<$T>($L)", switchingProviderName(), binding.factoryType(), id);
+  }
+
+  /**
+   * Returns the expression that provides an instance for {@code binding} from within the {@code
+   * SwitchingProvider}. Like the generated factories, it reads each dependency from the
+   * dependency's framework field when the instance is requested.
+   */
+  private CodeBlock switchingProviderCase(ContributionBinding binding) {
+    ClassName switchingProvider = switchingProviderName();
+    switch (binding.bindingKind()) {
+      case COMPONENT_PROVISION:
+        {
+          TypeElement dependencyType =
+              graph.componentDescriptor().dependencyMethodIndex().get(binding.bindingElement());
+          CodeBlock callDependencyMethod =
+              CodeBlock.of(
+                  "$L.$L()",
+                  getComponentContributionFieldSelect(dependencyType)
+                      .getExpressionFor(switchingProvider),
+                  binding.bindingElement().getSimpleName());
+          return binding.nullableType().isPresent()
+                  || compilerOptions.nullableValidationKind().equals(Diagnostic.Kind.WARNING)
+              ? callDependencyMethod
+              : CodeBlock.of(
+                  "$T.checkNotNull($L, $S)",
+                  Preconditions.class,
+                  callDependencyMethod,
+                  CANNOT_RETURN_NULL_FROM_NON_NULLABLE_COMPONENT_METHOD);
+        }
+
+      case SUBCOMPONENT_BUILDER:
+        return CodeBlock.of("$T.this.$L()", name, binding.bindingElement().getSimpleName());
+
+      case INJECTION:
+      case PROVISION:
+        {
+          List<CodeBlock> arguments = Lists.newArrayListWithCapacity(binding.dependencies().size());
+          for (DependencyRequest dependency : binding.dependencies()) {
+            arguments.add(
+                isEagerInstanceRequest(dependency)
+                    ? eagerInstanceExpression(dependency.bindingKey(), switchingProvider)
+                    : frameworkTypeUsageStatement(
+                        directFrameworkExpression(dependency.bindingKey(), switchingProvider),
+                        dependency.kind()));
+          }
+          return invokeDirectly(binding, switchingProvider, arguments);
+        }
+
+      default:
+        throw new AssertionError(binding.toString());
+    }
+  }
+
+  /**
+   * Returns the unscoped binding for {@code bindingKey} if a component method that requests an
+   * instance of it should {@linkplain CompilerOptions#directInstanceExpressions() invoke it
+   * directly}.
+   */
+  private Optional<ContributionBinding> directInstanceBinding(BindingKey bindingKey) {
+    ResolvedBindings resolvedBindings = graph.resolvedBindings().get(bindingKey);
+    if (!compilerOptions.directInstanceExpressions()
+        || !bindingKey.kind().equals(BindingKey.Kind.CONTRIBUTION)
+        || resolvedBindings == null) {
+      return Optional.absent();
+    }
+    ContributionBinding binding = resolvedBindings.contributionBinding();
+    return !binding.scope().isPresent() && canInvokeDirectly(binding) && !isMonitored(binding)
+        ? Optional.of(binding)
+        : Optional.<ContributionBinding>absent();
+  }
+
+  /**
+   * Returns an expression, evaluated in the component, that creates a new instance for {@code
+   * binding}. Instance dependencies that are themselves {@linkplain #directInstanceBinding direct
+   * instance bindings} are created inline the same way; other dependencies are read from their
+   * framework fields.
+   */
+  private CodeBlock directInstanceExpression(ContributionBinding binding) {
+    List<CodeBlock> arguments = Lists.newArrayListWithCapacity(binding.dependencies().size());
+    for (DependencyRequest dependency : binding.dependencies()) {
+      if (isEagerInstanceRequest(dependency)) {
+        arguments.add(eagerInstanceExpression(dependency.bindingKey(), name));
+        continue;
+      }
+      Optional<ContributionBinding> dependencyBinding =
+          dependency.kind().equals(DependencyRequest.Kind.INSTANCE)
+              ? directInstanceBinding(dependency.bindingKey())
+              : Optional.<ContributionBinding>absent();
+      arguments.add(
+          dependencyBinding.isPresent()
+              ? directInstanceExpression(dependencyBinding.get())
+              : frameworkTypeUsageStatement(
+                  directFrameworkExpression(dependency.bindingKey(), name), dependency.kind()));
+    }
+    return invokeDirectly(binding, name, arguments);
+  }
+
+  /**
+   * Returns true if {@code bindingKey} is a scoped binding of this component that is created when
+   * the component is constructed and held in a final field, because {@linkplain
+   * CompilerOptions#eagerSingletons() eager singletons} are enabled. That requires the binding, and
+   * every binding it depends on, to be {@linkplain #canConstructEagerly constructible eagerly}.
+   * {@link dagger.Reusable @Reusable} bindings and the bindings of production components, which are
+   * usually created for each request, are never eager.
+   */
+  private boolean isEager(BindingKey bindingKey) {
+    Boolean eager = eagerBindingKeys.get(bindingKey);
+    if (eager == null) {
+      ResolvedBindings resolvedBindings = graph.resolvedBindings().get(bindingKey);
+      eager =
+          compilerOptions.eagerSingletons()
+              && !graph.componentDescriptor().kind().isProducer()
+              && bindingKey.kind().equals(BindingKey.Kind.CONTRIBUTION)
+              && resolvedBindings != null
+              && resolvedBindings.ownedContributionBindings().size() == 1
+              && resolvedBindings.contributionBinding().scope().isPresent()
+              && !resolvedBindings
+                  .contributionBinding()
+                  .scope()
+                  .get()
+                  .equals(reusableScope(elements))
+              && canConstructEagerly(bindingKey);
+      eagerBindingKeys.put(bindingKey, eager);
+    }
+    return eager;
+  }
+
+  /**
+   * Returns true if the component can create an instance of {@code bindingKey} from its
+   * constructor, before any framework field is initialized: the binding must be a non-nullable
+   * {@code @Inject} constructor without injected members or a unique {@code @Provides} method that
+   * the component {@linkplain #canInvokeDirectly can invoke directly}, and each of its dependencies
+   * must be an instance request for an {@linkplain #isEager eager} binding or for an unscoped
+   * binding that can itself be constructed eagerly.
+   */
+  private boolean canConstructEagerly(BindingKey bindingKey) {
+    Boolean constructible = eagerlyConstructibleBindingKeys.get(bindingKey);
+    if (constructible == null) {
+      constructible = canConstructEagerly(graph.resolvedBindings().get(bindingKey));
+      eagerlyConstructibleBindingKeys.put(bindingKey, constructible);
+    }
+    return constructible;
+  }
+
+  private boolean canConstructEagerly(ResolvedBindings resolvedBindings) {
+    if (resolvedBindings == null
+        || !resolvedBindings.bindingKey().kind().equals(BindingKey.Kind.CONTRIBUTION)
+        || resolvedBindings.contributionBindings().size() != 1) {
+      return false;
+    }
+    ContributionBinding binding = resolvedBindings.contributionBinding();
+    if (!binding.contributionType().equals(ContributionType.UNIQUE)
+        || binding.nullableType().isPresent()
+        || binding.membersInjectionRequest().isPresent()
+        || !canInvokeDirectly(binding)
+        || isMonitored(binding)) {
+      return false;
+    }
+    for (DependencyRequest dependency : binding.dependencies()) {
+      if (!dependency.kind().equals(DependencyRequest.Kind.INSTANCE)) {
+        return false;
+      }
+      BindingKey dependencyKey = dependency.bindingKey();
+      ResolvedBindings dependencyBindings = graph.resolvedBindings().get(dependencyKey);
+      boolean unscoped =
+          dependencyBindings != null
+              && dependencyBindings.contributionBindings().size() == 1
+              && !dependencyBindings.contributionBinding().scope().isPresent();
+      if (!isEager(dependencyKey) && !(unscoped && canConstructEagerly(dependencyKey))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isEagerInstanceRequest(DependencyRequest dependency) {
+    return dependency.kind().equals(DependencyRequest.Kind.INSTANCE)
+        && isEager(dependency.bindingKey());
+  }
+
+  /** Returns the expression that reads the final field of an {@linkplain #isEager eager} key. */
+  private CodeBlock eagerInstanceExpression(BindingKey bindingKey, ClassName usingClass) {
+    return localField(name, eagerInstanceFields.get(bindingKey).name).getExpressionFor(usingClass);
+  }
+
+  /**
+   * Adds a final field for each {@linkplain #isEager eager} binding of this component, and
+   * initializes them in the constructor in dependency order.
+   */
+  private void addEagerInstanceFields() {
+    if (!compilerOptions.eagerSingletons() || graph.componentDescriptor().kind().isProducer()) {
+      return;
+    }
+    for (BindingKey bindingKey : graph.resolvedBindings().keySet()) {
+      if (isEager(bindingKey)) {
+        addEagerInstanceField(bindingKey);
+      }
+    }
+  }
+
+  private FieldSpec addEagerInstanceField(BindingKey bindingKey) {
+    FieldSpec field = eagerInstanceFields.get(bindingKey);
+    if (field == null) {
+      ContributionBinding binding = graph.resolvedBindings().get(bindingKey).contributionBinding();
+      CodeBlock instance = eagerConstructionExpression(binding);
+      field =
+          componentField(TypeName.get(binding.factoryType()), BindingVariableNamer.name(binding))
+              .addModifiers(PRIVATE, FINAL)
+              .build();
+      component.addField(field);
+      constructor.addStatement("this.$N = $L", field, instance);
+      eagerInstanceFields.put(bindingKey, field);
+    }
+    return field;
+  }
+
+  /**
+   * Returns the expression that creates an instance of a binding that {@linkplain
+   * #canConstructEagerly can be constructed eagerly}, first adding the fields of any eager bindings
+   * that it depends on.
+   */
+  private CodeBlock eagerConstructionExpression(ContributionBinding binding) {
+    List<CodeBlock> arguments = Lists.newArrayListWithCapacity(binding.dependencies().size());
+    for (DependencyRequest dependency : binding.dependencies()) {
+      BindingKey dependencyKey = dependency.bindingKey();
+      arguments.add(
+          isEager(dependencyKey)
+              ? CodeBlock.of("this.$N", addEagerInstanceField(dependencyKey))
+              : eagerConstructionExpression(
+                  graph.resolvedBindings().get(dependencyKey).contributionBinding()));
+    }
+    return invokeDirectly(binding, name, arguments);
+  }
+
+  /**
+   * Returns the expression that invokes the constructor or {@code @Provides} method of a binding
+   * for which {@link #canInvokeDirectly} is true from {@code usingClass}, with the same null
+   * checking and members injection as the binding's generated factory.
+   *
+   * @param arguments the expressions for each of the binding's {@linkplain Binding#dependencies()
+   *     dependencies}
+   */
+  private CodeBlock invokeDirectly(
+      ContributionBinding binding, ClassName usingClass, List<CodeBlock> arguments) {
+    CodeBlock parameters = makeParametersCodeBlock(arguments);
+    if (binding.bindingKind().equals(PROVISION)) {
+      CodeBlock module =
+          binding.bindingElement().getModifiers().contains(STATIC)
+              ? CodeBlock.of("$T", ClassName.get(binding.bindingTypeElement()))
+              : getComponentContributionFieldSelect(binding.contributingModule().get())
+                  .getExpressionFor(usingClass);
+      CodeBlock providesMethodInvocation =
+          CodeBlock.of("$L.$L($L)", module, binding.bindingElement().getSimpleName(), parameters);
+      return binding.nullableType().isPresent()
+              || compilerOptions.nullableValidationKind().equals(Diagnostic.Kind.WARNING)
+          ? providesMethodInvocation
+          : CodeBlock.of(
+              "$T.checkNotNull($L, $S)",
+              Preconditions.class,
+              providesMethodInvocation,
+              CANNOT_RETURN_NULL_FROM_NON_NULLABLE_PROVIDES_METHOD);
+    } else if (binding.membersInjectionRequest().isPresent()) {
+      return CodeBlock.of(
+          "$T.injectMembers($L, new $T($L))",
+          MEMBERS_INJECTORS,
+          directFrameworkExpression(
+              binding.membersInjectionRequest().get().bindingKey(), usingClass),
+          binding.key().type(),
+          parameters);
+    } else {
+      return CodeBlock.of("new $T($L)", binding.key().type(), parameters);
+    }
+  }
+
+  /**
+   * Returns an expression for the framework type of {@code bindingKey} from {@code usingClass}, for
+   * use as a dependency of a binding that is {@linkplain #canInvokeDirectly invoked directly}. Raw
+   * framework fields are cast to their parameterized type, since the dependency's type is
+   * accessible from the component.
+   */
+  private CodeBlock directFrameworkExpression(BindingKey bindingKey, ClassName usingClass) {
+    CodeBlock memberSelect = getMemberSelect(bindingKey).getExpressionFor(usingClass);
+    ResolvedBindings resolvedBindings = graph.resolvedBindings().get(bindingKey);
+    return resolvedBindings != null && useRawType(resolvedBindings)
+        ? CodeBlock.of(
+            "(($T) $L)",
+            FrameworkField.forResolvedBindings(resolvedBindings, Optional.<ClassName>absent())
+                .type(),
+            memberSelect)
+        : memberSelect;
+  }
+
+  /**
+   * Adds the {@code SwitchingProvider} class, whose instances provide the bindings that were
+   * assigned an id by {@link #newSwitchingProvider}. Cases are split across methods of {@value
+   * #SWITCHING_PROVIDER_CASES_PER_METHOD} to stay within the limits on method size.
+   *
+   * <p>If the {@linkplain #useScopedInstanceTable() scoped instance table} is used, the class also
+   * implements {@link dagger.internal.ScopedInstanceTable.Initializer}: {@code initialize()}
+   * creates a new instance, and {@code get()} returns the instance memoized in the table's slot.
+   */
+  private void addSwitchingProvider() {
+    if (switchingProviderCases.isEmpty()) {
+      return;
+    }
+    boolean useScopedInstanceTable = useScopedInstanceTable();
+    TypeVariableName t = TypeVariableName.get("T");
+    TypeSpec.Builder switchingProvider =
+        classBuilder(switchingProviderName())
+            .addModifiers(PRIVATE, FINAL)
+            .addTypeVariable(t)
+            .addSuperinterface(ParameterizedTypeName.get(FACTORY, t))
+            .addField(TypeName.INT, "id", PRIVATE, FINAL);
+    MethodSpec.Builder switchingProviderConstructor =
+        constructorBuilder().addParameter(TypeName.INT, "id").addStatement("this.id = id");
+    MethodSpec.Builder getMethod =
+        methodBuilder("get")
+            .addAnnotation(SUPPRESS_WARNINGS_UNCHECKED)
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(t);
+    // The method that dispatches on the id, and the type its result is cast to.
+    MethodSpec.Builder dispatchMethod = getMethod;
+    TypeName dispatchType = t;
+    if (useScopedInstanceTable) {
+      switchingProvider
+          .addSuperinterface(SCOPED_INSTANCE_TABLE.nestedClass("Initializer"))
+          .addField(TypeName.INT, "slot", PRIVATE, FINAL);
+      switchingProviderConstructor
+          .addParameter(TypeName.INT, "slot")
+          .addStatement("this.slot = slot");
+      dispatchMethod =
+          methodBuilder("initialize")
+              .addAnnotation(Override.class)
+              .addModifiers(PUBLIC)
+              .returns(Object.class);
+      dispatchType = TypeName.OBJECT;
+      if (scopedInstanceTableSize == 0) {
+        getMethod.addStatement("return ($T) initialize()", t);
+      } else {
+        FieldSpec scopedInstances =
+            componentField(SCOPED_INSTANCE_TABLE, "scopedInstances")
+                .addModifiers(PRIVATE, FINAL)
+                .initializer("new $T($L)", SCOPED_INSTANCE_TABLE, scopedInstanceTableSize)
+                .build();
+        component.addField(scopedInstances);
+        getMethod.addStatement(
+            "return ($T) (slot < 0 ? initialize() : $T.this.$N.get(slot, this))",
+            t,
+            name,
+            scopedInstances);
+      }
+    }
+    switchingProvider.addMethod(switchingProviderConstructor.build());
+
+    List<List<CodeBlock>> partitions =
+        Lists.partition(switchingProviderCases, SWITCHING_PROVIDER_CASES_PER_METHOD);
+    if (partitions.size() > 1) {
+      dispatchMethod.beginControlFlow("switch (id / $L)", SWITCHING_PROVIDER_CASES_PER_METHOD);
+    }
+    for (int i = 0; i < partitions.size(); i++) {
+      String methodName = "get" + i;
+      MethodSpec.Builder casesMethod =
+          methodBuilder(methodName)
+              .addModifiers(PRIVATE)
+              .returns(Object.class)
+              .beginControlFlow("switch (id)");
+      int id = i * SWITCHING_PROVIDER_CASES_PER_METHOD;
+      for (CodeBlock switchingProviderCase : partitions.get(i)) {
+        casesMethod
+            .addCode("case $L:\n$>", id++)
+            .addStatement("return $L", switchingProviderCase)
+            .addCode("$<");
+      }
+      casesMethod
+          .addCode("default:\n$>")
+          .addStatement("throw new $T(id)", AssertionError.class)
+          .addCode("$<")
+          .endControlFlow();
+      switchingProvider.addMethod(casesMethod.build());
+
+      CodeBlock dispatch =
+          dispatchType.equals(TypeName.OBJECT)
+              ? CodeBlock.of("return $L()", methodName)
+              : CodeBlock.of("return ($T) $L()", dispatchType, methodName);
+      if (partitions.size() > 1) {
+        dispatchMethod
+            .addCode("case $L:\n$>", i)
+            .addStatement("$L", dispatch)
+            .addCode("$<");
+      } else {
+        dispatchMethod.addStatement("$L", dispatch);
+      }
+    }
+    if (partitions.size() > 1) {
+      dispatchMethod
+          .addCode("default:\n$>")
+          .addStatement("throw new $T(id)", AssertionError.class)
+          .addCode("$<")
+          .endControlFlow();
+    }
+    if (useScopedInstanceTable) {
+      switchingProvider.addMethod(dispatchMethod.build());
+    }
+    component.addType(switchingProvider.addMethod(getMethod.build()).build());
   }
 
   private CodeBlock nullableAnnotation(Optional<DeclaredType> nullableType) {
@@ -1103,6 +2200,36 @@ abstract class AbstractComponentWriter {
     return parameters.build();
   }
 
+  /**
+   * The dependency arguments of a producer. The production executor submits the producer's tasks
+   * with the length of its {@linkplain CriticalPaths critical path} as priority, and runs them in
+   * the task that produced their input if the producer is on a {@linkplain ProducerChains fused
+   * chain}.
+   */
+  private ImmutableList<CodeBlock> getProducerDependencyArguments(ProductionBinding binding) {
+    BindingKey bindingKey = BindingKey.create(BindingKey.Kind.CONTRIBUTION, binding.key());
+    BindingKey executorKey = binding.executorRequest().get().bindingKey();
+    ImmutableList.Builder<CodeBlock> parameters = ImmutableList.builder();
+    for (FrameworkDependency frameworkDependency : frameworkDependenciesForBinding(binding)) {
+      CodeBlock argument = getDependencyArgument(frameworkDependency);
+      if (frameworkDependency.bindingKey().equals(executorKey)) {
+        if (criticalPathLengths.containsKey(bindingKey)) {
+          argument =
+              CodeBlock.of(
+                  "$T.prioritizedExecutorProvider($L, $L)",
+                  PRODUCERS,
+                  argument,
+                  criticalPathLengths.get(bindingKey));
+        }
+        if (fusedProducerKeys.contains(bindingKey)) {
+          argument = CodeBlock.of("$T.fusedExecutorProvider($L)", PRODUCERS, argument);
+        }
+      }
+      parameters.add(argument);
+    }
+    return parameters.build();
+  }
+
   /**
    * The expression to use as an argument for a dependency.
    */
@@ -1160,9 +2287,22 @@ abstract class AbstractComponentWriter {
     }
     builder.add("builder($L, $L)", individualProviders, setProviders);
     builder.add(builderMethodCalls.build());
+    if (hasProducerFanOutLimit(binding)) {
+      builder.add(".fanOutLimit($L)", compilerOptions.producerMultibindingFanOutLimit());
+    }
     return builder.add(".build()").build();
   }
 
+  /**
+   * Returns true if {@code binding} is a production multibinding whose contributions are started
+   * through a window of the {@linkplain CompilerOptions#PRODUCER_MULTIBINDING_FAN_OUT_LIMIT_KEY
+   * configured size}.
+   */
+  private boolean hasProducerFanOutLimit(ContributionBinding binding) {
+    return binding.bindingType().equals(BindingType.PRODUCTION)
+        && compilerOptions.producerMultibindingFanOutLimit() > 0;
+  }
+
   private CodeBlock initializeFactoryForMapMultibinding(ContributionBinding binding) {
     ImmutableSet<FrameworkDependency> frameworkDependencies =
         FrameworkDependency.frameworkDependenciesForBinding(binding);
@@ -156,6 +156,23 @@ abstract class BindingGraph {
         .toSet();
   }
 
+  /**
+   * Returns, for each binding key in this graph, the keys of the bindings in this graph that depend
+   * on it.
+   */
+  ImmutableSetMultimap<BindingKey, BindingKey> dependentKeys() {
+    ImmutableSetMultimap.Builder<BindingKey, BindingKey> dependentKeys =
+        ImmutableSetMultimap.builder();
+    for (ResolvedBindings resolvedBindings : resolvedBindings().values()) {
+      for (Binding binding : resolvedBindings.bindings()) {
+        for (DependencyRequest dependency : binding.dependencies()) {
+          dependentKeys.put(dependency.bindingKey(), resolvedBindings.bindingKey());
+        }
+      }
+    }
+    return dependentKeys.build();
+  }
+
   ImmutableSet<TypeElement> availableDependencies() {
     return FluentIterable.from(componentDescriptor().transitiveModuleTypes())
         .filter(not(hasModifiers(ABSTRACT)))
@@ -167,17 +184,20 @@ abstract class BindingGraph {
     private final Elements elements;
     private final InjectBindingRegistry injectBindingRegistry;
     private final Key.Factory keyFactory;
+    private final DependencyRequest.Factory dependencyRequestFactory;
     private final ProvisionBinding.Factory provisionBindingFactory;
     private final ProductionBinding.Factory productionBindingFactory;
 
     Factory(Elements elements,
         InjectBindingRegistry injectBindingRegistry,
         Key.Factory keyFactory,
+        DependencyRequest.Factory dependencyRequestFactory,
         ProvisionBinding.Factory provisionBindingFactory,
         ProductionBinding.Factory productionBindingFactory) {
       this.elements = elements;
       this.injectBindingRegistry = injectBindingRegistry;
       this.keyFactory = keyFactory;
+      this.dependencyRequestFactory = dependencyRequestFactory;
       this.provisionBindingFactory = provisionBindingFactory;
       this.productionBindingFactory = productionBindingFactory;
     }
@@ -253,6 +273,12 @@ abstract class BindingGraph {
         }
       }
 
+      // Provision components that contribute monitor factories create their monitor from them.
+      if (!componentDescriptor.kind().isProducer()
+          && requestResolver.hasMultibindings(keyFactory.forProvisionComponentMonitorFactories())) {
+        requestResolver.resolve(dependencyRequestFactory.forProvisionComponentMonitorFactories());
+      }
+
       ImmutableMap.Builder<ExecutableElement, BindingGraph> subgraphsBuilder =
           ImmutableMap.builder();
       for (Entry<ComponentMethodDescriptor, ComponentDescriptor> subcomponentEntry :
@@ -441,7 +467,14 @@ abstract class BindingGraph {
           return false;
         }
 
-        Key key = maybeKey.get();
+        return hasMultibindings(maybeKey.get());
+      }
+
+      /**
+       * Returns true if there are multibinding contributions or declarations for {@code key} in
+       * this or any ancestor resolver.
+       */
+      private boolean hasMultibindings(Key key) {
         if (!getExplicitMultibindings(key).isEmpty()
             || !getMultibindingDeclarations(key).isEmpty()) {
           return true;
@@ -36,6 +36,19 @@ abstract class CompilerOptions {
   abstract Diagnostic.Kind staticMemberValidationKind();
   abstract boolean ignorePrivateAndStaticInjectionForComponent();
   abstract ValidationType scopeCycleValidationType();
+  abstract boolean lazyFrameworkFieldInitialization();
+  abstract boolean switchingProviders();
+  abstract boolean directInstanceExpressions();
+  abstract boolean reentrantLockScopedProviders();
+  abstract boolean threadConfinedComponents();
+  abstract boolean scopedInstanceTable();
+  abstract boolean eagerSingletons();
+  abstract boolean warmUpMethod();
+  abstract boolean reportProcessingTimes();
+  abstract int producerMultibindingFanOutLimit();
+  abstract boolean criticalPathScheduling();
+  abstract boolean fuseProducerChains();
+  abstract boolean releaseIntermediateProducerResults();
 
   static Builder builder() {
     return new AutoValue_CompilerOptions.Builder();
@@ -55,6 +68,26 @@ abstract class CompilerOptions {
             ignorePrivateAndStaticInjectionForComponent(processingEnv)
                 .equals(FeatureStatus.DISABLED))
         .scopeCycleValidationType(scopeValidationType(processingEnv))
+        .lazyFrameworkFieldInitialization(
+            lazyFrameworkFieldInitialization(processingEnv).equals(FeatureStatus.ENABLED))
+        .switchingProviders(switchingProviders(processingEnv).equals(FeatureStatus.ENABLED))
+        .directInstanceExpressions(
+            directInstanceExpressions(processingEnv).equals(FeatureStatus.ENABLED))
+        .reentrantLockScopedProviders(
+            reentrantLockScopedProviders(processingEnv).equals(FeatureStatus.ENABLED))
+        .threadConfinedComponents(
+            threadConfinedComponents(processingEnv).equals(FeatureStatus.ENABLED))
+        .scopedInstanceTable(scopedInstanceTable(processingEnv).equals(FeatureStatus.ENABLED))
+        .eagerSingletons(eagerSingletons(processingEnv).equals(FeatureStatus.ENABLED))
+        .warmUpMethod(warmUpMethod(processingEnv).equals(FeatureStatus.ENABLED))
+        .reportProcessingTimes(
+            reportProcessingTimes(processingEnv).equals(FeatureStatus.ENABLED))
+        .producerMultibindingFanOutLimit(producerMultibindingFanOutLimit(processingEnv))
+        .criticalPathScheduling(
+            criticalPathScheduling(processingEnv).equals(FeatureStatus.ENABLED))
+        .fuseProducerChains(fuseProducerChains(processingEnv).equals(FeatureStatus.ENABLED))
+        .releaseIntermediateProducerResults(
+            releaseIntermediateProducerResults(processingEnv).equals(FeatureStatus.ENABLED))
         .build();
   }
 
@@ -68,6 +101,19 @@ abstract class CompilerOptions {
     Builder ignorePrivateAndStaticInjectionForComponent(
         boolean ignorePrivateAndStaticInjectionForComponent);
     Builder scopeCycleValidationType(ValidationType type);
+    Builder lazyFrameworkFieldInitialization(boolean lazyFrameworkFieldInitialization);
+    Builder switchingProviders(boolean switchingProviders);
+    Builder directInstanceExpressions(boolean directInstanceExpressions);
+    Builder reentrantLockScopedProviders(boolean reentrantLockScopedProviders);
+    Builder threadConfinedComponents(boolean threadConfinedComponents);
+    Builder scopedInstanceTable(boolean scopedInstanceTable);
+    Builder eagerSingletons(boolean eagerSingletons);
+    Builder warmUpMethod(boolean warmUpMethod);
+    Builder reportProcessingTimes(boolean reportProcessingTimes);
+    Builder producerMultibindingFanOutLimit(int producerMultibindingFanOutLimit);
+    Builder criticalPathScheduling(boolean criticalPathScheduling);
+    Builder fuseProducerChains(boolean fuseProducerChains);
+    Builder releaseIntermediateProducerResults(boolean releaseIntermediateProducerResults);
     CompilerOptions build();
   }
 
@@ -92,13 +138,132 @@ abstract class CompilerOptions {
   static final String IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT =
       "dagger.ignorePrivateAndStaticInjectionForComponent";
 
+  /**
+   * If enabled, each framework field of a generated component is created the first time it is read
+   * instead of in the component's constructor. Component construction then only pays for the
+   * bindings that are actually used.
+   */
+  static final String LAZY_FRAMEWORK_FIELD_INITIALIZATION_KEY =
+      "dagger.lazyFrameworkFieldInitialization";
+
+  /**
+   * If enabled, provision bindings that a generated component can construct or call directly are
+   * provided by a single nested {@code SwitchingProvider} class per component instead of by their
+   * generated {@code _Factory} classes, so that creating a component does not load one class per
+   * binding.
+   */
+  static final String SWITCHING_PROVIDERS_KEY = "dagger.switchingProviders";
+
+  /**
+   * If enabled, a component method that returns an instance of an unscoped binding invokes the
+   * binding's constructor or {@code @Provides} method directly instead of calling {@code get()} on
+   * its provider. Unscoped instance dependencies of that binding are created the same way.
+   */
+  static final String DIRECT_INSTANCE_EXPRESSIONS_KEY = "dagger.directInstanceExpressions";
+
+  /**
+   * If enabled, scoped bindings are memoized by {@link dagger.internal.ReentrantLockDoubleCheck}
+   * instead of {@link dagger.internal.DoubleCheck}, so that a virtual thread that blocks while
+   * creating a scoped instance does not pin its carrier thread.
+   */
+  static final String REENTRANT_LOCK_SCOPED_PROVIDERS_KEY = "dagger.reentrantLockScopedProviders";
+
+  /**
+   * If enabled, generated components may only be used from the thread that created them. Scoped
+   * and {@link dagger.Reusable @Reusable} bindings are memoized by {@link
+   * dagger.internal.ThreadConfinedCheck}, and lazily initialized framework fields are neither
+   * {@code volatile} nor guarded by a lock.
+   */
+  static final String THREAD_CONFINED_COMPONENTS_KEY = "dagger.threadConfinedComponents";
+
+  /**
+   * If enabled along with {@linkplain #SWITCHING_PROVIDERS_KEY switching providers}, the instances
+   * of a component's scoped bindings that are provided by its {@code SwitchingProvider} are
+   * memoized in one {@link dagger.internal.ScopedInstanceTable} per component instead of in one
+   * {@link dagger.internal.DoubleCheck} per binding. Has no effect on {@linkplain
+   * #THREAD_CONFINED_COMPONENTS_KEY thread-confined components}.
+   */
+  static final String SCOPED_INSTANCE_TABLE_KEY = "dagger.scopedInstanceTable";
+
+  /**
+   * If enabled, scoped bindings that a component can construct by directly calling their {@code
+   * @Inject} constructor or {@code @Provides} method, from instances of other such bindings and of
+   * unscoped bindings that it can construct the same way, are created in dependency order when the
+   * component is built. Each instance is held in a {@code final} field that component methods and
+   * dependents read directly. {@link dagger.Reusable @Reusable} bindings and production components
+   * are not affected.
+   */
+  static final String EAGER_SINGLETONS_KEY = "dagger.eagerSingletons";
+
+  /**
+   * If enabled, each generated top-level component has a public {@code warmUp(Executor)} method
+   * that initializes all of the component's scoped bindings concurrently on the executor, starting
+   * each one after the scoped bindings that its construction requires, and returns once all of
+   * them are initialized.
+   */
+  static final String WARM_UP_METHOD_KEY = "dagger.warmUpMethod";
+
+  /**
+   * If enabled, Dagger reports a note for each component that it generates with the time spent
+   * building, validating and generating the component's binding graph, so that slow builds of large
+   * components can be attributed to a step.
+   */
+  static final String REPORT_PROCESSING_TIMES_KEY = "dagger.reportProcessingTimes";
+
+  /**
+   * The maximum number of contributions to a multibound {@code Set} or {@code Map} in a production
+   * component that are in flight at once. The next contribution is started each time one of them
+   * completes, so that a multibinding with many contributions cannot monopolize the production
+   * executor. If unset, or {@code 0}, all of the contributions are started at once.
+   */
+  static final String PRODUCER_MULTIBINDING_FAN_OUT_LIMIT_KEY =
+      "dagger.producerMultibindingFanOutLimit";
+
+  /**
+   * If enabled, each producer of a production component submits its tasks to the production
+   * executor with a priority: the number of producers on the longest chain from it to a component
+   * method. A {@link dagger.producers.CriticalPathExecutor} runs queued tasks of higher priority
+   * first; other executors ignore the priorities.
+   */
+  static final String CRITICAL_PATH_SCHEDULING_KEY = "dagger.criticalPathScheduling";
+
+  /**
+   * If enabled, the producers of a production component that form linear chains, in which each
+   * producer's only dependent is the next one, run as a single task on the production executor:
+   * each producer on a chain continues on the thread that produced its input instead of being
+   * submitted to the executor again.
+   */
+  static final String FUSE_PRODUCER_CHAINS_KEY = "dagger.fuseProducerChains";
+
+  /**
+   * If enabled, a production component releases the result of each of its intermediate producers
+   * once all of the producers that consume it have started, instead of retaining it for the
+   * lifetime of the component. Results that are requested by component methods, by
+   * {@link dagger.producers.Producer} dependencies or by subcomponents are retained.
+   */
+  static final String RELEASE_INTERMEDIATE_PRODUCER_RESULTS_KEY =
+      "dagger.releaseIntermediateProducerResults";
+
   static final ImmutableSet<String> SUPPORTED_OPTIONS = ImmutableSet.of(
         WRITE_PRODUCER_NAME_IN_TOKEN_KEY,
         DISABLE_INTER_COMPONENT_SCOPE_VALIDATION_KEY,
         NULLABLE_VALIDATION_KEY,
         PRIVATE_MEMBER_VALIDATION_TYPE_KEY,
         STATIC_MEMBER_VALIDATION_TYPE_KEY,
-        IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT);
+        IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT,
+        LAZY_FRAMEWORK_FIELD_INITIALIZATION_KEY,
+        SWITCHING_PROVIDERS_KEY,
+        DIRECT_INSTANCE_EXPRESSIONS_KEY,
+        REENTRANT_LOCK_SCOPED_PROVIDERS_KEY,
+        THREAD_CONFINED_COMPONENTS_KEY,
+        SCOPED_INSTANCE_TABLE_KEY,
+        EAGER_SINGLETONS_KEY,
+        WARM_UP_METHOD_KEY,
+        REPORT_PROCESSING_TIMES_KEY,
+        PRODUCER_MULTIBINDING_FAN_OUT_LIMIT_KEY,
+        CRITICAL_PATH_SCHEDULING_KEY,
+        FUSE_PRODUCER_CHAINS_KEY,
+        RELEASE_INTERMEDIATE_PRODUCER_RESULTS_KEY);
 
   private static FeatureStatus writeProducerNameInToken(ProcessingEnvironment processingEnv) {
     return valueOf(
@@ -149,6 +314,128 @@ abstract class CompilerOptions {
         EnumSet.allOf(FeatureStatus.class));
   }
 
+  private static FeatureStatus lazyFrameworkFieldInitialization(
+      ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        LAZY_FRAMEWORK_FIELD_INITIALIZATION_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus switchingProviders(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        SWITCHING_PROVIDERS_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus directInstanceExpressions(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        DIRECT_INSTANCE_EXPRESSIONS_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus reentrantLockScopedProviders(
+      ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        REENTRANT_LOCK_SCOPED_PROVIDERS_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus threadConfinedComponents(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        THREAD_CONFINED_COMPONENTS_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus scopedInstanceTable(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        SCOPED_INSTANCE_TABLE_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus eagerSingletons(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        EAGER_SINGLETONS_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus warmUpMethod(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        WARM_UP_METHOD_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus reportProcessingTimes(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        REPORT_PROCESSING_TIMES_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus criticalPathScheduling(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        CRITICAL_PATH_SCHEDULING_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus fuseProducerChains(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        FUSE_PRODUCER_CHAINS_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus releaseIntermediateProducerResults(
+      ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        RELEASE_INTERMEDIATE_PRODUCER_RESULTS_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static int producerMultibindingFanOutLimit(ProcessingEnvironment processingEnv) {
+    String value = processingEnv.getOptions().get(PRODUCER_MULTIBINDING_FAN_OUT_LIMIT_KEY);
+    if (value != null) {
+      try {
+        int limit = Integer.parseInt(value.trim());
+        if (limit < 0) {
+          throw new NumberFormatException(); // let handler below print out good msg.
+        }
+        return limit;
+      } catch (NumberFormatException e) {
+        processingEnv
+            .getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                "Processor option -A"
+                    + PRODUCER_MULTIBINDING_FAN_OUT_LIMIT_KEY
+                    + " may only be a non-negative integer, found: "
+                    + value);
+      }
+    }
+    return 0;
+  }
+
   private static <T extends Enum<T>> T valueOf(
       ProcessingEnvironment processingEnv, String key, T defaultValue, Set<T> validValues) {
     Map<String, String> options = processingEnv.getOptions();
@@ -18,6 +18,7 @@ package dagger.internal.codegen;
 import com.google.auto.common.BasicAnnotationProcessor.ProcessingStep;
 import com.google.auto.common.MoreElements;
 import com.google.common.base.Predicates;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -37,6 +38,8 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic.Kind;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 /**
  * A {@link ProcessingStep} that is responsible for dealing with a component or production component
  * as part of the {@link ComponentProcessor}.
@@ -54,6 +57,7 @@ final class ComponentProcessingStep implements ProcessingStep {
   private final ComponentDescriptor.Factory componentDescriptorFactory;
   private final BindingGraph.Factory bindingGraphFactory;
   private final ComponentGenerator componentGenerator;
+  private final CompilerOptions compilerOptions;
 
   ComponentProcessingStep(
       ComponentDescriptor.Kind componentKind,
@@ -65,7 +69,8 @@ final class ComponentProcessingStep implements ProcessingStep {
       BindingGraphValidator bindingGraphValidator,
       Factory componentDescriptorFactory,
       BindingGraph.Factory bindingGraphFactory,
-      ComponentGenerator componentGenerator) {
+      ComponentGenerator componentGenerator,
+      CompilerOptions compilerOptions) {
     this.componentKind = componentKind;
     this.messager = messager;
     this.componentValidator = componentValidator;
@@ -76,6 +81,7 @@ final class ComponentProcessingStep implements ProcessingStep {
     this.componentDescriptorFactory = componentDescriptorFactory;
     this.bindingGraphFactory = bindingGraphFactory;
     this.componentGenerator = componentGenerator;
+    this.compilerOptions = compilerOptions;
   }
 
   @Override
@@ -133,12 +139,29 @@ final class ComponentProcessingStep implements ProcessingStep {
               componentHierarchyValidator.validate(componentDescriptor);
           hierarchyReport.printMessagesTo(messager);
           if (hierarchyReport.isClean()) {
+            Stopwatch stopwatch = Stopwatch.createStarted();
             BindingGraph bindingGraph = bindingGraphFactory.create(componentDescriptor);
+            long bindingGraphFactoryMillis = stopwatch.elapsed(MILLISECONDS);
+            stopwatch.reset().start();
             ValidationReport<TypeElement> graphReport =
                 bindingGraphValidator.validate(bindingGraph);
+            long bindingGraphValidatorMillis = stopwatch.elapsed(MILLISECONDS);
             graphReport.printMessagesTo(messager);
             if (graphReport.isClean()) {
+              stopwatch.reset().start();
               generateComponent(bindingGraph);
+              if (compilerOptions.reportProcessingTimes()) {
+                messager.printMessage(
+                    Kind.NOTE,
+                    String.format(
+                        "Processing times for %s: BindingGraph.Factory %d ms, "
+                            + "BindingGraphValidator %d ms, ComponentGenerator %d ms",
+                        componentTypeElement.getQualifiedName(),
+                        bindingGraphFactoryMillis,
+                        bindingGraphValidatorMillis,
+                        stopwatch.elapsed(MILLISECONDS)),
+                    componentTypeElement);
+              }
             }
           }
         }
@@ -154,6 +154,7 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
             elements,
             injectBindingRegistry,
             keyFactory,
+            dependencyRequestFactory,
             provisionBindingFactory,
             productionBindingFactory);
 
@@ -197,7 +198,8 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
             bindingGraphValidator,
             componentDescriptorFactory,
             bindingGraphFactory,
-            componentGenerator),
+            componentGenerator,
+            compilerOptions),
         producerModuleProcessingStep(
             messager,
             moduleValidator,
@@ -216,7 +218,8 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
             bindingGraphValidator,
             componentDescriptorFactory,
             bindingGraphFactory,
-            componentGenerator));
+            componentGenerator,
+            compilerOptions));
   }
 
   @Override
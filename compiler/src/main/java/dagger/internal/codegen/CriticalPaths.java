@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSetMultimap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the critical paths of a production component: for each binding, the number of
+ * {@link dagger.producers.Produces @Produces} methods on the longest chain of dependents from it to
+ * a component method, counting its own. Producers with longer chains gate more of the component's
+ * results, so they are scheduled first when the production executor is saturated.
+ */
+final class CriticalPaths {
+  /** Returns the length of the critical path of each binding key in {@code graph}. */
+  static ImmutableMap<BindingKey, Integer> lengths(BindingGraph graph) {
+    ImmutableSetMultimap<BindingKey, BindingKey> dependents = graph.dependentKeys();
+    Map<BindingKey, Integer> lengths = new HashMap<>();
+    Set<BindingKey> visiting = new HashSet<>();
+    for (BindingKey bindingKey : graph.resolvedBindings().keySet()) {
+      length(bindingKey, graph, dependents, lengths, visiting);
+    }
+    return ImmutableMap.copyOf(lengths);
+  }
+
+  private static int length(
+      BindingKey bindingKey,
+      BindingGraph graph,
+      ImmutableSetMultimap<BindingKey, BindingKey> dependents,
+      Map<BindingKey, Integer> lengths,
+      Set<BindingKey> visiting) {
+    Integer length = lengths.get(bindingKey);
+    if (length != null) {
+      return length;
+    }
+    if (!visiting.add(bindingKey)) {
+      // A cycle through a Producer or Provider dependency; the chain ends here.
+      return 0;
+    }
+    int longestDependentChain = 0;
+    for (BindingKey dependent : dependents.get(bindingKey)) {
+      longestDependentChain =
+          Math.max(longestDependentChain, length(dependent, graph, dependents, lengths, visiting));
+    }
+    visiting.remove(bindingKey);
+    length = longestDependentChain;
+    ResolvedBindings resolvedBindings = graph.resolvedBindings().get(bindingKey);
+    if (resolvedBindings != null && resolvedBindings.isProducesMethodBinding()) {
+      length++;
+    }
+    lengths.put(bindingKey, length);
+    return length;
+  }
+
+  private CriticalPaths() {}
+}
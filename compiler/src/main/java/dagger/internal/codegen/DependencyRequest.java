@@ -310,9 +310,9 @@ abstract class DependencyRequest {
           "Component production methods must be empty: %s", productionMethod);
       TypeMirror type = productionMethodType.getReturnType();
       Optional<AnnotationMirror> qualifier = InjectionAnnotations.getQualifier(productionMethod);
-      // Only a component production method can be a request for a ListenableFuture, so we
-      // special-case it here.
-      if (isTypeOf(ListenableFuture.class, type)) {
+      // Only a component production method can be a request for a ListenableFuture (or a
+      // CompletableFuture, which the component adapts from one), so we special-case it here.
+      if (FutureTypes.isProductionComponentMethodFutureType(type)) {
         return new AutoValue_DependencyRequest(
             Kind.FUTURE,
             keyFactory.forQualifiedType(
@@ -368,6 +368,17 @@ abstract class DependencyRequest {
           false /* not synthetic */);
     }
 
+    DependencyRequest forProvisionComponentMonitorFactories() {
+      Key key = keyFactory.forProvisionComponentMonitorFactories();
+      return new AutoValue_DependencyRequest(
+          Kind.PROVIDER,
+          key,
+          MoreTypes.asElement(key.type()),
+          false /* doesn't allow null */,
+          Optional.<String>absent(),
+          false /* not synthetic */);
+    }
+
     DependencyRequest forProductionComponentMonitorProvider() {
       TypeElement element = elements.getTypeElement(AbstractProducer.class.getCanonicalName());
       for (ExecutableElement constructor : constructorsIn(element.getEnclosedElements())) {
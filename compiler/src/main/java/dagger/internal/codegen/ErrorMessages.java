@@ -135,10 +135,10 @@ final class ErrorMessages {
 
   static final String PRODUCES_METHOD_RETURN_TYPE =
       "@Produces methods must return a primitive, an array, a type variable, or a declared type, "
-          + "or a ListenableFuture of one of those types.";
+          + "or a ListenableFuture or CompletionStage of one of those types.";
 
   static final String PRODUCES_METHOD_RAW_FUTURE =
-      "@Produces methods cannot return a raw ListenableFuture.";
+      "@Produces methods cannot return a raw ListenableFuture or CompletionStage.";
 
   static final String BINDING_METHOD_SET_VALUES_RAW_SET =
       "@%s methods of type set values cannot return a raw Set";
@@ -150,10 +150,30 @@ final class ErrorMessages {
       "@%s methods of type set values must return a Set";
 
   static final String PRODUCES_METHOD_SET_VALUES_RETURN_SET =
-      "@Produces methods of type set values must return a Set or ListenableFuture of Set";
+      "@Produces methods of type set values must return a Set, or a ListenableFuture or "
+          + "CompletionStage of Set";
 
   static final String PRODUCES_METHOD_SCOPE = "@Produces methods may not have scope annotations.";
 
+  static final String PRODUCES_METHOD_SHARED_FRAMEWORK_TYPE =
+      "@%s @Produces methods may only depend on values and Produced values, not on %s";
+
+  static final String PRODUCES_METHOD_CACHE_EXPIRY =
+      "@CachedProduction expireAfterWriteMillis must be positive";
+
+  static final String PRODUCES_METHOD_BULKHEAD_CONCURRENCY =
+      "@Bulkhead maxConcurrency must be positive";
+
+  static final String PRODUCES_METHOD_BULKHEAD_QUEUE = "@Bulkhead maxQueued must not be negative";
+
+  static final String PRODUCES_METHOD_BULKHEAD_LIMITS =
+      "@Bulkhead \"%s\" must have the same limits as it has on %s";
+
+  static final String PRODUCES_METHOD_HEDGE_DELAY = "@Hedged delayMillis must be positive";
+
+  static final String PRODUCES_METHOD_HEDGE_PERCENTILE =
+      "@Hedged percentile must be at least 0 and less than 100";
+
   static final String BINDING_METHOD_THROWS =
       "@%s methods may only throw unchecked exceptions or exceptions subclassing Exception";
 
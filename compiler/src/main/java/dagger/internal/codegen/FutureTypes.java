@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.auto.common.MoreTypes;
+import com.google.common.util.concurrent.ListenableFuture;
+import javax.lang.model.type.TypeMirror;
+
+import static com.google.auto.common.MoreTypes.isType;
+import static javax.lang.model.type.TypeKind.DECLARED;
+
+/**
+ * A collection of utility methods for dealing with the future types that production bindings and
+ * production component methods may use. {@code CompletionStage} and {@code CompletableFuture} are
+ * referred to by name, since the processor may run on a JDK that does not define them.
+ */
+final class FutureTypes {
+  private static final String COMPLETION_STAGE = "java.util.concurrent.CompletionStage";
+  private static final String COMPLETABLE_FUTURE = "java.util.concurrent.CompletableFuture";
+
+  /**
+   * Returns true if a {@link dagger.producers.Produces @Produces} method that returns {@code type}
+   * produces the type argument of a future: a {@link ListenableFuture}, a {@code CompletionStage}
+   * or a {@code CompletableFuture}.
+   */
+  static boolean isProducesMethodFutureType(TypeMirror type) {
+    return isType(type)
+        && (MoreTypes.isTypeOf(ListenableFuture.class, type) || isCompletionStageType(type));
+  }
+
+  /**
+   * Returns true if {@code type} is a {@code CompletionStage} or a {@code CompletableFuture}, which
+   * generated code adapts to and from {@link ListenableFuture}.
+   */
+  static boolean isCompletionStageType(TypeMirror type) {
+    return isTypeNamed(COMPLETION_STAGE, type) || isCompletableFutureType(type);
+  }
+
+  /**
+   * Returns true if a production component method that returns {@code type} requests the future of
+   * its type argument: a {@link ListenableFuture} or a {@code CompletableFuture}.
+   */
+  static boolean isProductionComponentMethodFutureType(TypeMirror type) {
+    return isType(type)
+        && (MoreTypes.isTypeOf(ListenableFuture.class, type) || isCompletableFutureType(type));
+  }
+
+  /** Returns true if {@code type} is a {@code CompletableFuture}. */
+  static boolean isCompletableFutureType(TypeMirror type) {
+    return isTypeNamed(COMPLETABLE_FUTURE, type);
+  }
+
+  private static boolean isTypeNamed(String qualifiedName, TypeMirror type) {
+    return type.getKind().equals(DECLARED)
+        && MoreTypes.asTypeElement(type).getQualifiedName().contentEquals(qualifiedName);
+  }
+
+  private FutureTypes() {}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSetMultimap;
+import dagger.internal.codegen.ComponentDescriptor.ComponentMethodDescriptor;
+
+import static dagger.internal.codegen.ContributionBinding.Kind.FUTURE_PRODUCTION;
+import static dagger.internal.codegen.ContributionBinding.Kind.IMMEDIATE;
+
+/**
+ * Finds the intermediate producers of a production component whose results can be released once
+ * all of their consumers have started. An intermediate producer is the binding of a
+ * {@link dagger.producers.Produces @Produces} method that is owned by the component and consumed
+ * only by other {@code @Produces} methods of the component, each of which requests its result,
+ * directly or as a {@link dagger.producers.Produced}, exactly once per request when it starts.
+ *
+ * <p>Producers whose results are requested by a component method, by a
+ * {@link dagger.producers.Producer} dependency, or by a subcomponent may be requested any number of
+ * times, so they are never released.
+ */
+final class IntermediateProducers {
+  /**
+   * Returns, for each intermediate producer of {@code graph}, the number of times its consumers
+   * request its result.
+   */
+  static ImmutableMap<BindingKey, Integer> consumerCounts(BindingGraph graph) {
+    ImmutableSetMultimap<BindingKey, BindingKey> dependents = graph.dependentKeys();
+    ImmutableMap.Builder<BindingKey, Integer> consumerCounts = ImmutableMap.builder();
+    for (BindingKey bindingKey : dependents.keySet()) {
+      ResolvedBindings resolvedBindings = graph.resolvedBindings().get(bindingKey);
+      if (resolvedBindings == null
+          || resolvedBindings.contributionBindings().size() != 1
+          || resolvedBindings.ownedBindings().isEmpty()
+          || !resolvedBindings.isProducesMethodBinding()
+          || isEntryPoint(graph, bindingKey)
+          || isResolvedInSubgraph(graph, bindingKey)) {
+        continue;
+      }
+      int consumerCount = 0;
+      for (BindingKey dependent : dependents.get(bindingKey)) {
+        int requests =
+            requestsFromProducesMethods(graph.resolvedBindings().get(dependent), bindingKey);
+        if (requests < 0) {
+          consumerCount = 0;
+          break;
+        }
+        consumerCount += requests;
+      }
+      if (consumerCount > 0) {
+        consumerCounts.put(bindingKey, consumerCount);
+      }
+    }
+    return consumerCounts.build();
+  }
+
+  /**
+   * Returns the number of times the bindings of {@code dependent} request {@code bindingKey} when
+   * they start, or -1 if any of them is not a {@code @Produces} method or may request it at other
+   * times.
+   */
+  private static int requestsFromProducesMethods(
+      ResolvedBindings dependent, BindingKey bindingKey) {
+    int requests = 0;
+    for (ContributionBinding binding : dependent.contributionBindings()) {
+      if (!binding.bindingKind().equals(FUTURE_PRODUCTION)
+          && !binding.bindingKind().equals(IMMEDIATE)) {
+        return -1;
+      }
+      for (DependencyRequest dependency : binding.dependencies()) {
+        if (dependency.bindingKey().equals(bindingKey)) {
+          switch (dependency.kind()) {
+            case INSTANCE:
+            case PRODUCED:
+              requests++;
+              break;
+            default:
+              return -1;
+          }
+        }
+      }
+    }
+    return requests;
+  }
+
+  private static boolean isEntryPoint(BindingGraph graph, BindingKey bindingKey) {
+    for (ComponentMethodDescriptor componentMethod :
+        graph.componentDescriptor().componentMethods()) {
+      if (componentMethod.dependencyRequest().isPresent()
+          && componentMethod.dependencyRequest().get().bindingKey().equals(bindingKey)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isResolvedInSubgraph(BindingGraph graph, BindingKey bindingKey) {
+    for (BindingGraph subgraph : graph.subgraphs().values()) {
+      if (subgraph.resolvedBindings().containsKey(bindingKey)
+          || isResolvedInSubgraph(subgraph, bindingKey)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private IntermediateProducers() {}
+}
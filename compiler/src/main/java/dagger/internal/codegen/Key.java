@@ -29,6 +29,7 @@ import com.google.common.collect.Multimaps;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.Binds;
 import dagger.Multibindings;
+import dagger.monitoring.ProvisionComponentMonitor;
 import dagger.multibindings.Multibinds;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
@@ -318,7 +319,7 @@ abstract class Key {
       ContributionType contributionType = ContributionType.fromBindingMethod(method);
       TypeMirror returnType = normalize(types, methodType.getReturnType());
       if (frameworkType.equals(getProducerElement())
-          && MoreTypes.isTypeOf(ListenableFuture.class, returnType)) {
+          && FutureTypes.isProducesMethodFutureType(returnType)) {
         returnType = Iterables.getOnlyElement(MoreTypes.asDeclared(returnType).getTypeArguments());
       }
       TypeMirror keyType =
@@ -471,6 +472,15 @@ abstract class Key {
           getClassElement(Executor.class).asType());
     }
 
+    /** Returns the key for {@code Set<ProvisionComponentMonitor.Factory>}. */
+    Key forProvisionComponentMonitorFactories() {
+      TypeElement factoryElement =
+          elements.getTypeElement(ProvisionComponentMonitor.Factory.class.getCanonicalName());
+      return forQualifiedType(
+          Optional.<AnnotationMirror>absent(),
+          types.getDeclaredType(getSetElement(), factoryElement.asType()));
+    }
+
     /**
      * Optionally extract a {@link Key} for the underlying provision binding(s) if such a
      * valid key can be inferred from the given key.  Specifically, if the key represents a
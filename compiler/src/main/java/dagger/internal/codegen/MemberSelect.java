@@ -68,6 +68,31 @@ abstract class MemberSelect {
     }
   }
 
+  /**
+   * Returns a {@link MemberSelect} that invokes the no-argument method given by {@code methodName}
+   * owned by {@code owningClass}. As with {@link #localField}, the returned {@link MemberSelect} is
+   * only valid from within the owning type or a type that it encloses.
+   */
+  static MemberSelect localMethod(ClassName owningClass, String methodName) {
+    return new LocalMethod(owningClass, methodName);
+  }
+
+  private static final class LocalMethod extends MemberSelect {
+    final String methodName;
+
+    LocalMethod(ClassName owningClass, String methodName) {
+      super(owningClass, false);
+      this.methodName = checkNotNull(methodName);
+    }
+
+    @Override
+    CodeBlock getExpressionFor(ClassName usingClass) {
+      return owningClass().equals(usingClass)
+          ? CodeBlock.of("$L()", methodName)
+          : CodeBlock.of("$T.this.$L()", owningClass(), methodName);
+    }
+  }
+
   /**
    * Returns a {@link MemberSelect} for the invocation of a static method (given by
    * {@code methodInvocationCodeBlock}) on the {@code owningClass}.
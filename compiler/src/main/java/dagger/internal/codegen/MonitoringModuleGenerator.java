@@ -33,6 +33,7 @@ import javax.lang.model.util.Elements;
 
 import static com.squareup.javapoet.MethodSpec.methodBuilder;
 import static com.squareup.javapoet.TypeSpec.classBuilder;
+import static dagger.internal.codegen.TypeNames.SET_OF_DEADLINES;
 import static dagger.internal.codegen.TypeNames.SET_OF_FACTORIES;
 import static dagger.internal.codegen.TypeNames.providerOf;
 import static javax.lang.model.element.Modifier.ABSTRACT;
@@ -74,6 +75,15 @@ final class MonitoringModuleGenerator extends SourceFileGenerator<TypeElement> {
                             .returns(SET_OF_FACTORIES)
                             .build())
                     .build())
+            .addType(
+                TypeSpec.interfaceBuilder("DefaultSetOfDeadlines")
+                    .addAnnotation(Multibindings.class)
+                    .addMethod(
+                        MethodSpec.methodBuilder("setOfDeadlines")
+                            .addModifiers(PUBLIC, ABSTRACT)
+                            .returns(SET_OF_DEADLINES)
+                            .build())
+                    .build())
             .addMethod(
                 methodBuilder("monitor")
                     .returns(ProductionComponentMonitor.class)
@@ -82,8 +92,10 @@ final class MonitoringModuleGenerator extends SourceFileGenerator<TypeElement> {
                     .addAnnotation(ProductionScope.class)
                     .addParameter(providerOf(ClassName.get(componentElement.asType())), "component")
                     .addParameter(providerOf(SET_OF_FACTORIES), "factories")
+                    .addParameter(providerOf(SET_OF_DEADLINES), "deadlines")
                     .addStatement(
-                        "return $T.createMonitorForComponent(component, factories)", Monitors.class)
+                        "return $T.createMonitorForComponent(component, factories, deadlines)",
+                        Monitors.class)
                     .build()));
   }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+
+/**
+ * Finds the linear chains of a production component's producers that can be fused into a single
+ * task on the production executor. A link of a chain is a
+ * {@link dagger.producers.Produces @Produces} method whose only dependent is another
+ * {@code @Produces} method: since nothing else waits for it, the dependent can continue on the
+ * thread that produced its input instead of being submitted to the executor again.
+ */
+final class ProducerChains {
+  /** Returns the binding keys of the producers in {@code graph} that are on fusible chains. */
+  static ImmutableSet<BindingKey> fusedBindingKeys(BindingGraph graph) {
+    ImmutableSetMultimap<BindingKey, BindingKey> dependents = graph.dependentKeys();
+    ImmutableSet.Builder<BindingKey> fused = ImmutableSet.builder();
+    for (BindingKey bindingKey : dependents.keySet()) {
+      ImmutableSet<BindingKey> bindingDependents = dependents.get(bindingKey);
+      if (bindingDependents.size() == 1) {
+        BindingKey dependent = getOnlyElement(bindingDependents);
+        if (isProducesMethod(graph, bindingKey) && isProducesMethod(graph, dependent)) {
+          fused.add(bindingKey, dependent);
+        }
+      }
+    }
+    return fused.build();
+  }
+
+  private static boolean isProducesMethod(BindingGraph graph, BindingKey bindingKey) {
+    ResolvedBindings resolvedBindings = graph.resolvedBindings().get(bindingKey);
+    return resolvedBindings != null && resolvedBindings.isProducesMethodBinding();
+  }
+
+  private ProducerChains() {}
+}
@@ -25,31 +25,44 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import dagger.producers.Bulkhead;
+import dagger.producers.CachedProduction;
+import dagger.producers.Hedged;
+import dagger.producers.NonBlocking;
 import dagger.producers.Producer;
+import dagger.producers.SingleFlight;
 import javax.annotation.processing.Filer;
 import javax.lang.model.element.Element;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 
-import static com.squareup.javapoet.ClassName.OBJECT;
+import static com.google.auto.common.MoreElements.asExecutable;
+import static com.google.auto.common.MoreElements.isAnnotationPresent;
 import static com.squareup.javapoet.MethodSpec.constructorBuilder;
 import static com.squareup.javapoet.MethodSpec.methodBuilder;
 import static com.squareup.javapoet.TypeSpec.classBuilder;
-import static dagger.internal.codegen.AnnotationSpecs.SUPPRESS_WARNINGS_UNCHECKED;
 import static dagger.internal.codegen.CodeBlocks.makeParametersCodeBlock;
 import static dagger.internal.codegen.SourceFiles.frameworkTypeUsageStatement;
 import static dagger.internal.codegen.SourceFiles.generatedClassNameForBinding;
+import static dagger.internal.codegen.TypeNames.ASYNC_COMBINING_FUNCTION;
 import static dagger.internal.codegen.TypeNames.ASYNC_FUNCTION;
+import static dagger.internal.codegen.TypeNames.BULKHEAD_POLICY;
+import static dagger.internal.codegen.TypeNames.CACHE_POLICY;
+import static dagger.internal.codegen.TypeNames.COMPLETION_STAGES;
 import static dagger.internal.codegen.TypeNames.FUTURES;
+import static dagger.internal.codegen.TypeNames.FUTURE_COMBINER;
+import static dagger.internal.codegen.TypeNames.HEDGE_POLICY;
+import static dagger.internal.codegen.TypeNames.MORE_EXECUTORS;
 import static dagger.internal.codegen.TypeNames.PRODUCERS;
 import static dagger.internal.codegen.TypeNames.PRODUCER_TOKEN;
+import static dagger.internal.codegen.TypeNames.SINGLE_FLIGHT_POLICY;
 import static dagger.internal.codegen.TypeNames.VOID_CLASS;
 import static dagger.internal.codegen.TypeNames.abstractProducerOf;
-import static dagger.internal.codegen.TypeNames.listOf;
 import static dagger.internal.codegen.TypeNames.listenableFutureOf;
 import static dagger.internal.codegen.TypeNames.producedOf;
 import static javax.lang.model.element.Modifier.FINAL;
@@ -92,6 +105,11 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
             .addModifiers(PUBLIC, FINAL)
             .superclass(abstractProducerOf(providedTypeName));
 
+    ImmutableList<FieldSpec> policies = invocationPolicies(binding);
+    for (FieldSpec policy : policies) {
+      factoryBuilder.addField(policy);
+    }
+
     ImmutableMap<BindingKey, FrameworkField> fields =
         SourceFiles.generateBindingFieldsForDependencies(binding);
 
@@ -134,14 +152,26 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
     }
     FutureTransform futureTransform = FutureTransform.create(fields, binding, asyncDependencies);
 
+    // The futures are transformed by the factory itself, or by policies that apply it.
+    CodeBlock function = CodeBlock.of("this");
+    for (FieldSpec policy : policies) {
+      function =
+          CodeBlock.of(
+              "$N.$L($L, executorProvider.get(), monitor)",
+              policy,
+              futureTransform.policyApplyingMethodName(),
+              function);
+    }
+
     computeMethodBuilder.addStatement(
-        "return $T.transformAsync($L, this, executorProvider.get())",
-        FUTURES,
-        futureTransform.futureCodeBlock());
+        "return $L",
+        futureTransform.transformCodeBlock(
+            function,
+            isAnnotationPresent(binding.bindingElement(), NonBlocking.class)
+                ? CodeBlock.of("$T.directExecutor()", MORE_EXECUTORS)
+                : CodeBlock.of("executorProvider.get()")));
 
-    factoryBuilder.addSuperinterface(
-        ParameterizedTypeName.get(
-            ASYNC_FUNCTION, futureTransform.applyArgType(), providedTypeName));
+    factoryBuilder.addSuperinterface(futureTransform.functionType());
 
     MethodSpec.Builder applyMethodBuilder =
         methodBuilder("apply")
@@ -161,10 +191,9 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
                     generatedTypeName,
                     binding,
                     providedTypeName,
-                    futureTransform.parameterCodeBlocks()));
-    if (futureTransform.hasUncheckedCast()) {
-      applyMethodBuilder.addAnnotation(SUPPRESS_WARNINGS_UNCHECKED);
-    }
+                    futureTransform.parameterCodeBlocks(),
+                    // Policies report each invocation to the monitor themselves.
+                    policies.isEmpty()));
 
     factoryBuilder.addMethod(constructorBuilder.build());
     factoryBuilder.addMethod(computeMethodBuilder.build());
@@ -207,6 +236,61 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
         .toList();
   }
 
+  /**
+   * Returns the static fields that hold the {@link dagger.producers.internal.InvocationPolicy
+   * policies} for the binding's method, from the innermost to the outermost.
+   */
+  private static ImmutableList<FieldSpec> invocationPolicies(ProductionBinding binding) {
+    ImmutableList.Builder<FieldSpec> policies = ImmutableList.builder();
+    Element method = binding.bindingElement();
+    // Bulkheads limit every invocation of the method itself, including those started by hedging.
+    Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+    if (bulkhead != null) {
+      String name =
+          bulkhead.name().isEmpty()
+              ? String.format(
+                  "%s#%s", ClassName.get(binding.bindingTypeElement()), method.getSimpleName())
+              : bulkhead.name();
+      policies.add(
+          FieldSpec.builder(BULKHEAD_POLICY, "BULKHEAD", PRIVATE, STATIC, FINAL)
+              .initializer(
+                  "$T.named($S, $L, $L)",
+                  BULKHEAD_POLICY,
+                  name,
+                  bulkhead.maxConcurrency(),
+                  bulkhead.maxQueued())
+              .build());
+    }
+    // Hedging applies to the method itself, so that hedged invocations may be shared and cached.
+    Hedged hedged = method.getAnnotation(Hedged.class);
+    if (hedged != null) {
+      policies.add(
+          FieldSpec.builder(HEDGE_POLICY, "HEDGE", PRIVATE, STATIC, FINAL)
+              .initializer(
+                  "new $T($LL, $L)", HEDGE_POLICY, hedged.delayMillis(), hedged.percentile())
+              .build());
+    }
+    if (isAnnotationPresent(method, SingleFlight.class)) {
+      policies.add(
+          FieldSpec.builder(SINGLE_FLIGHT_POLICY, "SINGLE_FLIGHT", PRIVATE, STATIC, FINAL)
+              .initializer("new $T()", SINGLE_FLIGHT_POLICY)
+              .build());
+    }
+    CachedProduction cachedProduction = method.getAnnotation(CachedProduction.class);
+    if (cachedProduction != null) {
+      policies.add(
+          FieldSpec.builder(CACHE_POLICY, "CACHE", PRIVATE, STATIC, FINAL)
+              .initializer(
+                  "new $T($LL, $LL, $LL)",
+                  CACHE_POLICY,
+                  cachedProduction.expireAfterWriteMillis(),
+                  cachedProduction.maximumSize(),
+                  cachedProduction.refreshAfterWriteMillis())
+              .build());
+    }
+    return policies.build();
+  }
+
   private CodeBlock producerTokenConstruction(
       ClassName generatedTypeName, ProductionBinding binding) {
     CodeBlock producerTokenArgs =
@@ -236,9 +320,32 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
       this.binding = binding;
     }
 
-    /** The code block representing the future that should be transformed. */
+    /** The code block representing the futures that should be transformed. */
     abstract CodeBlock futureCodeBlock();
 
+    /**
+     * The code block that transforms the futures by {@code function}, which is the factory's apply
+     * method or a policy applying it, on an executor.
+     */
+    CodeBlock transformCodeBlock(CodeBlock function, CodeBlock executor) {
+      return CodeBlock.of(
+          "$T.transformAsync($L, $L, $L)", FUTURES, futureCodeBlock(), function, executor);
+    }
+
+    /**
+     * The name of the {@link dagger.producers.internal.InvocationPolicy} method that applies a
+     * policy to a function of {@link #functionType}.
+     */
+    String policyApplyingMethodName() {
+      return "applying";
+    }
+
+    /** The type of the function that the factory implements with its apply method. */
+    TypeName functionType() {
+      return ParameterizedTypeName.get(
+          ASYNC_FUNCTION, applyArgType(), TypeName.get(binding.factoryType()));
+    }
+
     /** The type of the argument to the apply method. */
     abstract TypeName applyArgType();
 
@@ -248,11 +355,6 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
     /** The code blocks to be passed to the produces method itself. */
     abstract ImmutableList<CodeBlock> parameterCodeBlocks();
 
-    /** Whether the transform method has an unchecked cast. */
-    boolean hasUncheckedCast() {
-      return false;
-    }
-
     static FutureTransform create(
         ImmutableMap<BindingKey, FrameworkField> fields,
         ProductionBinding binding,
@@ -361,40 +463,53 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
 
     @Override
     CodeBlock futureCodeBlock() {
+      return makeParametersCodeBlock(
+          FluentIterable.from(asyncDependencies)
+              .transform(
+                  new Function<DependencyRequest, CodeBlock>() {
+                    @Override
+                    public CodeBlock apply(DependencyRequest dependency) {
+                      return CodeBlock.of("$L", dependencyFutureName(dependency));
+                    }
+                  }));
+    }
+
+    /**
+     * Combines the futures with a {@link dagger.producers.internal.FutureCombiner}, which passes
+     * itself to the apply method so that each value can be read from its future without
+     * collecting them in a list.
+     */
+    @Override
+    CodeBlock transformCodeBlock(CodeBlock function, CodeBlock executor) {
       return CodeBlock.of(
-          "$T.<$T>allAsList($L)",
-          FUTURES,
-          OBJECT,
-          makeParametersCodeBlock(
-              FluentIterable.from(asyncDependencies)
-                  .transform(
-                      new Function<DependencyRequest, CodeBlock>() {
-                        @Override
-                        public CodeBlock apply(DependencyRequest dependency) {
-                          return CodeBlock.of("$L", dependencyFutureName(dependency));
-                        }
-                      })));
+          "$T.combine($L, $L, $L)", FUTURE_COMBINER, function, executor, futureCodeBlock());
+    }
+
+    @Override
+    String policyApplyingMethodName() {
+      return "applyingCombining";
+    }
+
+    @Override
+    TypeName functionType() {
+      return ParameterizedTypeName.get(
+          ASYNC_COMBINING_FUNCTION, TypeName.get(binding.factoryType()));
     }
 
     @Override
     TypeName applyArgType() {
-      return listOf(OBJECT);
+      return ParameterizedTypeName.get(FUTURE_COMBINER, TypeName.get(binding.factoryType()));
     }
 
     @Override
     String applyArgName() {
-      return "args";
+      return "inputs";
     }
 
     @Override
     ImmutableList<CodeBlock> parameterCodeBlocks() {
       return getParameterCodeBlocks(binding, fields, applyArgName());
     }
-
-    @Override
-    boolean hasUncheckedCast() {
-      return true;
-    }
   }
 
   private static boolean isAsyncDependency(DependencyRequest dependency) {
@@ -422,14 +537,14 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
   private static ImmutableList<CodeBlock> getParameterCodeBlocks(
       ProductionBinding binding,
       ImmutableMap<BindingKey, FrameworkField> fields,
-      String listArgName) {
+      String inputsArgName) {
     int argIndex = 0;
     ImmutableList.Builder<CodeBlock> codeBlocks = ImmutableList.builder();
     for (DependencyRequest dependency : binding.dependencies()) {
       if (isAsyncDependency(dependency)) {
         codeBlocks.add(
             CodeBlock.of(
-                "($T) $L.get($L)", asyncDependencyType(dependency), listArgName, argIndex));
+                "$L.<$T>value($L)", inputsArgName, asyncDependencyType(dependency), argIndex));
         argIndex++;
       } else {
         codeBlocks.add(
@@ -453,7 +568,8 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
       ClassName generatedTypeName,
       ProductionBinding binding,
       TypeName providedTypeName,
-      ImmutableList<CodeBlock> parameterCodeBlocks) {
+      ImmutableList<CodeBlock> parameterCodeBlocks,
+      boolean monitored) {
     CodeBlock moduleCodeBlock =
         CodeBlock.of(
             "$L.$L($L)",
@@ -469,11 +585,20 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
     ImmutableList.Builder<CodeBlock> codeBlocks = ImmutableList.builder();
     codeBlocks.add(CodeBlock.of("monitor.methodStarting();"));
 
-    CodeBlock returnCodeBlock =
-        binding.bindingKind().equals(ContributionBinding.Kind.FUTURE_PRODUCTION)
-            ? moduleCodeBlock
-            : CodeBlock.of(
-                "$T.<$T>immediateFuture($L)", FUTURES, providedTypeName, moduleCodeBlock);
+    CodeBlock returnCodeBlock;
+    if (!binding.bindingKind().equals(ContributionBinding.Kind.FUTURE_PRODUCTION)) {
+      returnCodeBlock =
+          CodeBlock.of("$T.<$T>immediateFuture($L)", FUTURES, providedTypeName, moduleCodeBlock);
+    } else if (FutureTypes.isCompletionStageType(
+        asExecutable(binding.bindingElement()).getReturnType())) {
+      returnCodeBlock =
+          CodeBlock.of("$T.toListenableFuture($L)", COMPLETION_STAGES, moduleCodeBlock);
+    } else {
+      returnCodeBlock = moduleCodeBlock;
+    }
+    if (!monitored) {
+      return CodeBlock.of("return $L;\n", returnCodeBlock);
+    }
     return CodeBlock.of(
         Joiner.on('\n')
             .join(
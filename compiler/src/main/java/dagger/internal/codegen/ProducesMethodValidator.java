@@ -17,25 +17,43 @@ package dagger.internal.codegen;
 
 import com.google.auto.common.MoreTypes;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.multibindings.ElementsIntoSet;
+import dagger.producers.Bulkhead;
+import dagger.producers.CachedProduction;
+import dagger.producers.Hedged;
+import dagger.producers.Produced;
 import dagger.producers.ProducerModule;
 import dagger.producers.Produces;
+import dagger.producers.SingleFlight;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
+import static com.google.auto.common.MoreElements.isAnnotationPresent;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static dagger.internal.codegen.BindingMethodValidator.Abstractness.MUST_BE_CONCRETE;
 import static dagger.internal.codegen.BindingMethodValidator.ExceptionSuperclass.EXCEPTION;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_BULKHEAD_CONCURRENCY;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_BULKHEAD_LIMITS;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_BULKHEAD_QUEUE;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_CACHE_EXPIRY;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_HEDGE_DELAY;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_HEDGE_PERCENTILE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_NULLABLE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_RAW_FUTURE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_RETURN_TYPE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SCOPE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SET_VALUES_RETURN_SET;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SHARED_FRAMEWORK_TYPE;
 
 /**
  * A validator for {@link Produces} methods.
@@ -46,6 +64,12 @@ import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SET_VALUES_R
 // TODO(beder): Consider unifying this with the ProvidesMethodValidator after Provides.Type and
 // Produces.Type are reconciled.
 final class ProducesMethodValidator extends BindingMethodValidator {
+  private static final ImmutableList<Class<? extends Annotation>> SHARED_INVOCATION_ANNOTATIONS =
+      ImmutableList.of(SingleFlight.class, CachedProduction.class);
+
+  /** The first method that was validated for each explicitly named bulkhead. */
+  private final Map<String, ExecutableElement> namedBulkheads =
+      new HashMap<String, ExecutableElement>();
 
   ProducesMethodValidator(Elements elements, Types types) {
     super(elements, types, Produces.class, ProducerModule.class, MUST_BE_CONCRETE, EXCEPTION);
@@ -56,6 +80,10 @@ final class ProducesMethodValidator extends BindingMethodValidator {
     super.checkMethod(builder);
     checkNullable(builder);
     checkScope(builder);
+    checkSharedInvocations(builder);
+    checkCachedProduction(builder);
+    checkHedged(builder);
+    checkBulkhead(builder);
   }
 
   /** Adds a warning if a {@link Produces @Produces} method is declared nullable. */
@@ -73,6 +101,84 @@ final class ProducesMethodValidator extends BindingMethodValidator {
     }
   }
 
+  /**
+   * Adds an error if a method whose invocations are shared across components depends on a
+   * framework type other than {@link Produced}, whose values cannot identify an invocation. Such
+   * methods are annotated with {@link SingleFlight @SingleFlight} or
+   * {@link CachedProduction @CachedProduction}.
+   */
+  private void checkSharedInvocations(ValidationReport.Builder<ExecutableElement> builder) {
+    ExecutableElement method = builder.getSubject();
+    for (Class<? extends Annotation> annotation : SHARED_INVOCATION_ANNOTATIONS) {
+      if (isAnnotationPresent(method, annotation)) {
+        for (VariableElement parameter : method.getParameters()) {
+          TypeMirror type = parameter.asType();
+          if (FrameworkTypes.isFrameworkType(type) && !MoreTypes.isTypeOf(Produced.class, type)) {
+            builder.addError(
+                String.format(
+                    PRODUCES_METHOD_SHARED_FRAMEWORK_TYPE, annotation.getSimpleName(), type),
+                parameter);
+          }
+        }
+        return;
+      }
+    }
+  }
+
+  /** Adds an error if a {@link CachedProduction @CachedProduction} method never expires. */
+  private void checkCachedProduction(ValidationReport.Builder<ExecutableElement> builder) {
+    CachedProduction cachedProduction = builder.getSubject().getAnnotation(CachedProduction.class);
+    if (cachedProduction != null && cachedProduction.expireAfterWriteMillis() <= 0) {
+      builder.addError(PRODUCES_METHOD_CACHE_EXPIRY);
+    }
+  }
+
+  /** Adds an error if a {@link Hedged @Hedged} method's delay is out of range. */
+  private void checkHedged(ValidationReport.Builder<ExecutableElement> builder) {
+    Hedged hedged = builder.getSubject().getAnnotation(Hedged.class);
+    if (hedged != null) {
+      if (hedged.delayMillis() <= 0) {
+        builder.addError(PRODUCES_METHOD_HEDGE_DELAY);
+      }
+      if (hedged.percentile() < 0 || hedged.percentile() >= 100) {
+        builder.addError(PRODUCES_METHOD_HEDGE_PERCENTILE);
+      }
+    }
+  }
+
+  /**
+   * Adds an error if a {@link Bulkhead @Bulkhead} method's limits are out of range, or differ from
+   * those of another method in this compilation that names the same bulkhead.
+   */
+  private void checkBulkhead(ValidationReport.Builder<ExecutableElement> builder) {
+    ExecutableElement method = builder.getSubject();
+    Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+    if (bulkhead != null) {
+      if (bulkhead.maxConcurrency() <= 0) {
+        builder.addError(PRODUCES_METHOD_BULKHEAD_CONCURRENCY);
+      }
+      if (bulkhead.maxQueued() < 0) {
+        builder.addError(PRODUCES_METHOD_BULKHEAD_QUEUE);
+      }
+      if (!bulkhead.name().isEmpty()) {
+        ExecutableElement first = namedBulkheads.get(bulkhead.name());
+        if (first == null) {
+          namedBulkheads.put(bulkhead.name(), method);
+        } else {
+          Bulkhead firstBulkhead = first.getAnnotation(Bulkhead.class);
+          if (firstBulkhead.maxConcurrency() != bulkhead.maxConcurrency()
+              || firstBulkhead.maxQueued() != bulkhead.maxQueued()) {
+            builder.addError(
+                String.format(
+                    PRODUCES_METHOD_BULKHEAD_LIMITS,
+                    bulkhead.name(),
+                    first.getEnclosingElement() + "#" + first.getSimpleName()));
+          }
+        }
+      }
+    }
+  }
+
   @Override
   protected String badReturnTypeMessage() {
     return formatErrorMessage(PRODUCES_METHOD_RETURN_TYPE);
@@ -81,12 +187,13 @@ final class ProducesMethodValidator extends BindingMethodValidator {
   /**
    * {@inheritDoc}
    *
-   * <p>Allows {@code keyType} to be a {@link ListenableFuture} of an otherwise-valid key type.
+   * <p>Allows {@code keyType} to be a {@link ListenableFuture} or a {@code CompletionStage} of an
+   * otherwise-valid key type.
    */
   @Override
   protected void checkKeyType(
       ValidationReport.Builder<ExecutableElement> reportBuilder, TypeMirror keyType) {
-    Optional<TypeMirror> typeToCheck = unwrapListenableFuture(reportBuilder, keyType);
+    Optional<TypeMirror> typeToCheck = unwrapFuture(reportBuilder, keyType);
     if (typeToCheck.isPresent()) {
       super.checkKeyType(reportBuilder, typeToCheck.get());
     }
@@ -96,12 +203,12 @@ final class ProducesMethodValidator extends BindingMethodValidator {
    * {@inheritDoc}
    *
    * <p>Allows an {@link ElementsIntoSet @ElementsIntoSet} or {@code SET_VALUES} method to return a
-   * {@link ListenableFuture} of a {@link Set} as well.
+   * {@link ListenableFuture} or a {@code CompletionStage} of a {@link Set} as well.
    */
   @Override
   protected void checkSetValuesType(ValidationReport.Builder<ExecutableElement> builder) {
     Optional<TypeMirror> typeToCheck =
-        unwrapListenableFuture(builder, builder.getSubject().getReturnType());
+        unwrapFuture(builder, builder.getSubject().getReturnType());
     if (typeToCheck.isPresent()) {
       checkSetValuesType(builder, typeToCheck.get());
     }
@@ -112,9 +219,9 @@ final class ProducesMethodValidator extends BindingMethodValidator {
     return PRODUCES_METHOD_SET_VALUES_RETURN_SET;
   }
 
-  private Optional<TypeMirror> unwrapListenableFuture(
+  private Optional<TypeMirror> unwrapFuture(
       ValidationReport.Builder<ExecutableElement> reportBuilder, TypeMirror type) {
-    if (MoreTypes.isType(type) && MoreTypes.isTypeOf(ListenableFuture.class, type)) {
+    if (FutureTypes.isProducesMethodFutureType(type)) {
       DeclaredType declaredType = MoreTypes.asDeclared(type);
       if (declaredType.getTypeArguments().isEmpty()) {
         reportBuilder.addError(PRODUCES_METHOD_RAW_FUTURE);
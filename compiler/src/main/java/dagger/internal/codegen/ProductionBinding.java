@@ -107,7 +107,7 @@ abstract class ProductionBinding extends ContributionBinding {
           dependencyRequestFactory.forProductionImplementationExecutor();
       DependencyRequest monitorRequest =
           dependencyRequestFactory.forProductionComponentMonitorProvider();
-      Kind kind = MoreTypes.isTypeOf(ListenableFuture.class, producesMethod.getReturnType())
+      Kind kind = FutureTypes.isProducesMethodFutureType(producesMethod.getReturnType())
           ? Kind.FUTURE_PRODUCTION
           : Kind.IMMEDIATE;
       return new AutoValue_ProductionBinding(
@@ -257,6 +257,20 @@ abstract class ResolvedBindings implements HasBindingType, HasContributionType,
         && contributionBinding().contributionType().isMultibinding();
   }
 
+  /**
+   * {@code true} if this is the binding of a {@link dagger.producers.Produces @Produces} method,
+   * which the component calls on the production executor.
+   */
+  boolean isProducesMethodBinding() {
+    for (ContributionBinding binding : contributionBindings()) {
+      if (binding.bindingKind().equals(ContributionBinding.Kind.FUTURE_PRODUCTION)
+          || binding.bindingKind().equals(ContributionBinding.Kind.IMMEDIATE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Returns the single contribution binding.
    *
@@ -86,10 +86,10 @@ final class SubcomponentWriter extends AbstractComponentWriter {
   }
 
   @Override
-  protected Optional<CodeBlock> getOrCreateComponentContributionFieldExpression(
+  protected Optional<MemberSelect> getOrCreateComponentContributionFieldSelect(
       TypeElement contributionType) {
-    return super.getOrCreateComponentContributionFieldExpression(contributionType)
-        .or(parent.getOrCreateComponentContributionFieldExpression(contributionType));
+    return super.getOrCreateComponentContributionFieldSelect(contributionType)
+        .or(parent.getOrCreateComponentContributionFieldSelect(contributionType));
   }
 
   @Override
@@ -18,6 +18,7 @@ package dagger.internal.codegen;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
@@ -29,18 +30,31 @@ import dagger.internal.InstanceFactory;
 import dagger.internal.MapFactory;
 import dagger.internal.MapProviderFactory;
 import dagger.internal.MembersInjectors;
+import dagger.internal.ParallelWarmUp;
 import dagger.internal.ProviderOfLazy;
+import dagger.internal.ProvisionMonitors;
+import dagger.internal.ReentrantLockDoubleCheck;
+import dagger.internal.ScopedInstanceTable;
 import dagger.internal.SetFactory;
 import dagger.internal.SingleCheck;
+import dagger.internal.ThreadConfinedCheck;
+import dagger.monitoring.ProvisionComponentMonitor;
+import dagger.monitoring.ProvisionToken;
+import dagger.producers.Deadline;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
 import dagger.producers.internal.AbstractProducer;
+import dagger.producers.internal.BulkheadPolicy;
+import dagger.producers.internal.CachePolicy;
+import dagger.producers.internal.FutureCombiner;
+import dagger.producers.internal.HedgePolicy;
 import dagger.producers.internal.MapOfProducedProducer;
 import dagger.producers.internal.MapOfProducerProducer;
 import dagger.producers.internal.MapProducer;
 import dagger.producers.internal.Producers;
 import dagger.producers.internal.SetOfProducedProducer;
 import dagger.producers.internal.SetProducer;
+import dagger.producers.internal.SingleFlightPolicy;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
 import java.util.List;
@@ -53,11 +67,20 @@ import javax.inject.Provider;
 final class TypeNames {
 
   static final ClassName ABSTRACT_PRODUCER = ClassName.get(AbstractProducer.class);
+  static final ClassName ASYNC_COMBINING_FUNCTION =
+      ClassName.get(FutureCombiner.AsyncCombiningFunction.class);
   static final ClassName ASYNC_FUNCTION = ClassName.get(AsyncFunction.class);
+  static final ClassName BULKHEAD_POLICY = ClassName.get(BulkheadPolicy.class);
+  static final ClassName CACHE_POLICY = ClassName.get(CachePolicy.class);
+  // Named by string because the class is only built on Java 8.
+  static final ClassName COMPLETION_STAGES =
+      ClassName.get("dagger.producers.internal", "CompletionStages");
   static final ClassName DELEGATE_FACTORY = ClassName.get(DelegateFactory.class);
   static final ClassName DOUBLE_CHECK = ClassName.get(DoubleCheck.class);
   static final ClassName FACTORY = ClassName.get(Factory.class);
   static final ClassName FUTURES = ClassName.get(Futures.class);
+  static final ClassName FUTURE_COMBINER = ClassName.get(FutureCombiner.class);
+  static final ClassName HEDGE_POLICY = ClassName.get(HedgePolicy.class);
   static final ClassName ILLEGAL_STATE_EXCEPTION = ClassName.get(IllegalStateException.class);
   static final ClassName INSTANCE_FACTORY = ClassName.get(InstanceFactory.class);
   static final ClassName LIST = ClassName.get(List.class);
@@ -69,18 +92,29 @@ final class TypeNames {
   static final ClassName MAP_PROVIDER_FACTORY = ClassName.get(MapProviderFactory.class);
   static final ClassName MEMBERS_INJECTOR = ClassName.get(MembersInjector.class);
   static final ClassName MEMBERS_INJECTORS = ClassName.get(MembersInjectors.class);
+  static final ClassName MORE_EXECUTORS = ClassName.get(MoreExecutors.class);
   static final ClassName PRODUCER_TOKEN = ClassName.get(ProducerToken.class);
+  static final ClassName PARALLEL_WARM_UP = ClassName.get(ParallelWarmUp.class);
   static final ClassName PRODUCED = ClassName.get(Produced.class);
   static final ClassName PRODUCER = ClassName.get(Producer.class);
   static final ClassName PRODUCERS = ClassName.get(Producers.class);
   static final ClassName PROVIDER = ClassName.get(Provider.class);
   static final ClassName PROVIDER_OF_LAZY = ClassName.get(ProviderOfLazy.class);
+  static final ClassName PROVISION_COMPONENT_MONITOR =
+      ClassName.get(ProvisionComponentMonitor.class);
+  static final ClassName PROVISION_MONITORS = ClassName.get(ProvisionMonitors.class);
+  static final ClassName PROVISION_TOKEN = ClassName.get(ProvisionToken.class);
+  static final ClassName REENTRANT_LOCK_DOUBLE_CHECK =
+      ClassName.get(ReentrantLockDoubleCheck.class);
+  static final ClassName SCOPED_INSTANCE_TABLE = ClassName.get(ScopedInstanceTable.class);
   static final ClassName SET = ClassName.get(Set.class);
   static final ClassName SET_FACTORY = ClassName.get(SetFactory.class);
   static final ClassName SET_OF_PRODUCED_PRODUCER = ClassName.get(SetOfProducedProducer.class);
   static final ClassName SET_PRODUCER = ClassName.get(SetProducer.class);
   static final ClassName SINGLE_CHECK = ClassName.get(SingleCheck.class);
+  static final ClassName SINGLE_FLIGHT_POLICY = ClassName.get(SingleFlightPolicy.class);
   static final ClassName STRING = ClassName.get(String.class);
+  static final ClassName THREAD_CONFINED_CHECK = ClassName.get(ThreadConfinedCheck.class);
   static final ClassName UNSUPPORTED_OPERATION_EXCEPTION =
       ClassName.get(UnsupportedOperationException.class);
 
@@ -90,6 +124,9 @@ final class TypeNames {
    */
   static final ClassName VOID_CLASS = ClassName.get(Void.class);
 
+  static final TypeName SET_OF_DEADLINES =
+      ParameterizedTypeName.get(ClassName.get(Set.class), ClassName.get(Deadline.class));
+
   static final TypeName SET_OF_FACTORIES =
       ParameterizedTypeName.get(
           ClassName.get(Set.class), ClassName.get(ProductionComponentMonitor.Factory.class));
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+import static dagger.internal.codegen.GeneratedLines.GENERATED_ANNOTATION;
+
+@RunWith(JUnit4.class)
+public class EagerSingletonsTest {
+  private static final String EAGER_SINGLETONS = "-Adagger.eagerSingletons=ENABLED";
+
+  @Test
+  public void eagerSingletonsAreHeldInFinalFields() {
+    JavaFileObject scopedFile =
+        JavaFileObjects.forSourceLines(
+            "test.Scoped",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class Scoped {",
+            "  @Inject Scoped() {}",
+            "}");
+    JavaFileObject unscopedFile =
+        JavaFileObjects.forSourceLines(
+            "test.Unscoped",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Unscoped {",
+            "  @Inject Unscoped(Scoped scoped) {}",
+            "}");
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Module",
+            "final class TestModule {",
+            "  @Provides @Singleton String string(Unscoped unscoped) {",
+            "    return unscoped.toString();",
+            "  }",
+            "}");
+    JavaFileObject componentFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Provider;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  String string();",
+            "  Scoped scoped();",
+            "  Provider<Unscoped> unscopedProvider();",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestComponent",
+            "package test;",
+            "",
+            "import dagger.internal.InstanceFactory;",
+            "import dagger.internal.Preconditions;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestComponent implements TestComponent {",
+            "  private Provider<Scoped> scopedProvider;",
+            "  private Provider<Unscoped> unscopedProvider;",
+            "  private Provider<String> stringProvider;",
+            "  private final Scoped scoped;",
+            "  private final TestModule testModule;",
+            "  private final String string;",
+            "",
+            "  private DaggerTestComponent(Builder builder) {",
+            "    assert builder != null;",
+            "    this.scoped = new Scoped();",
+            "    this.testModule = builder.testModule;",
+            "    this.string =",
+            "        Preconditions.checkNotNull(",
+            "            testModule.string(new Unscoped(this.scoped)),",
+            "            \"Cannot return null from a non-@Nullable @Provides method\");",
+            "    initialize(builder);",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestComponent create() {",
+            "    return builder().build();",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private void initialize(final Builder builder) {",
+            "    this.scopedProvider = InstanceFactory.create(scoped);",
+            "    this.unscopedProvider = Unscoped_Factory.create(scopedProvider);",
+            "    this.stringProvider = InstanceFactory.create(string);",
+            "  }",
+            "",
+            "  @Override",
+            "  public String string() {",
+            "    return string;",
+            "  }",
+            "",
+            "  @Override",
+            "  public Scoped scoped() {",
+            "    return scoped;",
+            "  }",
+            "",
+            "  @Override",
+            "  public Provider<Unscoped> unscopedProvider() {",
+            "    return unscopedProvider;",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private TestModule testModule;",
+            "",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestComponent build() {",
+            "      if (testModule == null) {",
+            "        this.testModule = new TestModule();",
+            "      }",
+            "      return new DaggerTestComponent(this);",
+            "    }",
+            "",
+            "    public Builder testModule(TestModule testModule) {",
+            "      this.testModule = Preconditions.checkNotNull(testModule);",
+            "      return this;",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSources())
+        .that(ImmutableList.of(scopedFile, unscopedFile, moduleFile, componentFile))
+        .withCompilerOptions(EAGER_SINGLETONS)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(generatedComponent);
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+import static dagger.internal.codegen.GeneratedLines.GENERATED_ANNOTATION;
+
+@RunWith(JUnit4.class)
+public class LazyFrameworkFieldInitializationTest {
+  private static final String LAZY_FRAMEWORK_FIELD_INITIALIZATION =
+      "-Adagger.lazyFrameworkFieldInitialization=ENABLED";
+
+  @Test
+  public void frameworkFieldsAreInitializedOnFirstUse() {
+    JavaFileObject scopedFile =
+        JavaFileObjects.forSourceLines(
+            "test.Scoped",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class Scoped {",
+            "  @Inject Scoped() {}",
+            "}");
+    JavaFileObject unscopedFile =
+        JavaFileObjects.forSourceLines(
+            "test.Unscoped",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Unscoped {",
+            "  @Inject Unscoped(Scoped scoped) {}",
+            "}");
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "final class TestModule {",
+            "  @Provides String string(Unscoped unscoped) {",
+            "    return unscoped.toString();",
+            "  }",
+            "}");
+    JavaFileObject componentFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Provider;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  String string();",
+            "  Provider<Unscoped> unscopedProvider();",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestComponent",
+            "package test;",
+            "",
+            "import dagger.internal.DoubleCheck;",
+            "import dagger.internal.Preconditions;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestComponent implements TestComponent {",
+            "  private volatile Provider<Scoped> scopedProvider;",
+            "  private volatile Provider<Unscoped> unscopedProvider;",
+            "  private volatile Provider<String> stringProvider;",
+            "  private final TestModule testModule;",
+            "",
+            "  private DaggerTestComponent(Builder builder) {",
+            "    assert builder != null;",
+            "    this.testModule = builder.testModule;",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestComponent create() {",
+            "    return builder().build();",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private Provider<Scoped> getScopedProvider() {",
+            "    Provider<Scoped> local = scopedProvider;",
+            "    if (local == null) {",
+            "      synchronized (this) {",
+            "        local = scopedProvider;",
+            "        if (local == null) {",
+            "          local = DoubleCheck.provider(Scoped_Factory.create());",
+            "          this.scopedProvider = local;",
+            "        }",
+            "      }",
+            "    }",
+            "    return local;",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private Provider<Unscoped> getUnscopedProvider() {",
+            "    Provider<Unscoped> local = unscopedProvider;",
+            "    if (local == null) {",
+            "      synchronized (this) {",
+            "        local = unscopedProvider;",
+            "        if (local == null) {",
+            "          local = Unscoped_Factory.create(getScopedProvider());",
+            "          this.unscopedProvider = local;",
+            "        }",
+            "      }",
+            "    }",
+            "    return local;",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private Provider<String> getStringProvider() {",
+            "    Provider<String> local = stringProvider;",
+            "    if (local == null) {",
+            "      synchronized (this) {",
+            "        local = stringProvider;",
+            "        if (local == null) {",
+            "          local = TestModule_StringFactory.create(testModule, getUnscopedProvider());",
+            "          this.stringProvider = local;",
+            "        }",
+            "      }",
+            "    }",
+            "    return local;",
+            "  }",
+            "",
+            "  @Override",
+            "  public String string() {",
+            "    return getStringProvider().get();",
+            "  }",
+            "",
+            "  @Override",
+            "  public Provider<Unscoped> unscopedProvider() {",
+            "    return getUnscopedProvider();",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private TestModule testModule;",
+            "",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestComponent build() {",
+            "      if (testModule == null) {",
+            "        this.testModule = new TestModule();",
+            "      }",
+            "      return new DaggerTestComponent(this);",
+            "    }",
+            "",
+            "    public Builder testModule(TestModule testModule) {",
+            "      this.testModule = Preconditions.checkNotNull(testModule);",
+            "      return this;",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSources())
+        .that(ImmutableList.of(scopedFile, unscopedFile, moduleFile, componentFile))
+        .withCompilerOptions(LAZY_FRAMEWORK_FIELD_INITIALIZATION)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(generatedComponent);
+  }
+
+  @Test
+  public void cyclicFrameworkFieldsAreDelegated() {
+    JavaFileObject aFile =
+        JavaFileObjects.forSourceLines(
+            "test.A",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Provider;",
+            "",
+            "final class A {",
+            "  @Inject A(Provider<B> b) {}",
+            "}");
+    JavaFileObject bFile =
+        JavaFileObjects.forSourceLines(
+            "test.B",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class B {",
+            "  @Inject B(A a) {}",
+            "}");
+    JavaFileObject componentFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface TestComponent {",
+            "  B b();",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestComponent",
+            "package test;",
+            "",
+            "import dagger.internal.DelegateFactory;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestComponent implements TestComponent {",
+            "  private volatile Provider<A> aProvider;",
+            "  private volatile Provider<B> bProvider;",
+            "",
+            "  private DaggerTestComponent(Builder builder) {",
+            "    assert builder != null;",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestComponent create() {",
+            "    return builder().build();",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private synchronized Provider<A> getAProvider() {",
+            "    if (aProvider == null) {",
+            "      this.aProvider = new DelegateFactory();",
+            "      DelegateFactory aProviderDelegate = (DelegateFactory) aProvider;",
+            "      this.aProvider = A_Factory.create(getBProvider());",
+            "      aProviderDelegate.setDelegatedProvider(aProvider);",
+            "    }",
+            "    return aProvider;",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private synchronized Provider<B> getBProvider() {",
+            "    if (bProvider == null) {",
+            "      this.bProvider = new DelegateFactory();",
+            "      DelegateFactory bProviderDelegate = (DelegateFactory) bProvider;",
+            "      this.bProvider = B_Factory.create(getAProvider());",
+            "      bProviderDelegate.setDelegatedProvider(bProvider);",
+            "    }",
+            "    return bProvider;",
+            "  }",
+            "",
+            "  @Override",
+            "  public B b() {",
+            "    return getBProvider().get();",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestComponent build() {",
+            "      return new DaggerTestComponent(this);",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSources())
+        .that(ImmutableList.of(aFile, bFile, componentFile))
+        .withCompilerOptions(LAZY_FRAMEWORK_FIELD_INITIALIZATION)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(generatedComponent);
+  }
+}
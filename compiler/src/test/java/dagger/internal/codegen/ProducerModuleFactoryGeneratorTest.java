@@ -19,6 +19,9 @@ package dagger.internal.codegen;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.testing.compile.JavaFileObjects;
+import dagger.producers.Bulkhead;
+import dagger.producers.CachedProduction;
+import dagger.producers.Hedged;
 import javax.inject.Qualifier;
 import javax.tools.JavaFileObject;
 import org.junit.Test;
@@ -39,10 +42,17 @@ import static dagger.internal.codegen.ErrorMessages.BINDING_METHOD_PRIVATE;
 import static dagger.internal.codegen.ErrorMessages.BINDING_METHOD_SET_VALUES_RAW_SET;
 import static dagger.internal.codegen.ErrorMessages.BINDING_METHOD_TYPE_PARAMETER;
 import static dagger.internal.codegen.ErrorMessages.BINDING_METHOD_WITH_SAME_NAME;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_BULKHEAD_CONCURRENCY;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_BULKHEAD_LIMITS;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_BULKHEAD_QUEUE;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_CACHE_EXPIRY;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_HEDGE_DELAY;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_HEDGE_PERCENTILE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_RAW_FUTURE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_RETURN_TYPE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SCOPE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SET_VALUES_RETURN_SET;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SHARED_FRAMEWORK_TYPE;
 import static dagger.internal.codegen.GeneratedLines.GENERATED_ANNOTATION;
 
 @RunWith(JUnit4.class)
@@ -494,6 +504,726 @@ public class ProducerModuleFactoryGeneratorTest {
         .generatesSources(factoryFile);
   }
 
+  @Test
+  public void multipleAsyncArgs_combinesWithoutList() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.Produced;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces static String produceString(",
+            "      Integer i, Produced<Double> d, Producer<Long> l) {",
+            "    return \"\";",
+            "  }",
+            "}");
+    JavaFileObject factoryFile =
+        JavaFileObjects.forSourceLines(
+            "TestModule_ProduceStringFactory",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.Futures;",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.Produced;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.AbstractProducer;",
+            "import dagger.producers.internal.FutureCombiner;",
+            "import dagger.producers.internal.Producers;",
+            "import dagger.producers.monitoring.ProducerToken;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class TestModule_ProduceStringFactory",
+            "    extends AbstractProducer<String>",
+            "    implements FutureCombiner.AsyncCombiningFunction<String> {",
+            "  private final Provider<Executor> executorProvider;",
+            "  private final Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private final Producer<Integer> iProducer;",
+            "  private final Producer<Double> dProducer;",
+            "  private final Producer<Long> lProducer;",
+            "",
+            "  public TestModule_ProduceStringFactory(",
+            "      Provider<Executor> executorProvider,",
+            "      Provider<ProductionComponentMonitor> monitorProvider,",
+            "      Producer<Integer> iProducer,",
+            "      Producer<Double> dProducer,",
+            "      Producer<Long> lProducer) {",
+            "    super(",
+            "        monitorProvider,",
+            "        ProducerToken.create(TestModule_ProduceStringFactory.class));",
+            "    assert executorProvider != null;",
+            "    this.executorProvider = executorProvider;",
+            "    assert monitorProvider != null;",
+            "    this.monitorProvider = monitorProvider;",
+            "    assert iProducer != null;",
+            "    this.iProducer = iProducer;",
+            "    assert dProducer != null;",
+            "    this.dProducer = dProducer;",
+            "    assert lProducer != null;",
+            "    this.lProducer = lProducer;",
+            "  }",
+            "",
+            "  @Override protected ListenableFuture<String> compute() {",
+            "    ListenableFuture<Integer> iFuture = iProducer.get();",
+            "    ListenableFuture<Produced<Double>> dFuture =",
+            "        Producers.createFutureProduced(dProducer.get());",
+            "    return FutureCombiner.combine(this, executorProvider.get(), iFuture, dFuture);",
+            "  }",
+            "",
+            "  @Deprecated",
+            "  @Override public ListenableFuture<String> apply(FutureCombiner<String> inputs) {",
+            "    assert monitor != null :",
+            "        \"apply() may only be called internally from compute(); \"",
+            "        + \"if it's called explicitly, the monitor might be null\";",
+            "    monitor.methodStarting();",
+            "    try {",
+            "      return Futures.<String>immediateFuture(",
+            "          TestModule.produceString(",
+            "              inputs.<Integer>value(0),",
+            "              inputs.<Produced<Double>>value(1),",
+            "              lProducer));",
+            "    } finally {",
+            "      monitor.methodFinished();",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(factoryFile);
+  }
+
+  @Test
+  public void nonBlockingProducesMethod_transformsOnDirectExecutor() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.NonBlocking;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces @NonBlocking static String produceString(Integer i) {",
+            "    return \"\";",
+            "  }",
+            "}");
+    JavaFileObject factoryFile =
+        JavaFileObjects.forSourceLines(
+            "TestModule_ProduceStringFactory",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.AsyncFunction;",
+            "import com.google.common.util.concurrent.Futures;",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import com.google.common.util.concurrent.MoreExecutors;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.AbstractProducer;",
+            "import dagger.producers.monitoring.ProducerToken;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class TestModule_ProduceStringFactory",
+            "    extends AbstractProducer<String> implements AsyncFunction<Integer, String> {",
+            "  private final Provider<Executor> executorProvider;",
+            "  private final Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private final Producer<Integer> iProducer;",
+            "",
+            "  public TestModule_ProduceStringFactory(",
+            "      Provider<Executor> executorProvider,",
+            "      Provider<ProductionComponentMonitor> monitorProvider,",
+            "      Producer<Integer> iProducer) {",
+            "    super(",
+            "        monitorProvider,",
+            "        ProducerToken.create(TestModule_ProduceStringFactory.class));",
+            "    assert executorProvider != null;",
+            "    this.executorProvider = executorProvider;",
+            "    assert monitorProvider != null;",
+            "    this.monitorProvider = monitorProvider;",
+            "    assert iProducer != null;",
+            "    this.iProducer = iProducer;",
+            "  }",
+            "",
+            "  @Override protected ListenableFuture<String> compute() {",
+            "    ListenableFuture<Integer> iFuture = iProducer.get();",
+            "    return Futures.transformAsync(iFuture, this, MoreExecutors.directExecutor());",
+            "  }",
+            "",
+            "  @Deprecated",
+            "  @Override public ListenableFuture<String> apply(Integer i) {",
+            "    assert monitor != null :",
+            "        \"apply() may only be called internally from compute(); \"",
+            "        + \"if it's called explicitly, the monitor might be null\";",
+            "    monitor.methodStarting();",
+            "    try {",
+            "      return Futures.<String>immediateFuture(TestModule.produceString(i));",
+            "    } finally {",
+            "      monitor.methodFinished();",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(factoryFile);
+  }
+
+  @Test
+  public void singleFlightProducesMethod_appliesSharedPolicy() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import dagger.producers.SingleFlight;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces @SingleFlight static String produceString(Integer i) {",
+            "    return \"\";",
+            "  }",
+            "}");
+    JavaFileObject factoryFile =
+        JavaFileObjects.forSourceLines(
+            "TestModule_ProduceStringFactory",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.AsyncFunction;",
+            "import com.google.common.util.concurrent.Futures;",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.AbstractProducer;",
+            "import dagger.producers.internal.SingleFlightPolicy;",
+            "import dagger.producers.monitoring.ProducerToken;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class TestModule_ProduceStringFactory",
+            "    extends AbstractProducer<String> implements AsyncFunction<Integer, String> {",
+            "  private static final SingleFlightPolicy SINGLE_FLIGHT = new SingleFlightPolicy();",
+            "",
+            "  private final Provider<Executor> executorProvider;",
+            "  private final Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private final Producer<Integer> iProducer;",
+            "",
+            "  public TestModule_ProduceStringFactory(",
+            "      Provider<Executor> executorProvider,",
+            "      Provider<ProductionComponentMonitor> monitorProvider,",
+            "      Producer<Integer> iProducer) {",
+            "    super(",
+            "        monitorProvider,",
+            "        ProducerToken.create(TestModule_ProduceStringFactory.class));",
+            "    assert executorProvider != null;",
+            "    this.executorProvider = executorProvider;",
+            "    assert monitorProvider != null;",
+            "    this.monitorProvider = monitorProvider;",
+            "    assert iProducer != null;",
+            "    this.iProducer = iProducer;",
+            "  }",
+            "",
+            "  @Override protected ListenableFuture<String> compute() {",
+            "    ListenableFuture<Integer> iFuture = iProducer.get();",
+            "    return Futures.transformAsync(",
+            "        iFuture,",
+            "        SINGLE_FLIGHT.applying(this, executorProvider.get(), monitor),",
+            "        executorProvider.get());",
+            "  }",
+            "",
+            "  @Deprecated",
+            "  @Override public ListenableFuture<String> apply(Integer i) {",
+            "    assert monitor != null :",
+            "        \"apply() may only be called internally from compute(); \"",
+            "        + \"if it's called explicitly, the monitor might be null\";",
+            "    return Futures.<String>immediateFuture(TestModule.produceString(i));",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(factoryFile);
+  }
+
+  @Test
+  public void singleFlightProducesMethod_multipleArgs_appliesCombiningPolicy() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import dagger.producers.SingleFlight;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces @SingleFlight static String produceString(Integer i, Double d) {",
+            "    return \"\";",
+            "  }",
+            "}");
+    JavaFileObject factoryFile =
+        JavaFileObjects.forSourceLines(
+            "TestModule_ProduceStringFactory",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.Futures;",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.AbstractProducer;",
+            "import dagger.producers.internal.FutureCombiner;",
+            "import dagger.producers.internal.SingleFlightPolicy;",
+            "import dagger.producers.monitoring.ProducerToken;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class TestModule_ProduceStringFactory",
+            "    extends AbstractProducer<String>",
+            "    implements FutureCombiner.AsyncCombiningFunction<String> {",
+            "  private static final SingleFlightPolicy SINGLE_FLIGHT = new SingleFlightPolicy();",
+            "",
+            "  private final Provider<Executor> executorProvider;",
+            "  private final Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private final Producer<Integer> iProducer;",
+            "  private final Producer<Double> dProducer;",
+            "",
+            "  public TestModule_ProduceStringFactory(",
+            "      Provider<Executor> executorProvider,",
+            "      Provider<ProductionComponentMonitor> monitorProvider,",
+            "      Producer<Integer> iProducer,",
+            "      Producer<Double> dProducer) {",
+            "    super(",
+            "        monitorProvider,",
+            "        ProducerToken.create(TestModule_ProduceStringFactory.class));",
+            "    assert executorProvider != null;",
+            "    this.executorProvider = executorProvider;",
+            "    assert monitorProvider != null;",
+            "    this.monitorProvider = monitorProvider;",
+            "    assert iProducer != null;",
+            "    this.iProducer = iProducer;",
+            "    assert dProducer != null;",
+            "    this.dProducer = dProducer;",
+            "  }",
+            "",
+            "  @Override protected ListenableFuture<String> compute() {",
+            "    ListenableFuture<Integer> iFuture = iProducer.get();",
+            "    ListenableFuture<Double> dFuture = dProducer.get();",
+            "    return FutureCombiner.combine(",
+            "        SINGLE_FLIGHT.applyingCombining(this, executorProvider.get(), monitor),",
+            "        executorProvider.get(),",
+            "        iFuture,",
+            "        dFuture);",
+            "  }",
+            "",
+            "  @Deprecated",
+            "  @Override public ListenableFuture<String> apply(FutureCombiner<String> inputs) {",
+            "    assert monitor != null :",
+            "        \"apply() may only be called internally from compute(); \"",
+            "        + \"if it's called explicitly, the monitor might be null\";",
+            "    return Futures.<String>immediateFuture(",
+            "        TestModule.produceString(",
+            "            inputs.<Integer>value(0),",
+            "            inputs.<Double>value(1)));",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(factoryFile);
+  }
+
+  @Test
+  public void singleFlightProducesMethod_dependsOnProducer() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import dagger.producers.SingleFlight;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces @SingleFlight static String produceString(Producer<Integer> i) {",
+            "    return \"\";",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .failsToCompile()
+        .withErrorContaining(
+            String.format(
+                PRODUCES_METHOD_SHARED_FRAMEWORK_TYPE,
+                "SingleFlight",
+                "dagger.producers.Producer<java.lang.Integer>"))
+        .in(moduleFile)
+        .onLine(10);
+  }
+
+  @Test
+  public void cachedProductionProducesMethod_appliesCachePolicy() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.CachedProduction;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces",
+            "  @CachedProduction(expireAfterWriteMillis = 1000, refreshAfterWriteMillis = 500)",
+            "  static String produceString(Integer i) {",
+            "    return \"\";",
+            "  }",
+            "}");
+    JavaFileObject factoryFile =
+        JavaFileObjects.forSourceLines(
+            "TestModule_ProduceStringFactory",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.AsyncFunction;",
+            "import com.google.common.util.concurrent.Futures;",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.AbstractProducer;",
+            "import dagger.producers.internal.CachePolicy;",
+            "import dagger.producers.monitoring.ProducerToken;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class TestModule_ProduceStringFactory",
+            "    extends AbstractProducer<String> implements AsyncFunction<Integer, String> {",
+            "  private static final CachePolicy CACHE = new CachePolicy(1000L, -1L, 500L);",
+            "",
+            "  private final Provider<Executor> executorProvider;",
+            "  private final Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private final Producer<Integer> iProducer;",
+            "",
+            "  public TestModule_ProduceStringFactory(",
+            "      Provider<Executor> executorProvider,",
+            "      Provider<ProductionComponentMonitor> monitorProvider,",
+            "      Producer<Integer> iProducer) {",
+            "    super(",
+            "        monitorProvider,",
+            "        ProducerToken.create(TestModule_ProduceStringFactory.class));",
+            "    assert executorProvider != null;",
+            "    this.executorProvider = executorProvider;",
+            "    assert monitorProvider != null;",
+            "    this.monitorProvider = monitorProvider;",
+            "    assert iProducer != null;",
+            "    this.iProducer = iProducer;",
+            "  }",
+            "",
+            "  @Override protected ListenableFuture<String> compute() {",
+            "    ListenableFuture<Integer> iFuture = iProducer.get();",
+            "    return Futures.transformAsync(",
+            "        iFuture,",
+            "        CACHE.applying(this, executorProvider.get(), monitor),",
+            "        executorProvider.get());",
+            "  }",
+            "",
+            "  @Deprecated",
+            "  @Override public ListenableFuture<String> apply(Integer i) {",
+            "    assert monitor != null :",
+            "        \"apply() may only be called internally from compute(); \"",
+            "        + \"if it's called explicitly, the monitor might be null\";",
+            "    return Futures.<String>immediateFuture(TestModule.produceString(i));",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(factoryFile);
+  }
+
+  @Test public void cachedProductionWithoutExpiry() {
+    assertThatProductionModuleMethod(
+            "@Produces @CachedProduction(expireAfterWriteMillis = 0) String produceString() {"
+                + " return null; }")
+        .importing(CachedProduction.class)
+        .hasError(PRODUCES_METHOD_CACHE_EXPIRY);
+  }
+
+  @Test
+  public void hedgedSingleFlightProducesMethod_sharesHedgedInvocations() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.Hedged;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import dagger.producers.SingleFlight;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces",
+            "  @SingleFlight",
+            "  @Hedged(delayMillis = 50, percentile = 95)",
+            "  static ListenableFuture<String> produceString(Integer i) {",
+            "    return null;",
+            "  }",
+            "}");
+    JavaFileObject factoryFile =
+        JavaFileObjects.forSourceLines(
+            "TestModule_ProduceStringFactory",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.AsyncFunction;",
+            "import com.google.common.util.concurrent.Futures;",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.AbstractProducer;",
+            "import dagger.producers.internal.HedgePolicy;",
+            "import dagger.producers.internal.SingleFlightPolicy;",
+            "import dagger.producers.monitoring.ProducerToken;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class TestModule_ProduceStringFactory",
+            "    extends AbstractProducer<String> implements AsyncFunction<Integer, String> {",
+            "  private static final HedgePolicy HEDGE = new HedgePolicy(50L, 95.0);",
+            "",
+            "  private static final SingleFlightPolicy SINGLE_FLIGHT = new SingleFlightPolicy();",
+            "",
+            "  private final Provider<Executor> executorProvider;",
+            "  private final Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private final Producer<Integer> iProducer;",
+            "",
+            "  public TestModule_ProduceStringFactory(",
+            "      Provider<Executor> executorProvider,",
+            "      Provider<ProductionComponentMonitor> monitorProvider,",
+            "      Producer<Integer> iProducer) {",
+            "    super(",
+            "        monitorProvider,",
+            "        ProducerToken.create(TestModule_ProduceStringFactory.class));",
+            "    assert executorProvider != null;",
+            "    this.executorProvider = executorProvider;",
+            "    assert monitorProvider != null;",
+            "    this.monitorProvider = monitorProvider;",
+            "    assert iProducer != null;",
+            "    this.iProducer = iProducer;",
+            "  }",
+            "",
+            "  @Override protected ListenableFuture<String> compute() {",
+            "    ListenableFuture<Integer> iFuture = iProducer.get();",
+            "    return Futures.transformAsync(",
+            "        iFuture,",
+            "        SINGLE_FLIGHT.applying(",
+            "            HEDGE.applying(this, executorProvider.get(), monitor),",
+            "            executorProvider.get(),",
+            "            monitor),",
+            "        executorProvider.get());",
+            "  }",
+            "",
+            "  @Deprecated",
+            "  @Override public ListenableFuture<String> apply(Integer i) {",
+            "    assert monitor != null :",
+            "        \"apply() may only be called internally from compute(); \"",
+            "        + \"if it's called explicitly, the monitor might be null\";",
+            "    return TestModule.produceString(i);",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(factoryFile);
+  }
+
+  @Test public void hedgedWithoutDelay() {
+    assertThatProductionModuleMethod(
+            "@Produces @Hedged(delayMillis = 0) String produceString() { return null; }")
+        .importing(Hedged.class)
+        .hasError(PRODUCES_METHOD_HEDGE_DELAY);
+  }
+
+  @Test public void hedgedWithPercentileOutOfRange() {
+    assertThatProductionModuleMethod(
+            "@Produces @Hedged(delayMillis = 10, percentile = 100) String produceString() {"
+                + " return null; }")
+        .importing(Hedged.class)
+        .hasError(PRODUCES_METHOD_HEDGE_PERCENTILE);
+  }
+
+  @Test
+  public void bulkheadProducesMethod_appliesNamedBulkhead() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.Bulkhead;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces",
+            "  @Bulkhead(maxConcurrency = 2)",
+            "  static String produceString(Integer i) {",
+            "    return \"\";",
+            "  }",
+            "}");
+    JavaFileObject factoryFile =
+        JavaFileObjects.forSourceLines(
+            "TestModule_ProduceStringFactory",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.AsyncFunction;",
+            "import com.google.common.util.concurrent.Futures;",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.AbstractProducer;",
+            "import dagger.producers.internal.BulkheadPolicy;",
+            "import dagger.producers.monitoring.ProducerToken;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class TestModule_ProduceStringFactory",
+            "    extends AbstractProducer<String> implements AsyncFunction<Integer, String> {",
+            "  private static final BulkheadPolicy BULKHEAD =",
+            "      BulkheadPolicy.named(\"test.TestModule#produceString\", 2, 0);",
+            "",
+            "  private final Provider<Executor> executorProvider;",
+            "  private final Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private final Producer<Integer> iProducer;",
+            "",
+            "  public TestModule_ProduceStringFactory(",
+            "      Provider<Executor> executorProvider,",
+            "      Provider<ProductionComponentMonitor> monitorProvider,",
+            "      Producer<Integer> iProducer) {",
+            "    super(",
+            "        monitorProvider,",
+            "        ProducerToken.create(TestModule_ProduceStringFactory.class));",
+            "    assert executorProvider != null;",
+            "    this.executorProvider = executorProvider;",
+            "    assert monitorProvider != null;",
+            "    this.monitorProvider = monitorProvider;",
+            "    assert iProducer != null;",
+            "    this.iProducer = iProducer;",
+            "  }",
+            "",
+            "  @Override protected ListenableFuture<String> compute() {",
+            "    ListenableFuture<Integer> iFuture = iProducer.get();",
+            "    return Futures.transformAsync(",
+            "        iFuture,",
+            "        BULKHEAD.applying(this, executorProvider.get(), monitor),",
+            "        executorProvider.get());",
+            "  }",
+            "",
+            "  @Deprecated",
+            "  @Override public ListenableFuture<String> apply(Integer i) {",
+            "    assert monitor != null :",
+            "        \"apply() may only be called internally from compute(); \"",
+            "        + \"if it's called explicitly, the monitor might be null\";",
+            "    return Futures.<String>immediateFuture(TestModule.produceString(i));",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(factoryFile);
+  }
+
+  @Test public void bulkheadWithoutConcurrency() {
+    assertThatProductionModuleMethod(
+            "@Produces @Bulkhead(maxConcurrency = 0) String produceString() { return null; }")
+        .importing(Bulkhead.class)
+        .hasError(PRODUCES_METHOD_BULKHEAD_CONCURRENCY);
+  }
+
+  @Test public void bulkheadWithNegativeQueue() {
+    assertThatProductionModuleMethod(
+            "@Produces @Bulkhead(maxConcurrency = 1, maxQueued = -1) String produceString() {"
+                + " return null; }")
+        .importing(Bulkhead.class)
+        .hasError(PRODUCES_METHOD_BULKHEAD_QUEUE);
+  }
+
+  @Test public void bulkheadNamedWithDifferentLimits() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.Bulkhead;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces @Bulkhead(name = \"backend\", maxConcurrency = 2)",
+            "  static String produceString() {",
+            "    return \"\";",
+            "  }",
+            "",
+            "  @Produces @Bulkhead(name = \"backend\", maxConcurrency = 3)",
+            "  static Integer produceInteger() {",
+            "    return 0;",
+            "  }",
+            "}");
+    assertAbout(javaSource())
+        .that(moduleFile)
+        .processedWith(new ComponentProcessor())
+        .failsToCompile()
+        .withErrorContaining(
+            String.format(
+                PRODUCES_METHOD_BULKHEAD_LIMITS, "backend", "test.TestModule#produceString"))
+        .in(moduleFile)
+        .onLine(15);
+  }
+
   @Test public void producesMethodMultipleQualifiers() {
     assertThatProductionModuleMethod(
             "@Produces @QualifierA @QualifierB abstract String produceString() { return null; }")
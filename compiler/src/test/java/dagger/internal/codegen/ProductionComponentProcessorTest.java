@@ -148,6 +148,31 @@ public class ProductionComponentProcessorTest {
         .withErrorContaining("may not depend on the production executor");
   }
 
+  @Test
+  public void negativeMultibindingFanOutLimit() {
+    JavaFileObject componentFile =
+        JavaFileObjects.forSourceLines(
+            "test.SimpleComponent",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.ProductionComponent;",
+            "import java.util.Set;",
+            "",
+            "@ProductionComponent",
+            "interface SimpleComponent {",
+            "  ListenableFuture<Set<String>> strs();",
+            "}");
+    assertAbout(javaSource())
+        .that(componentFile)
+        .withCompilerOptions("-Adagger.producerMultibindingFanOutLimit=-1")
+        .processedWith(new ComponentProcessor())
+        .failsToCompile()
+        .withErrorContaining(
+            "Processor option -Adagger.producerMultibindingFanOutLimit may only be a non-negative"
+                + " integer, found: -1");
+  }
+
   @Test
   public void simpleComponent() {
     JavaFileObject component =
@@ -207,6 +232,7 @@ public class ProductionComponentProcessorTest {
             "import dagger.internal.InstanceFactory;",
             "import dagger.internal.Preconditions;",
             "import dagger.internal.SetFactory;",
+            "import dagger.producers.Deadline;",
             "import dagger.producers.Producer;",
             "import dagger.producers.internal.Producers;",
             "import dagger.producers.monitoring.ProductionComponentMonitor;",
@@ -252,7 +278,8 @@ public class ProductionComponentProcessorTest {
             "        DoubleCheck.provider(",
             "            TestClass_SimpleComponent_MonitoringModule_MonitorFactory.create(",
             "                simpleComponentProvider,",
-            "                SetFactory.<ProductionComponentMonitor.Factory>empty());",
+            "                SetFactory.<ProductionComponentMonitor.Factory>empty(),",
+            "                SetFactory.<Deadline>empty());",
             "    this.bProvider = TestClass_BModule_BFactory.create(",
             "        builder.bModule, TestClass_C_Factory.create());",
             "    this.bProducer = Producers.producerFromProvider(bProvider);",
@@ -317,6 +344,724 @@ public class ProductionComponentProcessorTest {
         .and().generatesSources(generatedComponent);
   }
 
+  @Test
+  public void criticalPathScheduling_prioritizesProducerExecutors() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestClass",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import com.google.common.util.concurrent.MoreExecutors;",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import dagger.producers.Production;",
+            "import dagger.producers.ProductionComponent;",
+            "import java.util.concurrent.Executor;",
+            "import javax.inject.Inject;",
+            "",
+            "final class TestClass {",
+            "  static final class C {",
+            "    @Inject C() {}",
+            "  }",
+            "",
+            "  interface A {}",
+            "  interface B {}",
+            "",
+            "  @Module",
+            "  static final class BModule {",
+            "    @Provides B b(C c) {",
+            "      return null;",
+            "    }",
+            "",
+            "    @Provides @Production Executor executor() {",
+            "      return MoreExecutors.directExecutor();",
+            "    }",
+            "  }",
+            "",
+            "  @ProducerModule",
+            "  static final class AModule {",
+            "    @Produces ListenableFuture<A> a(B b) {",
+            "      return null;",
+            "    }",
+            "  }",
+            "",
+            "  @ProductionComponent(modules = {AModule.class, BModule.class})",
+            "  interface SimpleComponent {",
+            "    ListenableFuture<A> a();",
+            "  }",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestClass_SimpleComponent",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.internal.DoubleCheck;",
+            "import dagger.internal.InstanceFactory;",
+            "import dagger.internal.Preconditions;",
+            "import dagger.internal.SetFactory;",
+            "import dagger.producers.Deadline;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.Producers;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestClass_SimpleComponent",
+            "    implements TestClass.SimpleComponent {",
+            "  private Provider<Executor> executorProvider;",
+            "  private Provider<Executor> executorProvider2;",
+            "  private Provider<TestClass.SimpleComponent> simpleComponentProvider;",
+            "  private Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private Provider<TestClass.B> bProvider;",
+            "  private Producer<TestClass.A> aProducer;",
+            "  private Producer<TestClass.B> bProducer;",
+            "",
+            "  private DaggerTestClass_SimpleComponent(Builder builder) {",
+            "    assert builder != null;",
+            "    initialize(builder);",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestClass.SimpleComponent create() {",
+            "    return builder().build()",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private void initialize(final Builder builder) {",
+            "    this.executorProvider =",
+            "        TestClass_BModule_ExecutorFactory.create(builder.bModule);",
+            "     this.executorProvider2 =",
+            "         DoubleCheck.provider(",
+            "             TestClass_SimpleComponent_ProductionExecutorModule_ExecutorFactory",
+            "                 .create(executorProvider));",
+            "    this.simpleComponentProvider =",
+            "        InstanceFactory.<TestClass.SimpleComponent>create(this);",
+            "    this.monitorProvider =",
+            "        DoubleCheck.provider(",
+            "            TestClass_SimpleComponent_MonitoringModule_MonitorFactory.create(",
+            "                simpleComponentProvider,",
+            "                SetFactory.<ProductionComponentMonitor.Factory>empty(),",
+            "                SetFactory.<Deadline>empty());",
+            "    this.bProvider = TestClass_BModule_BFactory.create(",
+            "        builder.bModule, TestClass_C_Factory.create());",
+            "    this.bProducer = Producers.producerFromProvider(bProvider);",
+            "    this.aProducer = new TestClass_AModule_AFactory(",
+            "        builder.aModule,",
+            "        Producers.prioritizedExecutorProvider(executorProvider2, 1),",
+            "        monitorProvider,",
+            "        bProducer);",
+            "  }",
+            "",
+            "  @Override",
+            "  public ListenableFuture<TestClass.A> a() {",
+            "    return aProducer.get();",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private TestClass.BModule bModule;",
+            "    private TestClass.AModule aModule;",
+            "",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestClass.SimpleComponent build() {",
+            "      if (bModule == null) {",
+            "        this.bModule = new TestClass.BModule();",
+            "      }",
+            "      if (aModule == null) {",
+            "        this.aModule = new TestClass.AModule();",
+            "      }",
+            "      return new DaggerTestClass_SimpleComponent(this);",
+            "    }",
+            "",
+            "    public Builder aModule(TestClass.AModule aModule) {",
+            "      this.aModule = Preconditions.checkNotNull(aModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    public Builder bModule(TestClass.BModule bModule) {",
+            "      this.bModule = Preconditions.checkNotNull(bModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testClass_SimpleComponent_MonitoringModule(",
+            "        TestClass_SimpleComponent_MonitoringModule",
+            "        testClass_SimpleComponent_MonitoringModule) {",
+            "      Preconditions.checkNotNull(testClass_SimpleComponent_MonitoringModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testClass_SimpleComponent_ProductionExecutorModule(",
+            "        TestClass_SimpleComponent_ProductionExecutorModule",
+            "        testClass_SimpleComponent_ProductionExecutorModule) {",
+            "      Preconditions.checkNotNull(testClass_SimpleComponent_ProductionExecutorModule);",
+            "      return this;",
+            "    }",
+            "}");
+    assertAbout(javaSource()).that(component)
+        .withCompilerOptions("-Adagger.criticalPathScheduling=enabled")
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and().generatesSources(generatedComponent);
+  }
+
+  @Test
+  public void fuseProducerChains_fusesProducerExecutors() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestClass",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import com.google.common.util.concurrent.MoreExecutors;",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import dagger.producers.Production;",
+            "import dagger.producers.ProductionComponent;",
+            "import java.util.concurrent.Executor;",
+            "",
+            "final class TestClass {",
+            "  interface A {}",
+            "  interface B {}",
+            "",
+            "  @Module",
+            "  static final class ExecutorModule {",
+            "    @Provides @Production Executor executor() {",
+            "      return MoreExecutors.directExecutor();",
+            "    }",
+            "  }",
+            "",
+            "  @ProducerModule",
+            "  static final class AModule {",
+            "    @Produces ListenableFuture<B> b() {",
+            "      return null;",
+            "    }",
+            "",
+            "    @Produces ListenableFuture<A> a(B b) {",
+            "      return null;",
+            "    }",
+            "  }",
+            "",
+            "  @ProductionComponent(modules = {AModule.class, ExecutorModule.class})",
+            "  interface SimpleComponent {",
+            "    ListenableFuture<A> a();",
+            "  }",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestClass_SimpleComponent",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.internal.DoubleCheck;",
+            "import dagger.internal.InstanceFactory;",
+            "import dagger.internal.Preconditions;",
+            "import dagger.internal.SetFactory;",
+            "import dagger.producers.Deadline;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.Producers;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestClass_SimpleComponent",
+            "    implements TestClass.SimpleComponent {",
+            "  private Provider<Executor> executorProvider;",
+            "  private Provider<Executor> executorProvider2;",
+            "  private Provider<TestClass.SimpleComponent> simpleComponentProvider;",
+            "  private Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private Producer<TestClass.B> bProducer;",
+            "  private Producer<TestClass.A> aProducer;",
+            "",
+            "  private DaggerTestClass_SimpleComponent(Builder builder) {",
+            "    assert builder != null;",
+            "    initialize(builder);",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestClass.SimpleComponent create() {",
+            "    return builder().build()",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private void initialize(final Builder builder) {",
+            "    this.executorProvider =",
+            "        TestClass_ExecutorModule_ExecutorFactory.create(builder.executorModule);",
+            "    this.executorProvider2 =",
+            "        DoubleCheck.provider(",
+            "            TestClass_SimpleComponent_ProductionExecutorModule_ExecutorFactory",
+            "                .create(executorProvider));",
+            "    this.simpleComponentProvider =",
+            "        InstanceFactory.<TestClass.SimpleComponent>create(this);",
+            "    this.monitorProvider =",
+            "        DoubleCheck.provider(",
+            "            TestClass_SimpleComponent_MonitoringModule_MonitorFactory.create(",
+            "                simpleComponentProvider,",
+            "                SetFactory.<ProductionComponentMonitor.Factory>empty(),",
+            "                SetFactory.<Deadline>empty());",
+            "    this.bProducer = new TestClass_AModule_BFactory(",
+            "        builder.aModule,",
+            "        Producers.fusedExecutorProvider(executorProvider2),",
+            "        monitorProvider);",
+            "    this.aProducer = new TestClass_AModule_AFactory(",
+            "        builder.aModule,",
+            "        Producers.fusedExecutorProvider(executorProvider2),",
+            "        monitorProvider,",
+            "        bProducer);",
+            "  }",
+            "",
+            "  @Override",
+            "  public ListenableFuture<TestClass.A> a() {",
+            "    return aProducer.get();",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private TestClass.ExecutorModule executorModule;",
+            "    private TestClass.AModule aModule;",
+            "",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestClass.SimpleComponent build() {",
+            "      if (executorModule == null) {",
+            "        this.executorModule = new TestClass.ExecutorModule();",
+            "      }",
+            "      if (aModule == null) {",
+            "        this.aModule = new TestClass.AModule();",
+            "      }",
+            "      return new DaggerTestClass_SimpleComponent(this);",
+            "    }",
+            "",
+            "    public Builder aModule(TestClass.AModule aModule) {",
+            "      this.aModule = Preconditions.checkNotNull(aModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    public Builder executorModule(TestClass.ExecutorModule executorModule) {",
+            "      this.executorModule = Preconditions.checkNotNull(executorModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testClass_SimpleComponent_MonitoringModule(",
+            "        TestClass_SimpleComponent_MonitoringModule",
+            "        testClass_SimpleComponent_MonitoringModule) {",
+            "      Preconditions.checkNotNull(testClass_SimpleComponent_MonitoringModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testClass_SimpleComponent_ProductionExecutorModule(",
+            "        TestClass_SimpleComponent_ProductionExecutorModule",
+            "        testClass_SimpleComponent_ProductionExecutorModule) {",
+            "      Preconditions.checkNotNull(testClass_SimpleComponent_ProductionExecutorModule);",
+            "      return this;",
+            "    }",
+            "}");
+    assertAbout(javaSource()).that(component)
+        .withCompilerOptions("-Adagger.fuseProducerChains=enabled")
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and().generatesSources(generatedComponent);
+  }
+
+  @Test
+  public void releaseIntermediateProducerResults_releasesProducersConsumedOnlyByProducers() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestClass",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import com.google.common.util.concurrent.MoreExecutors;",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.producers.Produced;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import dagger.producers.Production;",
+            "import dagger.producers.ProductionComponent;",
+            "import java.util.concurrent.Executor;",
+            "",
+            "final class TestClass {",
+            "  interface A {}",
+            "  interface B {}",
+            "  interface C {}",
+            "  interface D {}",
+            "",
+            "  @Module",
+            "  static final class ExecutorModule {",
+            "    @Provides @Production Executor executor() {",
+            "      return MoreExecutors.directExecutor();",
+            "    }",
+            "  }",
+            "",
+            "  @ProducerModule",
+            "  static final class AModule {",
+            "    @Produces ListenableFuture<B> b() {",
+            "      return null;",
+            "    }",
+            "",
+            "    @Produces ListenableFuture<C> c() {",
+            "      return null;",
+            "    }",
+            "",
+            "    @Produces ListenableFuture<D> d() {",
+            "      return null;",
+            "    }",
+            "",
+            "    @Produces ListenableFuture<A> a(",
+            "        B b, Produced<B> producedB, C c, Producer<D> dProducer) {",
+            "      return null;",
+            "    }",
+            "  }",
+            "",
+            "  @ProductionComponent(modules = {AModule.class, ExecutorModule.class})",
+            "  interface SimpleComponent {",
+            "    ListenableFuture<A> a();",
+            "    ListenableFuture<C> c();",
+            "  }",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestClass_SimpleComponent",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.internal.DoubleCheck;",
+            "import dagger.internal.InstanceFactory;",
+            "import dagger.internal.Preconditions;",
+            "import dagger.internal.SetFactory;",
+            "import dagger.producers.Deadline;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.Producers;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestClass_SimpleComponent",
+            "    implements TestClass.SimpleComponent {",
+            "  private Provider<Executor> executorProvider;",
+            "  private Provider<Executor> executorProvider2;",
+            "  private Provider<TestClass.SimpleComponent> simpleComponentProvider;",
+            "  private Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private Producer<TestClass.B> bProducer;",
+            "  private Producer<TestClass.C> cProducer;",
+            "  private Producer<TestClass.D> dProducer;",
+            "  private Producer<TestClass.A> aProducer;",
+            "",
+            "  private DaggerTestClass_SimpleComponent(Builder builder) {",
+            "    assert builder != null;",
+            "    initialize(builder);",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestClass.SimpleComponent create() {",
+            "    return builder().build()",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private void initialize(final Builder builder) {",
+            "    this.executorProvider =",
+            "        TestClass_ExecutorModule_ExecutorFactory.create(builder.executorModule);",
+            "    this.executorProvider2 =",
+            "        DoubleCheck.provider(",
+            "            TestClass_SimpleComponent_ProductionExecutorModule_ExecutorFactory",
+            "                .create(executorProvider));",
+            "    this.simpleComponentProvider =",
+            "        InstanceFactory.<TestClass.SimpleComponent>create(this);",
+            "    this.monitorProvider =",
+            "        DoubleCheck.provider(",
+            "            TestClass_SimpleComponent_MonitoringModule_MonitorFactory.create(",
+            "                simpleComponentProvider,",
+            "                SetFactory.<ProductionComponentMonitor.Factory>empty(),",
+            "                SetFactory.<Deadline>empty());",
+            "    this.bProducer = Producers.releasingProducer(",
+            "        new TestClass_AModule_BFactory(",
+            "            builder.aModule, executorProvider2, monitorProvider),",
+            "        2);",
+            "    this.cProducer = new TestClass_AModule_CFactory(",
+            "        builder.aModule, executorProvider2, monitorProvider);",
+            "    this.dProducer = new TestClass_AModule_DFactory(",
+            "        builder.aModule, executorProvider2, monitorProvider);",
+            "    this.aProducer = new TestClass_AModule_AFactory(",
+            "        builder.aModule,",
+            "        executorProvider2,",
+            "        monitorProvider,",
+            "        bProducer,",
+            "        cProducer,",
+            "        dProducer);",
+            "  }",
+            "",
+            "  @Override",
+            "  public ListenableFuture<TestClass.A> a() {",
+            "    return aProducer.get();",
+            "  }",
+            "",
+            "  @Override",
+            "  public ListenableFuture<TestClass.C> c() {",
+            "    return cProducer.get();",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private TestClass.ExecutorModule executorModule;",
+            "    private TestClass.AModule aModule;",
+            "",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestClass.SimpleComponent build() {",
+            "      if (executorModule == null) {",
+            "        this.executorModule = new TestClass.ExecutorModule();",
+            "      }",
+            "      if (aModule == null) {",
+            "        this.aModule = new TestClass.AModule();",
+            "      }",
+            "      return new DaggerTestClass_SimpleComponent(this);",
+            "    }",
+            "",
+            "    public Builder aModule(TestClass.AModule aModule) {",
+            "      this.aModule = Preconditions.checkNotNull(aModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    public Builder executorModule(TestClass.ExecutorModule executorModule) {",
+            "      this.executorModule = Preconditions.checkNotNull(executorModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testClass_SimpleComponent_MonitoringModule(",
+            "        TestClass_SimpleComponent_MonitoringModule",
+            "        testClass_SimpleComponent_MonitoringModule) {",
+            "      Preconditions.checkNotNull(testClass_SimpleComponent_MonitoringModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testClass_SimpleComponent_ProductionExecutorModule(",
+            "        TestClass_SimpleComponent_ProductionExecutorModule",
+            "        testClass_SimpleComponent_ProductionExecutorModule) {",
+            "      Preconditions.checkNotNull(testClass_SimpleComponent_ProductionExecutorModule);",
+            "      return this;",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSource()).that(component)
+        .withCompilerOptions("-Adagger.releaseIntermediateProducerResults=enabled")
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and().generatesSources(generatedComponent);
+  }
+
+  @Test
+  public void releaseIntermediateProducerResults_keepsProducersRequestedBySubcomponents() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestClass",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import com.google.common.util.concurrent.MoreExecutors;",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import dagger.producers.Production;",
+            "import dagger.producers.ProductionComponent;",
+            "import dagger.producers.ProductionSubcomponent;",
+            "import java.util.concurrent.Executor;",
+            "",
+            "final class TestClass {",
+            "  interface A {}",
+            "  interface B {}",
+            "",
+            "  @Module",
+            "  static final class ExecutorModule {",
+            "    @Provides @Production Executor executor() {",
+            "      return MoreExecutors.directExecutor();",
+            "    }",
+            "  }",
+            "",
+            "  @ProducerModule",
+            "  static final class AModule {",
+            "    @Produces ListenableFuture<B> b() {",
+            "      return null;",
+            "    }",
+            "",
+            "    @Produces ListenableFuture<A> a(B b) {",
+            "      return null;",
+            "    }",
+            "  }",
+            "",
+            "  @ProductionSubcomponent",
+            "  interface Child {",
+            "    ListenableFuture<B> b();",
+            "  }",
+            "",
+            "  @ProductionComponent(modules = {AModule.class, ExecutorModule.class})",
+            "  interface SimpleComponent {",
+            "    ListenableFuture<A> a();",
+            "    Child child();",
+            "  }",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestClass_SimpleComponent",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.internal.DoubleCheck;",
+            "import dagger.internal.InstanceFactory;",
+            "import dagger.internal.Preconditions;",
+            "import dagger.internal.SetFactory;",
+            "import dagger.producers.Deadline;",
+            "import dagger.producers.Producer;",
+            "import dagger.producers.internal.Producers;",
+            "import dagger.producers.monitoring.ProductionComponentMonitor;",
+            "import java.util.concurrent.Executor;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestClass_SimpleComponent",
+            "    implements TestClass.SimpleComponent {",
+            "  private Provider<Executor> executorProvider;",
+            "  private Provider<Executor> executorProvider2;",
+            "  private Provider<TestClass.SimpleComponent> simpleComponentProvider;",
+            "  private Provider<ProductionComponentMonitor> monitorProvider;",
+            "  private Producer<TestClass.B> bProducer;",
+            "  private Producer<TestClass.A> aProducer;",
+            "",
+            "  private DaggerTestClass_SimpleComponent(Builder builder) {",
+            "    assert builder != null;",
+            "    initialize(builder);",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestClass.SimpleComponent create() {",
+            "    return builder().build()",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private void initialize(final Builder builder) {",
+            "    this.executorProvider =",
+            "        TestClass_ExecutorModule_ExecutorFactory.create(builder.executorModule);",
+            "    this.executorProvider2 =",
+            "        DoubleCheck.provider(",
+            "            TestClass_SimpleComponent_ProductionExecutorModule_ExecutorFactory",
+            "                .create(executorProvider));",
+            "    this.simpleComponentProvider =",
+            "        InstanceFactory.<TestClass.SimpleComponent>create(this);",
+            "    this.monitorProvider =",
+            "        DoubleCheck.provider(",
+            "            TestClass_SimpleComponent_MonitoringModule_MonitorFactory.create(",
+            "                simpleComponentProvider,",
+            "                SetFactory.<ProductionComponentMonitor.Factory>empty(),",
+            "                SetFactory.<Deadline>empty());",
+            "    this.bProducer = new TestClass_AModule_BFactory(",
+            "        builder.aModule, executorProvider2, monitorProvider);",
+            "    this.aProducer = new TestClass_AModule_AFactory(",
+            "        builder.aModule, executorProvider2, monitorProvider, bProducer);",
+            "  }",
+            "",
+            "  @Override",
+            "  public ListenableFuture<TestClass.A> a() {",
+            "    return aProducer.get();",
+            "  }",
+            "",
+            "  @Override",
+            "  public TestClass.Child child() {",
+            "    return new ChildImpl();",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private TestClass.ExecutorModule executorModule;",
+            "    private TestClass.AModule aModule;",
+            "",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestClass.SimpleComponent build() {",
+            "      if (executorModule == null) {",
+            "        this.executorModule = new TestClass.ExecutorModule();",
+            "      }",
+            "      if (aModule == null) {",
+            "        this.aModule = new TestClass.AModule();",
+            "      }",
+            "      return new DaggerTestClass_SimpleComponent(this);",
+            "    }",
+            "",
+            "    public Builder aModule(TestClass.AModule aModule) {",
+            "      this.aModule = Preconditions.checkNotNull(aModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    public Builder executorModule(TestClass.ExecutorModule executorModule) {",
+            "      this.executorModule = Preconditions.checkNotNull(executorModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testClass_SimpleComponent_MonitoringModule(",
+            "        TestClass_SimpleComponent_MonitoringModule",
+            "        testClass_SimpleComponent_MonitoringModule) {",
+            "      Preconditions.checkNotNull(testClass_SimpleComponent_MonitoringModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testClass_SimpleComponent_ProductionExecutorModule(",
+            "        TestClass_SimpleComponent_ProductionExecutorModule",
+            "        testClass_SimpleComponent_ProductionExecutorModule) {",
+            "      Preconditions.checkNotNull(testClass_SimpleComponent_ProductionExecutorModule);",
+            "      return this;",
+            "    }",
+            "  }",
+            "",
+            "  private final class ChildImpl implements TestClass.Child {",
+            "    private ChildImpl() {}",
+            "",
+            "    @Override",
+            "    public ListenableFuture<TestClass.B> b() {",
+            "      return DaggerTestClass_SimpleComponent.this.bProducer.get();",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSource()).that(component)
+        .withCompilerOptions("-Adagger.releaseIntermediateProducerResults=enabled")
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and().generatesSources(generatedComponent);
+  }
+
   @Test public void nullableProducersAreNotErrors() {
     JavaFileObject component = JavaFileObjects.forSourceLines("test.TestClass",
         "package test;",
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+import static dagger.internal.codegen.GeneratedLines.GENERATED_ANNOTATION;
+
+@RunWith(JUnit4.class)
+public class ProvisionMonitoringTest {
+  @Test
+  public void provisionsAreMonitoredWhenMonitorFactoriesAreContributed() {
+    JavaFileObject scopedFile =
+        JavaFileObjects.forSourceLines(
+            "test.Scoped",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class Scoped {",
+            "  @Inject Scoped() {}",
+            "}");
+    JavaFileObject monitorModuleFile =
+        JavaFileObjects.forSourceLines(
+            "test.MonitorModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.monitoring.ProvisionComponentMonitor;",
+            "import dagger.multibindings.IntoSet;",
+            "",
+            "@Module",
+            "final class MonitorModule {",
+            "  @Provides @IntoSet static ProvisionComponentMonitor.Factory monitorFactory(",
+            "      String name) {",
+            "    return ProvisionComponentMonitor.Factory.noOp();",
+            "  }",
+            "",
+            "  @Provides static String name() {",
+            "    return \"name\";",
+            "  }",
+            "}");
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "final class TestModule {",
+            "  @Provides static Integer integer(Scoped scoped) {",
+            "    return 1;",
+            "  }",
+            "}");
+    JavaFileObject componentFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component(modules = {MonitorModule.class, TestModule.class})",
+            "interface TestComponent {",
+            "  Integer integer();",
+            "  String name();",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestComponent",
+            "package test;",
+            "",
+            "import dagger.internal.DelegateFactory;",
+            "import dagger.internal.DoubleCheck;",
+            "import dagger.internal.Preconditions;",
+            "import dagger.internal.ProvisionMonitors;",
+            "import dagger.internal.SetFactory;",
+            "import dagger.monitoring.ProvisionComponentMonitor;",
+            "import dagger.monitoring.ProvisionToken;",
+            "import java.util.Set;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestComponent implements TestComponent {",
+            "  private Provider<Scoped> scopedProvider;",
+            "  private Provider<Integer> integerProvider;",
+            "  private Provider<ProvisionComponentMonitor.Factory> monitorFactoryProvider;",
+            "  private Provider<Set<ProvisionComponentMonitor.Factory>> setOfFactoryProvider;",
+            "  private final DelegateFactory<ProvisionComponentMonitor>",
+            "      provisionComponentMonitorProvider =",
+            "          new DelegateFactory<ProvisionComponentMonitor>();",
+            "",
+            "  private DaggerTestComponent(Builder builder) {",
+            "    assert builder != null;",
+            "    initialize(builder);",
+            "    provisionComponentMonitorProvider.setDelegatedProvider(",
+            "        ProvisionMonitors.componentMonitorProvider(this, setOfFactoryProvider));",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestComponent create() {",
+            "    return builder().build();",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private void initialize(final Builder builder) {",
+            "    this.scopedProvider =",
+            "        DoubleCheck.provider(",
+            "            ProvisionMonitors.monitoredProvider(",
+            "                Scoped_Factory.create(),",
+            "                provisionComponentMonitorProvider,",
+            "                ProvisionToken.create(\"test.Scoped_Factory\")));",
+            "    this.integerProvider =",
+            "        ProvisionMonitors.monitoredProvider(",
+            "            TestModule_IntegerFactory.create(scopedProvider),",
+            "            provisionComponentMonitorProvider,",
+            "            ProvisionToken.create(\"test.TestModule_IntegerFactory\"));",
+            "    this.monitorFactoryProvider =",
+            "        MonitorModule_MonitorFactoryFactory.create(",
+            "            MonitorModule_NameFactory.create());",
+            "    this.setOfFactoryProvider =",
+            "        SetFactory.<ProvisionComponentMonitor.Factory>builder(1, 0)",
+            "            .addProvider(monitorFactoryProvider)",
+            "            .build();",
+            "  }",
+            "",
+            "  @Override",
+            "  public Integer integer() {",
+            "    return integerProvider.get();",
+            "  }",
+            "",
+            "  @Override",
+            "  public String name() {",
+            "    return MonitorModule_NameFactory.create().get();",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private Builder() {}",
+            "",
+            "    public TestComponent build() {",
+            "      return new DaggerTestComponent(this);",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder monitorModule(MonitorModule monitorModule) {",
+            "      Preconditions.checkNotNull(monitorModule);",
+            "      return this;",
+            "    }",
+            "",
+            "    @Deprecated",
+            "    public Builder testModule(TestModule testModule) {",
+            "      Preconditions.checkNotNull(testModule);",
+            "      return this;",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSources())
+        .that(ImmutableList.of(scopedFile, monitorModuleFile, moduleFile, componentFile))
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(generatedComponent);
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+import static dagger.internal.codegen.GeneratedLines.GENERATED_ANNOTATION;
+
+@RunWith(JUnit4.class)
+public class SwitchingProvidersTest {
+  private static final String SWITCHING_PROVIDERS = "-Adagger.switchingProviders=ENABLED";
+
+  @Test
+  public void bindingsAreProvidedBySwitchingProvider() {
+    JavaFileObject scopedFile =
+        JavaFileObjects.forSourceLines(
+            "test.Scoped",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class Scoped {",
+            "  @Inject Scoped() {}",
+            "}");
+    JavaFileObject unscopedFile =
+        JavaFileObjects.forSourceLines(
+            "test.Unscoped",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Unscoped {",
+            "  @Inject Unscoped(Scoped scoped) {}",
+            "}");
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "final class TestModule {",
+            "  @Provides String string(Unscoped unscoped) {",
+            "    return unscoped.toString();",
+            "  }",
+            "}");
+    JavaFileObject componentFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Provider;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  String string();",
+            "  Provider<Unscoped> unscopedProvider();",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestComponent",
+            "package test;",
+            "",
+            "import dagger.internal.DoubleCheck;",
+            "import dagger.internal.Factory;",
+            "import dagger.internal.Preconditions;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestComponent implements TestComponent {",
+            "  private Provider<Scoped> scopedProvider;",
+            "  private Provider<Unscoped> unscopedProvider;",
+            "  private Provider<String> stringProvider;",
+            "  private final TestModule testModule;",
+            "",
+            "  private DaggerTestComponent(Builder builder) {",
+            "    assert builder != null;",
+            "    this.testModule = builder.testModule;",
+            "    initialize(builder);",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestComponent create() {",
+            "    return builder().build();",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private void initialize(final Builder builder) {",
+            "    this.scopedProvider = DoubleCheck.provider(new SwitchingProvider<Scoped>(0));",
+            "    this.unscopedProvider = new SwitchingProvider<Unscoped>(1);",
+            "    this.stringProvider = new SwitchingProvider<String>(2);",
+            "  }",
+            "",
+            "  @Override",
+            "  public String string() {",
+            "    return stringProvider.get();",
+            "  }",
+            "",
+            "  @Override",
+            "  public Provider<Unscoped> unscopedProvider() {",
+            "    return unscopedProvider;",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private TestModule testModule;",
+            "",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestComponent build() {",
+            "      if (testModule == null) {",
+            "        this.testModule = new TestModule();",
+            "      }",
+            "      return new DaggerTestComponent(this);",
+            "    }",
+            "",
+            "    public Builder testModule(TestModule testModule) {",
+            "      this.testModule = Preconditions.checkNotNull(testModule);",
+            "      return this;",
+            "    }",
+            "  }",
+            "",
+            "  private final class SwitchingProvider<T> implements Factory<T> {",
+            "    private final int id;",
+            "",
+            "    SwitchingProvider(int id) {",
+            "      this.id = id;",
+            "    }",
+            "",
+            "    private Object get0() {",
+            "      switch (id) {",
+            "        case 0:",
+            "          return new Scoped();",
+            "        case 1:",
+            "          return new Unscoped(DaggerTestComponent.this.scopedProvider.get());",
+            "        case 2:",
+            "          return Preconditions.checkNotNull(",
+            "              DaggerTestComponent.this.testModule.string(",
+            "                  DaggerTestComponent.this.unscopedProvider.get()),",
+            "              \"Cannot return null from a non-@Nullable @Provides method\");",
+            "        default:",
+            "          throw new AssertionError(id);",
+            "      }",
+            "    }",
+            "",
+            "    @SuppressWarnings(\"unchecked\")",
+            "    @Override",
+            "    public T get() {",
+            "      return (T) get0();",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSources())
+        .that(ImmutableList.of(scopedFile, unscopedFile, moduleFile, componentFile))
+        .withCompilerOptions(SWITCHING_PROVIDERS)
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(generatedComponent);
+  }
+}
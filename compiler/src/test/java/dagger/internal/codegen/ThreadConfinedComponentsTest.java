@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+import static dagger.internal.codegen.GeneratedLines.GENERATED_ANNOTATION;
+
+@RunWith(JUnit4.class)
+public class ThreadConfinedComponentsTest {
+  private static final String THREAD_CONFINED_COMPONENTS =
+      "-Adagger.threadConfinedComponents=ENABLED";
+
+  @Test
+  public void scopedBindingsAreMemoizedWithoutSynchronization() {
+    JavaFileObject scopedFile =
+        JavaFileObjects.forSourceLines(
+            "test.Scoped",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class Scoped {",
+            "  @Inject Scoped() {}",
+            "}");
+    JavaFileObject reusableFile =
+        JavaFileObjects.forSourceLines(
+            "test.ReusableType",
+            "package test;",
+            "",
+            "import dagger.Reusable;",
+            "import javax.inject.Inject;",
+            "",
+            "@Reusable",
+            "final class ReusableType {",
+            "  @Inject ReusableType(Scoped scoped) {}",
+            "}");
+    JavaFileObject componentFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  ReusableType reusableType();",
+            "}");
+    JavaFileObject generatedComponent =
+        JavaFileObjects.forSourceLines(
+            "test.DaggerTestComponent",
+            "package test;",
+            "",
+            "import dagger.internal.ThreadConfinedCheck;",
+            "import javax.annotation.Generated;",
+            "import javax.inject.Provider;",
+            "",
+            GENERATED_ANNOTATION,
+            "public final class DaggerTestComponent implements TestComponent {",
+            "  private Provider<Scoped> scopedProvider;",
+            "  private Provider<ReusableType> reusableTypeProvider;",
+            "",
+            "  private DaggerTestComponent(Builder builder) {",
+            "    assert builder != null;",
+            "  }",
+            "",
+            "  public static Builder builder() {",
+            "    return new Builder();",
+            "  }",
+            "",
+            "  public static TestComponent create() {",
+            "    return builder().build();",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private Provider<Scoped> getScopedProvider() {",
+            "    if (scopedProvider == null) {",
+            "      this.scopedProvider = ThreadConfinedCheck.provider(Scoped_Factory.create());",
+            "    }",
+            "    return scopedProvider;",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\")",
+            "  private Provider<ReusableType> getReusableTypeProvider() {",
+            "    if (reusableTypeProvider == null) {",
+            "      this.reusableTypeProvider =",
+            "          ThreadConfinedCheck.provider(ReusableType_Factory.create(getScopedProvider()));",
+            "    }",
+            "    return reusableTypeProvider;",
+            "  }",
+            "",
+            "  @Override",
+            "  public ReusableType reusableType() {",
+            "    return getReusableTypeProvider().get();",
+            "  }",
+            "",
+            "  public static final class Builder {",
+            "    private Builder() {",
+            "    }",
+            "",
+            "    public TestComponent build() {",
+            "      return new DaggerTestComponent(this);",
+            "    }",
+            "  }",
+            "}");
+    assertAbout(javaSources())
+        .that(ImmutableList.of(scopedFile, reusableFile, componentFile))
+        .withCompilerOptions(
+            THREAD_CONFINED_COMPONENTS, "-Adagger.lazyFrameworkFieldInitialization=ENABLED")
+        .processedWith(new ComponentProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(generatedComponent);
+  }
+}
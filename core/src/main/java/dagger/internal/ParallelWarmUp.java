@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Provider;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+/**
+ * Invokes a set of providers concurrently on an {@link Executor}, each one only after the providers
+ * that it depends on have returned. Generated components use this to initialize their independent
+ * scoped bindings in parallel, so that warming up a component takes about as long as its longest
+ * chain of dependent bindings rather than the sum of all of them.
+ */
+public final class ParallelWarmUp {
+  private final List<Provider<?>> providers = new ArrayList<Provider<?>>();
+  private final List<int[]> dependencies = new ArrayList<int[]>();
+
+  /**
+   * Adds a provider that is invoked only after each of the previously added providers at the
+   * indices in {@code dependencies}. Returns this.
+   */
+  public ParallelWarmUp add(Provider<?> provider, int... dependencies) {
+    checkNotNull(provider);
+    for (int dependency : dependencies) {
+      if (dependency < 0 || dependency >= providers.size()) {
+        throw new IllegalArgumentException(
+            "Provider " + providers.size() + " cannot depend on provider " + dependency);
+      }
+    }
+    providers.add(provider);
+    this.dependencies.add(dependencies.clone());
+    return this;
+  }
+
+  /**
+   * Invokes every provider on {@code executor} and waits for all of them to return. If any provider
+   * throws, the providers that depend on it are still invoked, and the first exception is rethrown
+   * once all of them have returned.
+   *
+   * <p>While it waits, the calling thread invokes providers that are ready but that the executor
+   * has not started yet. So this returns even if the executor rejects tasks, or never runs them
+   * because its only thread is the calling one.
+   */
+  public void run(Executor executor) {
+    new Execution(checkNotNull(executor)).run();
+  }
+
+  private final class Execution {
+    /** Marks the {@link #ready} queue as finished, once every provider has returned. */
+    private static final int DONE = -1;
+
+    private final Executor executor;
+    private final AtomicInteger[] pendingDependencies;
+    private final List<List<Integer>> dependents;
+    private final AtomicInteger remaining;
+    private final BlockingQueue<Integer> ready = new LinkedBlockingQueue<Integer>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    private final Runnable invokeReady =
+        new Runnable() {
+          @Override
+          public void run() {
+            Integer task = ready.poll();
+            if (task == null) {
+              return;
+            }
+            if (task == DONE) {
+              ready.add(DONE);
+              return;
+            }
+            invoke(task);
+          }
+        };
+
+    Execution(Executor executor) {
+      this.executor = executor;
+      int size = providers.size();
+      this.pendingDependencies = new AtomicInteger[size];
+      this.dependents = new ArrayList<List<Integer>>(size);
+      this.remaining = new AtomicInteger(size);
+      for (int i = 0; i < size; i++) {
+        pendingDependencies[i] = new AtomicInteger(dependencies.get(i).length);
+        dependents.add(new ArrayList<Integer>());
+        for (int dependency : dependencies.get(i)) {
+          dependents.get(dependency).add(i);
+        }
+      }
+    }
+
+    void run() {
+      if (pendingDependencies.length == 0) {
+        return;
+      }
+      // Tasks are started from their static dependencies, since a pending count may already have
+      // dropped to zero because a dependency finished before this loop reached its dependent.
+      for (int i = 0; i < pendingDependencies.length; i++) {
+        if (dependencies.get(i).length == 0) {
+          submit(i);
+        }
+      }
+      invokeReadyUntilDone();
+      Throwable t = failure.get();
+      if (t instanceof RuntimeException) {
+        throw (RuntimeException) t;
+      } else if (t instanceof Error) {
+        throw (Error) t;
+      } else if (t != null) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    /**
+     * Queues {@code task} and asks the executor to invoke a queued task. Whichever of the executor
+     * and the calling thread gets to the task first invokes it.
+     */
+    private void submit(int task) {
+      ready.add(task);
+      try {
+        executor.execute(invokeReady);
+      } catch (RejectedExecutionException e) {
+        // The calling thread will invoke the task.
+      }
+    }
+
+    private void invoke(int task) {
+      try {
+        providers.get(task).get();
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      } finally {
+        for (int dependent : dependents.get(task)) {
+          if (pendingDependencies[dependent].decrementAndGet() == 0) {
+            submit(dependent);
+          }
+        }
+        if (remaining.decrementAndGet() == 0) {
+          ready.add(DONE);
+        }
+      }
+    }
+
+    private void invokeReadyUntilDone() {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            int task = ready.take();
+            if (task == DONE) {
+              return;
+            }
+            invoke(task);
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
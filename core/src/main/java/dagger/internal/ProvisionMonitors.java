@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import dagger.monitoring.ProvisionComponentMonitor;
+import dagger.monitoring.ProvisionMonitor;
+import dagger.monitoring.ProvisionToken;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Provider;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+/**
+ * Utility methods relating to provision monitoring, for use in generated components.
+ */
+public final class ProvisionMonitors {
+  private static final Logger logger = Logger.getLogger(ProvisionMonitors.class.getName());
+
+  /**
+   * Returns a provider that calls the monitor for {@code token} around each call to
+   * {@code delegate}. The monitor is created from the component monitor the first time the
+   * provider is called.
+   */
+  public static <T> Provider<T> monitoredProvider(
+      Provider<T> delegate,
+      Provider<ProvisionComponentMonitor> componentMonitorProvider,
+      ProvisionToken token) {
+    return new MonitoredProvider<T>(
+        checkNotNull(delegate), checkNotNull(componentMonitorProvider), checkNotNull(token));
+  }
+
+  /**
+   * Returns a provider of the single monitor for {@code component}, which is created from the set
+   * of monitor factories the first time it is requested.
+   */
+  public static Provider<ProvisionComponentMonitor> componentMonitorProvider(
+      final Object component,
+      final Provider<Set<ProvisionComponentMonitor.Factory>> monitorFactorySetProvider) {
+    checkNotNull(component);
+    checkNotNull(monitorFactorySetProvider);
+    return DoubleCheck.provider(
+        new Provider<ProvisionComponentMonitor>() {
+          @Override
+          public ProvisionComponentMonitor get() {
+            return createMonitorForComponent(component, monitorFactorySetProvider);
+          }
+        });
+  }
+
+  /**
+   * Returns a monitor factory that delegates to the given factories, and ensures that any method
+   * called on this object, even transitively, does not throw a {@link RuntimeException} or return
+   * null.
+   *
+   * <p>If the delegate monitors throw an {@link Error}, then that will escape this monitor
+   * implementation. Errors are treated as unrecoverable conditions, and may cause the entire
+   * component's execution to fail.
+   */
+  public static ProvisionComponentMonitor.Factory delegatingProvisionComponentMonitorFactory(
+      Collection<? extends ProvisionComponentMonitor.Factory> factories) {
+    if (factories.isEmpty()) {
+      return ProvisionComponentMonitor.Factory.noOp();
+    } else if (factories.size() == 1) {
+      return new NonThrowingProvisionComponentMonitor.Factory(factories.iterator().next());
+    } else {
+      return new DelegatingProvisionComponentMonitor.Factory(factories);
+    }
+  }
+
+  /**
+   * Creates a new monitor for the given component, from a set of monitor factories. This will not
+   * throw a {@link RuntimeException} or return null.
+   */
+  public static ProvisionComponentMonitor createMonitorForComponent(
+      Object component,
+      Provider<Set<ProvisionComponentMonitor.Factory>> monitorFactorySetProvider) {
+    try {
+      ProvisionComponentMonitor.Factory factory =
+          delegatingProvisionComponentMonitorFactory(monitorFactorySetProvider.get());
+      return factory.create(component);
+    } catch (RuntimeException e) {
+      logger.log(Level.SEVERE, "RuntimeException while constructing monitor factories.", e);
+      return ProvisionComponentMonitor.noOp();
+    }
+  }
+
+  /**
+   * A provider that calls a provision monitor around each call to its delegate. The monitor is
+   * looked up once; a no-op monitor is skipped entirely.
+   */
+  private static final class MonitoredProvider<T> implements Factory<T> {
+    private final Provider<T> delegate;
+    private final Provider<ProvisionComponentMonitor> componentMonitorProvider;
+    private final ProvisionToken token;
+    private volatile ProvisionMonitor monitor;
+
+    MonitoredProvider(
+        Provider<T> delegate,
+        Provider<ProvisionComponentMonitor> componentMonitorProvider,
+        ProvisionToken token) {
+      this.delegate = delegate;
+      this.componentMonitorProvider = componentMonitorProvider;
+      this.token = token;
+    }
+
+    @Override
+    public T get() {
+      ProvisionMonitor monitor = monitor();
+      if (monitor == ProvisionMonitor.noOp()) {
+        return delegate.get();
+      }
+      monitor.provisionStarting();
+      T instance;
+      try {
+        instance = delegate.get();
+      } catch (RuntimeException e) {
+        monitor.failed(e);
+        throw e;
+      } catch (Error e) {
+        monitor.failed(e);
+        throw e;
+      }
+      monitor.succeeded(instance);
+      return instance;
+    }
+
+    private ProvisionMonitor monitor() {
+      ProvisionMonitor result = monitor;
+      if (result == null) {
+        // Racing threads may each look up a monitor for the token. The component monitor never
+        // throws, so whichever monitor is stored last is as good as any other.
+        result = componentMonitorProvider.get().provisionMonitorFor(token);
+        monitor = result;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A component monitor that delegates to a single monitor, and catches and logs all exceptions
+   * that the delegate throws.
+   */
+  private static final class NonThrowingProvisionComponentMonitor
+      extends ProvisionComponentMonitor {
+    private final ProvisionComponentMonitor delegate;
+
+    NonThrowingProvisionComponentMonitor(ProvisionComponentMonitor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public ProvisionMonitor provisionMonitorFor(ProvisionToken token) {
+      try {
+        ProvisionMonitor monitor = delegate.provisionMonitorFor(token);
+        return monitor == null
+            ? ProvisionMonitor.noOp()
+            : new NonThrowingProvisionMonitor(monitor);
+      } catch (RuntimeException e) {
+        logProvisionMonitorForException(e, delegate, token);
+        return ProvisionMonitor.noOp();
+      }
+    }
+
+    static final class Factory extends ProvisionComponentMonitor.Factory {
+      private final ProvisionComponentMonitor.Factory delegate;
+
+      Factory(ProvisionComponentMonitor.Factory delegate) {
+        this.delegate = delegate;
+      }
+
+      @Override
+      public ProvisionComponentMonitor create(Object component) {
+        try {
+          ProvisionComponentMonitor monitor = delegate.create(component);
+          return monitor == null
+              ? ProvisionComponentMonitor.noOp()
+              : new NonThrowingProvisionComponentMonitor(monitor);
+        } catch (RuntimeException e) {
+          logCreateException(e, delegate, component);
+          return ProvisionComponentMonitor.noOp();
+        }
+      }
+    }
+  }
+
+  /**
+   * A provision monitor that delegates to a single monitor, and catches and logs all exceptions
+   * that the delegate throws.
+   */
+  private static final class NonThrowingProvisionMonitor extends ProvisionMonitor {
+    private final ProvisionMonitor delegate;
+
+    NonThrowingProvisionMonitor(ProvisionMonitor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void provisionStarting() {
+      try {
+        delegate.provisionStarting();
+      } catch (RuntimeException e) {
+        logProvisionMonitorMethodException(e, delegate, "provisionStarting");
+      }
+    }
+
+    @Override
+    public void succeeded(Object instance) {
+      try {
+        delegate.succeeded(instance);
+      } catch (RuntimeException e) {
+        logProvisionMonitorArgMethodException(e, delegate, "succeeded", instance);
+      }
+    }
+
+    @Override
+    public void failed(Throwable t) {
+      try {
+        delegate.failed(t);
+      } catch (RuntimeException e) {
+        logProvisionMonitorArgMethodException(e, delegate, "failed", t);
+      }
+    }
+  }
+
+  /**
+   * A component monitor that delegates to several monitors, and catches and logs all exceptions
+   * that the delegates throw.
+   */
+  private static final class DelegatingProvisionComponentMonitor
+      extends ProvisionComponentMonitor {
+    private final List<ProvisionComponentMonitor> delegates;
+
+    DelegatingProvisionComponentMonitor(List<ProvisionComponentMonitor> delegates) {
+      this.delegates = delegates;
+    }
+
+    @Override
+    public ProvisionMonitor provisionMonitorFor(ProvisionToken token) {
+      List<ProvisionMonitor> monitors = new ArrayList<ProvisionMonitor>(delegates.size());
+      for (ProvisionComponentMonitor delegate : delegates) {
+        try {
+          ProvisionMonitor monitor = delegate.provisionMonitorFor(token);
+          if (monitor != null) {
+            monitors.add(monitor);
+          }
+        } catch (RuntimeException e) {
+          logProvisionMonitorForException(e, delegate, token);
+        }
+      }
+      if (monitors.isEmpty()) {
+        return ProvisionMonitor.noOp();
+      } else if (monitors.size() == 1) {
+        return new NonThrowingProvisionMonitor(monitors.get(0));
+      } else {
+        return new DelegatingProvisionMonitor(monitors);
+      }
+    }
+
+    static final class Factory extends ProvisionComponentMonitor.Factory {
+      private final List<ProvisionComponentMonitor.Factory> delegates;
+
+      Factory(Collection<? extends ProvisionComponentMonitor.Factory> delegates) {
+        this.delegates = new ArrayList<ProvisionComponentMonitor.Factory>(delegates);
+      }
+
+      @Override
+      public ProvisionComponentMonitor create(Object component) {
+        List<ProvisionComponentMonitor> monitors =
+            new ArrayList<ProvisionComponentMonitor>(delegates.size());
+        for (ProvisionComponentMonitor.Factory delegate : delegates) {
+          try {
+            ProvisionComponentMonitor monitor = delegate.create(component);
+            if (monitor != null) {
+              monitors.add(monitor);
+            }
+          } catch (RuntimeException e) {
+            logCreateException(e, delegate, component);
+          }
+        }
+        if (monitors.isEmpty()) {
+          return ProvisionComponentMonitor.noOp();
+        } else if (monitors.size() == 1) {
+          return new NonThrowingProvisionComponentMonitor(monitors.get(0));
+        } else {
+          return new DelegatingProvisionComponentMonitor(monitors);
+        }
+      }
+    }
+  }
+
+  /**
+   * A provision monitor that delegates to several monitors, and catches and logs all exceptions
+   * that the delegates throw.
+   */
+  private static final class DelegatingProvisionMonitor extends ProvisionMonitor {
+    private final List<ProvisionMonitor> delegates;
+    private final List<ProvisionMonitor> reversedDelegates;
+
+    DelegatingProvisionMonitor(List<ProvisionMonitor> delegates) {
+      this.delegates = delegates;
+      this.reversedDelegates = new ArrayList<ProvisionMonitor>(delegates);
+      Collections.reverse(reversedDelegates);
+    }
+
+    @Override
+    public void provisionStarting() {
+      for (ProvisionMonitor delegate : delegates) {
+        try {
+          delegate.provisionStarting();
+        } catch (RuntimeException e) {
+          logProvisionMonitorMethodException(e, delegate, "provisionStarting");
+        }
+      }
+    }
+
+    @Override
+    public void succeeded(Object instance) {
+      for (ProvisionMonitor delegate : reversedDelegates) {
+        try {
+          delegate.succeeded(instance);
+        } catch (RuntimeException e) {
+          logProvisionMonitorArgMethodException(e, delegate, "succeeded", instance);
+        }
+      }
+    }
+
+    @Override
+    public void failed(Throwable t) {
+      for (ProvisionMonitor delegate : reversedDelegates) {
+        try {
+          delegate.failed(t);
+        } catch (RuntimeException e) {
+          logProvisionMonitorArgMethodException(e, delegate, "failed", t);
+        }
+      }
+    }
+  }
+
+  private static void logCreateException(
+      RuntimeException e, ProvisionComponentMonitor.Factory factory, Object component) {
+    logger.log(
+        Level.SEVERE,
+        "RuntimeException while calling ProvisionComponentMonitor.Factory.create on factory "
+            + factory
+            + " with component "
+            + component,
+        e);
+  }
+
+  private static void logProvisionMonitorForException(
+      RuntimeException e, ProvisionComponentMonitor monitor, ProvisionToken token) {
+    logger.log(
+        Level.SEVERE,
+        "RuntimeException while calling ProvisionComponentMonitor.provisionMonitorFor on monitor "
+            + monitor
+            + " with token "
+            + token,
+        e);
+  }
+
+  private static void logProvisionMonitorMethodException(
+      RuntimeException e, ProvisionMonitor monitor, String method) {
+    logger.log(
+        Level.SEVERE,
+        "RuntimeException while calling ProvisionMonitor." + method + " on monitor " + monitor,
+        e);
+  }
+
+  private static void logProvisionMonitorArgMethodException(
+      RuntimeException e, ProvisionMonitor monitor, String method, Object arg) {
+    logger.log(
+        Level.SEVERE,
+        "RuntimeException while calling ProvisionMonitor."
+            + method
+            + " on monitor "
+            + monitor
+            + " with "
+            + arg,
+        e);
+  }
+
+  private ProvisionMonitors() {}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+/**
+ * Memoizes the instances of all of a component's scoped bindings in a single array, indexed by
+ * slot, instead of in one {@link DoubleCheck} per binding. Each slot is initialized at most once.
+ * Like a {@link DoubleCheck}, a slot is locked only while its own instance is created, so creating
+ * one scoped instance never blocks the creation of another, and the thread that creates an instance
+ * may request other scoped instances of the component, or, recursively, the same one.
+ *
+ * <p>While a slot is being initialized, it holds a {@link ReentrantLock} that the initializing
+ * thread owns and that other threads requesting the slot wait on.
+ */
+public final class ScopedInstanceTable {
+  /** Creates the instance for a slot of a {@link ScopedInstanceTable}. */
+  public interface Initializer {
+    /** Returns a new instance, which may be {@code null}. */
+    Object initialize();
+  }
+
+  /** Stands in for a {@code null} instance, since {@code null} marks an uninitialized slot. */
+  private static final Object NULL_INSTANCE = new Object();
+
+  /** Marks a slot whose instance is being created by the thread that holds its lock. */
+  private static final class Initialization {
+    final ReentrantLock lock = new ReentrantLock();
+
+    /** The instance that a recursive request for the slot created, if any. */
+    Object recursiveInstance;
+  }
+
+  private final AtomicReferenceArray<Object> instances;
+
+  public ScopedInstanceTable(int size) {
+    this.instances = new AtomicReferenceArray<Object>(size);
+  }
+
+  /**
+   * Returns the instance in {@code slot}, first setting it to the result of {@code initializer} if
+   * the slot has not been initialized yet.
+   */
+  public Object get(int slot, Initializer initializer) {
+    Object instance = instances.get(slot);
+    if (instance == null || instance instanceof Initialization) {
+      checkNotNull(initializer);
+      instance = initialize(slot, initializer);
+    }
+    return unwrap(instance);
+  }
+
+  private Object initialize(int slot, Initializer initializer) {
+    while (true) {
+      Object current = instances.get(slot);
+      if (current == null) {
+        Initialization initialization = new Initialization();
+        initialization.lock.lock();
+        try {
+          if (instances.compareAndSet(slot, null, initialization)) {
+            return initializeAndSet(slot, initializer, initialization);
+          }
+        } finally {
+          initialization.lock.unlock();
+        }
+      } else if (current instanceof Initialization) {
+        Initialization initialization = (Initialization) current;
+        if (initialization.lock.isHeldByCurrentThread()) {
+          return initializeRecursively(initializer, initialization);
+        }
+        // Wait for the initializing thread to finish, then read the slot again.
+        initialization.lock.lock();
+        initialization.lock.unlock();
+      } else {
+        return current;
+      }
+    }
+  }
+
+  private Object initializeAndSet(
+      int slot, Initializer initializer, Initialization initialization) {
+    boolean initialized = false;
+    try {
+      Object instance = wrap(initializer.initialize());
+      /* Test to see if the call to initialize() has resulted in a recursive call for the same
+       * slot.  If it returned the same instance, we'll allow it, but if the instances differ,
+       * throw. */
+      Object recursiveInstance = initialization.recursiveInstance;
+      if (recursiveInstance != null && recursiveInstance != instance) {
+        throw new IllegalStateException("Scoped provider was invoked recursively returning "
+            + "different results: " + unwrap(recursiveInstance) + " & " + unwrap(instance));
+      }
+      instances.set(slot, instance);
+      initialized = true;
+      return instance;
+    } finally {
+      if (!initialized) {
+        // Leave the slot uninitialized, so that a later request tries again.
+        instances.set(slot, null);
+      }
+    }
+  }
+
+  private static Object initializeRecursively(
+      Initializer initializer, Initialization initialization) {
+    if (initialization.recursiveInstance == null) {
+      initialization.recursiveInstance = wrap(initializer.initialize());
+    }
+    return initialization.recursiveInstance;
+  }
+
+  private static Object wrap(Object instance) {
+    return instance == null ? NULL_INSTANCE : instance;
+  }
+
+  private static Object unwrap(Object instance) {
+    return instance == NULL_INSTANCE ? null : instance;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import dagger.Lazy;
+import javax.inject.Provider;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+/**
+ * A {@link Lazy} and {@link Provider} implementation that memoizes the value returned from a
+ * delegate in plain fields, without locking or memory barriers. It must only be used from a single
+ * thread, such as by a component whose instances never escape the thread that created them.
+ */
+public final class ThreadConfinedCheck<T> implements Provider<T>, Lazy<T> {
+  private static final Object UNINITIALIZED = new Object();
+
+  private Provider<T> provider;
+  private Object instance = UNINITIALIZED;
+
+  private ThreadConfinedCheck(Provider<T> provider) {
+    assert provider != null;
+    this.provider = provider;
+  }
+
+  @SuppressWarnings("unchecked") // cast only happens when result comes from the provider
+  @Override
+  public T get() {
+    Object result = instance;
+    if (result == UNINITIALIZED) {
+      result = provider.get();
+      /* Get the current instance and test to see if the call to provider.get() has resulted
+       * in a recursive call.  If it returns the same instance, we'll allow it, but if the
+       * instances differ, throw. */
+      Object currentInstance = instance;
+      if (currentInstance != UNINITIALIZED && currentInstance != result) {
+        throw new IllegalStateException("Scoped provider was invoked recursively returning "
+            + "different results: " + currentInstance + " & " + result);
+      }
+      instance = result;
+      /* Null out the reference to the provider. We are never going to need it again, so we
+       * can make it eligible for GC. */
+      provider = null;
+    }
+    return (T) result;
+  }
+
+  /** Returns a {@link Provider} that caches the value from the given delegate provider. */
+  public static <T> Provider<T> provider(Provider<T> delegate) {
+    checkNotNull(delegate);
+    if (delegate instanceof ThreadConfinedCheck
+        || delegate instanceof DoubleCheck
+        || delegate instanceof ReentrantLockDoubleCheck) {
+      /* This should be a rare case, but if we have a scoped @Binds that delegates to a scoped
+       * binding, we shouldn't cache the value again. */
+      return delegate;
+    }
+    return new ThreadConfinedCheck<T>(delegate);
+  }
+}
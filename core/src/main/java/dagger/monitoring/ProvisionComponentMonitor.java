@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.monitoring;
+
+import dagger.Component;
+
+/**
+ * A hook for monitoring the provisions of {@linkplain Component components} and their
+ * subcomponents. To install a {@code ProvisionComponentMonitor}, contribute to a set binding of
+ * {@code ProvisionComponentMonitor.Factory}. The factory will be asked to create one monitor for
+ * each instance of the component, and the resulting single instance will be used to create
+ * individual monitors for the bindings that the component provisions.
+ *
+ * <p>For example: <pre><code>
+ *   {@literal @Module}
+ *   final class MyMonitorModule {
+ *     {@literal @Provides @IntoSet} ProvisionComponentMonitor.Factory provideMonitorFactory() {
+ *       return new MyProvisionComponentMonitor.Factory();
+ *     }
+ *   }
+ *
+ *   {@literal @Component(modules = {MyMonitorModule.class, MyModule.class})}
+ *   interface MyComponent {
+ *     SomeType someType();
+ *   }
+ * </code></pre>
+ *
+ * <p>Components that have no contributions to that set binding are generated exactly as though
+ * monitoring did not exist, so they pay nothing for it. Bindings that the monitor factories
+ * themselves depend on are not monitored, and the factories must not call back into the component
+ * while they create a monitor.
+ *
+ * <p>If any of these methods throw, then the exception will be logged, and the framework will act
+ * as though a no-op monitor was returned.
+ */
+public abstract class ProvisionComponentMonitor {
+  /** Returns a monitor for an individual binding. */
+  public abstract ProvisionMonitor provisionMonitorFor(ProvisionToken token);
+
+  private static final ProvisionComponentMonitor NO_OP =
+      new ProvisionComponentMonitor() {
+        @Override
+        public ProvisionMonitor provisionMonitorFor(ProvisionToken token) {
+          return ProvisionMonitor.noOp();
+        }
+      };
+
+  /** Returns a monitor that does no monitoring. */
+  public static ProvisionComponentMonitor noOp() {
+    return NO_OP;
+  }
+
+  public abstract static class Factory {
+    /**
+     * Creates a component-specific monitor when the component first provisions a monitored
+     * binding.
+     */
+    public abstract ProvisionComponentMonitor create(Object component);
+
+    private static final Factory NO_OP_FACTORY =
+        new Factory() {
+          @Override
+          public ProvisionComponentMonitor create(Object component) {
+            return ProvisionComponentMonitor.noOp();
+          }
+        };
+
+    /** Returns a factory that returns no-op monitors. */
+    public static Factory noOp() {
+      return NO_OP_FACTORY;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.monitoring;
+
+/**
+ * A hook for monitoring the provision of an individual binding of a component. A monitor is called
+ * around each call to the factory of the binding: once for each instance of an unscoped binding,
+ * and once for the single instance of a scoped binding.
+ *
+ * <p>Every call to {@link #provisionStarting()} is followed by a call to either
+ * {@link #succeeded(Object)} or {@link #failed(Throwable)} on the same thread, so counts and
+ * latencies per binding can be recorded between them. Provisions of the dependencies of the
+ * binding nest between those calls.
+ *
+ * <p>If any of these methods throw, then the exception will be logged and the provision will
+ * proceed as though the method had returned normally.
+ */
+public abstract class ProvisionMonitor {
+  /**
+   * Called when the factory of the binding is about to create an instance.
+   *
+   * <p>When multiple monitors are installed, the order that each monitor will call this method is
+   * unspecified, but will remain consistent throughout the course of the execution of a component.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void provisionStarting() {}
+
+  /**
+   * Called when the factory of the binding has returned an instance.
+   *
+   * <p>When multiple monitors are installed, calls to this method will be in the reverse order from
+   * calls to {@link #provisionStarting()}.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void succeeded(@SuppressWarnings("unused") Object instance) {}
+
+  /**
+   * Called when the factory of the binding has thrown an exception.
+   *
+   * <p>When multiple monitors are installed, calls to this method will be in the reverse order from
+   * calls to {@link #provisionStarting()}.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void failed(@SuppressWarnings("unused") Throwable t) {}
+
+  private static final ProvisionMonitor NO_OP = new ProvisionMonitor() {};
+
+  /** Returns a monitor that does no monitoring. */
+  public static ProvisionMonitor noOp() {
+    return NO_OP;
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.monitoring;
+
+import dagger.Provides;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+/**
+ * A token that represents an individual binding that is provisioned by a component, either a
+ * {@linkplain Provides provides method} or an {@linkplain javax.inject.Inject injected} type.
+ */
+public final class ProvisionToken {
+  private final String bindingName;
+
+  private ProvisionToken(String bindingName) {
+    this.bindingName = bindingName;
+  }
+
+  /**
+   * Creates a token for the name of the generated factory for a binding.
+   *
+   * <p><b>Do not use this!</b> This is intended to be called by generated code only, and its
+   * signature may change at any time.
+   */
+  public static ProvisionToken create(String bindingName) {
+    return new ProvisionToken(checkNotNull(bindingName));
+  }
+
+  /** Two tokens are equal if they represent the same binding. */
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    } else if (o instanceof ProvisionToken) {
+      return this.bindingName.equals(((ProvisionToken) o).bindingName);
+    } else {
+      return false;
+    }
+  }
+
+  /** Returns an appropriate hash code to match {@link #equals(Object)}. */
+  @Override
+  public int hashCode() {
+    return bindingName.hashCode();
+  }
+
+  /** Returns a representation of the binding. */
+  @Override
+  public String toString() {
+    return bindingName;
+  }
+}
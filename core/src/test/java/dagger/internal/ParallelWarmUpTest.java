@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ParallelWarmUpTest {
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private final List<String> invocations = new CopyOnWriteArrayList<String>();
+
+  @After
+  public void shutDownExecutor() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void dependenciesAreInvokedFirst() {
+    new ParallelWarmUp()
+        .add(recording("a"))
+        .add(recording("b"))
+        .add(recording("c"), 0, 1)
+        .add(recording("d"), 2)
+        .run(executor);
+    assertThat(invocations).containsExactly("a", "b", "c", "d");
+    assertThat(invocations.indexOf("c")).isGreaterThan(invocations.indexOf("a"));
+    assertThat(invocations.indexOf("c")).isGreaterThan(invocations.indexOf("b"));
+    assertThat(invocations.indexOf("d")).isGreaterThan(invocations.indexOf("c"));
+  }
+
+  @Test
+  public void independentProvidersRunConcurrently() {
+    final CountDownLatch latch = new CountDownLatch(2);
+    Provider<Object> awaitOther =
+        new Provider<Object>() {
+          @Override
+          public Object get() {
+            latch.countDown();
+            Uninterruptibles.awaitUninterruptibly(latch);
+            return new Object();
+          }
+        };
+    new ParallelWarmUp().add(awaitOther).add(awaitOther).run(executor);
+    assertThat(latch.getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void failureIsRethrownAfterAllProvidersReturn() {
+    final UnsupportedOperationException failure = new UnsupportedOperationException();
+    Provider<Object> failing =
+        new Provider<Object>() {
+          @Override
+          public Object get() {
+            throw failure;
+          }
+        };
+    try {
+      new ParallelWarmUp().add(failing).add(recording("dependent"), 0).run(executor);
+      fail();
+    } catch (UnsupportedOperationException expected) {
+      assertThat(expected).isSameAs(failure);
+    }
+    assertThat(invocations).containsExactly("dependent");
+  }
+
+  @Test
+  public void rejectedTasksRunOnCallingThread() {
+    Executor rejecting =
+        new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            throw new RejectedExecutionException();
+          }
+        };
+    new ParallelWarmUp().add(recording("a")).add(recording("b"), 0).run(rejecting);
+    assertThat(invocations).containsExactly("a", "b").inOrder();
+  }
+
+  @Test
+  public void executorsOnlyThreadMayRunWarmUp() throws Exception {
+    final ExecutorService singleThread = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> warmUp =
+          singleThread.submit(
+              new Runnable() {
+                @Override
+                public void run() {
+                  new ParallelWarmUp()
+                      .add(recording("a"))
+                      .add(recording("b"), 0)
+                      .run(singleThread);
+                }
+              });
+      warmUp.get(10, SECONDS);
+    } finally {
+      singleThread.shutdown();
+    }
+    assertThat(invocations).containsExactly("a", "b").inOrder();
+  }
+
+  @Test
+  public void scopedInstanceTableSlotsAreInitializedConcurrently() {
+    final ScopedInstanceTable table = new ScopedInstanceTable(3);
+    final CountDownLatch latch = new CountDownLatch(2);
+    final ScopedInstanceTable.Initializer awaitOther =
+        new ScopedInstanceTable.Initializer() {
+          @Override
+          public Object initialize() {
+            latch.countDown();
+            Uninterruptibles.awaitUninterruptibly(latch);
+            return new Object();
+          }
+        };
+    new ParallelWarmUp()
+        .add(tableSlot(table, 0, awaitOther))
+        .add(tableSlot(table, 1, awaitOther))
+        .add(tableSlot(table, 2, recordingInitializer("dependent")), 0, 1)
+        .run(executor);
+    assertThat(latch.getCount()).isEqualTo(0);
+    assertThat(table.get(2, recordingInitializer("again"))).isEqualTo("dependent");
+    assertThat(invocations).containsExactly("dependent");
+  }
+
+  @Test
+  public void add_laterDependency_throwsIllegalArgumentException() {
+    try {
+      new ParallelWarmUp().add(recording("a"), 0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private ScopedInstanceTable.Initializer recordingInitializer(final String name) {
+    return new ScopedInstanceTable.Initializer() {
+      @Override
+      public Object initialize() {
+        invocations.add(name);
+        return name;
+      }
+    };
+  }
+
+  private static Provider<Object> tableSlot(
+      final ScopedInstanceTable table,
+      final int slot,
+      final ScopedInstanceTable.Initializer initializer) {
+    return new Provider<Object>() {
+      @Override
+      public Object get() {
+        return table.get(slot, initializer);
+      }
+    };
+  }
+
+  private Provider<Object> recording(final String name) {
+    return new Provider<Object>() {
+      @Override
+      public Object get() {
+        invocations.add(name);
+        return name;
+      }
+    };
+  }
+}
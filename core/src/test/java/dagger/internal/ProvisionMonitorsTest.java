@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import com.google.common.collect.ImmutableSet;
+import dagger.monitoring.ProvisionComponentMonitor;
+import dagger.monitoring.ProvisionMonitor;
+import dagger.monitoring.ProvisionToken;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ProvisionMonitorsTest {
+  private final List<String> events = new CopyOnWriteArrayList<String>();
+
+  @Test
+  public void monitoredProvider_callsMonitorAroundEachProvision() {
+    Provider<String> provider =
+        ProvisionMonitors.monitoredProvider(
+            instanceProvider("instance"),
+            componentMonitorProvider(new RecordingFactory("a")),
+            ProvisionToken.create("token"));
+    assertThat(provider.get()).isEqualTo("instance");
+    assertThat(provider.get()).isEqualTo("instance");
+    assertThat(events)
+        .containsExactly(
+            "a create", "a monitorFor token",
+            "a starting token", "a succeeded token instance",
+            "a starting token", "a succeeded token instance")
+        .inOrder();
+  }
+
+  @Test
+  public void monitoredProvider_reportsFailure() {
+    final IllegalStateException failure = new IllegalStateException("boom");
+    Provider<Object> provider =
+        ProvisionMonitors.monitoredProvider(
+            new Provider<Object>() {
+              @Override
+              public Object get() {
+                throw failure;
+              }
+            },
+            componentMonitorProvider(new RecordingFactory("a")),
+            ProvisionToken.create("token"));
+    try {
+      provider.get();
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected).isSameAs(failure);
+    }
+    assertThat(events).contains("a failed token " + failure);
+  }
+
+  @Test
+  public void multipleMonitors_finishInReverseOrder() {
+    Provider<String> provider =
+        ProvisionMonitors.monitoredProvider(
+            instanceProvider("instance"),
+            componentMonitorProvider(new RecordingFactory("a"), new RecordingFactory("b")),
+            ProvisionToken.create("token"));
+    provider.get();
+    assertThat(events.subList(events.size() - 4, events.size()))
+        .containsExactly(
+            "a starting token", "b starting token",
+            "b succeeded token instance", "a succeeded token instance")
+        .inOrder();
+  }
+
+  @Test
+  public void throwingMonitors_areIgnored() {
+    ProvisionComponentMonitor.Factory throwingFactory =
+        new ProvisionComponentMonitor.Factory() {
+          @Override
+          public ProvisionComponentMonitor create(Object component) {
+            return new ProvisionComponentMonitor() {
+              @Override
+              public ProvisionMonitor provisionMonitorFor(ProvisionToken token) {
+                return new ProvisionMonitor() {
+                  @Override
+                  public void provisionStarting() {
+                    throw new UnsupportedOperationException();
+                  }
+                };
+              }
+            };
+          }
+        };
+    Provider<String> provider =
+        ProvisionMonitors.monitoredProvider(
+            instanceProvider("instance"),
+            componentMonitorProvider(throwingFactory),
+            ProvisionToken.create("token"));
+    assertThat(provider.get()).isEqualTo("instance");
+  }
+
+  @Test
+  public void componentMonitorProvider_createsMonitorOnce() {
+    Provider<ProvisionComponentMonitor> componentMonitorProvider =
+        componentMonitorProvider(new RecordingFactory("a"));
+    assertThat(componentMonitorProvider.get()).isSameAs(componentMonitorProvider.get());
+    assertThat(events).containsExactly("a create");
+  }
+
+  @Test
+  public void noFactories_noOpMonitor() {
+    assertThat(componentMonitorProvider().get()).isSameAs(ProvisionComponentMonitor.noOp());
+  }
+
+  private Provider<ProvisionComponentMonitor> componentMonitorProvider(
+      ProvisionComponentMonitor.Factory... factories) {
+    return ProvisionMonitors.componentMonitorProvider(
+        "component",
+        ProvisionMonitorsTest.<Set<ProvisionComponentMonitor.Factory>>instanceProvider(
+            ImmutableSet.copyOf(factories)));
+  }
+
+  private static <T> Provider<T> instanceProvider(final T instance) {
+    return new Provider<T>() {
+      @Override
+      public T get() {
+        return instance;
+      }
+    };
+  }
+
+  private final class RecordingFactory extends ProvisionComponentMonitor.Factory {
+    private final String name;
+
+    RecordingFactory(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public ProvisionComponentMonitor create(Object component) {
+      events.add(name + " create");
+      return new ProvisionComponentMonitor() {
+        @Override
+        public ProvisionMonitor provisionMonitorFor(final ProvisionToken token) {
+          events.add(name + " monitorFor " + token);
+          return new ProvisionMonitor() {
+            @Override
+            public void provisionStarting() {
+              events.add(name + " starting " + token);
+            }
+
+            @Override
+            public void succeeded(Object instance) {
+              events.add(name + " succeeded " + token + " " + instance);
+            }
+
+            @Override
+            public void failed(Throwable t) {
+              events.add(name + " failed " + token + " " + t);
+            }
+          };
+        }
+      };
+    }
+  }
+}
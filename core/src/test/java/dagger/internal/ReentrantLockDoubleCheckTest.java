@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ReentrantLockDoubleCheckTest {
+  @Test
+  public void provider_nullPointerException() {
+    try {
+      ReentrantLockDoubleCheck.provider(null);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  private static final Provider<Object> OBJECT_PROVIDER =
+      new Provider<Object>() {
+        @Override
+        public Object get() {
+          return new Object();
+        }
+      };
+
+  @Test
+  public void doubleWrapping() {
+    Provider<Object> scoped = ReentrantLockDoubleCheck.provider(OBJECT_PROVIDER);
+    assertThat(ReentrantLockDoubleCheck.provider(scoped)).isSameAs(scoped);
+  }
+
+  @Test
+  public void doubleWrapping_doubleCheck() {
+    Provider<Object> doubleCheck = DoubleCheck.provider(OBJECT_PROVIDER);
+    assertThat(ReentrantLockDoubleCheck.provider(doubleCheck)).isSameAs(doubleCheck);
+  }
+
+  @Test
+  public void doubleWrapping_lazy() {
+    Provider<Object> scoped = ReentrantLockDoubleCheck.provider(OBJECT_PROVIDER);
+    assertThat(DoubleCheck.lazy(scoped)).isSameAs(scoped);
+  }
+
+  @Test
+  public void get() throws Exception {
+    int numThreads = 10;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+    final CountDownLatch latch = new CountDownLatch(numThreads);
+    final AtomicInteger provisions = new AtomicInteger();
+    final Provider<Object> scoped =
+        ReentrantLockDoubleCheck.provider(
+            new Provider<Object>() {
+              @Override
+              public Object get() {
+                Uninterruptibles.awaitUninterruptibly(latch);
+                provisions.incrementAndGet();
+                return new Object();
+              }
+            });
+
+    List<Callable<Object>> tasks = Lists.newArrayListWithCapacity(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      tasks.add(
+          new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+              latch.countDown();
+              return scoped.get();
+            }
+          });
+    }
+
+    List<Future<Object>> futures = executor.invokeAll(tasks);
+
+    assertThat(provisions.get()).isEqualTo(1);
+    Set<Object> results = Sets.newIdentityHashSet();
+    for (Future<Object> future : futures) {
+      results.add(future.get());
+    }
+    assertThat(results).hasSize(1);
+    executor.shutdown();
+  }
+
+  @Test
+  public void lockIsReleasedWhenProviderThrows() {
+    final AtomicInteger invocationCount = new AtomicInteger();
+    final Object object = new Object();
+    final Provider<Object> scoped =
+        ReentrantLockDoubleCheck.provider(
+            new Provider<Object>() {
+              @Override
+              public Object get() {
+                if (invocationCount.incrementAndGet() == 1) {
+                  throw new UnsupportedOperationException();
+                }
+                return object;
+              }
+            });
+    try {
+      scoped.get();
+      fail();
+    } catch (UnsupportedOperationException expected) {}
+
+    final AtomicReference<Object> result = new AtomicReference<Object>();
+    Thread thread =
+        new Thread() {
+          @Override
+          public void run() {
+            result.set(scoped.get());
+          }
+        };
+    thread.start();
+    Uninterruptibles.joinUninterruptibly(thread);
+    assertThat(result.get()).isSameAs(object);
+  }
+
+  @Test public void reentranceReturningSameInstance() {
+    final AtomicReference<Provider<Object>> scopedReference =
+        new AtomicReference<Provider<Object>>();
+    final AtomicInteger invocationCount = new AtomicInteger();
+    final Object object = new Object();
+    Provider<Object> scoped = ReentrantLockDoubleCheck.provider(new Provider<Object>() {
+      @Override
+      public Object get() {
+        if (invocationCount.incrementAndGet() == 1) {
+          scopedReference.get().get();
+        }
+        return object;
+      }
+    });
+    scopedReference.set(scoped);
+    assertThat(scoped.get()).isSameAs(object);
+  }
+
+  @Test public void reentranceReturningDifferentInstances_throwsIllegalStateException() {
+    final AtomicReference<Provider<Object>> scopedReference =
+        new AtomicReference<Provider<Object>>();
+    final AtomicInteger invocationCount = new AtomicInteger();
+    Provider<Object> scoped = ReentrantLockDoubleCheck.provider(new Provider<Object>() {
+      @Override
+      public Object get() {
+        if (invocationCount.incrementAndGet() == 1) {
+          scopedReference.get().get();
+        }
+        return new Object();
+      }
+    });
+    scopedReference.set(scoped);
+    try {
+      scoped.get();
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage())
+          .startsWith("Scoped provider was invoked recursively returning different results");
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ScopedInstanceTableTest {
+  @Test
+  public void slotsAreInitializedOnce() {
+    ScopedInstanceTable table = new ScopedInstanceTable(2);
+    CountingInitializer first = new CountingInitializer();
+    CountingInitializer second = new CountingInitializer();
+
+    Object firstInstance = table.get(0, first);
+    Object secondInstance = table.get(1, second);
+
+    assertThat(firstInstance).isNotSameAs(secondInstance);
+    assertThat(table.get(0, first)).isSameAs(firstInstance);
+    assertThat(table.get(1, second)).isSameAs(secondInstance);
+    assertThat(first.count.get()).isEqualTo(1);
+    assertThat(second.count.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void nullInstancesAreMemoized() {
+    ScopedInstanceTable table = new ScopedInstanceTable(1);
+    final AtomicInteger count = new AtomicInteger();
+    ScopedInstanceTable.Initializer initializer =
+        new ScopedInstanceTable.Initializer() {
+          @Override
+          public Object initialize() {
+            count.incrementAndGet();
+            return null;
+          }
+        };
+    assertThat(table.get(0, initializer)).isNull();
+    assertThat(table.get(0, initializer)).isNull();
+    assertThat(count.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_concurrent() throws Exception {
+    int numThreads = 10;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    final ScopedInstanceTable table = new ScopedInstanceTable(1);
+    final CountDownLatch latch = new CountDownLatch(numThreads);
+    final CountingInitializer initializer = new CountingInitializer(latch);
+
+    List<Callable<Object>> tasks = Lists.newArrayListWithCapacity(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      tasks.add(
+          new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+              latch.countDown();
+              return table.get(0, initializer);
+            }
+          });
+    }
+
+    List<Future<Object>> futures = executor.invokeAll(tasks);
+
+    assertThat(initializer.count.get()).isEqualTo(1);
+    Set<Object> results = Sets.newIdentityHashSet();
+    for (Future<Object> future : futures) {
+      results.add(future.get());
+    }
+    assertThat(results).hasSize(1);
+    executor.shutdown();
+  }
+
+  @Test
+  public void initializerMayRequestOtherSlots() {
+    final ScopedInstanceTable table = new ScopedInstanceTable(2);
+    final CountingInitializer dependency = new CountingInitializer();
+    Object instance =
+        table.get(
+            0,
+            new ScopedInstanceTable.Initializer() {
+              @Override
+              public Object initialize() {
+                return table.get(1, dependency);
+              }
+            });
+    assertThat(table.get(1, dependency)).isSameAs(instance);
+  }
+
+  @Test
+  public void slowSlot_doesNotBlockOtherSlots() throws Exception {
+    final ScopedInstanceTable table = new ScopedInstanceTable(2);
+    final CountDownLatch slowStarted = new CountDownLatch(1);
+    final CountDownLatch releaseSlow = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Object> slow =
+        executor.submit(
+            new Callable<Object>() {
+              @Override
+              public Object call() {
+                return table.get(
+                    0,
+                    new ScopedInstanceTable.Initializer() {
+                      @Override
+                      public Object initialize() {
+                        slowStarted.countDown();
+                        Uninterruptibles.awaitUninterruptibly(releaseSlow);
+                        return new Object();
+                      }
+                    });
+              }
+            });
+    slowStarted.await();
+
+    CountingInitializer other = new CountingInitializer();
+    assertThat(table.get(1, other)).isNotNull();
+    assertThat(other.count.get()).isEqualTo(1);
+    assertThat(slow.isDone()).isFalse();
+
+    releaseSlow.countDown();
+    assertThat(slow.get()).isNotNull();
+    executor.shutdown();
+  }
+
+  @Test
+  public void failedInitialization_isRetried() {
+    ScopedInstanceTable table = new ScopedInstanceTable(1);
+    final AtomicInteger count = new AtomicInteger();
+    ScopedInstanceTable.Initializer initializer =
+        new ScopedInstanceTable.Initializer() {
+          @Override
+          public Object initialize() {
+            if (count.incrementAndGet() == 1) {
+              throw new IllegalArgumentException();
+            }
+            return "instance";
+          }
+        };
+    try {
+      table.get(0, initializer);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    assertThat(table.get(0, initializer)).isEqualTo("instance");
+    assertThat(count.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void reentranceReturningDifferentInstances_throwsIllegalStateException() {
+    final ScopedInstanceTable table = new ScopedInstanceTable(1);
+    final AtomicInteger invocationCount = new AtomicInteger();
+    ScopedInstanceTable.Initializer initializer =
+        new ScopedInstanceTable.Initializer() {
+          @Override
+          public Object initialize() {
+            if (invocationCount.incrementAndGet() == 1) {
+              table.get(0, this);
+            }
+            return new Object();
+          }
+        };
+    try {
+      table.get(0, initializer);
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage())
+          .startsWith("Scoped provider was invoked recursively returning different results");
+    }
+  }
+
+  private static final class CountingInitializer implements ScopedInstanceTable.Initializer {
+    final AtomicInteger count = new AtomicInteger();
+    final CountDownLatch latch;
+
+    CountingInitializer() {
+      this(null);
+    }
+
+    CountingInitializer(CountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    public Object initialize() {
+      if (latch != null) {
+        Uninterruptibles.awaitUninterruptibly(latch);
+      }
+      count.incrementAndGet();
+      return new Object();
+    }
+  }
+}
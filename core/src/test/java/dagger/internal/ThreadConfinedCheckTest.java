@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ThreadConfinedCheckTest {
+  @Test
+  public void provider_nullPointerException() {
+    try {
+      ThreadConfinedCheck.provider(null);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  @Test
+  public void doubleWrapping() {
+    Provider<Object> scoped = ThreadConfinedCheck.provider(new CountingProvider());
+    assertThat(ThreadConfinedCheck.provider(scoped)).isSameAs(scoped);
+    Provider<Object> doubleCheck = DoubleCheck.provider(new CountingProvider());
+    assertThat(ThreadConfinedCheck.provider(doubleCheck)).isSameAs(doubleCheck);
+  }
+
+  @Test
+  public void get() {
+    CountingProvider delegate = new CountingProvider();
+    Provider<Object> scoped = ThreadConfinedCheck.provider(delegate);
+    Object first = scoped.get();
+    assertThat(scoped.get()).isSameAs(first);
+    assertThat(scoped.get()).isSameAs(first);
+    assertThat(delegate.count).isEqualTo(1);
+  }
+
+  @Test public void reentranceReturningSameInstance() {
+    final AtomicReference<Provider<Object>> scopedReference =
+        new AtomicReference<Provider<Object>>();
+    final AtomicInteger invocationCount = new AtomicInteger();
+    final Object object = new Object();
+    Provider<Object> scoped = ThreadConfinedCheck.provider(new Provider<Object>() {
+      @Override
+      public Object get() {
+        if (invocationCount.incrementAndGet() == 1) {
+          scopedReference.get().get();
+        }
+        return object;
+      }
+    });
+    scopedReference.set(scoped);
+    assertThat(scoped.get()).isSameAs(object);
+  }
+
+  @Test public void reentranceReturningDifferentInstances_throwsIllegalStateException() {
+    final AtomicReference<Provider<Object>> scopedReference =
+        new AtomicReference<Provider<Object>>();
+    final AtomicInteger invocationCount = new AtomicInteger();
+    Provider<Object> scoped = ThreadConfinedCheck.provider(new Provider<Object>() {
+      @Override
+      public Object get() {
+        if (invocationCount.incrementAndGet() == 1) {
+          scopedReference.get().get();
+        }
+        return new Object();
+      }
+    });
+    scopedReference.set(scoped);
+    try {
+      scoped.get();
+      fail();
+    } catch (IllegalStateException expected) {}
+  }
+
+  private static final class CountingProvider implements Provider<Object> {
+    int count;
+
+    @Override
+    public Object get() {
+      count++;
+      return new Object();
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.internal.Beta;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * Collects the keys that concurrent {@linkplain Produces producer methods} load, and loads them
+ * with a single call to a {@link BatchLoader}.
+ *
+ * <p>A batcher is meant to be shared by all of the production components that are in flight at
+ * once, so it is typically held by a singleton that their producer modules depend on. A producer
+ * method then returns the future of {@link #load}: <pre><code>
+ *   {@literal @}Produces
+ *   {@literal ListenableFuture<User>} user(UserId id, {@literal Batcher<UserId, User>} users) {
+ *     return users.load(id);
+ *   }
+ * </code></pre>
+ *
+ * <p>The first key of a batch starts a window of {@linkplain Builder#maxDelay maximum delay}; the
+ * batch is dispatched when that window elapses or when it reaches its
+ * {@linkplain Builder#maxBatchSize maximum size}, whichever is first. Keys that are loaded more
+ * than once in the same batch are only passed to the loader once.
+ *
+ * <p>Cancelling the future returned by {@link #load} does not remove its key from the batch, nor
+ * does it cancel the batched call.
+ *
+ * @param <K> the type of the keys that are loaded
+ * @param <V> the type of the values that they are loaded as
+ * @since 2.5
+ */
+@Beta
+public final class Batcher<K, V> {
+  /** Loads a batch of keys at once. */
+  public interface BatchLoader<K, V> {
+    /**
+     * Returns the future of a map that contains a value for each of {@code keys}. If the future
+     * fails, each of the keys fails with the same exception; a key that is missing from the map
+     * fails with a {@link NoSuchElementException}.
+     */
+    ListenableFuture<? extends Map<K, V>> loadAll(ImmutableSet<K> keys) throws Exception;
+  }
+
+  private final BatchLoader<K, V> loader;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final ScheduledExecutorService scheduler;
+
+  /** The batch that is collecting keys, or null if no key has been loaded since the last one. */
+  private Batch pending;
+
+  private Batcher(Builder<K, V> builder) {
+    this.loader = builder.loader;
+    this.maxBatchSize = builder.maxBatchSize;
+    this.maxDelayNanos = builder.maxDelayNanos;
+    this.scheduler = builder.scheduler;
+  }
+
+  /** Returns a builder for a batcher that loads its batches with {@code loader}. */
+  public static <K, V> Builder<K, V> builder(BatchLoader<K, V> loader) {
+    return new Builder<K, V>(loader);
+  }
+
+  /**
+   * Returns the future value of {@code key}, which completes once the batch that it is added to has
+   * been loaded. If {@code key} would start a new batch but the scheduler rejects its window, the
+   * returned future fails with the {@link RejectedExecutionException}.
+   */
+  public ListenableFuture<V> load(K key) {
+    checkNotNull(key);
+    Batch full = null;
+    SettableFuture<V> future;
+    synchronized (this) {
+      if (pending == null) {
+        final Batch batch = new Batch();
+        // Schedule the window before publishing the batch, so that a rejected window does not
+        // leave behind a batch that is never dispatched.
+        try {
+          batch.window = scheduler.schedule(
+              new Runnable() {
+                @Override
+                public void run() {
+                  dispatch(batch);
+                }
+              },
+              maxDelayNanos,
+              TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+          return Futures.immediateFailedFuture(e);
+        }
+        pending = batch;
+      }
+      future = pending.futures.get(key);
+      if (future == null) {
+        future = SettableFuture.create();
+        pending.futures.put(key, future);
+        if (pending.futures.size() >= maxBatchSize) {
+          full = pending;
+          pending = null;
+        }
+      }
+    }
+    if (full != null) {
+      full.load();
+    }
+    return future;
+  }
+
+  /**
+   * Dispatches the batch that is collecting keys now, without waiting for its window to elapse.
+   * Does nothing if no keys are waiting.
+   */
+  public void dispatch() {
+    Batch batch;
+    synchronized (this) {
+      batch = pending;
+      pending = null;
+    }
+    if (batch != null) {
+      batch.load();
+    }
+  }
+
+  /** Dispatches {@code batch} when its window elapses, unless it has been dispatched already. */
+  private void dispatch(Batch batch) {
+    synchronized (this) {
+      if (pending != batch) {
+        return;
+      }
+      pending = null;
+    }
+    batch.load();
+  }
+
+  private final class Batch implements FutureCallback<Map<K, V>> {
+    final Map<K, SettableFuture<V>> futures = new LinkedHashMap<K, SettableFuture<V>>();
+
+    /** The task that dispatches this batch when its window elapses. */
+    ScheduledFuture<?> window;
+
+    void load() {
+      // A batch that is dispatched early no longer needs its window, which would otherwise keep
+      // the batch and its futures in the scheduler until the window elapses.
+      window.cancel(false);
+      ListenableFuture<? extends Map<K, V>> result;
+      try {
+        result = loader.loadAll(ImmutableSet.copyOf(futures.keySet()));
+        checkNotNull(result, "BatchLoader.loadAll returned null");
+      } catch (Throwable t) {
+        onFailure(t);
+        return;
+      }
+      Futures.addCallback(result, this, directExecutor());
+    }
+
+    @Override
+    public void onSuccess(Map<K, V> values) {
+      if (values == null) {
+        onFailure(new NullPointerException("BatchLoader.loadAll returned a future of null"));
+        return;
+      }
+      for (Map.Entry<K, SettableFuture<V>> entry : futures.entrySet()) {
+        V value = values.get(entry.getKey());
+        if (value == null) {
+          entry.getValue().setException(
+              new NoSuchElementException("No value was loaded for " + entry.getKey()));
+        } else {
+          entry.getValue().set(value);
+        }
+      }
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+      for (SettableFuture<V> future : futures.values()) {
+        future.setException(t);
+      }
+    }
+  }
+
+  /** A builder of {@link Batcher}s. */
+  public static final class Builder<K, V> {
+    private final BatchLoader<K, V> loader;
+    private int maxBatchSize = Integer.MAX_VALUE;
+    private long maxDelayNanos = -1;
+    private ScheduledExecutorService scheduler;
+
+    private Builder(BatchLoader<K, V> loader) {
+      this.loader = checkNotNull(loader);
+    }
+
+    /** Dispatches a batch as soon as it has {@code maxBatchSize} distinct keys. */
+    public Builder<K, V> maxBatchSize(int maxBatchSize) {
+      checkArgument(maxBatchSize > 0, "maxBatchSize must be positive: %s", maxBatchSize);
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Dispatches a batch on {@code scheduler} no later than {@code maxDelay} after its first key
+     * was loaded. The batched call itself is made on the scheduler's thread.
+     *
+     * <p>A batch that is dispatched before its window elapses cancels the window's task. For the
+     * scheduler to drop that task right away, rather than when it would have run, use a
+     * {@link java.util.concurrent.ScheduledThreadPoolExecutor} that
+     * {@linkplain java.util.concurrent.ScheduledThreadPoolExecutor#setRemoveOnCancelPolicy removes
+     * cancelled tasks}.
+     */
+    public Builder<K, V> maxDelay(
+        long maxDelay, TimeUnit unit, ScheduledExecutorService scheduler) {
+      checkArgument(maxDelay >= 0, "maxDelay must not be negative: %s", maxDelay);
+      this.maxDelayNanos = unit.toNanos(maxDelay);
+      this.scheduler = checkNotNull(scheduler);
+      return this;
+    }
+
+    /**
+     * Returns a new batcher.
+     *
+     * @throws IllegalStateException if {@link #maxDelay} has not been set
+     */
+    public Batcher<K, V> build() {
+      checkState(scheduler != null, "maxDelay must be set");
+      return new Batcher<K, V>(this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Batcher{" + loader + "}";
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Annotates a {@linkplain Produces producer method} whose invocations, across all production
+ * components, are limited to a number that may be in flight at once.
+ *
+ * <p>An invocation is in flight from when the method is called until the future that it returns
+ * completes. Invocations beyond the limit wait in a queue, without occupying a thread of the
+ * production executor, and are started in order as earlier ones complete. Once the queue is full
+ * too, further invocations fail right away with a
+ * {@link java.util.concurrent.RejectedExecutionException}. This keeps a slow backend from taking
+ * up every thread of the executor, and from delaying unrelated producers with it.
+ *
+ * <p>Methods that declare the same {@link #name} share one bulkhead, and should declare the same
+ * limits; whichever is used first applies. By default, each method has a bulkhead of its own.
+ *
+ * <p>Queued and rejected invocations are reported to the producer's
+ * {@linkplain dagger.producers.monitoring.ProducerMonitor monitor} as
+ * {@linkplain dagger.producers.monitoring.ProducerMonitor#bulkheadQueued queued} and
+ * {@linkplain dagger.producers.monitoring.ProducerMonitor#bulkheadRejected rejected}.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+@Beta
+public @interface Bulkhead {
+  /**
+   * The name of the bulkhead, which methods may share as long as they declare the same limits. By
+   * default, each method has a bulkhead of its own.
+   */
+  String name() default "";
+
+  /** The maximum number of invocations that may be in flight at once. */
+  int maxConcurrency();
+
+  /**
+   * The maximum number of invocations that may wait for others to complete. By default, no
+   * invocations wait, so those beyond {@link #maxConcurrency} fail right away.
+   */
+  int maxQueued() default 0;
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Annotates a {@linkplain Produces producer method} whose results may be reused by all production
+ * components for a while after they are produced.
+ *
+ * <p>Unlike {@link ProductionScope @ProductionScope}, which memoizes a value within one component,
+ * the results of this method are cached across components, by the values of the method's
+ * parameters. As with {@link SingleFlight @SingleFlight}, the method may only depend on values and
+ * {@link Produced} values. An invocation that is in flight is cached as well, so concurrent
+ * requests share it; one that fails is evicted as soon as it fails.
+ *
+ * <p>Each request is reported to the requesting producer's
+ * {@linkplain dagger.producers.monitoring.ProducerMonitor monitor} as a
+ * {@linkplain dagger.producers.monitoring.ProducerMonitor#cacheHit hit} or a
+ * {@linkplain dagger.producers.monitoring.ProducerMonitor#cacheMissed miss}.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+@Beta
+public @interface CachedProduction {
+  /** The number of milliseconds after which a result is evicted. */
+  long expireAfterWriteMillis();
+
+  /**
+   * The maximum number of results to cache, beyond which the least recently used ones are evicted.
+   * By default, the number of results is unbounded.
+   */
+  long maximumSize() default -1;
+
+  /**
+   * The number of milliseconds after which a request for a result that has not expired yet invokes
+   * the method again in the background, and replaces the result with the new one if it succeeds.
+   * The request itself still gets the cached result. The method is invoked on a thread that is
+   * shared by all cached producers rather than on the production executor, and is not reported to
+   * the requesting producer's monitor. By default, results are not refreshed.
+   */
+  long refreshAfterWriteMillis() default -1;
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import dagger.internal.Beta;
+import dagger.producers.internal.PrioritizedTask;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed pool of threads for the <code>{@literal @}{@link Production} Executor</code> of
+ * production components that, once all of its threads are busy, runs the queued producers with the
+ * longest remaining chains of producers first, so that the producers on a component's critical path
+ * are not held up by ones that are off it.
+ *
+ * <p>Producers are only prioritized in components that are generated with the
+ * {@code -Adagger.criticalPathScheduling=enabled} processor option. The priority of a producer is
+ * the number of producers on the longest chain from it to a component method, counting itself.
+ * Tasks that are not submitted by prioritized producers have the lowest priority, and tasks of
+ * equal priority run in the order in which they were submitted.
+ */
+@Beta
+public final class CriticalPathExecutor extends ThreadPoolExecutor {
+  /** Creates an executor with {@code threads} threads. */
+  public CriticalPathExecutor(int threads) {
+    this(threads, Executors.defaultThreadFactory());
+  }
+
+  /** Creates an executor with {@code threads} threads that are created by {@code threadFactory}. */
+  public CriticalPathExecutor(int threads, ThreadFactory threadFactory) {
+    super(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new PriorityBlockingQueue<Runnable>(11, PrioritizedTask.ordering()),
+        threadFactory);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (command == null) {
+      throw new NullPointerException();
+    }
+    super.execute(PrioritizedTask.of(command));
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.internal.Beta;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A point in time after which a production component's results are no longer wanted.
+ *
+ * <p>A production component observes every deadline that is contributed to its {@code
+ * Set<Deadline>} multibinding, for instance from a module that is passed to its builder:
+ * <pre><code>
+ *   {@literal @}Provides {@literal @}IntoSet
+ *   Deadline deadline() {
+ *     return Deadline.after(rpc.timeRemainingMillis(), MILLISECONDS, scheduler);
+ *   }
+ * </code></pre>
+ *
+ * <p>When a deadline expires, each of the component's producers that is still in flight has its
+ * future cancelled, and producers that are requested afterwards are cancelled as soon as they are
+ * requested. A cancelled producer whose method has not yet started never invokes it; its monitor
+ * is told that it {@linkplain dagger.producers.monitoring.ProducerMonitor#failed failed} with a
+ * {@link java.util.concurrent.CancellationException}, without a call to
+ * {@link dagger.producers.monitoring.ProducerMonitor#methodStarting}.
+ *
+ * @since 2.5
+ */
+@Beta
+public final class Deadline {
+  private final long expiryNanos;
+  private final SettableFuture<Void> expiry = SettableFuture.create();
+
+  private Deadline(long expiryNanos) {
+    this.expiryNanos = expiryNanos;
+  }
+
+  /**
+   * Returns a deadline that expires once {@code duration} has elapsed, as scheduled on {@code
+   * scheduler}.
+   */
+  public static Deadline after(
+      long duration, TimeUnit unit, ScheduledExecutorService scheduler) {
+    checkArgument(duration >= 0, "duration must not be negative: %s", duration);
+    checkNotNull(unit);
+    checkNotNull(scheduler);
+    long durationNanos = unit.toNanos(duration);
+    final Deadline deadline = new Deadline(System.nanoTime() + durationNanos);
+    scheduler.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            deadline.expiry.set(null);
+          }
+        },
+        durationNanos,
+        TimeUnit.NANOSECONDS);
+    return deadline;
+  }
+
+  /** Returns true if this deadline has expired. */
+  public boolean isExpired() {
+    return expiry.isDone();
+  }
+
+  /**
+   * Returns the time that remains until this deadline expires, in {@code unit}, or zero if it has
+   * expired.
+   */
+  public long timeRemaining(TimeUnit unit) {
+    if (isExpired()) {
+      return 0;
+    }
+    return unit.convert(Math.max(0, expiryNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Runs {@code listener} on {@code executor} once this deadline expires, or right away if it
+   * already has.
+   */
+  public void addExpiryListener(Runnable listener, Executor executor) {
+    expiry.addListener(listener, executor);
+  }
+}
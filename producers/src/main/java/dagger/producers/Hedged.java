@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Annotates a {@linkplain Produces producer method} that is invoked a second time if its first
+ * invocation is slow, in order to cut the producer's tail latency.
+ *
+ * <p>If the future that the method returns has not completed once the hedging delay has elapsed,
+ * the method is invoked again with the same inputs on the production executor. Whichever of the two
+ * futures succeeds first becomes the producer's result, and the other one is cancelled; the
+ * producer only fails if every invocation that has started fails. The method should therefore be
+ * idempotent, and cheap enough that the backend it calls can absorb the extra requests. Hedging has
+ * no effect on methods that return plain values, which have completed by the time they return.
+ *
+ * <p>Each second invocation is reported to the producer's
+ * {@linkplain dagger.producers.monitoring.ProducerMonitor#hedged monitor}, and thereby to its
+ * {@linkplain dagger.producers.monitoring.ProducerTimingRecorder#recordHedge timing recorder}.
+ * The monitor is only told that the method is starting and has finished for the first invocation.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+@Beta
+public @interface Hedged {
+  /**
+   * The number of milliseconds after which a slow invocation is hedged. If a {@link #percentile}
+   * is given, this is only used until enough latencies have been observed.
+   */
+  long delayMillis();
+
+  /**
+   * A percentile, between 0 and 100, of the method's recently observed latencies, after which a
+   * slow invocation is hedged instead of after a fixed delay. By default, the delay is fixed.
+   */
+  double percentile() default 0;
+}
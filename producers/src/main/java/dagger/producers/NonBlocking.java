@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Annotates a {@linkplain Produces producer method} that is cheap and never blocks, so that it need
+ * not be scheduled on the {@linkplain Production production executor}.
+ *
+ * <p>Instead, the method runs on the thread that completes the last of its inputs, or on the thread
+ * that requests its value if all of its inputs are already complete. This avoids a task submission
+ * and a thread handoff for each such producer, which dominate the cost of graphs with many small
+ * producers. A method that blocks, or that does a lot of work, should not be annotated, since it
+ * would then delay whichever thread happens to run it.
+ *
+ * <p>This annotation has no effect on methods that are not annotated with {@link Produces}.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+@Beta
+public @interface NonBlocking {}
@@ -26,9 +26,10 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 /**
  * Annotates methods of a producer module to create a production binding. If the method returns
- * a {@link ListenableFuture}, then the parameter type of the future is bound to the value that the
- * future provides; otherwise, the return type is bound to the returned value. The production
- * component will pass dependencies to the method as parameters.
+ * a {@link ListenableFuture} or a {@code java.util.concurrent.CompletionStage}, then the parameter
+ * type of the future is bound to the value that the future provides; otherwise, the return type is
+ * bound to the returned value. The production component will pass dependencies to the method as
+ * parameters.
  *
  * @author Jesse Beder
  */
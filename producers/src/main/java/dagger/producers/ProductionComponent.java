@@ -42,13 +42,15 @@ import static java.lang.annotation.ElementType.TYPE;
  * <p>Every type annotated with {@code @ProductionComponent} must contain at least one abstract
  * component method. Component methods must represent {@linkplain Producer production}.
  *
- * Production methods have no arguments and return either a {@link ListenableFuture} or
- * {@link Producer} of a type that is {@link Inject injected}, {@link Provides provided}, or
- * {@link Produces produced}. Each may have a {@link Qualifier} annotation as well. The following
- * are all valid production method declarations: <pre><code>
+ * Production methods have no arguments and return either a {@link ListenableFuture}, a
+ * {@code java.util.concurrent.CompletableFuture} or a {@link Producer} of a type that is
+ * {@link Inject injected}, {@link Provides provided}, or {@link Produces produced}. Each may have a
+ * {@link Qualifier} annotation as well. The following are all valid production method
+ * declarations: <pre><code>
  *   {@literal ListenableFuture<SomeType>} getSomeType();
  *   {@literal Producer<Set<SomeType>>} getSomeTypes();
  *   {@literal @Response ListenableFuture<Html>} getResponse();
+ *   {@literal CompletableFuture<SomeType>} someTypeFuture();
  * </code></pre>
  *
  * <h2>Exceptions</h2>
@@ -69,7 +71,14 @@ import static java.lang.annotation.ElementType.TYPE;
  * <p>The component must include a binding for <code>{@literal @}Production Executor</code>;
  * this binding will be called exactly once, and the provided executor will be used by the framework
  * to schedule all producer methods (for this component, and any {@link ProductionSubcomponent} it
- * may have.
+ * may have. A {@link CriticalPathExecutor} runs the producers on the component's critical path
+ * first when it is saturated.
+ *
+ * <h2>Deadlines</h2>
+ *
+ * <p>The component may include {@link Deadline}s in a {@code Set<Deadline>} multibinding. Once any
+ * of them expires, the producers of the component, and of its {@link ProductionSubcomponent}s,
+ * that are still pending are cancelled, and producers that have not yet started are never run.
  *
  * @author Jesse Beder
  */
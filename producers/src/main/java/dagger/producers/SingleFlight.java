@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Annotates a {@linkplain Produces producer method} whose invocations may be shared by all of the
+ * production components that are in flight at once.
+ *
+ * <p>While an invocation of the method is in flight, any other component that requests it with
+ * equal inputs gets the same result instead of invoking the method again. Once the invocation
+ * completes, the next request invokes the method anew. This is meant for expensive lookups that
+ * bursts of concurrent requests would otherwise repeat.
+ *
+ * <p>Invocations are identified only by the values of the method's parameters, so the method may
+ * only depend on values and {@link Produced} values, not on {@link Producer}s or other framework
+ * types. If the method is an instance method, it is invoked on the module of whichever component
+ * requested it first.
+ *
+ * <p>Cancelling a component's future for the method does not cancel an invocation that other
+ * components share.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+@Beta
+public @interface SingleFlight {}
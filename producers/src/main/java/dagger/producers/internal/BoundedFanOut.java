@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Producer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * Starts the futures of a multibinding's contributions through a sliding window, so that at most a
+ * fixed number of them are in flight at once and a large multibinding cannot monopolize the
+ * production executor.
+ *
+ * <p>Contributions are started in order. Each time one completes, the next one that has not been
+ * cancelled is started. Listeners that complete synchronously do not recurse; the thread that is
+ * already starting contributions picks up the freed slot instead.
+ */
+final class BoundedFanOut<T> {
+  /** A limit that starts every contribution at once. */
+  static final int UNLIMITED = 0;
+
+  /**
+   * Returns the futures of {@code producers}, in order, starting at most {@code maxInFlight} of
+   * them at once. If {@code maxInFlight} is {@link #UNLIMITED}, or not less than the number of
+   * producers, then every producer is started before this returns.
+   *
+   * <p>If {@code stopOnFailure} is true, then once any started future fails or is cancelled, the
+   * contributions that have not yet been started are never started, and their futures fail or are
+   * cancelled in the same way.
+   *
+   * @throws NullPointerException if the producers are not limited and any of them returns null. A
+   *     limited producer that returns null fails its future with the exception instead.
+   */
+  static <T> List<ListenableFuture<T>> start(
+      Collection<? extends Producer<? extends T>> producers, int maxInFlight,
+      boolean stopOnFailure) {
+    List<ListenableFuture<T>> futures = new ArrayList<ListenableFuture<T>>(producers.size());
+    if (maxInFlight == UNLIMITED || maxInFlight >= producers.size()) {
+      for (Producer<? extends T> producer : producers) {
+        @SuppressWarnings("unchecked") // futures are read-only
+        ListenableFuture<T> future = (ListenableFuture<T>) checkNotNull(producer.get());
+        futures.add(future);
+      }
+      return futures;
+    }
+    BoundedFanOut<T> fanOut = new BoundedFanOut<T>(producers, maxInFlight, stopOnFailure);
+    futures.addAll(fanOut.results);
+    fanOut.drain();
+    return futures;
+  }
+
+  private final List<Producer<? extends T>> producers;
+  private final List<SettableFuture<T>> results;
+  private final boolean stopOnFailure;
+  private final Runnable releaser =
+      new Runnable() {
+        @Override
+        public void run() {
+          release();
+        }
+      };
+
+  // guarded by this
+  private int next;
+  private int available;
+  private boolean draining = true;
+
+  private BoundedFanOut(
+      Collection<? extends Producer<? extends T>> producers, int maxInFlight,
+      boolean stopOnFailure) {
+    this.producers = new ArrayList<Producer<? extends T>>(producers);
+    this.results = new ArrayList<SettableFuture<T>>(producers.size());
+    for (int i = 0; i < producers.size(); i++) {
+      results.add(SettableFuture.<T>create());
+    }
+    this.available = maxInFlight;
+    this.stopOnFailure = stopOnFailure;
+  }
+
+  private void release() {
+    synchronized (this) {
+      available++;
+      if (draining) {
+        return;
+      }
+      draining = true;
+    }
+    drain();
+  }
+
+  private void drain() {
+    while (true) {
+      int index;
+      synchronized (this) {
+        if (available == 0 || next == producers.size()) {
+          draining = false;
+          return;
+        }
+        available--;
+        index = next++;
+      }
+      start(index);
+    }
+  }
+
+  private void start(int index) {
+    final SettableFuture<T> result = results.get(index);
+    if (!result.isDone()) {
+      try {
+        result.setFuture(checkNotNull(producers.get(index).get()));
+      } catch (Throwable t) {
+        result.setException(t);
+      }
+    }
+    if (stopOnFailure) {
+      result.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              if (!succeeded(result)) {
+                stop(result);
+              }
+            }
+          },
+          directExecutor());
+    }
+    result.addListener(releaser, directExecutor());
+  }
+
+  private void stop(ListenableFuture<T> failed) {
+    int first;
+    synchronized (this) {
+      first = next;
+      next = producers.size();
+    }
+    for (int i = first; i < results.size(); i++) {
+      results.get(i).setFuture(failed);
+    }
+  }
+
+  private static boolean succeeded(ListenableFuture<?> future) {
+    if (future.isCancelled()) {
+      return false;
+    }
+    try {
+      future.get();
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * An {@link InvocationPolicy} for {@link dagger.producers.Bulkhead @Bulkhead} producer methods,
+ * which limits the number of invocations that are in flight at once.
+ *
+ * <p>Invocations beyond the limit are queued as pending invocations rather than as tasks on the
+ * production executor, so that they don't occupy its threads. Each time an invocation completes,
+ * the oldest pending one is submitted to its executor. Bulkheads are identified by name, so that
+ * the methods that share a name share one policy.
+ */
+public final class BulkheadPolicy extends InvocationPolicy {
+  private static final ConcurrentMap<String, BulkheadPolicy> BULKHEADS =
+      new ConcurrentHashMap<String, BulkheadPolicy>();
+
+  private final String name;
+  private final int maxConcurrency;
+  private final int maxQueued;
+
+  /** The number of invocations in flight. Guarded by this. */
+  private int running = 0;
+
+  /** The invocations that wait for others to complete, oldest first. Guarded by this. */
+  private final Queue<Pending<?>> queue = new ArrayDeque<Pending<?>>();
+
+  BulkheadPolicy(String name, int maxConcurrency, int maxQueued) {
+    checkArgument(maxConcurrency > 0, "maxConcurrency must be positive: %s", maxConcurrency);
+    checkArgument(maxQueued >= 0, "maxQueued must not be negative: %s", maxQueued);
+    this.name = checkNotNull(name);
+    this.maxConcurrency = maxConcurrency;
+    this.maxQueued = maxQueued;
+  }
+
+  /**
+   * Returns the bulkhead named {@code name}, which is created with the given limits if it doesn't
+   * exist yet.
+   *
+   * @throws IllegalArgumentException if the bulkhead exists with different limits
+   */
+  public static BulkheadPolicy named(String name, int maxConcurrency, int maxQueued) {
+    BulkheadPolicy bulkhead = BULKHEADS.get(name);
+    if (bulkhead == null) {
+      BulkheadPolicy created = new BulkheadPolicy(name, maxConcurrency, maxQueued);
+      bulkhead = BULKHEADS.putIfAbsent(name, created);
+      if (bulkhead == null) {
+        return created;
+      }
+    }
+    checkArgument(
+        bulkhead.maxConcurrency == maxConcurrency && bulkhead.maxQueued == maxQueued,
+        "Bulkhead %s has maxConcurrency %s and maxQueued %s, not %s and %s",
+        name,
+        bulkhead.maxConcurrency,
+        bulkhead.maxQueued,
+        maxConcurrency,
+        maxQueued);
+    return bulkhead;
+  }
+
+  @Override
+  protected <T> ListenableFuture<T> intercept(Invocation<T> invocation) {
+    boolean started = false;
+    Pending<T> pending = null;
+    int queueDepth;
+    synchronized (this) {
+      if (running < maxConcurrency) {
+        running++;
+        started = true;
+      } else if (queue.size() < maxQueued) {
+        pending = new Pending<T>(invocation);
+        queue.add(pending);
+      }
+      queueDepth = queue.size();
+    }
+    if (started) {
+      return start(invocation);
+    } else if (pending == null) {
+      invocation.monitor().bulkheadRejected(name);
+      return Futures.immediateFailedFuture(
+          new RejectedExecutionException("Bulkhead " + name + " is full"));
+    }
+    invocation.monitor().bulkheadQueued(name, queueDepth);
+    pending.result.addListener(pending, directExecutor());
+    return pending.result;
+  }
+
+  /**
+   * Invokes {@code invocation}, which holds one of the bulkhead's slots until its future
+   * completes.
+   */
+  private <T> ListenableFuture<T> start(Invocation<T> invocation) {
+    ListenableFuture<T> result;
+    try {
+      result = checkNotNull(invocation.invoke(), "producer method invocation returned null");
+    } catch (Throwable t) {
+      result = Futures.immediateFailedFuture(t);
+    }
+    result.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            release();
+          }
+        },
+        directExecutor());
+    return result;
+  }
+
+  /** Passes a completed invocation's slot on to the oldest pending invocation, if any. */
+  private void release() {
+    Pending<?> next;
+    synchronized (this) {
+      next = queue.poll();
+      if (next == null) {
+        running--;
+        return;
+      }
+    }
+    next.submit();
+  }
+
+  /** Returns the number of pending invocations. Visible for testing. */
+  synchronized int queueDepth() {
+    return queue.size();
+  }
+
+  /** Returns the number of invocations in flight. Visible for testing. */
+  synchronized int running() {
+    return running;
+  }
+
+  /**
+   * An invocation that waits for a slot. It runs when its result is done, to remove itself from the
+   * queue if it was cancelled while waiting.
+   */
+  private final class Pending<T> implements Runnable {
+    final Invocation<T> invocation;
+    final SettableFuture<T> result = SettableFuture.create();
+
+    Pending(Invocation<T> invocation) {
+      this.invocation = invocation;
+    }
+
+    /** Starts the invocation on its executor, with the slot that it has been passed. */
+    void submit() {
+      try {
+        invocation
+            .executor()
+            .execute(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    if (result.isDone()) {
+                      release();
+                    } else {
+                      result.setFuture(start(invocation));
+                    }
+                  }
+                });
+      } catch (RejectedExecutionException e) {
+        result.setException(e);
+        release();
+      }
+    }
+
+    @Override
+    public void run() {
+      if (result.isCancelled()) {
+        synchronized (BulkheadPolicy.this) {
+          queue.remove(this);
+        }
+      }
+    }
+  }
+}
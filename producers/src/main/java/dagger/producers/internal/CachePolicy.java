@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * An {@link InvocationPolicy} for {@link dagger.producers.CachedProduction @CachedProduction}
+ * producer methods, which caches the future result of each invocation by its inputs.
+ *
+ * <p>A stale result is refreshed on behalf of no requester: the producer that hit the cache may
+ * complete long before the refresh does, so the refresh neither reports to its monitor nor runs on
+ * its production executor, but on a thread pool that is shared by all policies.
+ */
+public final class CachePolicy extends InvocationPolicy {
+  private final Ticker ticker;
+  private final Executor refreshExecutor;
+  private final long refreshAfterWriteNanos;
+  private final ConcurrentMap<List<?>, Entry> cache;
+
+  /**
+   * Creates a cache policy. A negative {@code maximumSize} or {@code refreshAfterWriteMillis} means
+   * that the number of results is unbounded, or that results are not refreshed.
+   */
+  public CachePolicy(
+      long expireAfterWriteMillis, long maximumSize, long refreshAfterWriteMillis) {
+    this(
+        expireAfterWriteMillis,
+        maximumSize,
+        refreshAfterWriteMillis,
+        Ticker.systemTicker(),
+        Refresher.INSTANCE);
+  }
+
+  CachePolicy(
+      long expireAfterWriteMillis,
+      long maximumSize,
+      long refreshAfterWriteMillis,
+      Ticker ticker,
+      Executor refreshExecutor) {
+    checkArgument(
+        expireAfterWriteMillis > 0,
+        "expireAfterWriteMillis must be positive: %s",
+        expireAfterWriteMillis);
+    this.ticker = checkNotNull(ticker);
+    this.refreshExecutor = checkNotNull(refreshExecutor);
+    this.refreshAfterWriteNanos =
+        refreshAfterWriteMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(refreshAfterWriteMillis);
+    CacheBuilder<Object, Object> builder =
+        CacheBuilder.newBuilder()
+            .ticker(ticker)
+            .expireAfterWrite(expireAfterWriteMillis, TimeUnit.MILLISECONDS);
+    if (maximumSize >= 0) {
+      builder.maximumSize(maximumSize);
+    }
+    Cache<List<?>, Entry> cache = builder.build();
+    this.cache = cache.asMap();
+  }
+
+  @Override
+  protected <T> ListenableFuture<T> intercept(Invocation<T> invocation) {
+    List<?> inputs = invocation.inputs();
+    Entry cached = cache.get(inputs);
+    if (cached == null) {
+      Entry entry = new Entry(ticker.read());
+      cached = cache.putIfAbsent(inputs, entry);
+      if (cached == null) {
+        invocation.monitor().cacheMissed();
+        entry.produce(inputs, invocation);
+        return requesterView(entry.<T>future());
+      }
+    }
+    invocation.monitor().cacheHit();
+    if (refreshAfterWriteNanos >= 0
+        && cached.future.isDone()
+        && ticker.read() - cached.writeNanos >= refreshAfterWriteNanos) {
+      cached.refresh(inputs, invocation.unmonitored());
+    }
+    return requesterView(cached.<T>future());
+  }
+
+  /** Returns the number of cached results, including those in flight. Visible for testing. */
+  int size() {
+    return cache.size();
+  }
+
+  /** Invokes {@code invocation}, converting anything it throws into a failed future. */
+  private static <T> ListenableFuture<T> invoke(Invocation<T> invocation) {
+    try {
+      ListenableFuture<T> result = invocation.invoke();
+      if (result == null) {
+        throw new NullPointerException("producer method invocation returned null");
+      }
+      return result;
+    } catch (Throwable t) {
+      return Futures.immediateFailedFuture(t);
+    }
+  }
+
+  private final class Entry {
+    final long writeNanos;
+    final SettableFuture<Object> future = SettableFuture.create();
+    final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(long writeNanos) {
+      this.writeNanos = writeNanos;
+    }
+
+    @SuppressWarnings("unchecked") // entries with the same inputs are of the same binding
+    <T> ListenableFuture<T> future() {
+      return (ListenableFuture<T>) future;
+    }
+
+    /** Completes this entry with {@code invocation}, and evicts it if that fails. */
+    <T> void produce(final List<?> inputs, Invocation<T> invocation) {
+      future.setFuture(invoke(invocation));
+      Futures.addCallback(
+          future,
+          new FutureCallback<Object>() {
+            @Override
+            public void onSuccess(Object value) {}
+
+            @Override
+            public void onFailure(Throwable t) {
+              cache.remove(inputs, Entry.this);
+            }
+          },
+          directExecutor());
+    }
+
+    /**
+     * Invokes {@code invocation} again on the refresh executor, unless this entry is being
+     * refreshed already, and replaces this entry with the result once it succeeds.
+     */
+    <T> void refresh(final List<?> inputs, final Invocation<T> invocation) {
+      if (!refreshing.compareAndSet(false, true)) {
+        return;
+      }
+      final Entry refreshed = new Entry(ticker.read());
+      refreshed.future.setFuture(
+          Futures.transformAsync(
+              Futures.<Void>immediateFuture(null),
+              new AsyncFunction<Void, T>() {
+                @Override
+                public ListenableFuture<T> apply(Void ignored) throws Exception {
+                  return invocation.invoke();
+                }
+              },
+              refreshExecutor));
+      Futures.addCallback(
+          refreshed.future,
+          new FutureCallback<Object>() {
+            @Override
+            public void onSuccess(Object value) {
+              cache.replace(inputs, Entry.this, refreshed);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+              refreshing.set(false);
+            }
+          },
+          directExecutor());
+    }
+  }
+
+  /** Holds the executor that is shared by all cache policies, which is created when first used. */
+  private static final class Refresher {
+    static final Executor INSTANCE =
+        Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("dagger-producers-cache-refresh-%d")
+                .build());
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The executor of a producer on a fused chain of producers, each of which is the only dependent of
+ * the one before it. A task that is submitted from a thread that is already running a fused task
+ * runs inline, continuing that task, instead of being submitted to the production executor again.
+ * Other tasks are submitted to the production executor and marked as fused.
+ *
+ * <p>The inline decision is not scoped to the producer before this one on the chain: a task runs
+ * inline in <em>any</em> fused task, including one of another chain or another component. Such a
+ * task is submitted from a fused task because that task completed the producer's last input, so
+ * continuing on its thread is what fusing would do for the producer before it as well. The
+ * difference is only in which producer's task runs longer.
+ *
+ * <p>Inline tasks may nest, since each producer on a chain completes the input of the next one. To
+ * bound the stack depth, a task that would nest too deeply is submitted to the production executor
+ * instead, starting a new chain of inline tasks.
+ */
+final class FusingExecutor implements Executor {
+  /** The number of fused tasks that may run nested on one thread. */
+  static final int MAX_FUSED_DEPTH = 32;
+
+  /** The number of fused tasks that the current thread is running, in an array to be mutable. */
+  private static final ThreadLocal<int[]> fusedDepth =
+      new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+          return new int[1];
+        }
+      };
+
+  private final Executor executor;
+
+  FusingExecutor(Executor executor) {
+    this.executor = checkNotNull(executor);
+  }
+
+  @Override
+  public void execute(final Runnable command) {
+    checkNotNull(command);
+    int[] depth = fusedDepth.get();
+    if (depth[0] > 0 && depth[0] < MAX_FUSED_DEPTH) {
+      depth[0]++;
+      try {
+        command.run();
+      } finally {
+        depth[0]--;
+      }
+      return;
+    }
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            int[] depth = fusedDepth.get();
+            int outerDepth = depth[0];
+            depth[0] = 1;
+            try {
+              command.run();
+            } finally {
+              depth[0] = outerDepth;
+            }
+          }
+
+          @Override
+          public String toString() {
+            return command.toString();
+          }
+        });
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+/**
+ * A future that applies an {@link AsyncCombiningFunction} to the values of several input futures
+ * once all of them have succeeded, for use by generated producers with more than one asynchronous
+ * dependency.
+ *
+ * <p>Unlike transforming {@link Futures#allAsList}, this neither copies the input values into a
+ * list nor registers a separate callback for each input: the combiner itself is the only listener
+ * of every input, counts down a single field as they complete, and lets the function read each
+ * typed value directly from its input.
+ *
+ * <p>If any input fails, this future fails with the same exception as soon as that is noticed; if
+ * any input is cancelled, this future is cancelled. Cancelling this future cancels all of the
+ * inputs.
+ *
+ * <p>Like {@link Futures#transformAsync}, this drops its references to the inputs and to the
+ * function once the function has been applied or this future has failed or been cancelled, so that
+ * a consumer that keeps this future does not keep the input values alive.
+ */
+public final class FutureCombiner<T> extends AbstractFuture<T> implements Runnable {
+  /** Computes the future of a {@link FutureCombiner} from the values of its inputs. */
+  public interface AsyncCombiningFunction<T> {
+    /**
+     * Returns the future result of combining the inputs of {@code inputs}, each of which has
+     * succeeded and may be read with {@link FutureCombiner#value}.
+     */
+    ListenableFuture<T> apply(FutureCombiner<T> inputs) throws Exception;
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicIntegerFieldUpdater<FutureCombiner> PENDING_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(FutureCombiner.class, "pending");
+
+  private final Executor executor;
+  // Cleared once the function has been applied or this future has failed or been cancelled.
+  private AsyncCombiningFunction<T> function;
+  private ListenableFuture<?>[] inputs;
+
+  /**
+   * The number of inputs that have not completed yet. It drops below zero when the task that
+   * applies the function runs, since that task is this same runnable.
+   */
+  private volatile int pending;
+
+  private FutureCombiner(
+      AsyncCombiningFunction<T> function, Executor executor, ListenableFuture<?>[] inputs) {
+    this.function = function;
+    this.executor = executor;
+    this.inputs = inputs;
+    this.pending = inputs.length;
+  }
+
+  /**
+   * Returns a future that, once all of {@code inputs} have succeeded, is completed by the future
+   * that {@code function} returns when run on {@code executor}.
+   */
+  public static <T> ListenableFuture<T> combine(
+      AsyncCombiningFunction<T> function, Executor executor, ListenableFuture<?>... inputs) {
+    FutureCombiner<T> combiner =
+        new FutureCombiner<T>(checkNotNull(function), checkNotNull(executor), inputs);
+    if (inputs.length == 0) {
+      combiner.submit();
+    }
+    for (ListenableFuture<?> input : inputs) {
+      input.addListener(combiner, MoreExecutors.directExecutor());
+    }
+    return combiner;
+  }
+
+  /**
+   * Returns a combiner whose inputs have succeeded with {@code values}, which were read from the
+   * inputs of another combiner, so that a function can be applied to them again once that combiner
+   * has dropped its inputs. The returned combiner never completes.
+   */
+  static <T> FutureCombiner<T> ofValues(List<?> values) {
+    ListenableFuture<?>[] inputs = new ListenableFuture<?>[values.size()];
+    for (int i = 0; i < inputs.length; i++) {
+      inputs[i] = Futures.immediateFuture(values.get(i));
+    }
+    return new FutureCombiner<T>(null, null, inputs);
+  }
+
+  /**
+   * Returns the value of the input at {@code index}. May only be called from {@link
+   * AsyncCombiningFunction#apply}.
+   */
+  @SuppressWarnings("unchecked") // the generated caller knows the type of each input
+  public <V> V value(int index) {
+    return (V) Futures.getUnchecked(inputs[index]);
+  }
+
+  /**
+   * Returns the values of all of the inputs, in order. May only be called from {@link
+   * AsyncCombiningFunction#apply}.
+   */
+  List<Object> values() {
+    Object[] values = new Object[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      values[i] = Futures.getUnchecked(inputs[i]);
+    }
+    return Arrays.asList(values);
+  }
+
+  /**
+   * Invoked when an input completes, and then on the executor once all of them have succeeded.
+   *
+   * @deprecated this may only be called by the inputs and the executor
+   */
+  @Deprecated
+  @Override
+  public void run() {
+    if (isDone()) {
+      return;
+    }
+    int remaining = PENDING_UPDATER.decrementAndGet(this);
+    if (remaining >= 0) {
+      if (propagateFailures() && remaining == 0) {
+        submit();
+      }
+    } else {
+      apply();
+    }
+  }
+
+  private void submit() {
+    try {
+      executor.execute(this);
+    } catch (RejectedExecutionException e) {
+      setException(e);
+      release();
+    }
+  }
+
+  private void apply() {
+    AsyncCombiningFunction<T> localFunction = function;
+    if (localFunction == null) {
+      return;
+    }
+    ListenableFuture<T> output;
+    try {
+      output = localFunction.apply(this);
+    } catch (UndeclaredThrowableException e) {
+      setException(e.getCause());
+      return;
+    } catch (Throwable t) {
+      setException(t);
+      return;
+    } finally {
+      release();
+    }
+    if (output == null) {
+      setException(new NullPointerException("AsyncCombiningFunction.apply returned null"));
+    } else {
+      setFuture(output);
+    }
+  }
+
+  /**
+   * Fails or cancels this future if any input that has completed failed or was cancelled, and
+   * returns whether none of them did. Since the listener is shared, it does not know which input
+   * completed, so it checks all of them.
+   */
+  private boolean propagateFailures() {
+    ListenableFuture<?>[] localInputs = inputs;
+    if (localInputs == null) {
+      return false;
+    }
+    for (ListenableFuture<?> input : localInputs) {
+      if (input.isDone()) {
+        if (input.isCancelled()) {
+          cancel(false);
+          return false;
+        }
+        try {
+          getUninterruptibly(input);
+        } catch (ExecutionException e) {
+          setException(e.getCause());
+          release();
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Drops the references to the inputs and the function, which are no longer needed. */
+  private void release() {
+    function = null;
+    inputs = null;
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    ListenableFuture<?>[] localInputs = inputs;
+    if (super.cancel(mayInterruptIfRunning)) {
+      release();
+      if (localInputs != null) {
+        for (ListenableFuture<?> input : localInputs) {
+          input.cancel(mayInterruptIfRunning);
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+/**
+ * An {@link InvocationPolicy} for {@link dagger.producers.Hedged @Hedged} producer methods, which
+ * invokes the method again if its first invocation has not completed within a delay, and takes the
+ * result of whichever invocation succeeds first. The result only fails once every invocation that
+ * has started has failed.
+ *
+ * <p>The delay is either fixed, or a percentile of the latencies of the most recent invocations
+ * that succeeded, including those that completed by the time the method returned. Hedges are
+ * scheduled on a timer thread that is shared by all policies, but the method itself is always
+ * invoked on the production executor. A hedge is reported to the monitor as
+ * {@linkplain dagger.producers.monitoring.ProducerMonitor#hedged hedged}, but its invocation is
+ * {@linkplain Invocation#unmonitored unmonitored}, so the monitor sees the method start and finish
+ * only once.
+ */
+public final class HedgePolicy extends InvocationPolicy {
+  /** The number of recent latencies that a percentile is taken from. */
+  private static final int LATENCY_SAMPLES = 100;
+
+  /** The number of latencies that must be observed before a percentile replaces the delay. */
+  private static final int MIN_LATENCY_SAMPLES = 20;
+
+  private final long delayNanos;
+  private final double percentile;
+  private final ScheduledExecutorService timer;
+  private final Ticker ticker;
+
+  /** The most recent latencies, as a ring buffer. Guarded by itself. */
+  private final long[] latencies = new long[LATENCY_SAMPLES];
+  private int latencyCount = 0;
+  private int nextLatency = 0;
+
+  /**
+   * Creates a hedge policy. A {@code percentile} of 0 means that the delay is always {@code
+   * delayMillis}.
+   */
+  public HedgePolicy(long delayMillis, double percentile) {
+    this(delayMillis, percentile, Timer.INSTANCE, Ticker.systemTicker());
+  }
+
+  HedgePolicy(
+      long delayMillis, double percentile, ScheduledExecutorService timer, Ticker ticker) {
+    checkArgument(delayMillis > 0, "delayMillis must be positive: %s", delayMillis);
+    checkArgument(
+        percentile >= 0 && percentile < 100, "percentile must be in [0, 100): %s", percentile);
+    this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    this.percentile = percentile;
+    this.timer = checkNotNull(timer);
+    this.ticker = checkNotNull(ticker);
+  }
+
+  @Override
+  protected <T> ListenableFuture<T> intercept(final Invocation<T> invocation) throws Exception {
+    final long startNanos = ticker.read();
+    ListenableFuture<T> first = invocation.invoke();
+    if (first == null) {
+      return null;
+    }
+    if (first.isDone()) {
+      if (succeeded(first)) {
+        recordLatency(ticker.read() - startNanos);
+      }
+      return first;
+    }
+    final Race<T> race = new Race<T>(startNanos);
+    race.add(first);
+    final Future<?> hedge =
+        timer.schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                hedge(invocation, race);
+              }
+            },
+            hedgeDelayNanos(),
+            TimeUnit.NANOSECONDS);
+    race.result.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            hedge.cancel(false);
+            for (Future<T> attempt : race.attempts) {
+              attempt.cancel(true);
+            }
+          }
+        },
+        directExecutor());
+    return race.result;
+  }
+
+  /** Invokes the method again on the production executor, unless the race is over by then. */
+  private <T> void hedge(final Invocation<T> invocation, final Race<T> race) {
+    if (!race.start()) {
+      return;
+    }
+    try {
+      invocation
+          .executor()
+          .execute(
+              new Runnable() {
+                @Override
+                public void run() {
+                  if (race.result.isDone()) {
+                    race.abandon();
+                    return;
+                  }
+                  invocation.monitor().hedged();
+                  ListenableFuture<T> second;
+                  try {
+                    second = checkNotNull(invocation.unmonitored().invoke());
+                  } catch (Throwable t) {
+                    second = Futures.immediateFailedFuture(t);
+                  }
+                  race.add(second);
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      // Only the first invocation is left, so the race is decided by it alone.
+      race.abandon();
+    }
+  }
+
+  /**
+   * The attempts of one invocation. The result takes the value of the first attempt to succeed,
+   * or fails with the first failure once every attempt that has started has failed. A hedge counts
+   * as started once it has been submitted to the production executor; a hedge that is still
+   * waiting for its delay does not keep the result from failing.
+   */
+  private final class Race<T> {
+    final SettableFuture<T> result = SettableFuture.create();
+    final List<Future<T>> attempts = new CopyOnWriteArrayList<Future<T>>();
+    private final long startNanos;
+
+    /** The number of attempts that have started and not yet failed. Guarded by this. */
+    private int running = 1;
+
+    /** The first failure of an attempt. Guarded by this. */
+    private Throwable failure;
+
+    Race(long startNanos) {
+      this.startNanos = startNanos;
+    }
+
+    /** Starts another attempt, or returns false if the race is already over. */
+    synchronized boolean start() {
+      if (running == 0 || result.isDone()) {
+        return false;
+      }
+      running++;
+      return true;
+    }
+
+    /** Ends a started attempt that never invoked the method. */
+    void abandon() {
+      end(null);
+    }
+
+    /** Ends a started attempt, which failed with {@code t} unless it is null. */
+    private void end(Throwable t) {
+      Throwable lastFailure;
+      synchronized (this) {
+        if (failure == null) {
+          failure = t;
+        }
+        running--;
+        lastFailure = running == 0 ? failure : null;
+      }
+      if (lastFailure != null) {
+        result.setException(lastFailure);
+      }
+    }
+
+    /** Races {@code attempt}, which is a started attempt, against the others. */
+    void add(ListenableFuture<T> attempt) {
+      attempts.add(attempt);
+      Futures.addCallback(
+          attempt,
+          new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+              if (result.set(value)) {
+                recordLatency(ticker.read() - startNanos);
+              }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+              end(t);
+            }
+          },
+          directExecutor());
+      // The result may have been completed while the attempt was being added.
+      if (result.isDone()) {
+        attempt.cancel(true);
+      }
+    }
+  }
+
+  /** Returns whether {@code future}, which is done, succeeded. */
+  private static boolean succeeded(Future<?> future) {
+    if (future.isCancelled()) {
+      return false;
+    }
+    try {
+      getUninterruptibly(future);
+      return true;
+    } catch (ExecutionException e) {
+      return false;
+    }
+  }
+
+  /** Returns the delay after which an invocation is hedged. */
+  long hedgeDelayNanos() {
+    if (percentile == 0) {
+      return delayNanos;
+    }
+    long[] sorted;
+    synchronized (latencies) {
+      if (latencyCount < MIN_LATENCY_SAMPLES) {
+        return delayNanos;
+      }
+      sorted = Arrays.copyOf(latencies, latencyCount);
+    }
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+
+  private void recordLatency(long latencyNanos) {
+    synchronized (latencies) {
+      latencies[nextLatency] = latencyNanos;
+      nextLatency = (nextLatency + 1) % LATENCY_SAMPLES;
+      latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+    }
+  }
+
+  /** Holds the timer that is shared by all hedge policies, which is created when first used. */
+  private static final class Timer {
+    static final ScheduledExecutorService INSTANCE = create();
+
+    private static ScheduledExecutorService create() {
+      ScheduledThreadPoolExecutor timer =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("dagger-producers-hedge-timer")
+                  .build());
+      timer.setRemoveOnCancelPolicy(true);
+      return timer;
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.internal.FutureCombiner.AsyncCombiningFunction;
+import dagger.producers.monitoring.ProducerMonitor;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decides how, and whether, a generated producer invokes its {@link dagger.producers.Produces
+ * producer method} once its inputs are available.
+ *
+ * <p>Generated producers hold a policy in a static field, so that it is shared by every production
+ * component that uses the binding, and pass the function that invokes the method through
+ * {@link #applying}, or {@link #applyingCombining} for a method with several asynchronous inputs.
+ * Policies compose by applying one to the function that another returns.
+ *
+ * <p>The function of a producer with policies does not report to the producer's monitor itself;
+ * instead, each {@linkplain Invocation#invoke invocation} reports that the method is starting and
+ * has finished. That lets a policy invoke the method on behalf of no requester at all, through an
+ * {@linkplain Invocation#unmonitored unmonitored} invocation.
+ *
+ * <p>A policy that shares one invocation between several requesters gives each of them its own
+ * {@linkplain #requesterView view} of the shared future, so that a requester that cancels its
+ * future does not cancel the invocation for the others.
+ */
+public abstract class InvocationPolicy {
+  /** A pending invocation of a producer method on a particular set of inputs. */
+  protected interface Invocation<T> {
+    /** Returns the values of the method's asynchronous inputs, in order. */
+    List<?> inputs();
+
+    /**
+     * Invokes the method, reporting to the {@link #monitor} that it is starting and has finished.
+     * This may be called any number of times, including none.
+     */
+    ListenableFuture<T> invoke() throws Exception;
+
+    /** Returns the production executor, on which any further invocations should be made. */
+    Executor executor();
+
+    /** Returns the monitor of the producer that requested this invocation. */
+    ProducerMonitor monitor();
+
+    /**
+     * Returns this invocation with a monitor that ignores every event, for invoking the method on
+     * behalf of no requester, such as after the requester's producer has completed.
+     */
+    Invocation<T> unmonitored();
+  }
+
+  /** Returns the future result of {@code invocation}. */
+  protected abstract <T> ListenableFuture<T> intercept(Invocation<T> invocation) throws Exception;
+
+  /** Returns a future of the result of {@code shared} that does not cancel it when cancelled. */
+  static <T> ListenableFuture<T> requesterView(ListenableFuture<T> shared) {
+    return Futures.nonCancellationPropagating(shared);
+  }
+
+  /**
+   * Returns a function that applies {@code function} according to this policy, for a producer that
+   * uses {@code executor} and {@code monitor}.
+   */
+  public final <I, T> AsyncFunction<I, T> applying(
+      AsyncFunction<I, T> function, Executor executor, ProducerMonitor monitor) {
+    return new PolicyFunction<I, T>(function, executor, monitor);
+  }
+
+  /**
+   * Returns a combining function that applies {@code function} according to this policy, for a
+   * producer that uses {@code executor} and {@code monitor}.
+   */
+  public final <T> AsyncCombiningFunction<T> applyingCombining(
+      AsyncCombiningFunction<T> function, Executor executor, ProducerMonitor monitor) {
+    return new PolicyCombiningFunction<T>(function, executor, monitor);
+  }
+
+  /**
+   * An invocation that reports to a monitor, which is either the requester's or one that ignores
+   * every event.
+   */
+  private abstract static class MonitoredInvocation<T> implements Invocation<T> {
+    private final Executor executor;
+    private final ProducerMonitor monitor;
+
+    MonitoredInvocation(Executor executor, ProducerMonitor monitor) {
+      this.executor = executor;
+      this.monitor = monitor;
+    }
+
+    /** Invokes the method, reporting to {@code monitor}. */
+    abstract ListenableFuture<T> invoke(ProducerMonitor monitor) throws Exception;
+
+    @Override
+    public final ListenableFuture<T> invoke() throws Exception {
+      return invoke(monitor);
+    }
+
+    @Override
+    public final Executor executor() {
+      return executor;
+    }
+
+    @Override
+    public final ProducerMonitor monitor() {
+      return monitor;
+    }
+
+    @Override
+    public final Invocation<T> unmonitored() {
+      final MonitoredInvocation<T> monitored = this;
+      return new MonitoredInvocation<T>(executor, ProducerMonitor.noOp()) {
+        @Override
+        public List<?> inputs() {
+          return monitored.inputs();
+        }
+
+        @Override
+        ListenableFuture<T> invoke(ProducerMonitor monitor) throws Exception {
+          return monitored.invoke(monitor);
+        }
+      };
+    }
+  }
+
+  /**
+   * A function that applies this policy to {@code function}, which is either the producer itself
+   * or another policy's function.
+   */
+  private final class PolicyFunction<I, T> implements AsyncFunction<I, T> {
+    private final AsyncFunction<I, T> function;
+    private final Executor executor;
+    private final ProducerMonitor monitor;
+
+    PolicyFunction(AsyncFunction<I, T> function, Executor executor, ProducerMonitor monitor) {
+      this.function = checkNotNull(function);
+      this.executor = checkNotNull(executor);
+      this.monitor = checkNotNull(monitor);
+    }
+
+    @Override
+    public ListenableFuture<T> apply(I input) throws Exception {
+      return apply(input, monitor);
+    }
+
+    ListenableFuture<T> apply(final I input, ProducerMonitor monitor) throws Exception {
+      return intercept(
+          new MonitoredInvocation<T>(executor, monitor) {
+            @Override
+            public List<?> inputs() {
+              return Collections.singletonList(input);
+            }
+
+            @Override
+            ListenableFuture<T> invoke(ProducerMonitor monitor) throws Exception {
+              if (function instanceof PolicyFunction) {
+                return ((PolicyFunction<I, T>) function).apply(input, monitor);
+              }
+              monitor.methodStarting();
+              try {
+                return function.apply(input);
+              } finally {
+                monitor.methodFinished();
+              }
+            }
+          });
+    }
+  }
+
+  /** A combining function that applies this policy to {@code function}. */
+  private final class PolicyCombiningFunction<T> implements AsyncCombiningFunction<T> {
+    private final AsyncCombiningFunction<T> function;
+    private final Executor executor;
+    private final ProducerMonitor monitor;
+
+    PolicyCombiningFunction(
+        AsyncCombiningFunction<T> function, Executor executor, ProducerMonitor monitor) {
+      this.function = checkNotNull(function);
+      this.executor = checkNotNull(executor);
+      this.monitor = checkNotNull(monitor);
+    }
+
+    @Override
+    public ListenableFuture<T> apply(FutureCombiner<T> inputs) throws Exception {
+      return apply(inputs, monitor);
+    }
+
+    ListenableFuture<T> apply(FutureCombiner<T> inputs, ProducerMonitor monitor)
+        throws Exception {
+      // The combiner drops its inputs once this returns, but the policy may invoke the method
+      // again later, so it is invoked on the values instead.
+      final List<?> values = inputs.values();
+      return intercept(
+          new MonitoredInvocation<T>(executor, monitor) {
+            @Override
+            public List<?> inputs() {
+              return values;
+            }
+
+            @Override
+            ListenableFuture<T> invoke(ProducerMonitor monitor) throws Exception {
+              FutureCombiner<T> inputs = FutureCombiner.ofValues(values);
+              if (function instanceof PolicyCombiningFunction) {
+                return ((PolicyCombiningFunction<T>) function).apply(inputs, monitor);
+              }
+              monitor.methodStarting();
+              try {
+                return function.apply(inputs);
+              } finally {
+                monitor.methodFinished();
+              }
+            }
+          });
+    }
+  }
+}
@@ -17,14 +17,14 @@ package dagger.producers.internal;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.internal.Beta;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -38,9 +38,12 @@ import java.util.Map;
 @Beta
 public final class MapOfProducedProducer<K, V> extends AbstractProducer<Map<K, Produced<V>>> {
   private final Producer<Map<K, Producer<V>>> mapProducerProducer;
+  private final int fanOutLimit;
 
-  private MapOfProducedProducer(Producer<Map<K, Producer<V>>> mapProducerProducer) {
+  private MapOfProducedProducer(
+      Producer<Map<K, Producer<V>>> mapProducerProducer, int fanOutLimit) {
     this.mapProducerProducer = mapProducerProducer;
+    this.fanOutLimit = fanOutLimit;
   }
 
   /**
@@ -57,7 +60,18 @@ public final class MapOfProducedProducer<K, V> extends AbstractProducer<Map<K, P
    */
   public static <K, V> MapOfProducedProducer<K, V> create(
       Producer<Map<K, Producer<V>>> mapProducerProducer) {
-    return new MapOfProducedProducer<K, V>(mapProducerProducer);
+    return new MapOfProducedProducer<K, V>(mapProducerProducer, BoundedFanOut.UNLIMITED);
+  }
+
+  /**
+   * Returns a producer of {@code Map<K, Produced<V>>} like {@link #create(Producer)}, which has the
+   * futures of at most {@code maxInFlight} of the delegate producers in flight at once. The
+   * delegate producers are started in the order of the input map as earlier ones complete.
+   */
+  public static <K, V> MapOfProducedProducer<K, V> create(
+      Producer<Map<K, Producer<V>>> mapProducerProducer, int maxInFlight) {
+    assert maxInFlight > 0 : "Codegen error? Non-positive fan-out limit";
+    return new MapOfProducedProducer<K, V>(mapProducerProducer, maxInFlight);
   }
 
   @Override
@@ -67,46 +81,27 @@ public final class MapOfProducedProducer<K, V> extends AbstractProducer<Map<K, P
         new AsyncFunction<Map<K, Producer<V>>, Map<K, Produced<V>>>() {
           @Override
           public ListenableFuture<Map<K, Produced<V>>> apply(final Map<K, Producer<V>> map) {
+            List<ListenableFuture<Produced<V>>> futureProduceds =
+                new ArrayList<ListenableFuture<Produced<V>>>(map.size());
+            for (ListenableFuture<V> future :
+                BoundedFanOut.start(map.values(), fanOutLimit, false)) {
+              futureProduceds.add(Producers.createFutureProduced(future));
+            }
             // TODO(beder): Use Futures.whenAllComplete when Guava 20 is released.
             return Futures.transform(
-                Futures.allAsList(
-                    Iterables.transform(
-                        map.entrySet(), MapOfProducedProducer.<K, V>entryUnwrapper())),
-                new Function<List<Map.Entry<K, Produced<V>>>, Map<K, Produced<V>>>() {
+                Futures.allAsList(futureProduceds),
+                new Function<List<Produced<V>>, Map<K, Produced<V>>>() {
                   @Override
-                  public Map<K, Produced<V>> apply(List<Map.Entry<K, Produced<V>>> entries) {
-                    return ImmutableMap.copyOf(entries);
+                  public Map<K, Produced<V>> apply(List<Produced<V>> values) {
+                    ImmutableMap.Builder<K, Produced<V>> builder = ImmutableMap.builder();
+                    Iterator<Produced<V>> valuesIterator = values.iterator();
+                    for (K key : map.keySet()) {
+                      builder.put(key, valuesIterator.next());
+                    }
+                    return builder.build();
                   }
                 });
           }
         });
   }
-
-  private static final Function<
-          Map.Entry<Object, Producer<Object>>,
-          ListenableFuture<Map.Entry<Object, Produced<Object>>>>
-      ENTRY_UNWRAPPER =
-          new Function<
-              Map.Entry<Object, Producer<Object>>,
-              ListenableFuture<Map.Entry<Object, Produced<Object>>>>() {
-            @Override
-            public ListenableFuture<Map.Entry<Object, Produced<Object>>> apply(
-                final Map.Entry<Object, Producer<Object>> entry) {
-              return Futures.transform(
-                  Producers.createFutureProduced(entry.getValue().get()),
-                  new Function<Produced<Object>, Map.Entry<Object, Produced<Object>>>() {
-                    @Override
-                    public Map.Entry<Object, Produced<Object>> apply(Produced<Object> value) {
-                      return Maps.immutableEntry(entry.getKey(), value);
-                    }
-                  });
-            }
-          };
-
-  @SuppressWarnings({"unchecked", "rawtypes"}) // bivariate implementation
-  private static <K, V>
-      Function<Map.Entry<K, Producer<V>>, ListenableFuture<Map.Entry<K, Produced<V>>>>
-          entryUnwrapper() {
-    return (Function) ENTRY_UNWRAPPER;
-  }
 }
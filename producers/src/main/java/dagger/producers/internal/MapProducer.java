@@ -17,13 +17,12 @@ package dagger.producers.internal;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.internal.Beta;
 import dagger.producers.Producer;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -36,9 +35,11 @@ import java.util.Map;
 @Beta
 public final class MapProducer<K, V> extends AbstractProducer<Map<K, V>> {
   private final Producer<Map<K, Producer<V>>> mapProducerProducer;
+  private final int fanOutLimit;
 
-  private MapProducer(Producer<Map<K, Producer<V>>> mapProducerProducer) {
+  private MapProducer(Producer<Map<K, Producer<V>>> mapProducerProducer, int fanOutLimit) {
     this.mapProducerProducer = mapProducerProducer;
+    this.fanOutLimit = fanOutLimit;
   }
 
   /**
@@ -53,7 +54,19 @@ public final class MapProducer<K, V> extends AbstractProducer<Map<K, V>> {
    * component futures fails or is canceled, this one is, too.
    */
   public static <K, V> MapProducer<K, V> create(Producer<Map<K, Producer<V>>> mapProducerProducer) {
-    return new MapProducer<K, V>(mapProducerProducer);
+    return new MapProducer<K, V>(mapProducerProducer, BoundedFanOut.UNLIMITED);
+  }
+
+  /**
+   * Returns a producer of {@code Map<K, V>} like {@link #create(Producer)}, which has the futures
+   * of at most {@code maxInFlight} of the delegate producers in flight at once. The delegate
+   * producers are started in the order of the input map as earlier ones complete, and those that
+   * have not been started once any delegate future fails are never started.
+   */
+  public static <K, V> MapProducer<K, V> create(
+      Producer<Map<K, Producer<V>>> mapProducerProducer, int maxInFlight) {
+    assert maxInFlight > 0 : "Codegen error? Non-positive fan-out limit";
+    return new MapProducer<K, V>(mapProducerProducer, maxInFlight);
   }
 
   @Override
@@ -65,40 +78,19 @@ public final class MapProducer<K, V> extends AbstractProducer<Map<K, V>> {
           public ListenableFuture<Map<K, V>> apply(final Map<K, Producer<V>> map) {
             // TODO(beder): Use Futures.whenAllComplete when Guava 20 is released.
             return Futures.transform(
-                Futures.allAsList(
-                    Iterables.transform(map.entrySet(), MapProducer.<K, V>entryUnwrapper())),
-                new Function<List<Map.Entry<K, V>>, Map<K, V>>() {
+                Futures.allAsList(BoundedFanOut.start(map.values(), fanOutLimit, true)),
+                new Function<List<V>, Map<K, V>>() {
                   @Override
-                  public Map<K, V> apply(List<Map.Entry<K, V>> entries) {
-                    return ImmutableMap.copyOf(entries);
+                  public Map<K, V> apply(List<V> values) {
+                    ImmutableMap.Builder<K, V> builder = ImmutableMap.builder();
+                    Iterator<V> valuesIterator = values.iterator();
+                    for (K key : map.keySet()) {
+                      builder.put(key, valuesIterator.next());
+                    }
+                    return builder.build();
                   }
                 });
           }
         });
   }
-
-  private static final Function<
-          Map.Entry<Object, Producer<Object>>, ListenableFuture<Map.Entry<Object, Object>>>
-      ENTRY_UNWRAPPER =
-          new Function<
-              Map.Entry<Object, Producer<Object>>, ListenableFuture<Map.Entry<Object, Object>>>() {
-            @Override
-            public ListenableFuture<Map.Entry<Object, Object>> apply(
-                final Map.Entry<Object, Producer<Object>> entry) {
-              return Futures.transform(
-                  entry.getValue().get(),
-                  new Function<Object, Map.Entry<Object, Object>>() {
-                    @Override
-                    public Map.Entry<Object, Object> apply(Object value) {
-                      return Maps.immutableEntry(entry.getKey(), value);
-                    }
-                  });
-            }
-          };
-
-  @SuppressWarnings({"unchecked", "rawtypes"}) // bivariate implementation
-  private static <K, V>
-      Function<Map.Entry<K, Producer<V>>, ListenableFuture<Map.Entry<K, V>>> entryUnwrapper() {
-    return (Function) ENTRY_UNWRAPPER;
-  }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A task that a producer submits to its executor, with the priority of the producer. Producers on
+ * longer chains of producers to an entry point of their component have higher priorities.
+ */
+public final class PrioritizedTask implements Runnable {
+  /** The priority of tasks that were not submitted by prioritized producers. */
+  public static final int LOWEST_PRIORITY = 0;
+
+  private static final AtomicLong nextSequenceNumber = new AtomicLong();
+
+  private static final Comparator<Runnable> ORDERING =
+      new Comparator<Runnable>() {
+        @Override
+        public int compare(Runnable left, Runnable right) {
+          PrioritizedTask leftTask = (PrioritizedTask) left;
+          PrioritizedTask rightTask = (PrioritizedTask) right;
+          if (leftTask.priority != rightTask.priority) {
+            return leftTask.priority > rightTask.priority ? -1 : 1;
+          }
+          return Long.compare(leftTask.sequenceNumber, rightTask.sequenceNumber);
+        }
+      };
+
+  /**
+   * Returns {@code task} if it is a prioritized task, or else a task that runs it with the
+   * {@linkplain #LOWEST_PRIORITY lowest priority}.
+   */
+  public static PrioritizedTask of(Runnable task) {
+    return task instanceof PrioritizedTask
+        ? (PrioritizedTask) task
+        : new PrioritizedTask(task, LOWEST_PRIORITY);
+  }
+
+  /**
+   * Returns the order in which queued prioritized tasks should run: tasks of higher priority first,
+   * and tasks of equal priority in the order in which they were created.
+   */
+  public static Comparator<Runnable> ordering() {
+    return ORDERING;
+  }
+
+  private final Runnable task;
+  private final int priority;
+  private final long sequenceNumber;
+
+  PrioritizedTask(Runnable task, int priority) {
+    this.task = checkNotNull(task);
+    this.priority = priority;
+    this.sequenceNumber = nextSequenceNumber.getAndIncrement();
+  }
+
+  /** Returns the priority of the producer that submitted this task. */
+  public int priority() {
+    return priority;
+  }
+
+  @Override
+  public void run() {
+    task.run();
+  }
+
+  @Override
+  public String toString() {
+    return task + " with priority " + priority;
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import javax.inject.Provider;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -101,6 +102,54 @@ public final class Producers {
     };
   }
 
+  /**
+   * Returns a provider of executors that submit tasks to the executor of {@code executorProvider}
+   * as {@link PrioritizedTask}s with the given priority, for a
+   * {@link dagger.producers.CriticalPathExecutor} to order by.
+   */
+  public static Provider<Executor> prioritizedExecutorProvider(
+      final Provider<Executor> executorProvider, final int priority) {
+    checkNotNull(executorProvider);
+    return new Provider<Executor>() {
+      @Override
+      public Executor get() {
+        final Executor executor = executorProvider.get();
+        return new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            executor.execute(new PrioritizedTask(command, priority));
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Returns a provider of executors for a producer on a fused chain of producers, which run the
+   * producer's tasks inline when they are submitted from a fused task, such as that of the
+   * producer before it on the chain, and submit them to the executor of {@code executorProvider}
+   * otherwise.
+   */
+  public static Provider<Executor> fusedExecutorProvider(
+      final Provider<Executor> executorProvider) {
+    checkNotNull(executorProvider);
+    return new Provider<Executor>() {
+      @Override
+      public Executor get() {
+        return new FusingExecutor(executorProvider.get());
+      }
+    };
+  }
+
+  /**
+   * Returns a producer that memoizes the result of {@code producer} until it has been requested
+   * {@code consumers} times, and then releases it. Requesting it again after that fails with an
+   * {@link IllegalStateException}.
+   */
+  public static <T> Producer<T> releasingProducer(Producer<T> producer, int consumers) {
+    return new ReleasingProducer<T>(producer, consumers);
+  }
+
   /** Returns a producer that succeeds with the given value. */
   public static <T> Producer<T> immediateProducer(final T value) {
     return new Producer<T>() {
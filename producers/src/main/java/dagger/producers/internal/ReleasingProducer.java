@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Producer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A producer of an intermediate result of a production component, which is requested by a known
+ * number of consumers within the component. Once each of them has requested the result, this drops
+ * its references to the result and to the underlying producer, so that the result can be garbage
+ * collected as soon as the consumers are done with it instead of when the component is.
+ *
+ * <p>Requesting the result from more consumers than expected is an error, since the underlying
+ * producer, which computes the result at most once, is no longer available.
+ */
+final class ReleasingProducer<T> implements Producer<T> {
+  // guarded by this
+  private Producer<T> producer;
+  private ListenableFuture<T> future;
+  private int remainingConsumers;
+
+  ReleasingProducer(Producer<T> producer, int consumers) {
+    checkArgument(consumers > 0, "consumers must be positive: %s", consumers);
+    this.producer = checkNotNull(producer);
+    this.remainingConsumers = consumers;
+  }
+
+  @Override
+  public synchronized ListenableFuture<T> get() {
+    checkState(
+        remainingConsumers > 0, "the result was requested after all of its consumers started");
+    ListenableFuture<T> result = future;
+    if (result == null) {
+      result = future = producer.get();
+    }
+    if (--remainingConsumers == 0) {
+      producer = null;
+      future = null;
+    }
+    return result;
+  }
+
+  /** Returns whether the result has been requested by all of its consumers. */
+  synchronized boolean released() {
+    return remainingConsumers == 0;
+  }
+}
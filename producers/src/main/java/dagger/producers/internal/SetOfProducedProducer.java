@@ -27,7 +27,6 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
-import static com.google.common.base.Preconditions.checkNotNull;
 import static dagger.internal.DaggerCollections.hasDuplicates;
 import static dagger.internal.DaggerCollections.presizedList;
 
@@ -61,6 +60,7 @@ public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produce
   public static final class Builder<T> {
     private final List<Producer<T>> individualProducers;
     private final List<Producer<Collection<T>>> collectionProducers;
+    private int fanOutLimit = BoundedFanOut.UNLIMITED;
 
     private Builder(int individualProducerSize, int collectionProducerSize) {
       individualProducers = presizedList(individualProducerSize);
@@ -82,23 +82,37 @@ public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produce
       return this;
     }
 
+    /**
+     * Limits the number of producers whose futures the built producer has in flight at once. Each
+     * time one of them completes, the next producer is started.
+     */
+    public Builder<T> fanOutLimit(int maxInFlight) {
+      assert maxInFlight > 0 : "Codegen error? Non-positive fan-out limit";
+      fanOutLimit = maxInFlight;
+      return this;
+    }
+
     public SetOfProducedProducer<T> build() {
       assert !hasDuplicates(individualProducers)
           : "Codegen error?  Duplicates in the producer list";
       assert !hasDuplicates(collectionProducers)
           : "Codegen error?  Duplicates in the producer list";
 
-      return new SetOfProducedProducer<T>(individualProducers, collectionProducers);
+      return new SetOfProducedProducer<T>(individualProducers, collectionProducers, fanOutLimit);
     }
   }
 
   private final List<Producer<T>> individualProducers;
   private final List<Producer<Collection<T>>> collectionProducers;
+  private final int fanOutLimit;
 
   private SetOfProducedProducer(
-      List<Producer<T>> individualProducers, List<Producer<Collection<T>>> collectionProducers) {
+      List<Producer<T>> individualProducers,
+      List<Producer<Collection<T>>> collectionProducers,
+      int fanOutLimit) {
     this.individualProducers = individualProducers;
     this.collectionProducers = collectionProducers;
+    this.fanOutLimit = fanOutLimit;
   }
 
   /**
@@ -112,6 +126,9 @@ public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produce
    * delegate futures fail or are canceled, this future succeeds, with the appropriate failed
    * {@link Produced}.
    *
+   * <p>If the producer has a {@linkplain Builder#fanOutLimit fan-out limit}, the delegate producers
+   * are started in order as earlier ones complete.
+   *
    * @throws NullPointerException if any of the delegate producers return null
    */
   @Override
@@ -119,15 +136,25 @@ public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produce
     List<ListenableFuture<? extends Produced<? extends Collection<T>>>> futureProducedCollections =
         new ArrayList<ListenableFuture<? extends Produced<? extends Collection<T>>>>(
             individualProducers.size() + collectionProducers.size());
-    for (Producer<T> producer : individualProducers) {
-      // TODO(ronshapiro): Don't require individual productions to be added to a collection just to
-      // be materialized into futureProducedCollections.
-      futureProducedCollections.add(
-          Producers.createFutureProduced(
-              Producers.createFutureSingletonSet(checkNotNull(producer.get()))));
-    }
-    for (Producer<Collection<T>> producer : collectionProducers) {
-      futureProducedCollections.add(Producers.createFutureProduced(checkNotNull(producer.get())));
+    List<Producer<?>> producers =
+        new ArrayList<Producer<?>>(individualProducers.size() + collectionProducers.size());
+    producers.addAll(individualProducers);
+    producers.addAll(collectionProducers);
+    List<ListenableFuture<Object>> futures = BoundedFanOut.start(producers, fanOutLimit, false);
+    for (int i = 0; i < futures.size(); i++) {
+      if (i < individualProducers.size()) {
+        @SuppressWarnings("unchecked") // the first futures are of the individual producers
+        ListenableFuture<T> future = (ListenableFuture<T>) futures.get(i);
+        // TODO(ronshapiro): Don't require individual productions to be added to a collection just
+        // to be materialized into futureProducedCollections.
+        futureProducedCollections.add(
+            Producers.createFutureProduced(Producers.createFutureSingletonSet(future)));
+      } else {
+        @SuppressWarnings("unchecked") // the rest are of the collection producers
+        ListenableFuture<Collection<T>> future =
+            (ListenableFuture<Collection<T>>) (ListenableFuture<?>) futures.get(i);
+        futureProducedCollections.add(Producers.createFutureProduced(future));
+      }
     }
 
     return Futures.transform(
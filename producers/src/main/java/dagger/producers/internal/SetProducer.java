@@ -25,7 +25,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
-import static com.google.common.base.Preconditions.checkNotNull;
 import static dagger.internal.DaggerCollections.hasDuplicates;
 import static dagger.internal.DaggerCollections.presizedList;
 
@@ -68,6 +67,7 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
   public static final class Builder<T> {
     private final List<Producer<T>> individualProducers;
     private final List<Producer<Collection<T>>> collectionProducers;
+    private int fanOutLimit = BoundedFanOut.UNLIMITED;
 
     private Builder(int individualProducerSize, int collectionProducerSize) {
       individualProducers = presizedList(individualProducerSize);
@@ -89,23 +89,37 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
       return this;
     }
 
+    /**
+     * Limits the number of producers whose futures the built producer has in flight at once. Each
+     * time one of them completes, the next producer is started.
+     */
+    public Builder<T> fanOutLimit(int maxInFlight) {
+      assert maxInFlight > 0 : "Codegen error? Non-positive fan-out limit";
+      fanOutLimit = maxInFlight;
+      return this;
+    }
+
     public SetProducer<T> build() {
       assert !hasDuplicates(individualProducers)
           : "Codegen error?  Duplicates in the producer list";
       assert !hasDuplicates(collectionProducers)
           : "Codegen error?  Duplicates in the producer list";
 
-      return new SetProducer<T>(individualProducers, collectionProducers);
+      return new SetProducer<T>(individualProducers, collectionProducers, fanOutLimit);
     }
   }
 
   private final List<Producer<T>> individualProducers;
   private final List<Producer<Collection<T>>> collectionProducers;
+  private final int fanOutLimit;
 
   private SetProducer(
-      List<Producer<T>> individualProducers, List<Producer<Collection<T>>> collectionProducers) {
+      List<Producer<T>> individualProducers,
+      List<Producer<Collection<T>>> collectionProducers,
+      int fanOutLimit) {
     this.individualProducers = individualProducers;
     this.collectionProducers = collectionProducers;
+    this.fanOutLimit = fanOutLimit;
   }
 
   /**
@@ -118,24 +132,30 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
    * <p>Canceling this future will attempt to cancel all of the component futures, and if any of the
    * delegate futures fails or is canceled, this one is, too.
    *
+   * <p>If the producer has a {@linkplain Builder#fanOutLimit fan-out limit}, the delegate producers
+   * are started in order as earlier ones complete, and those that have not been started once any
+   * delegate future fails are never started.
+   *
    * @throws NullPointerException if any of the delegate producers return null
    */
   @Override
   public ListenableFuture<Set<T>> compute() {
-    List<ListenableFuture<T>> individualFutures =
-        new ArrayList<ListenableFuture<T>>(individualProducers.size());
-    for (Producer<T> producer : individualProducers) {
-      individualFutures.add(checkNotNull(producer.get()));
-    }
+    List<Producer<?>> producers =
+        new ArrayList<Producer<?>>(individualProducers.size() + collectionProducers.size());
+    producers.addAll(individualProducers);
+    producers.addAll(collectionProducers);
+    List<ListenableFuture<Object>> futures = BoundedFanOut.start(producers, fanOutLimit, true);
 
     // Presize the list of collections produced by the amount of collectionProducers, with one more
     // for the consolidate individualFutures from Futures.allAsList.
     List<ListenableFuture<? extends Collection<T>>> futureCollections =
         new ArrayList<ListenableFuture<? extends Collection<T>>>(collectionProducers.size() + 1);
-    futureCollections.add(Futures.allAsList(individualFutures));
-    for (Producer<Collection<T>> producer : collectionProducers) {
-      futureCollections.add(checkNotNull(producer.get()));
-    }
+    futureCollections.add(
+        Futures.allAsList(
+            SetProducer.<T>uncheckedCast(futures.subList(0, individualProducers.size()))));
+    futureCollections.addAll(
+        SetProducer.<Collection<T>>uncheckedCast(
+            futures.subList(individualProducers.size(), futures.size())));
     return Futures.transform(
         Futures.allAsList(futureCollections),
         new Function<List<Collection<T>>, Set<T>>() {
@@ -149,4 +169,10 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
           }
         });
   }
+
+  @SuppressWarnings({"unchecked", "rawtypes"}) // the futures are of the producers' types
+  private static <E> List<ListenableFuture<E>> uncheckedCast(
+      List<ListenableFuture<Object>> futures) {
+    return (List) futures;
+  }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * An {@link InvocationPolicy} for {@link dagger.producers.SingleFlight @SingleFlight} producer
+ * methods, which shares one in-flight invocation among all of the producers that request the same
+ * inputs at once.
+ *
+ * <p>An invocation is forgotten as soon as it completes.
+ */
+public final class SingleFlightPolicy extends InvocationPolicy {
+  private final ConcurrentMap<List<?>, ListenableFuture<?>> inFlight =
+      new ConcurrentHashMap<List<?>, ListenableFuture<?>>();
+
+  @Override
+  protected <T> ListenableFuture<T> intercept(Invocation<T> invocation) {
+    final List<?> inputs = invocation.inputs();
+    final SettableFuture<T> shared = SettableFuture.create();
+    @SuppressWarnings("unchecked") // invocations with the same inputs are of the same binding
+    ListenableFuture<T> existing = (ListenableFuture<T>) inFlight.putIfAbsent(inputs, shared);
+    if (existing != null) {
+      return requesterView(existing);
+    }
+    try {
+      ListenableFuture<T> result = invocation.invoke();
+      if (result == null) {
+        throw new NullPointerException("producer method invocation returned null");
+      }
+      shared.setFuture(result);
+    } catch (Throwable t) {
+      shared.setException(t);
+    }
+    shared.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            inFlight.remove(inputs, shared);
+          }
+        },
+        directExecutor());
+    return requesterView(shared);
+  }
+
+  /** Returns the number of distinct invocations that are in flight. Visible for testing. */
+  int inFlightCount() {
+    return inFlight.size();
+  }
+}
@@ -127,6 +127,54 @@ public abstract class ProducerMonitor {
    */
   public void failed(@SuppressWarnings("unused") Throwable t) {}
 
+  /**
+   * Called when the result of a {@link dagger.producers.CachedProduction @CachedProduction}
+   * producer is taken from its cache, in which case the method is not called.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void cacheHit() {}
+
+  /**
+   * Called when the result of a {@link dagger.producers.CachedProduction @CachedProduction}
+   * producer is not in its cache, before the method is called.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void cacheMissed() {}
+
+  /**
+   * Called when a {@link dagger.producers.Hedged @Hedged} producer starts another attempt of its
+   * method because the first has not completed in time. The attempt is then reported by another
+   * pair of calls to {@link #methodStarting()} and {@link #methodFinished()}, possibly from another
+   * thread.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void hedged() {}
+
+  /**
+   * Called when an invocation of a {@link dagger.producers.Bulkhead @Bulkhead} producer's method
+   * has to wait because its bulkhead is at its limit.
+   *
+   * <p>This implementation is a no-op.
+   *
+   * @param bulkhead the name of the bulkhead
+   * @param queueDepth the number of invocations that are waiting, including this one
+   */
+  public void bulkheadQueued(
+      @SuppressWarnings("unused") String bulkhead, @SuppressWarnings("unused") int queueDepth) {}
+
+  /**
+   * Called when an invocation of a {@link dagger.producers.Bulkhead @Bulkhead} producer's method is
+   * rejected because its bulkhead's queue is full, in which case the method is not called.
+   *
+   * <p>This implementation is a no-op.
+   *
+   * @param bulkhead the name of the bulkhead
+   */
+  public void bulkheadRejected(@SuppressWarnings("unused") String bulkhead) {}
+
   /**
    * Adds this monitor's completion methods as a callback to the future. This is only intended to be
    * overridden in the framework!
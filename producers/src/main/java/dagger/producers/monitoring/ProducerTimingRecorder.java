@@ -74,6 +74,15 @@ public abstract class ProducerTimingRecorder {
    */
   public void recordSkip(Throwable exception) {}
 
+  /**
+   * Reports that the producer started another attempt of its {@link dagger.producers.Hedged
+   * hedged} method, because the first had not completed in time.
+   *
+   * @param delayNanos the wall-clock time, in nanoseconds, from when the producer method started to
+   *     when the other attempt was started.
+   */
+  public void recordHedge(long delayNanos) {}
+
   /** Returns a producer recorder that does nothing. */
   public static ProducerTimingRecorder noOp() {
     return NO_OP;
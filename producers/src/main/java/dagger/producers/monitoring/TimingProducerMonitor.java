@@ -29,6 +29,7 @@ final class TimingProducerMonitor extends ProducerMonitor {
   private final Stopwatch stopwatch;
   private final Stopwatch componentStopwatch;
   private long startNanos = -1;
+  private volatile boolean hedged = false;
 
   TimingProducerMonitor(
       ProducerTimingRecorder recorder, Ticker ticker, Stopwatch componentStopwatch) {
@@ -39,18 +40,31 @@ final class TimingProducerMonitor extends ProducerMonitor {
 
   @Override
   public void methodStarting() {
+    if (hedged) {
+      // The method and latency of the first attempt are the ones that are recorded.
+      return;
+    }
     startNanos = componentStopwatch.elapsed(NANOSECONDS);
     stopwatch.start();
   }
 
   @Override
   public void methodFinished() {
+    if (hedged) {
+      return;
+    }
     // TODO(beder): Is a system ticker the appropriate way to track CPU time? Should we use
     // ThreadCpuTicker instead?
     long durationNanos = stopwatch.elapsed(NANOSECONDS);
     recorder.recordMethod(startNanos, durationNanos);
   }
 
+  @Override
+  public void hedged() {
+    hedged = true;
+    recorder.recordHedge(stopwatch.elapsed(NANOSECONDS));
+  }
+
   @Override
   public void succeeded(Object o) {
     long latencyNanos = stopwatch.elapsed(NANOSECONDS);
@@ -148,6 +148,15 @@ public final class TimingRecorders {
         logProducerTimingRecorderMethodException(e, delegate, "recordSkip");
       }
     }
+
+    @Override
+    public void recordHedge(long delayNanos) {
+      try {
+        delegate.recordHedge(delayNanos);
+      } catch (RuntimeException e) {
+        logProducerTimingRecorderMethodException(e, delegate, "recordHedge");
+      }
+    }
   }
 
   /**
@@ -276,6 +285,17 @@ public final class TimingRecorders {
         }
       }
     }
+
+    @Override
+    public void recordHedge(long delayNanos) {
+      for (ProducerTimingRecorder delegate : delegates) {
+        try {
+          delegate.recordHedge(delayNanos);
+        } catch (RuntimeException e) {
+          logProducerTimingRecorderMethodException(e, delegate, "recordHedge");
+        }
+      }
+    }
   }
 
   /** Returns a recorder factory that returns no-op component recorders. */
@@ -17,15 +17,23 @@ package dagger.producers.monitoring.internal;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Deadline;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.inject.Provider;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
 /**
  * Utility methods relating to monitoring, for use in generated producers code.
  *
@@ -71,6 +79,24 @@ public final class Monitors {
     }
   }
 
+  /**
+   * Creates a new monitor for the given component, from a set of monitor factories, that also
+   * cancels the component's outstanding producers once any of the given deadlines expires. Failures
+   * to construct the monitors are handled as by {@link #createMonitorForComponent(Provider,
+   * Provider)}.
+   */
+  public static ProductionComponentMonitor createMonitorForComponent(
+      Provider<?> componentProvider,
+      Provider<Set<ProductionComponentMonitor.Factory>> monitorFactorySetProvider,
+      Provider<Set<Deadline>> deadlineSetProvider) {
+    ProductionComponentMonitor monitor =
+        createMonitorForComponent(componentProvider, monitorFactorySetProvider);
+    Set<Deadline> deadlines = deadlineSetProvider.get();
+    return deadlines.isEmpty()
+        ? monitor
+        : new DeadlineProductionComponentMonitor(monitor, deadlines);
+  }
+
   /**
    * A component monitor that delegates to a single monitor, and catches and logs all exceptions
    * that the delegate throws.
@@ -154,6 +180,51 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void cacheHit() {
+      try {
+        delegate.cacheHit();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "cacheHit");
+      }
+    }
+
+    @Override
+    public void cacheMissed() {
+      try {
+        delegate.cacheMissed();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "cacheMissed");
+      }
+    }
+
+    @Override
+    public void hedged() {
+      try {
+        delegate.hedged();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "hedged");
+      }
+    }
+
+    @Override
+    public void bulkheadQueued(String bulkhead, int queueDepth) {
+      try {
+        delegate.bulkheadQueued(bulkhead, queueDepth);
+      } catch (RuntimeException e) {
+        logProducerMonitorArgMethodException(e, delegate, "bulkheadQueued", bulkhead);
+      }
+    }
+
+    @Override
+    public void bulkheadRejected(String bulkhead) {
+      try {
+        delegate.bulkheadRejected(bulkhead);
+      } catch (RuntimeException e) {
+        logProducerMonitorArgMethodException(e, delegate, "bulkheadRejected", bulkhead);
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       try {
@@ -284,6 +355,61 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void cacheHit() {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.cacheHit();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "cacheHit");
+        }
+      }
+    }
+
+    @Override
+    public void cacheMissed() {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.cacheMissed();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "cacheMissed");
+        }
+      }
+    }
+
+    @Override
+    public void hedged() {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.hedged();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "hedged");
+        }
+      }
+    }
+
+    @Override
+    public void bulkheadQueued(String bulkhead, int queueDepth) {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.bulkheadQueued(bulkhead, queueDepth);
+        } catch (RuntimeException e) {
+          logProducerMonitorArgMethodException(e, delegate, "bulkheadQueued", bulkhead);
+        }
+      }
+    }
+
+    @Override
+    public void bulkheadRejected(String bulkhead) {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.bulkheadRejected(bulkhead);
+        } catch (RuntimeException e) {
+          logProducerMonitorArgMethodException(e, delegate, "bulkheadRejected", bulkhead);
+        }
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       for (ProducerMonitor delegate : delegates.reverse()) {
@@ -307,6 +433,149 @@ public final class Monitors {
     }
   }
 
+  /**
+   * A component monitor that delegates to another, and cancels the futures of all of the
+   * component's producers that are outstanding once any of its deadlines expires.
+   *
+   * <p>A deadline may outlive many components, and keeps its expiry listeners until it expires. The
+   * listeners therefore only hold their monitor weakly, so that a deadline does not retain the
+   * monitors, and through them the outstanding futures, of components that are done.
+   */
+  private static final class DeadlineProductionComponentMonitor
+      extends ProductionComponentMonitor {
+    private final ProductionComponentMonitor delegate;
+    private final Set<Future<?>> outstanding =
+        Collections.newSetFromMap(new ConcurrentHashMap<Future<?>, Boolean>());
+    private volatile boolean expired = false;
+
+    DeadlineProductionComponentMonitor(
+        ProductionComponentMonitor delegate, Set<Deadline> deadlines) {
+      this.delegate = delegate;
+      ExpiryListener listener = new ExpiryListener(this);
+      for (Deadline deadline : deadlines) {
+        deadline.addExpiryListener(listener, directExecutor());
+      }
+    }
+
+    @Override
+    public ProducerMonitor producerMonitorFor(ProducerToken token) {
+      return new DeadlineProducerMonitor(this, delegate.producerMonitorFor(token));
+    }
+
+    void expire() {
+      expired = true;
+      for (Future<?> future : outstanding) {
+        future.cancel(true);
+      }
+    }
+
+    /** Cancels {@code future} if it is still outstanding once a deadline expires. */
+    void track(final ListenableFuture<?> future) {
+      outstanding.add(future);
+      future.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              outstanding.remove(future);
+            }
+          },
+          directExecutor());
+      // Checked after the future is added, so that it's cancelled even if a deadline expires
+      // concurrently.
+      if (expired) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /** Expires a component monitor when a deadline expires, unless it has been collected. */
+  private static final class ExpiryListener implements Runnable {
+    private final WeakReference<DeadlineProductionComponentMonitor> monitor;
+
+    ExpiryListener(DeadlineProductionComponentMonitor monitor) {
+      this.monitor = new WeakReference<DeadlineProductionComponentMonitor>(monitor);
+    }
+
+    @Override
+    public void run() {
+      DeadlineProductionComponentMonitor monitor = this.monitor.get();
+      if (monitor != null) {
+        monitor.expire();
+      }
+    }
+  }
+
+  /**
+   * A producer monitor that delegates to another, and has its component monitor cancel the
+   * producer's future if a deadline expires first.
+   */
+  private static final class DeadlineProducerMonitor extends ProducerMonitor {
+    private final DeadlineProductionComponentMonitor componentMonitor;
+    private final ProducerMonitor delegate;
+
+    DeadlineProducerMonitor(
+        DeadlineProductionComponentMonitor componentMonitor, ProducerMonitor delegate) {
+      this.componentMonitor = componentMonitor;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void requested() {
+      delegate.requested();
+    }
+
+    @Override
+    public void methodStarting() {
+      delegate.methodStarting();
+    }
+
+    @Override
+    public void methodFinished() {
+      delegate.methodFinished();
+    }
+
+    @Override
+    public void cacheHit() {
+      delegate.cacheHit();
+    }
+
+    @Override
+    public void cacheMissed() {
+      delegate.cacheMissed();
+    }
+
+    @Override
+    public void hedged() {
+      delegate.hedged();
+    }
+
+    @Override
+    public void bulkheadQueued(String bulkhead, int queueDepth) {
+      delegate.bulkheadQueued(bulkhead, queueDepth);
+    }
+
+    @Override
+    public void bulkheadRejected(String bulkhead) {
+      delegate.bulkheadRejected(bulkhead);
+    }
+
+    @Override
+    public void succeeded(Object o) {
+      delegate.succeeded(o);
+    }
+
+    @Override
+    public void failed(Throwable t) {
+      delegate.failed(t);
+    }
+
+    @Override
+    public <T> void addCallbackTo(ListenableFuture<T> future) {
+      delegate.addCallbackTo(future);
+      componentMonitor.track(future);
+    }
+  }
+
   /** Returns a provider of a no-op component monitor. */
   public static Provider<ProductionComponentMonitor> noOpProductionComponentMonitorProvider() {
     return NO_OP_PRODUCTION_COMPONENT_MONITOR_PROVIDER;
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+/**
+ * Bridges {@link CompletionStage}s and the {@link ListenableFuture}s that producers are composed
+ * of, for use by generated code for {@link dagger.producers.Produces @Produces} methods that return
+ * a {@code CompletionStage} and production component methods that return a
+ * {@link CompletableFuture}. Each bridge is a single object that is both the new future and the
+ * callback that completes it.
+ *
+ * <p>This class requires Java 8, so it is only built under the {@code java8} profile, and only
+ * code generated for such methods loads it.
+ */
+public final class CompletionStages {
+  /**
+   * Returns a {@link ListenableFuture} that completes with {@code stage}. If {@code stage} already
+   * is a {@code ListenableFuture}, it is returned as is. Cancelling the returned future cancels
+   * {@code stage} if it is a {@link Future}.
+   */
+  @SuppressWarnings("unchecked") // a CompletionStage<T> that is a ListenableFuture is of T
+  public static <T> ListenableFuture<T> toListenableFuture(CompletionStage<T> stage) {
+    checkNotNull(stage, "@Produces methods may not return a null CompletionStage");
+    if (stage instanceof ListenableFuture) {
+      return (ListenableFuture<T>) stage;
+    }
+    StageFuture<T> future = new StageFuture<T>(stage);
+    stage.whenComplete(future);
+    return future;
+  }
+
+  /**
+   * Returns a {@link CompletableFuture} that completes with {@code future}. Cancelling the returned
+   * future cancels {@code future}.
+   */
+  public static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> future) {
+    checkNotNull(future);
+    CompletableListenableFuture<T> completable = new CompletableListenableFuture<T>(future);
+    future.addListener(completable, directExecutor());
+    return completable;
+  }
+
+  private static final class StageFuture<T> extends AbstractFuture<T>
+      implements BiConsumer<T, Throwable> {
+    private final CompletionStage<T> stage;
+
+    StageFuture(CompletionStage<T> stage) {
+      this.stage = stage;
+    }
+
+    @Override
+    public void accept(T value, Throwable failure) {
+      if (failure == null) {
+        set(value);
+      } else if (failure instanceof CancellationException) {
+        super.cancel(false);
+      } else if (failure instanceof CompletionException && failure.getCause() != null) {
+        setException(failure.getCause());
+      } else {
+        setException(failure);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!super.cancel(mayInterruptIfRunning)) {
+        return false;
+      }
+      if (stage instanceof Future) {
+        ((Future<?>) stage).cancel(mayInterruptIfRunning);
+      }
+      return true;
+    }
+  }
+
+  private static final class CompletableListenableFuture<T> extends CompletableFuture<T>
+      implements Runnable {
+    private final ListenableFuture<T> future;
+
+    CompletableListenableFuture(ListenableFuture<T> future) {
+      this.future = future;
+    }
+
+    @Override
+    public void run() {
+      try {
+        complete(getUninterruptibly(future));
+      } catch (ExecutionException e) {
+        completeExceptionally(e.getCause());
+      } catch (CancellationException e) {
+        super.cancel(false);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!super.cancel(mayInterruptIfRunning)) {
+        return false;
+      }
+      future.cancel(mayInterruptIfRunning);
+      return true;
+    }
+  }
+
+  private CompletionStages() {}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests {@link Batcher}.
+ */
+@RunWith(JUnit4.class)
+public class BatcherTest {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final List<ImmutableSet<Integer>> batches = new ArrayList<ImmutableSet<Integer>>();
+  private final Batcher.BatchLoader<Integer, String> loader =
+      new Batcher.BatchLoader<Integer, String>() {
+        @Override
+        public ListenableFuture<Map<Integer, String>> loadAll(ImmutableSet<Integer> keys) {
+          synchronized (batches) {
+            batches.add(keys);
+          }
+          ImmutableMap.Builder<Integer, String> values = ImmutableMap.builder();
+          for (int key : keys) {
+            if (key >= 0) {
+              values.put(key, "value" + key);
+            }
+          }
+          return Futures.<Map<Integer, String>>immediateFuture(values.build());
+        }
+      };
+
+  @After
+  public void shutDownScheduler() {
+    scheduler.shutdownNow();
+  }
+
+  @Test public void load_dispatchesFullBatch() throws Exception {
+    Batcher<Integer, String> batcher =
+        Batcher.builder(loader).maxBatchSize(2).maxDelay(1, TimeUnit.HOURS, scheduler).build();
+
+    ListenableFuture<String> first = batcher.load(1);
+    assertThat(first.isDone()).isFalse();
+    ListenableFuture<String> second = batcher.load(2);
+
+    assertThat(first.get()).isEqualTo("value1");
+    assertThat(second.get()).isEqualTo("value2");
+    assertThat(batches).containsExactly(ImmutableSet.of(1, 2));
+  }
+
+  @Test public void load_sameKeyInBatch_loadedOnce() throws Exception {
+    Batcher<Integer, String> batcher =
+        Batcher.builder(loader).maxBatchSize(2).maxDelay(1, TimeUnit.HOURS, scheduler).build();
+
+    ListenableFuture<String> first = batcher.load(1);
+    assertThat(batcher.load(1)).isSameAs(first);
+    assertThat(first.isDone()).isFalse();
+
+    batcher.load(2);
+    assertThat(first.get()).isEqualTo("value1");
+    assertThat(batches).containsExactly(ImmutableSet.of(1, 2));
+  }
+
+  @Test public void load_dispatchesAfterMaxDelay() throws Exception {
+    Batcher<Integer, String> batcher =
+        Batcher.builder(loader).maxDelay(10, TimeUnit.MILLISECONDS, scheduler).build();
+
+    ListenableFuture<String> first = batcher.load(1);
+    ListenableFuture<String> second = batcher.load(2);
+
+    assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("value1");
+    assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("value2");
+    assertThat(batches).containsExactly(ImmutableSet.of(1, 2));
+  }
+
+  @Test public void dispatch_startsNewBatch() throws Exception {
+    Batcher<Integer, String> batcher =
+        Batcher.builder(loader).maxDelay(1, TimeUnit.HOURS, scheduler).build();
+
+    ListenableFuture<String> first = batcher.load(1);
+    batcher.dispatch();
+    ListenableFuture<String> second = batcher.load(1);
+    assertThat(second).isNotSameAs(first);
+    batcher.dispatch();
+
+    assertThat(first.get()).isEqualTo("value1");
+    assertThat(second.get()).isEqualTo("value1");
+    assertThat(batches).containsExactly(ImmutableSet.of(1), ImmutableSet.of(1)).inOrder();
+  }
+
+  @Test public void batchDispatchedEarly_cancelsWindow() throws Exception {
+    ScheduledThreadPoolExecutor removingScheduler = new ScheduledThreadPoolExecutor(1);
+    removingScheduler.setRemoveOnCancelPolicy(true);
+    try {
+      Batcher<Integer, String> batcher =
+          Batcher.builder(loader)
+              .maxBatchSize(2)
+              .maxDelay(1, TimeUnit.HOURS, removingScheduler)
+              .build();
+
+      batcher.load(1);
+      batcher.load(2);
+      assertThat(removingScheduler.getQueue()).isEmpty();
+
+      batcher.load(3);
+      assertThat(removingScheduler.getQueue()).hasSize(1);
+      batcher.dispatch();
+      assertThat(removingScheduler.getQueue()).isEmpty();
+    } finally {
+      removingScheduler.shutdownNow();
+    }
+  }
+
+  @Test public void missingValue_failsOnlyThatKey() throws Exception {
+    Batcher<Integer, String> batcher =
+        Batcher.builder(loader).maxBatchSize(2).maxDelay(1, TimeUnit.HOURS, scheduler).build();
+
+    ListenableFuture<String> missing = batcher.load(-1);
+    ListenableFuture<String> present = batcher.load(1);
+
+    assertThat(present.get()).isEqualTo("value1");
+    try {
+      missing.get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isInstanceOf(NoSuchElementException.class);
+    }
+  }
+
+  @Test public void failedBatch_failsEveryKey() throws Exception {
+    final SettableFuture<Map<Integer, String>> result = SettableFuture.create();
+    Batcher<Integer, String> batcher =
+        Batcher.builder(
+                new Batcher.BatchLoader<Integer, String>() {
+                  @Override
+                  public ListenableFuture<Map<Integer, String>> loadAll(
+                      ImmutableSet<Integer> keys) {
+                    return result;
+                  }
+                })
+            .maxDelay(1, TimeUnit.HOURS, scheduler)
+            .build();
+
+    ListenableFuture<String> first = batcher.load(1);
+    ListenableFuture<String> second = batcher.load(2);
+    batcher.dispatch();
+    RuntimeException failure = new RuntimeException("monkey");
+    result.setException(failure);
+
+    for (ListenableFuture<String> future : ImmutableSet.of(first, second)) {
+      try {
+        future.get();
+        throw new AssertionError("expected the future to fail");
+      } catch (ExecutionException expected) {
+        assertThat(expected.getCause()).isSameAs(failure);
+      }
+    }
+  }
+
+  @Test public void loaderThrows_failsEveryKey() throws Exception {
+    final RuntimeException failure = new RuntimeException("monkey");
+    Batcher<Integer, String> batcher =
+        Batcher.builder(
+                new Batcher.BatchLoader<Integer, String>() {
+                  @Override
+                  public ListenableFuture<Map<Integer, String>> loadAll(
+                      ImmutableSet<Integer> keys) {
+                    throw failure;
+                  }
+                })
+            .maxBatchSize(1)
+            .maxDelay(1, TimeUnit.HOURS, scheduler)
+            .build();
+
+    try {
+      batcher.load(1).get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isSameAs(failure);
+    }
+  }
+
+  @Test public void nullBatch_failsEveryKey() throws Exception {
+    Batcher<Integer, String> batcher =
+        Batcher.builder(
+                new Batcher.BatchLoader<Integer, String>() {
+                  @Override
+                  public ListenableFuture<Map<Integer, String>> loadAll(
+                      ImmutableSet<Integer> keys) {
+                    return Futures.immediateFuture(null);
+                  }
+                })
+            .maxDelay(1, TimeUnit.HOURS, scheduler)
+            .build();
+
+    ListenableFuture<String> first = batcher.load(1);
+    ListenableFuture<String> second = batcher.load(2);
+    batcher.dispatch();
+
+    for (ListenableFuture<String> future : ImmutableSet.of(first, second)) {
+      try {
+        future.get();
+        throw new AssertionError("expected the future to fail");
+      } catch (ExecutionException expected) {
+        assertThat(expected.getCause()).isInstanceOf(NullPointerException.class);
+      }
+    }
+  }
+
+  @Test public void rejectedWindow_failsKeyWithoutPendingBatch() throws Exception {
+    Batcher<Integer, String> batcher =
+        Batcher.builder(loader).maxDelay(1, TimeUnit.HOURS, scheduler).build();
+    scheduler.shutdown();
+
+    try {
+      batcher.load(1).get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isInstanceOf(RejectedExecutionException.class);
+    }
+    batcher.dispatch();
+    assertThat(batches).isEmpty();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void build_withoutMaxDelay() {
+    Batcher.builder(loader).maxBatchSize(10).build();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import dagger.producers.internal.Producers;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests {@link CriticalPathExecutor}.
+ */
+@RunWith(JUnit4.class)
+public class CriticalPathExecutorTest {
+  private final CriticalPathExecutor executor = new CriticalPathExecutor(1);
+  private final Provider<Executor> executorProvider =
+      new Provider<Executor>() {
+        @Override
+        public Executor get() {
+          return executor;
+        }
+      };
+  private final List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+
+  @After
+  public void shutDownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test public void queuedTasks_runInOrderOfPriority() throws Exception {
+    CountDownLatch busy = occupyThread();
+    executor.execute(task("unprioritized"));
+    Producers.prioritizedExecutorProvider(executorProvider, 1).get().execute(task("leaf"));
+    Producers.prioritizedExecutorProvider(executorProvider, 3).get().execute(task("root"));
+    Producers.prioritizedExecutorProvider(executorProvider, 2).get().execute(task("middle"));
+
+    busy.countDown();
+    awaitTermination();
+    assertThat(ran).containsExactly("root", "middle", "leaf", "unprioritized").inOrder();
+  }
+
+  @Test public void queuedTasksOfEqualPriority_runInOrderOfSubmission() throws Exception {
+    CountDownLatch busy = occupyThread();
+    Executor prioritized = Producers.prioritizedExecutorProvider(executorProvider, 2).get();
+    prioritized.execute(task("first"));
+    prioritized.execute(task("second"));
+    executor.execute(task("third"));
+    executor.execute(task("fourth"));
+
+    busy.countDown();
+    awaitTermination();
+    assertThat(ran).containsExactly("first", "second", "third", "fourth").inOrder();
+  }
+
+  /** Blocks the executor's only thread until the returned latch is counted down. */
+  private CountDownLatch occupyThread() {
+    final CountDownLatch busy = new CountDownLatch(1);
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              busy.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        });
+    return busy;
+  }
+
+  private Runnable task(final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        ran.add(name);
+      }
+    };
+  }
+
+  private void awaitTermination() throws InterruptedException {
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+  }
+}
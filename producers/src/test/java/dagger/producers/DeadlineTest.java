@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import com.google.common.collect.Range;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * Tests {@link Deadline}.
+ */
+@RunWith(JUnit4.class)
+public class DeadlineTest {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  @After
+  public void shutDownScheduler() {
+    scheduler.shutdownNow();
+  }
+
+  @Test public void pendingDeadline() {
+    Deadline deadline = Deadline.after(1, TimeUnit.HOURS, scheduler);
+    assertThat(deadline.isExpired()).isFalse();
+    assertThat(deadline.timeRemaining(TimeUnit.MINUTES)).isIn(Range.closed(59L, 60L));
+  }
+
+  @Test public void expiredDeadline_runsListeners() throws Exception {
+    Deadline deadline = Deadline.after(10, TimeUnit.MILLISECONDS, scheduler);
+    SettableFuture<Void> expired = listenerFor(deadline);
+
+    expired.get(10, TimeUnit.SECONDS);
+    assertThat(deadline.isExpired()).isTrue();
+    assertThat(deadline.timeRemaining(TimeUnit.NANOSECONDS)).isEqualTo(0);
+    assertThat(listenerFor(deadline).isDone()).isTrue();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeDuration() {
+    Deadline.after(-1, TimeUnit.SECONDS, scheduler);
+  }
+
+  private static SettableFuture<Void> listenerFor(Deadline deadline) {
+    final SettableFuture<Void> expired = SettableFuture.create();
+    deadline.addExpiryListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            expired.set(null);
+          }
+        },
+        directExecutor());
+    return expired;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * Tests {@link BulkheadPolicy}.
+ */
+@RunWith(JUnit4.class)
+public class BulkheadPolicyTest {
+  private final RecordingFunction function = new RecordingFunction();
+  private final List<String> invocations = function.invocations;
+  private final List<SettableFuture<String>> results = function.results;
+  private final RecordingMonitor monitor = new RecordingMonitor();
+
+  private AsyncFunction<String, String> limited(BulkheadPolicy policy) {
+    return policy.applying(function, directExecutor(), monitor);
+  }
+
+  @Test public void withinLimit_invokedRightAway() throws Exception {
+    BulkheadPolicy policy = new BulkheadPolicy("monkeys", 2, 0);
+    limited(policy).apply("monkey");
+    limited(policy).apply("gorilla");
+    assertThat(invocations).containsExactly("monkey", "gorilla").inOrder();
+    assertThat(policy.running()).isEqualTo(2);
+  }
+
+  @Test public void beyondLimit_queuedUntilSlotIsFree() throws Exception {
+    BulkheadPolicy policy = new BulkheadPolicy("monkeys", 1, 1);
+    ListenableFuture<String> first = limited(policy).apply("monkey");
+    ListenableFuture<String> second = limited(policy).apply("gorilla");
+    assertThat(invocations).containsExactly("monkey");
+    assertThat(policy.queueDepth()).isEqualTo(1);
+    assertThat(monitor.lastQueueDepth).isEqualTo(1);
+
+    results.get(0).set("first");
+    assertThat(first.get()).isEqualTo("first");
+    assertThat(invocations).containsExactly("monkey", "gorilla").inOrder();
+    assertThat(policy.queueDepth()).isEqualTo(0);
+    assertThat(policy.running()).isEqualTo(1);
+
+    results.get(1).set("second");
+    assertThat(second.get()).isEqualTo("second");
+    assertThat(policy.running()).isEqualTo(0);
+  }
+
+  @Test public void queueFull_rejected() throws Exception {
+    BulkheadPolicy policy = new BulkheadPolicy("monkeys", 1, 0);
+    limited(policy).apply("monkey");
+    ListenableFuture<String> rejected = limited(policy).apply("gorilla");
+
+    assertThat(invocations).containsExactly("monkey");
+    assertThat(monitor.rejections).isEqualTo(1);
+    try {
+      rejected.get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isInstanceOf(RejectedExecutionException.class);
+    }
+  }
+
+  @Test public void cancelledWhileQueued_neverInvoked() throws Exception {
+    BulkheadPolicy policy = new BulkheadPolicy("monkeys", 1, 1);
+    limited(policy).apply("monkey");
+    ListenableFuture<String> queued = limited(policy).apply("gorilla");
+
+    assertThat(queued.cancel(true)).isTrue();
+    assertThat(policy.queueDepth()).isEqualTo(0);
+    results.get(0).set("first");
+    assertThat(invocations).containsExactly("monkey");
+    assertThat(policy.running()).isEqualTo(0);
+  }
+
+  @Test public void failedInvocation_releasesSlot() throws Exception {
+    BulkheadPolicy policy = new BulkheadPolicy("monkeys", 1, 0);
+    AsyncFunction<String, String> throwing =
+        policy.applying(
+            new AsyncFunction<String, String>() {
+              @Override
+              public ListenableFuture<String> apply(String input) {
+                throw new IllegalStateException(input);
+              }
+            },
+            directExecutor(),
+            monitor);
+
+    try {
+      throwing.apply("monkey").get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+    assertThat(policy.running()).isEqualTo(0);
+  }
+
+  @Test public void named_sharedByName() {
+    BulkheadPolicy policy = BulkheadPolicy.named("BulkheadPolicyTest#named", 1, 0);
+    assertThat(BulkheadPolicy.named("BulkheadPolicyTest#named", 1, 0)).isSameAs(policy);
+    assertThat(BulkheadPolicy.named("BulkheadPolicyTest#other", 1, 0)).isNotSameAs(policy);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void named_differentLimits() {
+    BulkheadPolicy.named("BulkheadPolicyTest#differentLimits", 1, 0);
+    BulkheadPolicy.named("BulkheadPolicyTest#differentLimits", 5, 5);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.testing.FakeTicker;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.internal.FutureCombiner.AsyncCombiningFunction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * Tests {@link CachePolicy}.
+ */
+@RunWith(JUnit4.class)
+public class CachePolicyTest {
+  private final FakeTicker ticker = new FakeTicker();
+  private final RecordingFunction function = new RecordingFunction();
+  private final List<SettableFuture<String>> results = function.results;
+  private final RecordingMonitor monitor = new RecordingMonitor();
+
+  private AsyncFunction<String, String> cached(CachePolicy policy) {
+    return policy.applying(function, directExecutor(), monitor);
+  }
+
+  @Test public void cachedResult_reusedUntilExpired() throws Exception {
+    CachePolicy policy = new CachePolicy(1000, -1, -1, ticker, directExecutor());
+    ListenableFuture<String> first = cached(policy).apply("monkey");
+    results.get(0).set("result");
+
+    ticker.advance(999, TimeUnit.MILLISECONDS);
+    assertThat(cached(policy).apply("monkey").get()).isEqualTo("result");
+    assertThat(first.get()).isEqualTo("result");
+    assertThat(results).hasSize(1);
+
+    ticker.advance(1, TimeUnit.MILLISECONDS);
+    cached(policy).apply("monkey");
+    assertThat(results).hasSize(2);
+    assertThat(monitor.hits).isEqualTo(1);
+    assertThat(monitor.misses).isEqualTo(2);
+  }
+
+  @Test public void inFlightInvocation_shared() throws Exception {
+    CachePolicy policy = new CachePolicy(1000, -1, -1, ticker, directExecutor());
+    ListenableFuture<String> first = cached(policy).apply("monkey");
+    ListenableFuture<String> second = cached(policy).apply("monkey");
+    assertThat(results).hasSize(1);
+
+    results.get(0).set("result");
+    assertThat(first.get()).isEqualTo("result");
+    assertThat(second.get()).isEqualTo("result");
+  }
+
+  @Test public void failedInvocation_evicted() throws Exception {
+    CachePolicy policy = new CachePolicy(1000, -1, -1, ticker, directExecutor());
+    cached(policy).apply("monkey");
+    results.get(0).setException(new RuntimeException("monkey"));
+    assertThat(policy.size()).isEqualTo(0);
+
+    cached(policy).apply("monkey");
+    assertThat(results).hasSize(2);
+  }
+
+  @Test public void maximumSize_evicts() throws Exception {
+    CachePolicy policy = new CachePolicy(1000, 1, -1, ticker, directExecutor());
+    cached(policy).apply("monkey");
+    cached(policy).apply("gorilla");
+    assertThat(policy.size()).isEqualTo(1);
+
+    cached(policy).apply("monkey");
+    assertThat(results).hasSize(3);
+  }
+
+  @Test public void staleResult_refreshedInBackground() throws Exception {
+    CachePolicy policy = new CachePolicy(1000, -1, 500, ticker, directExecutor());
+    cached(policy).apply("monkey");
+    results.get(0).set("old");
+
+    ticker.advance(500, TimeUnit.MILLISECONDS);
+    assertThat(cached(policy).apply("monkey").get()).isEqualTo("old");
+    assertThat(results).hasSize(2);
+    assertThat(cached(policy).apply("monkey").get()).isEqualTo("old");
+    assertThat(results).hasSize(2);
+
+    results.get(1).set("new");
+    assertThat(cached(policy).apply("monkey").get()).isEqualTo("new");
+
+    // the refreshed result expires 1000ms after the refresh, not after the original invocation
+    ticker.advance(600, TimeUnit.MILLISECONDS);
+    assertThat(cached(policy).apply("monkey").get()).isEqualTo("new");
+  }
+
+  @Test public void refresh_notReportedToRequester() throws Exception {
+    CachePolicy policy = new CachePolicy(1000, -1, 500, ticker, directExecutor());
+    cached(policy).apply("monkey");
+    results.get(0).set("old");
+    assertThat(monitor.methodStarts).isEqualTo(1);
+    assertThat(monitor.methodFinishes).isEqualTo(1);
+
+    RecordingMonitor requester = new RecordingMonitor();
+    ticker.advance(500, TimeUnit.MILLISECONDS);
+    assertThat(policy.applying(function, directExecutor(), requester).apply("monkey").get())
+        .isEqualTo("old");
+    assertThat(results).hasSize(2);
+    assertThat(requester.hits).isEqualTo(1);
+    assertThat(requester.methodStarts).isEqualTo(0);
+    assertThat(requester.methodFinishes).isEqualTo(0);
+    assertThat(monitor.methodStarts).isEqualTo(1);
+  }
+
+  @Test public void combiningFunction_refreshedAfterCombinerReleasedInputs() throws Exception {
+    CachePolicy policy = new CachePolicy(1000, -1, 500, ticker, directExecutor());
+    final List<List<Object>> combinations = new ArrayList<List<Object>>();
+    AsyncCombiningFunction<String> combining =
+        new AsyncCombiningFunction<String>() {
+          @Override
+          public ListenableFuture<String> apply(FutureCombiner<String> inputs) {
+            List<Object> values = inputs.values();
+            combinations.add(values);
+            return Futures.immediateFuture(values.toString());
+          }
+        };
+    ListenableFuture<String> first =
+        FutureCombiner.combine(
+            policy.applyingCombining(combining, directExecutor(), monitor),
+            directExecutor(),
+            Futures.immediateFuture("monkey"),
+            Futures.immediateFuture(1));
+    assertThat(first.get()).isEqualTo("[monkey, 1]");
+
+    ticker.advance(500, TimeUnit.MILLISECONDS);
+    FutureCombiner.combine(
+        policy.applyingCombining(combining, directExecutor(), monitor),
+        directExecutor(),
+        Futures.immediateFuture("monkey"),
+        Futures.immediateFuture(1));
+    assertThat(combinations).hasSize(2);
+    assertThat(combinations.get(1)).containsExactly("monkey", 1).inOrder();
+  }
+
+  @Test public void cancellingRequester_doesNotCancelCachedInvocation() throws Exception {
+    CachePolicy policy = new CachePolicy(1000, -1, -1, ticker, directExecutor());
+    assertThat(cached(policy).apply("monkey").cancel(true)).isTrue();
+    assertThat(results.get(0).isCancelled()).isFalse();
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests {@link FusingExecutor}.
+ */
+@RunWith(JUnit4.class)
+public class FusingExecutorTest {
+  private final List<Runnable> submitted = new ArrayList<Runnable>();
+  private final List<String> log = new ArrayList<String>();
+  private final Executor productionExecutor =
+      new Executor() {
+        @Override
+        public void execute(Runnable command) {
+          submitted.add(command);
+        }
+      };
+  private final FusingExecutor executor = new FusingExecutor(productionExecutor);
+
+  private Runnable logging(final String message) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        log.add(message);
+      }
+    };
+  }
+
+  private int runSubmitted() {
+    int count = 0;
+    while (!submitted.isEmpty()) {
+      submitted.remove(0).run();
+      count++;
+    }
+    return count;
+  }
+
+  @Test public void taskFromOutsideChain_isSubmitted() {
+    executor.execute(logging("task"));
+    assertThat(log).isEmpty();
+    assertThat(runSubmitted()).isEqualTo(1);
+    assertThat(log).containsExactly("task");
+  }
+
+  @Test public void taskFromFusedTask_runsInline() {
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            executor.execute(logging("inner"));
+            log.add("outer");
+          }
+        });
+    assertThat(runSubmitted()).isEqualTo(1);
+    assertThat(log).containsExactly("inner", "outer").inOrder();
+  }
+
+  @Test public void taskFromOtherChainsFusedTask_runsInline() {
+    new FusingExecutor(productionExecutor).execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            executor.execute(logging("inner"));
+            log.add("outer");
+          }
+        });
+    assertThat(runSubmitted()).isEqualTo(1);
+    assertThat(log).containsExactly("inner", "outer").inOrder();
+  }
+
+  @Test public void taskAfterFusedTask_isSubmitted() {
+    executor.execute(logging("first"));
+    runSubmitted();
+
+    executor.execute(logging("second"));
+    assertThat(log).containsExactly("first");
+    assertThat(runSubmitted()).isEqualTo(1);
+  }
+
+  @Test public void longChain_isSubmittedOncePerMaxFusedDepth() throws Exception {
+    SettableFuture<Integer> input = SettableFuture.create();
+    ListenableFuture<Integer> result = input;
+    int length = FusingExecutor.MAX_FUSED_DEPTH * 3;
+    for (int i = 0; i < length; i++) {
+      result =
+          Futures.transform(
+              result,
+              new Function<Integer, Integer>() {
+                @Override
+                public Integer apply(Integer value) {
+                  return value + 1;
+                }
+              },
+              executor);
+    }
+    input.set(0);
+
+    assertThat(runSubmitted()).isAtMost(4);
+    assertThat(result.get()).isEqualTo(length);
+  }
+}
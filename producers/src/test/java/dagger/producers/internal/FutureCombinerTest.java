@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.testing.GcFinalization;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests {@link FutureCombiner}.
+ */
+@RunWith(JUnit4.class)
+public class FutureCombinerTest {
+  private final List<Runnable> tasks = new ArrayList<Runnable>();
+  private final Executor queueingExecutor =
+      new Executor() {
+        @Override
+        public void execute(Runnable task) {
+          tasks.add(task);
+        }
+      };
+
+  @Test public void combine_appliesOnExecutorOnceAllInputsSucceed() throws Exception {
+    SettableFuture<String> first = SettableFuture.create();
+    SettableFuture<Integer> second = SettableFuture.create();
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(concatenating(), queueingExecutor, first, second);
+
+    first.set("monkey");
+    assertThat(tasks).isEmpty();
+    second.set(42);
+    assertThat(combined.isDone()).isFalse();
+    assertThat(tasks).hasSize(1);
+
+    tasks.get(0).run();
+    assertThat(combined.get()).isEqualTo("monkey42");
+  }
+
+  @Test public void combine_completedInputs() throws Exception {
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(
+            concatenating(),
+            MoreExecutors.directExecutor(),
+            Futures.immediateFuture("monkey"),
+            Futures.immediateFuture(42));
+    assertThat(combined.get()).isEqualTo("monkey42");
+  }
+
+  @Test public void combine_failedInputFailsBeforeOtherInputsComplete() throws Exception {
+    SettableFuture<String> first = SettableFuture.create();
+    SettableFuture<Integer> second = SettableFuture.create();
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(concatenating(), queueingExecutor, first, second);
+
+    RuntimeException failure = new RuntimeException("monkey");
+    second.setException(failure);
+    assertThat(combined.isDone()).isTrue();
+    assertThat(getException(combined)).isSameAs(failure);
+    first.set("monkey");
+    assertThat(tasks).isEmpty();
+  }
+
+  @Test public void combine_cancelledInputCancels() throws Exception {
+    SettableFuture<String> first = SettableFuture.create();
+    SettableFuture<Integer> second = SettableFuture.create();
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(concatenating(), queueingExecutor, first, second);
+
+    first.cancel(false);
+    assertThat(combined.isCancelled()).isTrue();
+    assertThat(second.isCancelled()).isTrue();
+  }
+
+  @Test public void cancel_cancelsInputs() throws Exception {
+    SettableFuture<String> first = SettableFuture.create();
+    SettableFuture<Integer> second = SettableFuture.create();
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(concatenating(), queueingExecutor, first, second);
+
+    combined.cancel(true);
+    assertThat(first.isCancelled()).isTrue();
+    assertThat(second.isCancelled()).isTrue();
+    assertThat(tasks).isEmpty();
+  }
+
+  @Test public void combine_rejectedExecutionFails() throws Exception {
+    Executor rejecting =
+        new Executor() {
+          @Override
+          public void execute(Runnable task) {
+            throw new RejectedExecutionException();
+          }
+        };
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(
+            concatenating(),
+            rejecting,
+            Futures.immediateFuture("monkey"),
+            Futures.immediateFuture(42));
+    assertThat(getException(combined)).isInstanceOf(RejectedExecutionException.class);
+  }
+
+  @Test public void combine_throwingFunctionFails() throws Exception {
+    final Exception failure = new Exception("monkey");
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(
+            new FutureCombiner.AsyncCombiningFunction<String>() {
+              @Override
+              public ListenableFuture<String> apply(FutureCombiner<String> inputs)
+                  throws Exception {
+                throw failure;
+              }
+            },
+            MoreExecutors.directExecutor(),
+            Futures.immediateFuture("monkey"),
+            Futures.immediateFuture(42));
+    assertThat(getException(combined)).isSameAs(failure);
+  }
+
+  @Test public void applied_releasesInputsAndFunctionBeforeOutputCompletes() throws Exception {
+    SettableFuture<String> output = SettableFuture.create();
+    Object input = new Object();
+    FutureCombiner.AsyncCombiningFunction<String> function = returning(output);
+    WeakReference<Object> inputReference = new WeakReference<Object>(input);
+    WeakReference<Object> functionReference = new WeakReference<Object>(function);
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(
+            function,
+            MoreExecutors.directExecutor(),
+            Futures.immediateFuture(input),
+            Futures.immediateFuture(42));
+    input = null;
+    function = null;
+
+    assertThat(combined.isDone()).isFalse();
+    GcFinalization.awaitClear(inputReference);
+    GcFinalization.awaitClear(functionReference);
+    output.set("monkey");
+    assertThat(combined.get()).isEqualTo("monkey");
+  }
+
+  @Test public void failed_releasesInputs() throws Exception {
+    Object input = new Object();
+    WeakReference<Object> inputReference = new WeakReference<Object>(input);
+    SettableFuture<Integer> second = SettableFuture.create();
+    ListenableFuture<String> combined =
+        FutureCombiner.combine(
+            concatenating(), queueingExecutor, Futures.immediateFuture(input), second);
+    input = null;
+
+    second.setException(new RuntimeException("monkey"));
+    assertThat(combined.isDone()).isTrue();
+    GcFinalization.awaitClear(inputReference);
+  }
+
+  private static FutureCombiner.AsyncCombiningFunction<String> concatenating() {
+    return new FutureCombiner.AsyncCombiningFunction<String>() {
+      @Override
+      public ListenableFuture<String> apply(FutureCombiner<String> inputs) {
+        String first = inputs.value(0);
+        Integer second = inputs.value(1);
+        return Futures.immediateFuture(first + second);
+      }
+    };
+  }
+
+  private static FutureCombiner.AsyncCombiningFunction<String> returning(
+      final ListenableFuture<String> output) {
+    return new FutureCombiner.AsyncCombiningFunction<String>() {
+      @Override
+      public ListenableFuture<String> apply(FutureCombiner<String> inputs) {
+        return output;
+      }
+    };
+  }
+
+  private static Throwable getException(ListenableFuture<?> future) throws Exception {
+    try {
+      future.get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.testing.FakeTicker;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * Tests {@link HedgePolicy}.
+ */
+@RunWith(JUnit4.class)
+public class HedgePolicyTest {
+  private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+  private final FakeTicker ticker = new FakeTicker();
+  private final RecordingFunction function = new RecordingFunction();
+  private final List<SettableFuture<String>> results = function.results;
+  private final RecordingMonitor monitor = new RecordingMonitor();
+
+  @After
+  public void shutDownTimer() {
+    timer.shutdownNow();
+  }
+
+  private AsyncFunction<String, String> hedged(HedgePolicy policy) {
+    return policy.applying(function, directExecutor(), monitor);
+  }
+
+  @Test public void slowInvocation_hedged() throws Exception {
+    HedgePolicy policy = new HedgePolicy(10, 0, timer, ticker);
+    ListenableFuture<String> result = hedged(policy).apply("monkey");
+
+    function.awaitInvocations(2);
+    assertThat(monitor.hedges).isEqualTo(1);
+    assertThat(monitor.methodStarts).isEqualTo(1);
+    assertThat(monitor.methodFinishes).isEqualTo(1);
+    results.get(1).set("second");
+    assertThat(result.get()).isEqualTo("second");
+    assertCancelled(results.get(0));
+  }
+
+  @Test public void firstInvocationWins_cancelsHedge() throws Exception {
+    HedgePolicy policy = new HedgePolicy(10, 0, timer, ticker);
+    ListenableFuture<String> result = hedged(policy).apply("monkey");
+
+    function.awaitInvocations(2);
+    results.get(0).set("first");
+    assertThat(result.get()).isEqualTo("first");
+    assertCancelled(results.get(1));
+  }
+
+  @Test public void fastInvocation_notHedged() throws Exception {
+    HedgePolicy policy = new HedgePolicy(TimeUnit.HOURS.toMillis(1), 0, timer, ticker);
+    ListenableFuture<String> result = hedged(policy).apply("monkey");
+
+    results.get(0).set("first");
+    assertThat(result.get()).isEqualTo("first");
+    assertThat(results).hasSize(1);
+    assertThat(monitor.hedges).isEqualTo(0);
+  }
+
+  @Test public void completedInvocation_returnedAsIs() throws Exception {
+    HedgePolicy policy = new HedgePolicy(10, 0, timer, ticker);
+    final ListenableFuture<String> done = Futures.immediateFuture("done");
+    AsyncFunction<String, String> immediate =
+        policy.applying(
+            new AsyncFunction<String, String>() {
+              @Override
+              public ListenableFuture<String> apply(String input) {
+                return done;
+              }
+            },
+            directExecutor(),
+            monitor);
+
+    assertThat(immediate.apply("monkey")).isSameAs(done);
+    assertThat(monitor.hedges).isEqualTo(0);
+  }
+
+  @Test public void failedInvocation_failsResult() throws Exception {
+    HedgePolicy policy = new HedgePolicy(TimeUnit.HOURS.toMillis(1), 0, timer, ticker);
+    ListenableFuture<String> result = hedged(policy).apply("monkey");
+    RuntimeException failure = new RuntimeException("monkey");
+
+    results.get(0).setException(failure);
+    assertThat(result.isDone()).isTrue();
+    try {
+      result.get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isSameAs(failure);
+    }
+  }
+
+  @Test public void firstInvocationFails_hedgeInFlight_takesHedge() throws Exception {
+    HedgePolicy policy = new HedgePolicy(10, 0, timer, ticker);
+    ListenableFuture<String> result = hedged(policy).apply("monkey");
+
+    function.awaitInvocations(2);
+    results.get(0).setException(new RuntimeException("monkey"));
+    assertThat(result.isDone()).isFalse();
+    results.get(1).set("second");
+    assertThat(result.get()).isEqualTo("second");
+  }
+
+  @Test public void everyInvocationFails_failsResultWithFirstFailure() throws Exception {
+    HedgePolicy policy = new HedgePolicy(10, 0, timer, ticker);
+    ListenableFuture<String> result = hedged(policy).apply("monkey");
+    RuntimeException failure = new RuntimeException("monkey");
+
+    function.awaitInvocations(2);
+    results.get(1).setException(failure);
+    assertThat(result.isDone()).isFalse();
+    results.get(0).setException(new RuntimeException("gorilla"));
+    try {
+      result.get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isSameAs(failure);
+    }
+  }
+
+  @Test public void cancellingResult_cancelsInvocations() throws Exception {
+    HedgePolicy policy = new HedgePolicy(TimeUnit.HOURS.toMillis(1), 0, timer, ticker);
+    ListenableFuture<String> result = hedged(policy).apply("monkey");
+
+    assertThat(result.cancel(true)).isTrue();
+    assertThat(results.get(0).isCancelled()).isTrue();
+  }
+
+  @Test public void percentile_replacesDelayOnceObserved() throws Exception {
+    HedgePolicy policy = new HedgePolicy(TimeUnit.HOURS.toMillis(1), 50, timer, ticker);
+    for (int i = 1; i <= 20; i++) {
+      assertThat(policy.hedgeDelayNanos()).isEqualTo(TimeUnit.HOURS.toNanos(1));
+      hedged(policy).apply("monkey");
+      ticker.advance(i, TimeUnit.MILLISECONDS);
+      results.get(i - 1).set("result");
+    }
+    assertThat(policy.hedgeDelayNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+  }
+
+  @Test public void percentile_includesInvocationsCompletedOnReturn() throws Exception {
+    HedgePolicy policy = new HedgePolicy(TimeUnit.HOURS.toMillis(1), 50, timer, ticker);
+    AsyncFunction<String, String> immediate =
+        policy.applying(
+            new AsyncFunction<String, String>() {
+              @Override
+              public ListenableFuture<String> apply(String input) {
+                ticker.advance(1, TimeUnit.MILLISECONDS);
+                return Futures.immediateFuture("done");
+              }
+            },
+            directExecutor(),
+            monitor);
+    for (int i = 0; i < 20; i++) {
+      immediate.apply("monkey");
+    }
+    assertThat(policy.hedgeDelayNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  /** Asserts that {@code future} is cancelled, possibly by another thread. */
+  private static void assertCancelled(ListenableFuture<?> future) throws Exception {
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      throw new AssertionError("expected the future to be cancelled");
+    } catch (CancellationException expected) {
+    }
+  }
+}
@@ -16,7 +16,11 @@
 package dagger.producers.internal;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import org.junit.Test;
@@ -76,4 +80,34 @@ public final class MapProducerTest {
       assertThat(e.getCause()).isSameAs(cause);
     }
   }
+
+  @Test
+  public void fanOutLimit_startsProducersAsEarlierOnesComplete() throws Exception {
+    final List<SettableFuture<String>> started = new ArrayList<SettableFuture<String>>();
+    Producer<String> settableProducer =
+        new Producer<String>() {
+          @Override
+          public ListenableFuture<String> get() {
+            SettableFuture<String> future = SettableFuture.create();
+            started.add(future);
+            return future;
+          }
+        };
+    Producer<Map<Integer, String>> mapProducer =
+        MapProducer.create(
+            Producers.<Map<Integer, Producer<String>>>immediateProducer(
+                ImmutableMap.<Integer, Producer<String>>of(
+                    15, settableProducer, 42, settableProducer, 99, settableProducer)),
+            1);
+    ListenableFuture<Map<Integer, String>> future = mapProducer.get();
+    assertThat(started).hasSize(1);
+
+    started.get(0).set("fifteen");
+    assertThat(started).hasSize(2);
+    started.get(1).set("forty two");
+    started.get(2).set("ninety nine");
+    Map<Integer, String> map = future.get();
+    assertThat(map).isEqualTo(ImmutableMap.of(15, "fifteen", 42, "forty two", 99, "ninety nine"));
+    assertThat(map.keySet()).containsExactly(15, 42, 99).inOrder();
+  }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An invocation of a producer method for the tests of {@link InvocationPolicy}s. Each call records
+ * its input and returns a new {@link SettableFuture}, which the test completes.
+ */
+final class RecordingFunction implements AsyncFunction<String, String> {
+  final List<String> invocations = Collections.synchronizedList(new ArrayList<String>());
+  final List<SettableFuture<String>> results =
+      Collections.synchronizedList(new ArrayList<SettableFuture<String>>());
+
+  @Override
+  public ListenableFuture<String> apply(String input) {
+    SettableFuture<String> result = SettableFuture.create();
+    synchronized (this) {
+      invocations.add(input);
+      results.add(result);
+      notifyAll();
+    }
+    return result;
+  }
+
+  /** Waits until the function has been invoked {@code count} times, possibly by other threads. */
+  synchronized void awaitInvocations(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (results.size() < count) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        throw new AssertionError("expected " + count + " invocations, got " + results.size());
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+  }
+}
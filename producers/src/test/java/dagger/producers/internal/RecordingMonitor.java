@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import dagger.producers.monitoring.ProducerMonitor;
+
+/** A monitor that counts the events of {@link InvocationPolicy}s, for their tests. */
+final class RecordingMonitor extends ProducerMonitor {
+  volatile int methodStarts;
+  volatile int methodFinishes;
+  volatile int hits;
+  volatile int misses;
+  volatile int hedges;
+  volatile int lastQueueDepth;
+  volatile int rejections;
+
+  @Override
+  public void methodStarting() {
+    methodStarts++;
+  }
+
+  @Override
+  public void methodFinished() {
+    methodFinishes++;
+  }
+
+  @Override
+  public void cacheHit() {
+    hits++;
+  }
+
+  @Override
+  public void cacheMissed() {
+    misses++;
+  }
+
+  @Override
+  public void hedged() {
+    hedges++;
+  }
+
+  @Override
+  public void bulkheadQueued(String bulkhead, int queueDepth) {
+    lastQueueDepth = queueDepth;
+  }
+
+  @Override
+  public void bulkheadRejected(String bulkhead) {
+    rejections++;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Producer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link ReleasingProducer}.
+ */
+@RunWith(JUnit4.class)
+public class ReleasingProducerTest {
+  private final SettableFuture<String> result = SettableFuture.create();
+  private int computations;
+  private final Producer<String> producer =
+      new AbstractProducer<String>() {
+        @Override
+        protected ListenableFuture<String> compute() {
+          computations++;
+          return result;
+        }
+      };
+
+  @Test public void everyConsumer_getsSameResult() {
+    ReleasingProducer<String> releasing = new ReleasingProducer<String>(producer, 3);
+    assertThat(releasing.get()).isSameAs(result);
+    assertThat(releasing.get()).isSameAs(result);
+    assertThat(releasing.get()).isSameAs(result);
+    assertThat(computations).isEqualTo(1);
+  }
+
+  @Test public void releasedOnlyAfterLastConsumer() {
+    ReleasingProducer<String> releasing = new ReleasingProducer<String>(producer, 2);
+    releasing.get();
+    assertThat(releasing.released()).isFalse();
+    releasing.get();
+    assertThat(releasing.released()).isTrue();
+  }
+
+  @Test public void requestAfterRelease_fails() {
+    ReleasingProducer<String> releasing = new ReleasingProducer<String>(producer, 1);
+    releasing.get();
+    try {
+      releasing.get();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    assertThat(computations).isEqualTo(1);
+  }
+
+  @Test public void noConsumers_fails() {
+    try {
+      new ReleasingProducer<String>(producer, 0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
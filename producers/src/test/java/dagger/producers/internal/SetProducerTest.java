@@ -17,8 +17,11 @@ package dagger.producers.internal;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import org.junit.Test;
@@ -89,4 +92,58 @@ public class SetProducerTest {
       assertThat(e.getCause()).isInstanceOf(NullPointerException.class);
     }
   }
+
+  @Test
+  public void fanOutLimit_startsProducersAsEarlierOnesComplete() throws Exception {
+    List<SettableFuture<Integer>> started = new ArrayList<SettableFuture<Integer>>();
+    Producer<Set<Integer>> producer =
+        SetProducer.<Integer>builder(3, 1)
+            .addProducer(settableProducer(started))
+            .addProducer(settableProducer(started))
+            .addProducer(settableProducer(started))
+            .addCollectionProducer(Producers.<Set<Integer>>immediateProducer(ImmutableSet.of(4)))
+            .fanOutLimit(2)
+            .build();
+    ListenableFuture<Set<Integer>> future = producer.get();
+    assertThat(started).hasSize(2);
+
+    started.get(1).set(2);
+    assertThat(started).hasSize(3);
+    started.get(0).set(1);
+    started.get(2).set(3);
+    assertThat(future.get()).containsExactly(1, 2, 3, 4).inOrder();
+  }
+
+  @Test
+  public void fanOutLimit_failureStopsUnstartedProducers() throws Exception {
+    List<SettableFuture<Integer>> started = new ArrayList<SettableFuture<Integer>>();
+    Producer<Set<Integer>> producer =
+        SetProducer.<Integer>builder(3, 0)
+            .addProducer(settableProducer(started))
+            .addProducer(settableProducer(started))
+            .addProducer(settableProducer(started))
+            .fanOutLimit(1)
+            .build();
+    ListenableFuture<Set<Integer>> future = producer.get();
+    RuntimeException cause = new RuntimeException("monkey");
+    started.get(0).setException(cause);
+    assertThat(started).hasSize(1);
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isSameAs(cause);
+    }
+  }
+
+  private static Producer<Integer> settableProducer(final List<SettableFuture<Integer>> started) {
+    return new Producer<Integer>() {
+      @Override
+      public ListenableFuture<Integer> get() {
+        SettableFuture<Integer> future = SettableFuture.create();
+        started.add(future);
+        return future;
+      }
+    };
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.internal.FutureCombiner.AsyncCombiningFunction;
+import dagger.producers.monitoring.ProducerMonitor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * Tests {@link SingleFlightPolicy}.
+ */
+@RunWith(JUnit4.class)
+public class SingleFlightPolicyTest {
+  private final SingleFlightPolicy policy = new SingleFlightPolicy();
+  private final RecordingFunction function = new RecordingFunction();
+  private final List<String> invocations = function.invocations;
+  private final List<SettableFuture<String>> results = function.results;
+
+  private AsyncFunction<String, String> sharedFunction() {
+    return policy.applying(function, directExecutor(), ProducerMonitor.noOp());
+  }
+
+  @Test public void sameInputsInFlight_shareOneInvocation() throws Exception {
+    ListenableFuture<String> first = sharedFunction().apply("monkey");
+    ListenableFuture<String> second = sharedFunction().apply("monkey");
+    assertThat(invocations).containsExactly("monkey");
+
+    results.get(0).set("result");
+    assertThat(first.get()).isEqualTo("result");
+    assertThat(second.get()).isEqualTo("result");
+  }
+
+  @Test public void differentInputs_invokeSeparately() throws Exception {
+    sharedFunction().apply("monkey");
+    sharedFunction().apply("gorilla");
+    assertThat(invocations).containsExactly("monkey", "gorilla").inOrder();
+    assertThat(policy.inFlightCount()).isEqualTo(2);
+  }
+
+  @Test public void completedInvocation_isForgotten() throws Exception {
+    sharedFunction().apply("monkey");
+    results.get(0).set("result");
+    assertThat(policy.inFlightCount()).isEqualTo(0);
+
+    sharedFunction().apply("monkey");
+    assertThat(invocations).containsExactly("monkey", "monkey");
+  }
+
+  @Test public void failedInvocation_failsEveryRequester() throws Exception {
+    ListenableFuture<String> first = sharedFunction().apply("monkey");
+    ListenableFuture<String> second = sharedFunction().apply("monkey");
+    RuntimeException failure = new RuntimeException("monkey");
+    results.get(0).setException(failure);
+
+    for (ListenableFuture<String> future : ImmutableList.of(first, second)) {
+      try {
+        future.get();
+        throw new AssertionError("expected the future to fail");
+      } catch (ExecutionException expected) {
+        assertThat(expected.getCause()).isSameAs(failure);
+      }
+    }
+    assertThat(policy.inFlightCount()).isEqualTo(0);
+  }
+
+  @Test public void cancellingRequester_doesNotCancelSharedInvocation() throws Exception {
+    ListenableFuture<String> first = sharedFunction().apply("monkey");
+    ListenableFuture<String> second = sharedFunction().apply("monkey");
+
+    assertThat(first.cancel(true)).isTrue();
+    assertThat(results.get(0).isCancelled()).isFalse();
+    results.get(0).set("result");
+    assertThat(second.get()).isEqualTo("result");
+  }
+
+  @Test public void combiningFunction_keyedByAllInputs() throws Exception {
+    final List<List<Object>> combinations = new ArrayList<List<Object>>();
+    AsyncCombiningFunction<String> combining =
+        new AsyncCombiningFunction<String>() {
+          @Override
+          public ListenableFuture<String> apply(FutureCombiner<String> inputs) {
+            combinations.add(inputs.values());
+            return SettableFuture.create();
+          }
+        };
+
+    FutureCombiner.combine(
+        policy.applyingCombining(combining, directExecutor(), ProducerMonitor.noOp()),
+        directExecutor(),
+        Futures.immediateFuture("monkey"),
+        Futures.immediateFuture(1));
+    FutureCombiner.combine(
+        policy.applyingCombining(combining, directExecutor(), ProducerMonitor.noOp()),
+        directExecutor(),
+        Futures.immediateFuture("monkey"),
+        Futures.immediateFuture(1));
+    FutureCombiner.combine(
+        policy.applyingCombining(combining, directExecutor(), ProducerMonitor.noOp()),
+        directExecutor(),
+        Futures.immediateFuture("monkey"),
+        Futures.immediateFuture(2));
+
+    assertThat(combinations).hasSize(2);
+    assertThat(combinations.get(0)).containsExactly("monkey", 1).inOrder();
+    assertThat(combinations.get(1)).containsExactly("monkey", 2).inOrder();
+  }
+}
@@ -116,4 +116,27 @@ public final class TimingProductionComponentMonitorTest {
     verify(producerTimingRecorderB).recordFailure(failureB, 2000777 + 3000999 + 100000222);
     verifyNoMoreInteractions(producerTimingRecorderA, producerTimingRecorderB);
   }
+
+  @Test
+  public void hedgedExecution_recordsFirstAttempt() {
+    ProductionComponentMonitor monitor = monitorFactory.create(new Object());
+    ProducerMonitor producerMonitorA =
+        monitor.producerMonitorFor(ProducerToken.create(ProducerClassA.class));
+    ticker.advance(5000222);
+    producerMonitorA.methodStarting();
+    ticker.advance(1333);
+    producerMonitorA.methodFinished();
+    ticker.advance(40000555);
+    producerMonitorA.hedged();
+    producerMonitorA.methodStarting();
+    ticker.advance(2000777);
+    producerMonitorA.methodFinished();
+    ticker.advance(3000999);
+    producerMonitorA.succeeded(new Object());
+
+    verify(producerTimingRecorderA).recordMethod(5000222, 1333);
+    verify(producerTimingRecorderA).recordHedge(1333 + 40000555);
+    verify(producerTimingRecorderA).recordSuccess(1333 + 40000555 + 2000777 + 3000999);
+    verifyNoMoreInteractions(producerTimingRecorderA);
+  }
 }
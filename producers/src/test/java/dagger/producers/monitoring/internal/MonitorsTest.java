@@ -16,9 +16,21 @@
 package dagger.producers.monitoring.internal;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.testing.GcFinalization;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.internal.InstanceFactory;
+import dagger.producers.Deadline;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,9 +40,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -49,11 +63,18 @@ public final class MonitorsTest {
   @Mock private ProducerMonitor mockProducerMonitorB;
   @Mock private ProducerMonitor mockProducerMonitorC;
 
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
   @Before
   public void initMocks() {
     MockitoAnnotations.initMocks(this);
   }
 
+  @After
+  public void shutDownScheduler() {
+    scheduler.shutdownNow();
+  }
+
   @Test
   public void zeroMonitorsReturnsNoOp() {
     ProductionComponentMonitor.Factory factory =
@@ -461,6 +482,93 @@ public final class MonitorsTest {
     verifyNoMoreInteractions(mockProducerMonitorA, mockProducerMonitorB, mockProducerMonitorC);
   }
 
+  @Test
+  public void noMonitorsOrDeadlinesReturnsNoOp() {
+    ProductionComponentMonitor monitor =
+        Monitors.createMonitorForComponent(
+            InstanceFactory.create(new Object()),
+            InstanceFactory.<Set<ProductionComponentMonitor.Factory>>create(
+                ImmutableSet.<ProductionComponentMonitor.Factory>of()),
+            InstanceFactory.<Set<Deadline>>create(ImmutableSet.<Deadline>of()));
+    assertThat(monitor).isSameAs(ProductionComponentMonitor.noOp());
+  }
+
+  @Test
+  public void deadline_cancelsOutstandingFutures() throws Exception {
+    setUpNormalSingleMonitor();
+    ProducerMonitor producerMonitor =
+        monitorWithDeadline(Deadline.after(10, TimeUnit.MILLISECONDS, scheduler))
+            .producerMonitorFor(ProducerToken.create(Object.class));
+    SettableFuture<Object> outstanding = SettableFuture.create();
+    SettableFuture<Object> done = SettableFuture.create();
+    done.set("monkey");
+
+    producerMonitor.addCallbackTo(outstanding);
+    producerMonitor.addCallbackTo(done);
+
+    try {
+      outstanding.get(10, TimeUnit.SECONDS);
+      throw new AssertionError("expected the future to be cancelled");
+    } catch (CancellationException expected) {
+    }
+    assertThat(done.isCancelled()).isFalse();
+    verify(mockProducerMonitor).addCallbackTo(outstanding);
+    verify(mockProducerMonitor).addCallbackTo(done);
+  }
+
+  @Test
+  public void expiredDeadline_cancelsFutureWhenRequested() throws Exception {
+    setUpNormalSingleMonitor();
+    Deadline deadline = Deadline.after(0, TimeUnit.MILLISECONDS, scheduler);
+    awaitExpiry(deadline);
+    ProducerMonitor producerMonitor =
+        monitorWithDeadline(deadline).producerMonitorFor(ProducerToken.create(Object.class));
+    SettableFuture<Object> future = SettableFuture.create();
+
+    producerMonitor.requested();
+    producerMonitor.addCallbackTo(future);
+
+    assertThat(future.isCancelled()).isTrue();
+    verify(mockProducerMonitor).requested();
+    verify(mockProducerMonitor).addCallbackTo(future);
+    verifyNoMoreInteractions(mockProducerMonitor);
+  }
+
+  @Test
+  public void deadline_doesNotRetainComponentMonitor() {
+    Deadline deadline = Deadline.after(1, TimeUnit.HOURS, scheduler);
+    WeakReference<ProductionComponentMonitor> monitor =
+        new WeakReference<ProductionComponentMonitor>(
+            Monitors.createMonitorForComponent(
+                InstanceFactory.create(new Object()),
+                InstanceFactory.<Set<ProductionComponentMonitor.Factory>>create(
+                    ImmutableSet.<ProductionComponentMonitor.Factory>of()),
+                InstanceFactory.<Set<Deadline>>create(ImmutableSet.of(deadline))));
+    GcFinalization.awaitClear(monitor);
+    assertThat(deadline.isExpired()).isFalse();
+  }
+
+  private ProductionComponentMonitor monitorWithDeadline(Deadline deadline) {
+    return Monitors.createMonitorForComponent(
+        InstanceFactory.create(new Object()),
+        InstanceFactory.<Set<ProductionComponentMonitor.Factory>>create(
+            ImmutableSet.of(mockProductionComponentMonitorFactory)),
+        InstanceFactory.<Set<Deadline>>create(ImmutableSet.of(deadline)));
+  }
+
+  private static void awaitExpiry(Deadline deadline) throws Exception {
+    final SettableFuture<Void> expired = SettableFuture.create();
+    deadline.addExpiryListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            expired.set(null);
+          }
+        },
+        directExecutor());
+    expired.get(10, TimeUnit.SECONDS);
+  }
+
   private void setUpNormalSingleMonitor() {
     when(mockProductionComponentMonitorFactory.create(any(Object.class)))
         .thenReturn(mockProductionComponentMonitor);
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests {@link CompletionStages}.
+ */
+@RunWith(JUnit4.class)
+public class CompletionStagesTest {
+  @Test public void toListenableFuture_succeeds() throws Exception {
+    CompletableFuture<String> stage = new CompletableFuture<String>();
+    ListenableFuture<String> future = CompletionStages.toListenableFuture(stage);
+    assertThat(future.isDone()).isFalse();
+
+    stage.complete("monkey");
+    assertThat(future.get()).isEqualTo("monkey");
+  }
+
+  @Test public void toListenableFuture_failsWithUnwrappedCause() throws Exception {
+    CompletableFuture<String> stage = new CompletableFuture<String>();
+    ListenableFuture<Integer> future =
+        CompletionStages.toListenableFuture(
+            stage.thenApply(
+                new Function<String, Integer>() {
+                  @Override
+                  public Integer apply(String value) {
+                    return value.length();
+                  }
+                }));
+
+    RuntimeException cause = new RuntimeException("monkey");
+    stage.completeExceptionally(cause);
+    try {
+      future.get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isSameAs(cause);
+    }
+  }
+
+  @Test public void toListenableFuture_cancelledStage_cancelsFuture() {
+    CompletableFuture<String> stage = new CompletableFuture<String>();
+    ListenableFuture<String> future = CompletionStages.toListenableFuture(stage);
+
+    stage.cancel(false);
+    assertThat(future.isCancelled()).isTrue();
+  }
+
+  @Test public void toListenableFuture_cancellationPropagatesToStage() {
+    CompletableFuture<String> stage = new CompletableFuture<String>();
+    ListenableFuture<String> future = CompletionStages.toListenableFuture(stage);
+
+    assertThat(future.cancel(true)).isTrue();
+    assertThat(stage.isCancelled()).isTrue();
+  }
+
+  @Test public void toListenableFuture_listenableStage_returnsSameInstance() {
+    ListenableCompletableFuture<String> stage = new ListenableCompletableFuture<String>();
+    assertThat(CompletionStages.toListenableFuture(stage)).isSameAs(stage);
+  }
+
+  @Test public void toCompletableFuture_succeeds() throws Exception {
+    SettableFuture<String> future = SettableFuture.create();
+    CompletableFuture<String> completable = CompletionStages.toCompletableFuture(future);
+    assertThat(completable.isDone()).isFalse();
+
+    future.set("monkey");
+    assertThat(completable.get()).isEqualTo("monkey");
+  }
+
+  @Test public void toCompletableFuture_fails() throws Exception {
+    SettableFuture<String> future = SettableFuture.create();
+    CompletableFuture<String> completable = CompletionStages.toCompletableFuture(future);
+
+    RuntimeException cause = new RuntimeException("monkey");
+    future.setException(cause);
+    try {
+      completable.get();
+      throw new AssertionError("expected the future to fail");
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isSameAs(cause);
+    }
+  }
+
+  @Test public void toCompletableFuture_cancellationPropagatesBothWays() {
+    SettableFuture<String> future = SettableFuture.create();
+    CompletableFuture<String> completable = CompletionStages.toCompletableFuture(future);
+    assertThat(completable.cancel(true)).isTrue();
+    assertThat(future.isCancelled()).isTrue();
+
+    SettableFuture<String> otherFuture = SettableFuture.create();
+    CompletableFuture<String> otherCompletable = CompletionStages.toCompletableFuture(otherFuture);
+    otherFuture.cancel(false);
+    assertThat(otherCompletable.isCancelled()).isTrue();
+  }
+
+  private static final class ListenableCompletableFuture<T> extends CompletableFuture<T>
+      implements ListenableFuture<T> {
+    @Override
+    public void addListener(Runnable listener, Executor executor) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}